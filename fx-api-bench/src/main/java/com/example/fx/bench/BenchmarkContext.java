@@ -0,0 +1,161 @@
+package com.example.fx.bench;
+
+import com.example.fx.FxTradeApplication;
+import com.example.fx.controller.FxController;
+import com.example.fx.repository.QuoteRepository;
+import com.example.fx.repository.TradeRepository;
+import com.example.fx.service.DatasetGenerator;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The context the benchmarks run in: a Spring context of {@link FxTradeApplication} on a fresh in-memory H2 database,
+ * seeded by {@link DatasetGenerator} with datasetSize quotes and as many trades, shared by all benchmark threads.
+ *
+ * The dataset is generated from the fixed {@code fx.datagen.seed}, so every trial of a given size starts from the
+ * same rows. Quote expiry is off, so no sweeper deletes rows behind a benchmark's back. Rows the benchmarks create
+ * are deleted after every iteration, so the tables stay at datasetSize rows however many operations an iteration
+ * runs. Ids and quoteIds to look up are drawn per thread, by the {@link Draws} each benchmark thread takes in its
+ * setup; a random shared by the threads would have them contend on it, and SplittableRandom is not thread-safe.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkContext {
+
+    private static final String[] ARGS = {
+            "--logging.level.root=WARN",
+            "--spring.jpa.show-sql=false",
+            "--fx.quote.expiry.enabled=false",
+            "--server.port=0"
+    };
+    // quoteIds sampled from the seeded quotes for the validation benchmarks
+    private static final int QUOTE_ID_SAMPLE = 1024;
+
+    @Param({"1000", "10000", "100000"})
+    public int datasetSize;
+
+    ConfigurableApplicationContext context;
+    FxController controller;
+    QuoteRepository quoteRepository;
+    TradeRepository tradeRepository;
+
+    private JdbcTemplate jdbc;
+    private long firstQuoteId;
+    private long lastQuoteId;
+    private long firstTradeId;
+    private long lastTradeId;
+    private List<String> quoteIds;
+    // Seeds the threads' draws; guarded by this
+    private SplittableRandom seeds;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(FxTradeApplication.class)
+                .web(webApplicationType())
+                .bannerMode(Banner.Mode.OFF)
+                .run(ARGS);
+        controller = context.getBean(FxController.class);
+        quoteRepository = context.getBean(QuoteRepository.class);
+        tradeRepository = context.getBean(TradeRepository.class);
+        jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+        context.getBean(DatasetGenerator.class).generate(datasetSize, datasetSize);
+        firstQuoteId = jdbc.queryForObject("SELECT MIN(id) FROM quote", Long.class);
+        lastQuoteId = jdbc.queryForObject("SELECT MAX(id) FROM quote", Long.class);
+        firstTradeId = jdbc.queryForObject("SELECT MIN(id) FROM trade", Long.class);
+        lastTradeId = jdbc.queryForObject("SELECT MAX(id) FROM trade", Long.class);
+        SplittableRandom random = new SplittableRandom(42);
+        quoteIds = jdbc.queryForList("SELECT quote_id FROM quote ORDER BY id", String.class).stream()
+                .filter(id -> random.nextInt(datasetSize) < QUOTE_ID_SAMPLE)
+                .toList();
+        seeds = random.split();
+        started();
+    }
+
+    /**
+     * Web application type of the context; NONE unless a benchmark dispatches requests.
+     */
+    protected WebApplicationType webApplicationType() {
+        return WebApplicationType.NONE;
+    }
+
+    /**
+     * Called once the context is running and seeded.
+     */
+    protected void started() {
+    }
+
+    // Keeps the tables at datasetSize rows
+    @TearDown(Level.Iteration)
+    public void deleteCreatedRows() {
+        jdbc.update("DELETE FROM trade WHERE id > ?", lastTradeId);
+        jdbc.update("DELETE FROM quote WHERE id > ?", lastQuoteId);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    /**
+     * Ids and quoteIds for the calling benchmark thread to look up. Take it once per thread, in a trial setup; every
+     * call splits off a new sequence.
+     */
+    synchronized Draws draws() {
+        return new Draws(this, seeds.split());
+    }
+
+    /**
+     * All quoteIds {@link Draws#seededQuoteId()} draws from.
+     */
+    List<String> seededQuoteIds() {
+        return quoteIds;
+    }
+
+    /**
+     * One benchmark thread's random ids and quoteIds, from a seeded sequence of its own.
+     */
+    static final class Draws {
+
+        private final BenchmarkContext context;
+        private final SplittableRandom random;
+
+        private Draws(BenchmarkContext context, SplittableRandom random) {
+            this.context = context;
+            this.random = random;
+        }
+
+        long quoteRowId() {
+            return random.nextLong(context.firstQuoteId, context.lastQuoteId + 1);
+        }
+
+        long tradeRowId() {
+            return random.nextLong(context.firstTradeId, context.lastTradeId + 1);
+        }
+
+        /**
+         * The quoteId of a seeded quote, for trades that pass validation.
+         */
+        String seededQuoteId() {
+            return context.quoteIds.get(random.nextInt(context.quoteIds.size()));
+        }
+
+        /**
+         * A random index below {@code bound}, from the same sequence as the ids.
+         */
+        int nextIndex(int bound) {
+            return random.nextInt(bound);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.fx.bench;
+
+import com.example.fx.controller.FxController;
+import com.example.fx.model.Quote;
+import com.example.fx.model.Trade;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ControllerBenchmark calls the {@link FxController} handlers directly: the bulkhead hand-off, the repository calls
+ * and the handler logic, without HTTP, MVC dispatch or JSON. Compare with {@link MockMvcBenchmark} for what the web
+ * layer adds, and with {@link RepositoryBenchmark} for what the handlers add to the repository operations.
+ *
+ * createTrade books a trade on a seeded quoteId, so it includes the quoteId validation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class ControllerBenchmark {
+
+    // Makes created quoteIds and tradeIds distinct within a trial
+    private long counter;
+    private BenchmarkContext.Draws draws;
+
+    @Setup(Level.Trial)
+    public void takeDraws(BenchmarkContext context) {
+        draws = context.draws();
+    }
+
+    @Benchmark
+    public Quote createQuote(BenchmarkContext context) {
+        return context.controller.createQuote(Payloads.quote("QB" + counter++)).join();
+    }
+
+    @Benchmark
+    public Quote getQuoteById(BenchmarkContext context) {
+        return context.controller.getQuoteById(draws.quoteRowId()).join();
+    }
+
+    @Benchmark
+    public Object createTrade(BenchmarkContext context) {
+        return context.controller.createTrade(Payloads.trade("TB" + counter++, draws.seededQuoteId())).join();
+    }
+
+    @Benchmark
+    public Trade getTradeById(BenchmarkContext context) {
+        return context.controller.getTradeById(draws.tradeRowId()).join();
+    }
+
+    @Benchmark
+    public List<Trade> searchTrades(BenchmarkContext context) {
+        return context.controller.searchTrades("EUR/USD", "CONFIRMED").join();
+    }
+}
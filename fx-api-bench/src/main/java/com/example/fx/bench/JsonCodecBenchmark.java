@@ -0,0 +1,189 @@
+package com.example.fx.bench;
+
+import com.example.fx.config.JsonCodecConfig;
+import com.example.fx.model.Quote;
+import com.example.fx.model.Trade;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JsonCodecBenchmark compares the fx.json.codec modes (see {@link JsonCodecConfig}) writing one quote, one trade,
+ * and lists of listSize quotes and trades, as the list endpoints do. Each operation writes to a discarding stream,
+ * as the message converter writes to the response, through an ObjectWriter for the declared type.
+ *
+ * Every operation writes rows it has not written before. Their prices are new BigDecimal instances, set up outside
+ * the measurement, as rows freshly loaded from the database would have; written again, a BigDecimal would use the
+ * text it cached the first time, and hide what formatting it costs.
+ *
+ * The ObjectMapper is configured as Spring Boot configures the application's, so there is no Spring context. Run
+ * with -prof gc for the bytes allocated per operation next to the throughput. Those bytes include the new prices,
+ * as the profiler counts the setup too; that part is the same for every mode.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class JsonCodecBenchmark {
+
+    // Unlike OutputStream.nullOutputStream(), stays usable after the writer closes it at the end of a value
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Param({"DEFAULT", "BLACKBIRD", "STREAMING"})
+    public JsonCodecConfig.Codec codec;
+
+    private ObjectWriter quoteWriter;
+    private ObjectWriter tradeWriter;
+    private ObjectWriter quoteListWriter;
+    private ObjectWriter tradeListWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var mapper = JsonCodecConfig.configure(Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build(), codec);
+        quoteWriter = mapper.writerFor(Quote.class);
+        tradeWriter = mapper.writerFor(Trade.class);
+        quoteListWriter = mapper.writerFor(new TypeReference<List<Quote>>() {
+        });
+        tradeListWriter = mapper.writerFor(new TypeReference<List<Trade>>() {
+        });
+    }
+
+    /**
+     * One quote and one trade, with new prices before every operation. A per-invocation setup adds some timing
+     * overhead to operations this short, the same for every mode, so compare the modes with each other.
+     */
+    @State(Scope.Thread)
+    public static class Row {
+
+        Quote quote;
+        Trade trade;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            quote = quote(0);
+            trade = trade(0, quote);
+        }
+
+        @Setup(Level.Invocation)
+        public void refresh() {
+            refreshPrices(quote);
+            refreshPrices(trade);
+        }
+    }
+
+    /**
+     * listSize quotes and trades, with new prices before every operation. Refreshing a list takes far less time than
+     * writing it, so the per-invocation setup does not distort the timing.
+     */
+    @State(Scope.Thread)
+    public static class Rows {
+
+        @Param({"10000"})
+        public int listSize;
+
+        List<Quote> quotes;
+        List<Trade> trades;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            quotes = new ArrayList<>(listSize);
+            trades = new ArrayList<>(listSize);
+            for (int i = 0; i < listSize; i++) {
+                Quote q = quote(i);
+                quotes.add(q);
+                trades.add(trade(i, q));
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void refresh() {
+            quotes.forEach(JsonCodecBenchmark::refreshPrices);
+            trades.forEach(JsonCodecBenchmark::refreshPrices);
+        }
+    }
+
+    // Distinct ids, times and prices, as rows of a table would have
+    private static Quote quote(int i) {
+        Quote q = Payloads.quote("Q" + (100_000 + i));
+        q.setId((long) i + 1);
+        q.setQuoteTime(q.getQuoteTime().plusSeconds(i).plusNanos(i * 1_000_000L % 1_000_000_000L));
+        q.setBid(q.getBid().add(BigDecimal.valueOf(i % 1000, 5)));
+        return q;
+    }
+
+    private static Trade trade(int i, Quote q) {
+        Trade t = Payloads.trade("T" + (100_000 + i), q.getQuoteId());
+        t.setId((long) i + 1);
+        t.setTradeDateTime(q.getQuoteTime().plusSeconds(2));
+        t.setNotional(BigDecimal.valueOf(100_000L * (1 + i % 50)));
+        return t;
+    }
+
+    private static void refreshPrices(Quote q) {
+        q.setBid(copy(q.getBid()));
+        q.setAsk(copy(q.getAsk()));
+        q.setMid(copy(q.getMid()));
+    }
+
+    private static void refreshPrices(Trade t) {
+        t.setNotional(copy(t.getNotional()));
+        t.setPrice(copy(t.getPrice()));
+    }
+
+    // An equal BigDecimal without the original's cached text
+    private static BigDecimal copy(BigDecimal value) {
+        return new BigDecimal(value.unscaledValue(), value.scale());
+    }
+
+    @Benchmark
+    public void writeQuote(Row row) throws IOException {
+        quoteWriter.writeValue(DISCARD, row.quote);
+    }
+
+    @Benchmark
+    public void writeTrade(Row row) throws IOException {
+        tradeWriter.writeValue(DISCARD, row.trade);
+    }
+
+    @Benchmark
+    public void writeQuoteList(Rows rows) throws IOException {
+        quoteListWriter.writeValue(DISCARD, rows.quotes);
+    }
+
+    @Benchmark
+    public void writeTradeList(Rows rows) throws IOException {
+        tradeListWriter.writeValue(DISCARD, rows.trades);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.fx.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * MockMvcBenchmark sends the {@link ControllerBenchmark} operations through MockMvc: request mapping, argument
+ * resolution, JSON reading and writing with the application's ObjectMapper, and the async dispatch of the
+ * CompletableFuture results, but no socket or Tomcat connector. Request bodies are rendered once per trial.
+ *
+ * A response other than 200, or an error body, fails the benchmark rather than timing an error path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class MockMvcBenchmark {
+
+    /**
+     * The benchmark context as a servlet context (on a random port, which the benchmarks do not use), with MockMvc.
+     */
+    @State(Scope.Benchmark)
+    public static class WebContext extends BenchmarkContext {
+
+        MockMvc mockMvc;
+        byte[] quoteBody;
+        // One body per seeded quoteId, so every booking passes validation
+        List<byte[]> tradeBodies;
+
+        @Override
+        protected WebApplicationType webApplicationType() {
+            return WebApplicationType.SERVLET;
+        }
+
+        @Override
+        protected void started() {
+            mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+            ObjectMapper json = context.getBean(ObjectMapper.class);
+            try {
+                quoteBody = json.writeValueAsBytes(Payloads.quote("QB1"));
+                tradeBodies = new ArrayList<>();
+                for (String quoteId : seededQuoteIds()) {
+                    tradeBodies.add(json.writeValueAsBytes(Payloads.trade("TB1", quoteId)));
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        String perform(RequestBuilder request) throws Exception {
+            MvcResult started = mockMvc.perform(request).andReturn();
+            MockHttpServletResponse response = started.getRequest().isAsyncStarted()
+                    ? mockMvc.perform(asyncDispatch(started)).andReturn().getResponse()
+                    : started.getResponse();
+            String content = response.getContentAsString();
+            // Validation failures are 200 responses with an error body
+            if (response.getStatus() != 200 || content.startsWith("{\"error\"")) {
+                throw new IllegalStateException(request + " returned " + response.getStatus() + " " + content);
+            }
+            return content;
+        }
+    }
+
+    private BenchmarkContext.Draws draws;
+
+    @Setup(Level.Trial)
+    public void takeDraws(WebContext context) {
+        draws = context.draws();
+    }
+
+    @Benchmark
+    public String createQuote(WebContext context) throws Exception {
+        return context.perform(post("/api/quotes").contentType(MediaType.APPLICATION_JSON).content(context.quoteBody));
+    }
+
+    @Benchmark
+    public String getQuoteById(WebContext context) throws Exception {
+        return context.perform(get("/api/quotes/{id}", draws.quoteRowId()));
+    }
+
+    @Benchmark
+    public String createTrade(WebContext context) throws Exception {
+        byte[] body = context.tradeBodies.get(draws.nextIndex(context.tradeBodies.size()));
+        return context.perform(post("/api/trades").contentType(MediaType.APPLICATION_JSON).content(body));
+    }
+
+    @Benchmark
+    public String getTradeById(WebContext context) throws Exception {
+        return context.perform(get("/api/trades/{id}", draws.tradeRowId()));
+    }
+
+    @Benchmark
+    public String searchTrades(WebContext context) throws Exception {
+        return context.perform(get("/api/trades/search").param("currencyPair", "EUR/USD").param("status", "CONFIRMED"));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.fx.bench;
+
+import com.example.fx.model.Quote;
+import com.example.fx.model.Trade;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * New quote and trade entities with every field populated, like the load test payloads (quote.json, trade.json in
+ * the fx-api tests). A saved entity gets its id, so every save needs a new one.
+ */
+final class Payloads {
+
+    private static final BigDecimal BID = new BigDecimal("1.10");
+    private static final BigDecimal ASK = new BigDecimal("1.11");
+    private static final BigDecimal MID = new BigDecimal("1.105");
+    private static final BigDecimal NOTIONAL = new BigDecimal("1000000");
+    private static final LocalDateTime QUOTE_TIME = LocalDateTime.of(2024, 6, 1, 12, 34, 56);
+    private static final LocalDateTime TRADE_TIME = LocalDateTime.of(2024, 6, 1, 12, 35);
+
+    private Payloads() {
+    }
+
+    static Quote quote(String quoteId) {
+        Quote quote = new Quote();
+        quote.setCurrencyPair("EUR/USD");
+        quote.setBid(BID);
+        quote.setAsk(ASK);
+        quote.setMid(MID);
+        quote.setQuoteProvider("ProviderX");
+        quote.setQuoteTime(QUOTE_TIME);
+        quote.setVenue("VenueA");
+        quote.setLiquidityProvider("LP1");
+        quote.setQuoteId(quoteId);
+        quote.setTenor("SPOT");
+        quote.setSettlementType("T+2");
+        quote.setQuoteStatus("ACTIVE");
+        quote.setSourceSystem("SystemA");
+        quote.setPricingModel("Model1");
+        quote.setPriceType("Firm");
+        quote.setMarketDataSource("MarketX");
+        quote.setQuoteCondition("Normal");
+        quote.setQuoteOrigin("Internal");
+        quote.setQuoteType("Indicative");
+        quote.setQuoteLevel("Level1");
+        quote.setQuoteSide("Buy");
+        quote.setQuoteChannel("API");
+        quote.setQuoteVersion("1");
+        quote.setQuoteReference("Ref123");
+        quote.setQuoteComment("Sample quote");
+        return quote;
+    }
+
+    static Trade trade(String tradeId, String quoteId) {
+        Trade trade = new Trade();
+        trade.setTradeId(tradeId);
+        trade.setCurrencyPair("EUR/USD");
+        trade.setNotional(NOTIONAL);
+        trade.setDirection("BUY");
+        trade.setPrice(MID);
+        trade.setCounterparty("BankA");
+        trade.setTradeDateTime(TRADE_TIME);
+        trade.setTrader("Trader1");
+        trade.setBook("BookA");
+        trade.setStatus("CONFIRMED");
+        trade.setSettlementType("T+2");
+        trade.setSettlementDate("2024-06-03");
+        trade.setTradeType("SPOT");
+        trade.setExecutionVenue("VenueA");
+        trade.setSourceSystem("SystemA");
+        trade.setTradeReference("RefT123");
+        trade.setTradeComment("Sample trade");
+        trade.setTradeVersion("1");
+        trade.setTradeChannel("API");
+        trade.setTradeStrategy("Strategy1");
+        trade.setTradeDesk("Desk1");
+        trade.setTradeOrigin("Internal");
+        trade.setTradeLevel("Level1");
+        trade.setTradeSide("Buy");
+        trade.setTradeCondition("Normal");
+        trade.setTradeCategory("Category1");
+        trade.setTradeSubType("SubTypeA");
+        trade.setTradeBookType("BookTypeA");
+        trade.setQuoteId(quoteId);
+        return trade;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.fx.bench;
+
+import com.example.fx.controller.FxQueries;
+import com.example.fx.model.Quote;
+import com.example.fx.model.Trade;
+import com.example.fx.repository.QuoteRepository;
+import com.example.fx.repository.TradeRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RepositoryBenchmark times the {@link QuoteRepository} and {@link TradeRepository} operations behind the handlers
+ * against H2, each in its own repository transaction as the handlers run them:
+ * - save and findById of quotes and trades
+ * - findAll() then filter in memory, the {@link FxQueries} search the search, currency and status endpoints run
+ * - quoteId validation, the {@link FxQueries} findAll() scan for a quoteId that createTrade runs before every booking
+ *
+ * The findAll() variants load and map every row, so their cost should grow with datasetSize while save and
+ * findById stay flat.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class RepositoryBenchmark {
+
+    // Makes created quoteIds and tradeIds distinct within a trial
+    private long counter;
+    private BenchmarkContext.Draws draws;
+
+    @Setup(Level.Trial)
+    public void takeDraws(BenchmarkContext context) {
+        draws = context.draws();
+    }
+
+    @Benchmark
+    public Quote saveQuote(BenchmarkContext context) {
+        return context.quoteRepository.save(Payloads.quote("QB" + counter++));
+    }
+
+    @Benchmark
+    public Optional<Quote> findQuoteById(BenchmarkContext context) {
+        return context.quoteRepository.findById(draws.quoteRowId());
+    }
+
+    @Benchmark
+    public Trade saveTrade(BenchmarkContext context) {
+        return context.tradeRepository.save(Payloads.trade("TB" + counter++, draws.seededQuoteId()));
+    }
+
+    @Benchmark
+    public Optional<Trade> findTradeById(BenchmarkContext context) {
+        return context.tradeRepository.findById(draws.tradeRowId());
+    }
+
+    @Benchmark
+    public List<Trade> findAllThenFilterTrades(BenchmarkContext context) {
+        return FxQueries.searchTrades(context.tradeRepository, "EUR/USD", "CONFIRMED");
+    }
+
+    @Benchmark
+    public List<Quote> findAllThenFilterQuotes(BenchmarkContext context) {
+        return FxQueries.searchQuotes(context.quoteRepository, "EUR/USD", "ACTIVE");
+    }
+
+    @Benchmark
+    public Optional<Quote> validateQuoteId(BenchmarkContext context) {
+        return FxQueries.findByQuoteId(context.quoteRepository, draws.seededQuoteId());
+    }
+}
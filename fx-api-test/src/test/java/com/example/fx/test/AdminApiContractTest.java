@@ -0,0 +1,100 @@
+package com.example.fx.test;
+
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Contract tests for the admin endpoints
+ * These tests validate dataset generation, and that a snapshot taken through the API can be listed and restored
+ */
+public class AdminApiContractTest {
+
+    @BeforeAll
+    public static void setup() {
+        String baseUrl = System.getProperty("api.base.url", "http://localhost:8080");
+        RestAssured.baseURI = baseUrl;
+    }
+
+    @Test
+    public void testTakeListAndRestoreSnapshot() {
+        String name = "contract-" + System.nanoTime();
+
+        int quotes = given()
+            .contentType(ContentType.JSON)
+        .when()
+            .post("/api/admin/snapshots/" + name)
+        .then()
+            .statusCode(200)
+            .contentType(ContentType.JSON)
+            .body("name", equalTo(name))
+            .body("quotes", greaterThanOrEqualTo(0))
+            .body("trades", greaterThanOrEqualTo(0))
+            .body("bytes", greaterThan(0))
+            .extract().path("quotes");
+
+        given()
+            .accept(ContentType.JSON)
+        .when()
+            .get("/api/admin/snapshots")
+        .then()
+            .statusCode(200)
+            .body("$", hasItem(name));
+
+        given()
+            .contentType(ContentType.JSON)
+        .when()
+            .post("/api/admin/snapshots/" + name + "/restore")
+        .then()
+            .statusCode(200)
+            .body("name", equalTo(name))
+            .body("quotes", equalTo(quotes));
+    }
+
+    @Test
+    public void testGenerateDataset_AddsQuotesAndTrades() {
+        long quotesBefore = Long.parseLong(get("/api/quotes/count").asString());
+        long tradesBefore = Long.parseLong(get("/api/trades/count").asString());
+
+        given()
+            .queryParam("quotes", 50)
+            .queryParam("trades", 20)
+        .when()
+            .post("/api/admin/dataset")
+        .then()
+            .statusCode(200)
+            .contentType(ContentType.JSON)
+            .body("quotes", equalTo(50))
+            .body("trades", equalTo(20));
+
+        get("/api/quotes/count").then().body(equalTo(String.valueOf(quotesBefore + 50)));
+        get("/api/trades/count").then().body(equalTo(String.valueOf(tradesBefore + 20)));
+    }
+
+    @Test
+    public void testGenerateDataset_TradesWithoutQuotes_Returns400() {
+        given()
+            .queryParam("quotes", 0)
+            .queryParam("trades", 5)
+        .when()
+            .post("/api/admin/dataset")
+        .then()
+            .statusCode(400)
+            .body("error", notNullValue());
+    }
+
+    @Test
+    public void testRestoreUnknownSnapshot_Returns400() {
+        given()
+            .contentType(ContentType.JSON)
+        .when()
+            .post("/api/admin/snapshots/missing-" + System.nanoTime() + "/restore")
+        .then()
+            .statusCode(400)
+            .body("error", containsString("No snapshot named"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.fx.test;
+
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Contract tests for the position analytics endpoints
+ * These tests validate that positions follow trade booking without a full-table scan on the client
+ */
+public class AnalyticsApiContractTest {
+
+    @BeforeAll
+    public static void setup() {
+        String baseUrl = System.getProperty("api.base.url", "http://localhost:8080");
+        RestAssured.baseURI = baseUrl;
+    }
+
+    @Test
+    public void testBookPositions_ReflectBookedTrade() {
+        String book = "ContractBook" + System.nanoTime();
+        String tradePayload = """
+            {
+              "tradeId": "T24680",
+              "currencyPair": "AUD/USD",
+              "notional": 2000000,
+              "direction": "SELL",
+              "price": 0.6650,
+              "counterparty": "BankZ",
+              "book": "%s",
+              "status": "CONFIRMED"
+            }
+            """.formatted(book);
+
+        given()
+            .contentType(ContentType.JSON)
+            .body(tradePayload)
+        .when()
+            .post("/api/trades")
+        .then()
+            .statusCode(200);
+
+        given()
+            .accept(ContentType.JSON)
+            .queryParam("currencyPair", "AUD/USD")
+            .queryParam("book", book)
+        .when()
+            .get("/api/analytics/positions")
+        .then()
+            .statusCode(200)
+            .contentType(ContentType.JSON)
+            .body("$", hasSize(1))
+            .body("[0].netPosition", equalTo(-2000000.0f))
+            .body("[0].grossNotional", equalTo(2000000.0f))
+            .body("[0].vwap", notNullValue())
+            .body("[0].tradeCount", equalTo(1));
+    }
+
+    @Test
+    public void testCounterpartyPositions_ReturnsArray() {
+        given()
+            .accept(ContentType.JSON)
+        .when()
+            .get("/api/analytics/counterparties")
+        .then()
+            .statusCode(200)
+            .contentType(ContentType.JSON)
+            .body("$", instanceOf(java.util.List.class));
+    }
+}
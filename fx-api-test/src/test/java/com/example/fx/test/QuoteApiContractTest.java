@@ -179,4 +179,39 @@ public class QuoteApiContractTest {
             .contentType(ContentType.JSON)
             .body("$", instanceOf(java.util.List.class));
     }
+
+    @Test
+    public void testGetQuotes_TimeRange_ReturnsOnlyWindow() {
+        String payload = """
+            {
+              "currencyPair": "NZD/USD",
+              "bid": 0.6010,
+              "ask": 0.6014,
+              "mid": 0.6012,
+              "quoteTime": "2023-03-15T09:30:00",
+              "quoteStatus": "ACTIVE"
+            }
+            """;
+
+        given()
+            .contentType(ContentType.JSON)
+            .body(payload)
+        .when()
+            .post("/api/quotes")
+        .then()
+            .statusCode(200);
+
+        given()
+            .accept(ContentType.JSON)
+            .queryParam("from", "2023-03-15T09:25:00")
+            .queryParam("to", "2023-03-15T09:35:00")
+            .queryParam("currencyPair", "NZD/USD")
+        .when()
+            .get("/api/quotes")
+        .then()
+            .statusCode(200)
+            .body("$", hasSize(greaterThanOrEqualTo(1)))
+            .body("quoteTime", everyItem(equalTo("2023-03-15T09:30:00")))
+            .body("currencyPair", everyItem(equalTo("NZD/USD")));
+    }
 }
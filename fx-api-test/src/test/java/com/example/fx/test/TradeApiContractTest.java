@@ -192,4 +192,40 @@ public class TradeApiContractTest {
             .contentType(ContentType.JSON)
             .body("$", instanceOf(java.util.List.class));
     }
+
+    @Test
+    public void testGetTrades_TimeRange_ReturnsOnlyWindow() {
+        String payload = """
+            {
+              "tradeId": "T13579",
+              "currencyPair": "NZD/USD",
+              "notional": 750000,
+              "direction": "BUY",
+              "price": 0.6012,
+              "tradeDateTime": "2023-03-15T09:30:00",
+              "status": "CONFIRMED"
+            }
+            """;
+
+        given()
+            .contentType(ContentType.JSON)
+            .body(payload)
+        .when()
+            .post("/api/trades")
+        .then()
+            .statusCode(200);
+
+        given()
+            .accept(ContentType.JSON)
+            .queryParam("from", "2023-03-15T09:25:00")
+            .queryParam("to", "2023-03-15T09:35:00")
+            .queryParam("currencyPair", "NZD/USD")
+        .when()
+            .get("/api/trades")
+        .then()
+            .statusCode(200)
+            .body("$", hasSize(greaterThanOrEqualTo(1)))
+            .body("tradeDateTime", everyItem(equalTo("2023-03-15T09:30:00")))
+            .body("currencyPair", everyItem(equalTo("NZD/USD")));
+    }
 }
@@ -0,0 +1,65 @@
+package com.example.fx.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+
+/**
+ * Bulkhead executors separating RFQ, booking and read traffic.
+ *
+ * Tomcat worker threads only dispatch into these pools, so a burst of slow RFQs or full-table reads
+ * fills its own pool and queue while booking keeps its own threads. Pool activity is published by
+ * Actuator as {@code executor.*} metrics tagged with the bean name; rejections are counted in
+ * {@code fx.bulkhead.rejected}.
+ */
+@Configuration
+@EnableConfigurationProperties(BulkheadProperties.class)
+public class BulkheadConfig {
+
+    public static final String RFQ_EXECUTOR = "rfqExecutor";
+    public static final String BOOKING_EXECUTOR = "bookingExecutor";
+    public static final String QUERY_EXECUTOR = "queryExecutor";
+
+    @Bean(name = RFQ_EXECUTOR)
+    public ThreadPoolTaskExecutor rfqExecutor(BulkheadProperties properties, MeterRegistry registry) {
+        return bulkhead("rfq", properties.getRfq(), registry);
+    }
+
+    @Bean(name = BOOKING_EXECUTOR)
+    public ThreadPoolTaskExecutor bookingExecutor(BulkheadProperties properties, MeterRegistry registry) {
+        return bulkhead("booking", properties.getBooking(), registry);
+    }
+
+    @Bean(name = QUERY_EXECUTOR)
+    public ThreadPoolTaskExecutor queryExecutor(BulkheadProperties properties, MeterRegistry registry) {
+        return bulkhead("query", properties.getQuery(), registry);
+    }
+
+    private ThreadPoolTaskExecutor bulkhead(String name, BulkheadProperties.Pool pool, MeterRegistry registry) {
+        Counter rejected = Counter.builder("fx.bulkhead.rejected")
+                .description("Requests rejected because the bulkhead pool and queue were full")
+                .tag("bulkhead", name)
+                .register(registry);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(name + "-");
+        executor.setCorePoolSize(pool.getPoolSize());
+        executor.setMaxPoolSize(pool.getPoolSize());
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        executor.setRejectedExecutionHandler(rejectAndCount(name, rejected));
+        return executor;
+    }
+
+    private static RejectedExecutionHandler rejectAndCount(String name, Counter rejected) {
+        return (task, executor) -> {
+            rejected.increment();
+            throw new RejectedExecutionException("Bulkhead '" + name + "' is saturated");
+        };
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.fx.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Sizing of the bulkhead executors, bound from {@code fx.bulkhead.*} in application.properties.
+ *
+ * Each endpoint group (RFQ, booking, query) gets its own bounded pool so that a burst in one
+ * group queues or is rejected inside that group instead of starving the others.
+ */
+@ConfigurationProperties(prefix = "fx.bulkhead")
+public class BulkheadProperties {
+
+    private Pool rfq = new Pool(16, 200);
+    private Pool booking = new Pool(32, 1000);
+    private Pool query = new Pool(16, 200);
+
+    public Pool getRfq() {
+        return rfq;
+    }
+
+    public void setRfq(Pool rfq) {
+        this.rfq = rfq;
+    }
+
+    public Pool getBooking() {
+        return booking;
+    }
+
+    public void setBooking(Pool booking) {
+        this.booking = booking;
+    }
+
+    public Pool getQuery() {
+        return query;
+    }
+
+    public void setQuery(Pool query) {
+        this.query = query;
+    }
+
+    /**
+     * Fixed-size pool with a bounded work queue; submissions beyond the queue capacity are rejected.
+     */
+    public static class Pool {
+        private int poolSize;
+        private int queueCapacity;
+
+        public Pool() {
+        }
+
+        public Pool(int poolSize, int queueCapacity) {
+            this.poolSize = poolSize;
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.fx.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Synthetic dataset settings, bound from {@code fx.datagen.*} in application.properties.
+ *
+ * Weights are relative: a currency pair with weight 40 is drawn twice as often as one with weight 20. Map keys
+ * containing '/' need brackets in properties files, e.g. {@code fx.datagen.pair-weights.[EUR/USD]=40}. Entries are
+ * merged into the defaults; a weight of 0 leaves a default value out.
+ */
+@ConfigurationProperties(prefix = "fx.datagen")
+public class DatasetGeneratorProperties {
+
+    private Map<String, Integer> pairWeights = weights(
+            "EUR/USD", 35, "USD/JPY", 20, "GBP/USD", 15, "AUD/USD", 10, "USD/CHF", 8, "USD/CAD", 7, "NZD/USD", 5);
+    private Map<String, Integer> tenorWeights = weights(
+            "SPOT", 70, "1W", 10, "1M", 15, "3M", 5);
+    private Map<String, Integer> quoteStatusWeights = weights(
+            "ACTIVE", 70, "EXPIRED", 25, "CANCELLED", 5);
+    private Map<String, Integer> tradeStatusWeights = weights(
+            "CONFIRMED", 85, "PENDING", 10, "CANCELLED", 5);
+    private Duration timeSpread = Duration.ofDays(30);
+    private int writerThreads = Runtime.getRuntime().availableProcessors();
+    private int batchSize = 5_000;
+    private long seed = 42;
+    private long startupQuotes = 0;
+    private long startupTrades = 0;
+
+    // Insertion-ordered, so the same seed draws the same dataset
+    private static Map<String, Integer> weights(Object... keysAndWeights) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndWeights.length; i += 2) {
+            weights.put((String) keysAndWeights[i], (Integer) keysAndWeights[i + 1]);
+        }
+        return weights;
+    }
+
+    public Map<String, Integer> getPairWeights() {
+        return pairWeights;
+    }
+
+    public void setPairWeights(Map<String, Integer> pairWeights) {
+        this.pairWeights = pairWeights;
+    }
+
+    public Map<String, Integer> getTenorWeights() {
+        return tenorWeights;
+    }
+
+    public void setTenorWeights(Map<String, Integer> tenorWeights) {
+        this.tenorWeights = tenorWeights;
+    }
+
+    public Map<String, Integer> getQuoteStatusWeights() {
+        return quoteStatusWeights;
+    }
+
+    public void setQuoteStatusWeights(Map<String, Integer> quoteStatusWeights) {
+        this.quoteStatusWeights = quoteStatusWeights;
+    }
+
+    public Map<String, Integer> getTradeStatusWeights() {
+        return tradeStatusWeights;
+    }
+
+    public void setTradeStatusWeights(Map<String, Integer> tradeStatusWeights) {
+        this.tradeStatusWeights = tradeStatusWeights;
+    }
+
+    public Duration getTimeSpread() {
+        return timeSpread;
+    }
+
+    public void setTimeSpread(Duration timeSpread) {
+        this.timeSpread = timeSpread;
+    }
+
+    public int getWriterThreads() {
+        return writerThreads;
+    }
+
+    public void setWriterThreads(int writerThreads) {
+        this.writerThreads = writerThreads;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public long getStartupQuotes() {
+        return startupQuotes;
+    }
+
+    public void setStartupQuotes(long startupQuotes) {
+        this.startupQuotes = startupQuotes;
+    }
+
+    public long getStartupTrades() {
+        return startupTrades;
+    }
+
+    public void setStartupTrades(long startupTrades) {
+        this.startupTrades = startupTrades;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.fx.config;
+
+import com.example.fx.model.FxJsonModule;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects how the application's ObjectMapper reads and writes JSON, with {@code fx.json.codec}:
+ * - DEFAULT: Jackson's reflective bean serializers and deserializers
+ * - BLACKBIRD: the same, with property access through generated lambdas instead of reflection
+ *   ({@link BlackbirdModule}) for every bean
+ * - STREAMING: BLACKBIRD, plus the hand-written {@link FxJsonModule} serializers for quotes and trades, the
+ *   payload of the list endpoints
+ *
+ * All three produce the same JSON. JsonCodecBenchmark in fx-api-bench compares them; DEFAULT stays the default until
+ * a full forked run with the GC profiler shows the others ahead.
+ */
+@Configuration
+public class JsonCodecConfig {
+
+    public enum Codec {
+        DEFAULT, BLACKBIRD, STREAMING
+    }
+
+    @Bean
+    Jackson2ObjectMapperBuilderCustomizer jsonCodec(@Value("${fx.json.codec:DEFAULT}") Codec codec) {
+        // Registered after Spring Boot's modules, so FxJsonModule takes precedence for quotes and trades
+        return builder -> builder.postConfigurer(mapper -> configure(mapper, codec));
+    }
+
+    /**
+     * Registers the modules of a codec with an ObjectMapper.
+     */
+    public static ObjectMapper configure(ObjectMapper mapper, Codec codec) {
+        if (codec != Codec.DEFAULT) {
+            mapper.registerModule(new BlackbirdModule());
+        }
+        if (codec == Codec.STREAMING) {
+            mapper.registerModule(new FxJsonModule());
+        }
+        return mapper;
+    }
+}
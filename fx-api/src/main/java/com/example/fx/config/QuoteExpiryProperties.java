@@ -0,0 +1,119 @@
+package com.example.fx.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Quote time-to-live and sweeper settings, bound from {@code fx.quote.expiry.*} in application.properties.
+ *
+ * A quote's TTL is the entry for its quote type if there is one, otherwise the entry for its tenor,
+ * otherwise {@code default-ttl}. Keys match the quote's {@code quoteType} and {@code tenor} exactly.
+ */
+@ConfigurationProperties(prefix = "fx.quote.expiry")
+public class QuoteExpiryProperties {
+
+    /**
+     * What happens to a quote once its TTL has passed.
+     */
+    public enum Action {
+        /** Set quoteStatus to EXPIRED and keep the row. */
+        MARK,
+        /** Mark, copy the row to quote_archive and remove it from the quote table. */
+        ARCHIVE,
+        /** Remove the row from the quote table. */
+        DELETE
+    }
+
+    private boolean enabled = false;
+    private Action action = Action.DELETE;
+    private Duration defaultTtl = Duration.ofMinutes(5);
+    private Map<String, Duration> tenorTtl = new LinkedHashMap<>();
+    private Map<String, Duration> quoteTypeTtl = new LinkedHashMap<>();
+    private Duration tick = Duration.ofMillis(100);
+    private int wheelSize = 64;
+    private int batchSize = 500;
+    private Duration expiredIdRetention = Duration.ofMinutes(10);
+
+    public Duration ttlFor(String tenor, String quoteType) {
+        Duration ttl = quoteType != null ? quoteTypeTtl.get(quoteType) : null;
+        if (ttl == null && tenor != null) {
+            ttl = tenorTtl.get(tenor);
+        }
+        return ttl != null ? ttl : defaultTtl;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public void setAction(Action action) {
+        this.action = action;
+    }
+
+    public Duration getDefaultTtl() {
+        return defaultTtl;
+    }
+
+    public void setDefaultTtl(Duration defaultTtl) {
+        this.defaultTtl = defaultTtl;
+    }
+
+    public Map<String, Duration> getTenorTtl() {
+        return tenorTtl;
+    }
+
+    public void setTenorTtl(Map<String, Duration> tenorTtl) {
+        this.tenorTtl = tenorTtl;
+    }
+
+    public Map<String, Duration> getQuoteTypeTtl() {
+        return quoteTypeTtl;
+    }
+
+    public void setQuoteTypeTtl(Map<String, Duration> quoteTypeTtl) {
+        this.quoteTypeTtl = quoteTypeTtl;
+    }
+
+    public Duration getTick() {
+        return tick;
+    }
+
+    public void setTick(Duration tick) {
+        this.tick = tick;
+    }
+
+    public int getWheelSize() {
+        return wheelSize;
+    }
+
+    public void setWheelSize(int wheelSize) {
+        this.wheelSize = wheelSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Duration getExpiredIdRetention() {
+        return expiredIdRetention;
+    }
+
+    public void setExpiredIdRetention(Duration expiredIdRetention) {
+        this.expiredIdRetention = expiredIdRetention;
+    }
+}
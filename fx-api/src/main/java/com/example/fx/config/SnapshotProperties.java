@@ -0,0 +1,52 @@
+package com.example.fx.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+/**
+ * Snapshot and restore settings, bound from {@code fx.snapshot.*} in application.properties.
+ *
+ * Snapshots are named files under {@code directory}. With {@code restore-on-startup} set to a snapshot name,
+ * that snapshot is loaded before the server starts accepting requests.
+ */
+@ConfigurationProperties(prefix = "fx.snapshot")
+public class SnapshotProperties {
+
+    private Path directory = Path.of("data", "snapshots");
+    private String restoreOnStartup;
+    private int writerThreads = Runtime.getRuntime().availableProcessors();
+    private int batchSize = 5_000;
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    public String getRestoreOnStartup() {
+        return restoreOnStartup;
+    }
+
+    public void setRestoreOnStartup(String restoreOnStartup) {
+        this.restoreOnStartup = restoreOnStartup;
+    }
+
+    public int getWriterThreads() {
+        return writerThreads;
+    }
+
+    public void setWriterThreads(int writerThreads) {
+        this.writerThreads = writerThreads;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.fx.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selective lazy initialization for the {@code fast-startup} profile.
+ *
+ * That profile turns on {@code spring.main.lazy-initialization}; this filter keeps every bean eager
+ * except the non-critical ones (springdoc and the OpenAPI model), which are then built on the first
+ * request to {@code /v3/api-docs} or Swagger UI instead of at startup. Without lazy initialization
+ * enabled the filter has no effect.
+ */
+@Configuration
+public class StartupConfig {
+
+    private static final String[] NON_CRITICAL_PACKAGES = {"org.springdoc.", "io.swagger."};
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerUnlessNonCritical() {
+        return (beanName, beanDefinition, beanType) -> !isNonCritical(beanType);
+    }
+
+    private static boolean isNonCritical(Class<?> beanType) {
+        String name = beanType.getName();
+        for (String prefix : NON_CRITICAL_PACKAGES) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.fx.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Publishes the row count of every table in the application schema as {@code fx.db.table.rows}, tagged with the
+ * table name, so load tests can relate latency to table growth.
+ *
+ * The gauges read H2's {@code INFORMATION_SCHEMA.TABLES.ROW_COUNT_ESTIMATE}, which for MVStore tables is the size
+ * of the primary index kept by H2 itself, so a scrape costs one metadata lookup instead of a {@code COUNT(*)} scan.
+ * Tables are discovered once the application is ready, after Hibernate created the schema; a table created later
+ * (quote_archive, on the first archiving expiry sweep) gets its gauge after a restart.
+ */
+@Configuration
+public class TableMetricsConfig {
+
+    private static final String TABLES =
+            "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_TYPE = 'BASE TABLE'";
+    private static final String ROW_COUNT =
+            "SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_NAME = ?";
+
+    private final JdbcTemplate jdbc;
+    private final MeterRegistry registry;
+
+    public TableMetricsConfig(JdbcTemplate jdbc, MeterRegistry registry) {
+        this.jdbc = jdbc;
+        this.registry = registry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void registerTables() {
+        for (String table : jdbc.queryForList(TABLES, String.class)) {
+            Gauge.builder("fx.db.table.rows", jdbc, j -> rowCount(j, table))
+                    .description("Rows in the table (H2 row count estimate, exact for MVStore tables)")
+                    .tag("table", table.toLowerCase())
+                    .register(registry);
+        }
+    }
+
+    private static double rowCount(JdbcTemplate jdbc, String table) {
+        List<Long> counts = jdbc.queryForList(ROW_COUNT, Long.class, table);
+        return counts.isEmpty() ? Double.NaN : counts.get(0);
+    }
+}
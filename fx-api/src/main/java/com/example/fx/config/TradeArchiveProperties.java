@@ -0,0 +1,62 @@
+package com.example.fx.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Trade archival settings, bound from {@code fx.trade.archive.*} in application.properties.
+ *
+ * Trades whose tradeDateTime is older than {@code max-age} are moved from the trade table into columnar
+ * segment files of up to {@code segment-rows} trades under {@code directory}, every {@code interval}.
+ */
+@ConfigurationProperties(prefix = "fx.trade.archive")
+public class TradeArchiveProperties {
+
+    private boolean enabled = false;
+    private Duration maxAge = Duration.ofDays(7);
+    private Duration interval = Duration.ofMinutes(1);
+    private Path directory = Path.of("data", "trade-archive");
+    private int segmentRows = 50_000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    public void setMaxAge(Duration maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    public int getSegmentRows() {
+        return segmentRows;
+    }
+
+    public void setSegmentRows(int segmentRows) {
+        this.segmentRows = segmentRows;
+    }
+}
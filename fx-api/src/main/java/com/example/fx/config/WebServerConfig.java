@@ -0,0 +1,24 @@
+package com.example.fx.config;
+
+import org.apache.tomcat.util.buf.EncodedSolidusHandling;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Lets currency pairs with a URL-encoded slash reach path variables, e.g. {@code GET /api/trades/volume/EUR%2FUSD}.
+ *
+ * Tomcat rejects {@code %2F} in the path by default. Passing it through undecoded keeps it inside one path
+ * segment; Spring MVC matches the segment against {@code {currencyPair}} and only then decodes it to
+ * {@code EUR/USD}.
+ */
+@Configuration
+public class WebServerConfig {
+
+    @Bean
+    WebServerFactoryCustomizer<TomcatServletWebServerFactory> encodedSlashInPathVariables() {
+        return factory -> factory.addConnectorCustomizers(connector ->
+                connector.setEncodedSolidusHandling(EncodedSolidusHandling.PASS_THROUGH.getValue()));
+    }
+}
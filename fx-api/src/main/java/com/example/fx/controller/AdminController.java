@@ -0,0 +1,64 @@
+package com.example.fx.controller;
+
+import com.example.fx.service.DatasetGenerator;
+import com.example.fx.service.SnapshotService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+@Tag(name = "FX Admin", description = "Synthetic datasets, snapshot and restore for load testing")
+public class AdminController {
+
+    private final SnapshotService snapshotService;
+    private final DatasetGenerator datasetGenerator;
+
+    public AdminController(SnapshotService snapshotService, DatasetGenerator datasetGenerator) {
+        this.snapshotService = snapshotService;
+        this.datasetGenerator = datasetGenerator;
+    }
+
+    @Operation(summary = "Generate a synthetic dataset",
+            description = "Adds realistic quotes and trades through batched JDBC; each trade references a generated quote")
+    @PostMapping("/dataset")
+    public DatasetGenerator.Summary generateDataset(@RequestParam long quotes, @RequestParam(defaultValue = "0") long trades) {
+        return datasetGenerator.generate(quotes, trades);
+    }
+
+    @Operation(summary = "List snapshots", description = "Names of the snapshots in the snapshot directory")
+    @GetMapping("/snapshots")
+    public List<String> listSnapshots() {
+        return snapshotService.list();
+    }
+
+    @Operation(summary = "Take a snapshot",
+            description = "Writes the quote and trade tables to a named binary snapshot, replacing any snapshot of that name")
+    @PostMapping("/snapshots/{name}")
+    public SnapshotService.Summary takeSnapshot(@PathVariable String name) {
+        return snapshotService.snapshot(name);
+    }
+
+    @Operation(summary = "Restore a snapshot",
+            description = "Replaces all quotes and trades with the contents of a named snapshot")
+    @PostMapping("/snapshots/{name}/restore")
+    public SnapshotService.Summary restoreSnapshot(@PathVariable String name) {
+        return snapshotService.restore(name);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public FxController.ErrorResponse handleBadName(IllegalArgumentException e) {
+        return new FxController.ErrorResponse(e.getMessage());
+    }
+}
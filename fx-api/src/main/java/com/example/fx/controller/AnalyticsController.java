@@ -0,0 +1,38 @@
+package com.example.fx.controller;
+
+import com.example.fx.service.PositionAnalytics;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/analytics")
+@Tag(name = "FX Analytics", description = "Incrementally maintained position and VWAP analytics")
+public class AnalyticsController {
+
+    private final PositionAnalytics positionAnalytics;
+
+    public AnalyticsController(PositionAnalytics positionAnalytics) {
+        this.positionAnalytics = positionAnalytics;
+    }
+
+    @Operation(summary = "Positions per currency pair and book",
+            description = "Net position, gross notional and VWAP per currency pair x book, with optional filters")
+    @GetMapping("/positions")
+    public List<PositionAnalytics.BookPosition> getBookPositions(@RequestParam(required = false) String currencyPair,
+                                                                 @RequestParam(required = false) String book) {
+        return positionAnalytics.bookPositions(currencyPair, book);
+    }
+
+    @Operation(summary = "Positions per counterparty",
+            description = "Net position, gross notional and VWAP per counterparty, with an optional filter")
+    @GetMapping("/counterparties")
+    public List<PositionAnalytics.CounterpartyPosition> getCounterpartyPositions(@RequestParam(required = false) String counterparty) {
+        return positionAnalytics.counterpartyPositions(counterparty);
+    }
+}
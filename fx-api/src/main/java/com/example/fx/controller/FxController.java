@@ -4,11 +4,19 @@ import com.example.fx.model.Quote;
 import com.example.fx.model.Trade;
 import com.example.fx.repository.QuoteRepository;
 import com.example.fx.repository.TradeRepository;
+import com.example.fx.service.PositionAnalytics;
+import com.example.fx.service.QuoteExpiryService;
+import com.example.fx.service.RfqPricingService;
+import com.example.fx.service.TradeArchiveService;
+import com.example.fx.config.BulkheadConfig;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
@@ -16,6 +24,10 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api")
@@ -24,106 +36,147 @@ public class FxController {
 
     private final QuoteRepository quoteRepository;
     private final TradeRepository tradeRepository;
+    private final RfqPricingService rfqPricingService;
+    private final PositionAnalytics positionAnalytics;
+    private final QuoteExpiryService quoteExpiryService;
+    private final TradeArchiveService tradeArchive;
+    private final Executor rfqExecutor;
+    private final Executor bookingExecutor;
+    private final Executor queryExecutor;
     private final Random random = new Random();
 
-    public FxController(QuoteRepository quoteRepository, TradeRepository tradeRepository) {
+    // Open ends of a time-range query
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    public FxController(QuoteRepository quoteRepository, TradeRepository tradeRepository,
+                        RfqPricingService rfqPricingService, PositionAnalytics positionAnalytics,
+                        QuoteExpiryService quoteExpiryService, TradeArchiveService tradeArchive,
+                        @Qualifier(BulkheadConfig.RFQ_EXECUTOR) Executor rfqExecutor,
+                        @Qualifier(BulkheadConfig.BOOKING_EXECUTOR) Executor bookingExecutor,
+                        @Qualifier(BulkheadConfig.QUERY_EXECUTOR) Executor queryExecutor) {
         this.quoteRepository = quoteRepository;
         this.tradeRepository = tradeRepository;
+        this.rfqPricingService = rfqPricingService;
+        this.positionAnalytics = positionAnalytics;
+        this.quoteExpiryService = quoteExpiryService;
+        this.tradeArchive = tradeArchive;
+        this.rfqExecutor = rfqExecutor;
+        this.bookingExecutor = bookingExecutor;
+        this.queryExecutor = queryExecutor;
     }
 
     // --- Quote endpoints ---
 
-    @Operation(summary = "Get all quotes", description = "Retrieves a list of all quotes in the system")
+    @Operation(summary = "Get all quotes", description = "Retrieves a list of all quotes in the system. " +
+            "With from/to (ISO date-time, to exclusive) and/or currencyPair, returns only matching quotes ordered by quoteTime.")
     @ApiResponse(responseCode = "200", description = "Successful operation")
     @GetMapping("/quotes")
-    public List<Quote> getAllQuotes() {
-        return quoteRepository.findAll();
+    public CompletableFuture<List<Quote>> getAllQuotes(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                       @RequestParam(required = false) String currencyPair) {
+        if (from == null && to == null && currencyPair == null) {
+            return submit(queryExecutor, quoteRepository::findAll);
+        }
+        return submit(queryExecutor, () -> quoteRepository.findByQuoteTimeRange(currencyPair,
+                from != null ? from : EARLIEST, to != null ? to : LATEST));
     }
 
     @Operation(summary = "Get quote by ID", description = "Retrieves a specific quote by its database ID")
     @GetMapping("/quotes/{id}")
-    public Quote getQuoteById(@Parameter(name = "id", description = "Quote database ID", required = true) @PathVariable Long id) {
-        return quoteRepository.findById(id).orElse(null);
+    public CompletableFuture<Quote> getQuoteById(@Parameter(name = "id", description = "Quote database ID", required = true) @PathVariable Long id) {
+        return submit(queryExecutor, () -> quoteRepository.findById(id).orElse(null));
     }
 
     @Operation(summary = "Create a new quote", description = "Creates a new FX quote")
     @ApiResponse(responseCode = "200", description = "Quote created successfully")
     @PostMapping("/quotes")
-    public Quote createQuote(@RequestBody Quote quote) {
-        return quoteRepository.save(quote);
+    public CompletableFuture<Quote> createQuote(@RequestBody Quote quote) {
+        return submit(bookingExecutor, () -> {
+            Quote saved = quoteRepository.save(quote);
+            quoteExpiryService.schedule(saved);
+            return saved;
+        });
     }
 
     @PutMapping("/quotes/{id}")
-    public Quote updateQuote(@PathVariable Long id, @RequestBody Quote quote) {
-        if (quote == null) {
-            return null;
-        }
-        Quote existing = quoteRepository.findById(id).orElse(null);
-        if (existing == null) {
-            return null;
-        }
-        quote.setId(id);
-        return quoteRepository.save(quote);
+    public CompletableFuture<Quote> updateQuote(@PathVariable Long id, @RequestBody Quote quote) {
+        return submit(bookingExecutor, () -> {
+            if (quote == null) {
+                return null;
+            }
+            Quote existing = quoteRepository.findById(id).orElse(null);
+            if (existing == null) {
+                return null;
+            }
+            quote.setId(id);
+            return quoteRepository.save(quote);
+        });
     }
 
     @DeleteMapping("/quotes/{id}")
-    public void deleteQuote(@PathVariable Long id) {
-        if (quoteRepository.existsById(id)) {
-            quoteRepository.deleteById(id);
-        }
+    public CompletableFuture<Void> deleteQuote(@PathVariable Long id) {
+        return submit(bookingExecutor, () -> {
+            if (quoteRepository.existsById(id)) {
+                quoteRepository.deleteById(id);
+            }
+            return null;
+        });
     }
 
     @GetMapping("/quotes/currency/{currencyPair}")
-    public List<Quote> getQuotesByCurrencyPair(@PathVariable String currencyPair) {
+    public CompletableFuture<List<Quote>> getQuotesByCurrencyPair(@PathVariable String currencyPair) {
         // URL decode the currency pair to handle slashes
-        return quoteRepository.findAll().stream()
-                .filter(q -> currencyPair.equals(q.getCurrencyPair()))
-                .toList();
+        return submit(queryExecutor, () -> FxQueries.searchQuotes(quoteRepository, currencyPair, null));
     }
 
     @GetMapping("/quotes/search")
-    public List<Quote> searchQuotes(@RequestParam(required = false) String currencyPair,
-                                     @RequestParam(required = false) String status) {
-        return quoteRepository.findAll().stream()
-                .filter(q -> currencyPair == null || currencyPair.equals(q.getCurrencyPair()))
-                .filter(q -> status == null || status.equals(q.getQuoteStatus()))
-                .toList();
+    public CompletableFuture<List<Quote>> searchQuotes(@RequestParam(required = false) String currencyPair,
+                                                       @RequestParam(required = false) String status) {
+        return submit(queryExecutor, () -> FxQueries.searchQuotes(quoteRepository, currencyPair, status));
     }
 
     @GetMapping("/quotes/status/{status}")
-    public List<Quote> getQuotesByStatus(@PathVariable String status) {
-        return quoteRepository.findAll().stream()
-                .filter(q -> status.equals(q.getQuoteStatus()))
-                .toList();
+    public CompletableFuture<List<Quote>> getQuotesByStatus(@PathVariable String status) {
+        return submit(queryExecutor, () -> FxQueries.searchQuotes(quoteRepository, null, status));
     }
 
     @GetMapping("/quotes/count")
-    public long getQuoteCount() {
-        return quoteRepository.count();
+    public CompletableFuture<Long> getQuoteCount() {
+        return submit(queryExecutor, quoteRepository::count);
     }
 
-    @Operation(summary = "Request for Quote (RFQ)", description = "Submit a request for quote with simulated pricing. Simulates a delay of approximately 200ms (150-249ms).")
+    @Operation(summary = "Request for Quote (RFQ)", description = "Submit a request for quote with simulated pricing. Simulates a delay of approximately 200ms (150-249ms). " +
+            "With fx.rfq.coalescing.enabled, concurrent RFQs for the same currency pair and tenor share one price but each gets its own quote.")
     @ApiResponse(responseCode = "200", description = "Quote generated successfully")
     @PostMapping("/quotes/rfq")
-    public Quote requestForQuote(@RequestBody Quote rfqRequest) throws InterruptedException {
-        // Simulate random delay around 200ms (e.g., 150-250ms)
-        Thread.sleep(150 + random.nextInt(100));
+    public CompletableFuture<Quote> requestForQuote(@RequestBody Quote rfqRequest) {
+        String tenor = rfqRequest.getTenor() != null ? rfqRequest.getTenor() : "SPOT";
+        // thenCompose turns a rejected save into a failed future (503); thenApplyAsync would never complete
+        return rfqPricingService.price(rfqRequest.getCurrencyPair(), tenor)
+                .thenCompose(price -> submit(rfqExecutor, () -> {
+                    Quote saved = quoteRepository.save(rfqQuote(rfqRequest.getCurrencyPair(), tenor, price));
+                    quoteExpiryService.schedule(saved);
+                    return saved;
+                }));
+    }
 
-        // Generate a randomized quote based on the RFQ request
+    private Quote rfqQuote(String currencyPair, String tenor, RfqPricingService.RfqPrice price) {
+        // Generate a randomized quote stamped with the (possibly shared) price
         Quote quote = new Quote();
-        quote.setCurrencyPair(rfqRequest.getCurrencyPair());
+        quote.setCurrencyPair(currencyPair);
         quote.setQuoteProvider("RandomProvider");
-        quote.setQuoteTime(LocalDateTime.now());
+        quote.setQuoteTime(price.pricedAt());
         quote.setVenue("Venue" + (random.nextInt(5) + 1));
         quote.setLiquidityProvider("LP" + (random.nextInt(3) + 1));
         quote.setQuoteId("Q" + (10000 + random.nextInt(90000)));
-        quote.setTenor(rfqRequest.getTenor() != null ? rfqRequest.getTenor() : "SPOT");
+        quote.setTenor(tenor);
         quote.setSettlementType("T+2");
         quote.setQuoteStatus("ACTIVE");
         quote.setSourceSystem("RFQ-API");
-        quote.setPricingModel("Model" + (random.nextInt(3) + 1));
+        quote.setPricingModel(price.pricingModel());
         quote.setPriceType("Firm");
-        quote.setMarketDataSource("Market" + (random.nextInt(3) + 1));
+        quote.setMarketDataSource(price.marketDataSource());
         quote.setQuoteCondition("Normal");
         quote.setQuoteOrigin("Auto");
         quote.setQuoteType("Indicative");
@@ -133,111 +186,145 @@ public class FxController {
         quote.setQuoteVersion("1");
         quote.setQuoteReference("Ref" + (random.nextInt(1000) + 1));
         quote.setQuoteComment("Auto-generated RFQ quote");
-
-        // Randomize bid/ask/mid
-        double base = 1.10 + random.nextDouble() * 0.1; // e.g., 1.10 - 1.20
-        double spread = 0.0005 + random.nextDouble() * 0.001; // e.g., 0.0005 - 0.0015
-        BigDecimal bid = BigDecimal.valueOf(base);
-        BigDecimal ask = BigDecimal.valueOf(base + spread);
-        BigDecimal mid = BigDecimal.valueOf((bid.doubleValue() + ask.doubleValue()) / 2.0);
-
-        quote.setBid(bid);
-        quote.setAsk(ask);
-        quote.setMid(mid);
-
-        // Save and return the quote
-        return quoteRepository.save(quote);
+        quote.setBid(price.bid());
+        quote.setAsk(price.ask());
+        quote.setMid(price.mid());
+        return quote;
     }
 
     // --- Trade endpoints ---
 
-    @Operation(summary = "Get all trades", description = "Retrieves a list of all trades in the system")
+    @Operation(summary = "Get all trades", description = "Retrieves a list of all trades in the system. " +
+            "With from/to (ISO date-time, to exclusive) and/or currencyPair, returns only matching trades ordered by tradeDateTime.")
     @ApiResponse(responseCode = "200", description = "Successful operation")
     @GetMapping("/trades")
-    public List<Trade> getAllTrades() {
-        return tradeRepository.findAll();
+    public CompletableFuture<List<Trade>> getAllTrades(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                       @RequestParam(required = false) String currencyPair) {
+        if (from == null && to == null && currencyPair == null) {
+            return submit(queryExecutor, tradeRepository::findAll);
+        }
+        return submit(queryExecutor, () -> tradeRepository.findByTradeDateTimeRange(currencyPair,
+                from != null ? from : EARLIEST, to != null ? to : LATEST));
     }
 
+    @Operation(summary = "Get trade by ID", description = "Retrieves a specific trade by its database ID, including archived trades")
     @GetMapping("/trades/{id}")
-    public Trade getTradeById(@PathVariable Long id) {
-        return tradeRepository.findById(id).orElse(null);
+    public CompletableFuture<Trade> getTradeById(@PathVariable Long id) {
+        // Archived trades are no longer in the table; fall back to the segment files
+        return submit(queryExecutor, () -> tradeRepository.findById(id)
+                .or(() -> tradeArchive.find(id))
+                .orElse(null));
     }
 
-    @Operation(summary = "Book a new trade", description = "Creates a new FX trade. Validates quoteId if provided.")
+    @Operation(summary = "Book a new trade", description = "Creates a new FX trade. Validates quoteId if provided; expired quotes are rejected.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Trade created successfully or error response if validation fails")
     })
     @PostMapping("/trades")
-    public Object createTrade(@RequestBody Trade trade) {
-        // Validate quoteId exists if provided
-        String quoteId = trade.getQuoteId();
-        if (quoteId != null && !quoteId.isEmpty()) {
-            Optional<Quote> quoteOpt = quoteRepository.findAll().stream()
-                    .filter(q -> quoteId.equals(q.getQuoteId()))
-                    .findFirst();
-            if (!quoteOpt.isPresent()) {
-                return new ErrorResponse("Invalid quoteId: " + quoteId);
+    public CompletableFuture<Object> createTrade(@RequestBody Trade trade) {
+        return submit(bookingExecutor, () -> {
+            // Validate quoteId exists if provided
+            String quoteId = trade.getQuoteId();
+            if (quoteId != null && !quoteId.isEmpty()) {
+                if (quoteExpiryService.isExpired(quoteId)) {
+                    return new ErrorResponse("Expired quoteId: " + quoteId);
+                }
+                Optional<Quote> quoteOpt = FxQueries.findByQuoteId(quoteRepository, quoteId);
+                if (!quoteOpt.isPresent()) {
+                    return new ErrorResponse("Invalid quoteId: " + quoteId);
+                }
+                if (QuoteExpiryService.EXPIRED.equals(quoteOpt.get().getQuoteStatus())) {
+                    return new ErrorResponse("Expired quoteId: " + quoteId);
+                }
             }
-        }
-        return tradeRepository.save(trade);
+            return positionAnalytics.bookTrade(() -> tradeRepository.save(trade));
+        });
     }
 
     @PutMapping("/trades/{id}")
-    public Trade updateTrade(@PathVariable Long id, @RequestBody Trade trade) {
-        if (trade == null) {
-            return null;
-        }
-        Trade existing = tradeRepository.findById(id).orElse(null);
-        if (existing == null) {
-            return null;
-        }
-        trade.setId(id);
-        return tradeRepository.save(trade);
+    public CompletableFuture<Trade> updateTrade(@PathVariable Long id, @RequestBody Trade trade) {
+        return submit(bookingExecutor, () -> {
+            if (trade == null) {
+                return null;
+            }
+            return positionAnalytics.changeTrade(id, () -> {
+                Trade existing = tradeRepository.findById(id).orElse(null);
+                if (existing == null) {
+                    return null;
+                }
+                trade.setId(id);
+                Trade saved = tradeRepository.save(trade);
+                positionAnalytics.onUpdated(existing, saved);
+                return saved;
+            });
+        });
     }
 
     @DeleteMapping("/trades/{id}")
-    public void deleteTrade(@PathVariable Long id) {
-        if (tradeRepository.existsById(id)) {
-            tradeRepository.deleteById(id);
-        }
+    public CompletableFuture<Void> deleteTrade(@PathVariable Long id) {
+        return submit(bookingExecutor, () -> positionAnalytics.changeTrade(id, () -> {
+            // Only the request whose delete removed the row reverses the trade
+            tradeRepository.findById(id)
+                    .filter(existing -> tradeRepository.deleteRowById(id) == 1)
+                    .ifPresent(positionAnalytics::onDeleted);
+            return null;
+        }));
     }
 
     @GetMapping("/trades/currency/{currencyPair}")
-    public List<Trade> getTradesByCurrencyPair(@PathVariable String currencyPair) {
+    public CompletableFuture<List<Trade>> getTradesByCurrencyPair(@PathVariable String currencyPair) {
         // URL decode the currency pair to handle slashes
-        return tradeRepository.findAll().stream()
-                .filter(t -> currencyPair.equals(t.getCurrencyPair()))
-                .toList();
+        return submit(queryExecutor, () -> FxQueries.searchTrades(tradeRepository, currencyPair, null));
     }
 
     @GetMapping("/trades/search")
-    public List<Trade> searchTrades(@RequestParam(required = false) String currencyPair,
-                                     @RequestParam(required = false) String status) {
-        return tradeRepository.findAll().stream()
-                .filter(t -> currencyPair == null || currencyPair.equals(t.getCurrencyPair()))
-                .filter(t -> status == null || status.equals(t.getStatus()))
-                .toList();
+    public CompletableFuture<List<Trade>> searchTrades(@RequestParam(required = false) String currencyPair,
+                                                       @RequestParam(required = false) String status) {
+        return submit(queryExecutor, () -> FxQueries.searchTrades(tradeRepository, currencyPair, status));
     }
 
     @GetMapping("/trades/status/{status}")
-    public List<Trade> getTradesByStatus(@PathVariable String status) {
-        return tradeRepository.findAll().stream()
-                .filter(t -> status.equals(t.getStatus()))
-                .toList();
+    public CompletableFuture<List<Trade>> getTradesByStatus(@PathVariable String status) {
+        return submit(queryExecutor, () -> FxQueries.searchTrades(tradeRepository, null, status));
     }
 
     @GetMapping("/trades/count")
-    public long getTradeCount() {
-        return tradeRepository.count();
+    public CompletableFuture<Long> getTradeCount() {
+        return submit(queryExecutor, tradeRepository::count);
     }
 
+    @Operation(summary = "Get trade volume by currency pair", description = "Returns the total trade volume (sum of notionals) for a specific currency pair, including archived trades")
     @GetMapping("/trades/volume/{currencyPair}")
-    public BigDecimal getTradeVolumeByCurrencyPair(@PathVariable String currencyPair) {
-        return tradeRepository.findAll().stream()
+    public CompletableFuture<BigDecimal> getTradeVolumeByCurrencyPair(@PathVariable String currencyPair) {
+        return submit(queryExecutor, () -> tradeArchive.consistently(() -> tradeRepository.findAll().stream()
                 .filter(t -> currencyPair.equals(t.getCurrencyPair()))
                 .map(Trade::getNotional)
                 .filter(notional -> notional != null)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .reduce(tradeArchive.volume(currencyPair), BigDecimal::add)));
+    }
+
+    // A saturated bulkhead sheds load instead of queueing without bound
+    @ExceptionHandler(RejectedExecutionException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleBulkheadRejection(RejectedExecutionException e) {
+        return new ErrorResponse(e.getMessage());
+    }
+
+    /**
+     * Runs a handler body on the given bulkhead executor. The Tomcat worker is released as soon as the
+     * task is queued; a full queue throws {@link RejectedExecutionException} synchronously.
+     */
+    private static <T> CompletableFuture<T> submit(Executor executor, Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
     }
 
     // Simple error response class
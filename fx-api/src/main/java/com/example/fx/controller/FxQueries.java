@@ -0,0 +1,49 @@
+package com.example.fx.controller;
+
+import com.example.fx.model.Quote;
+import com.example.fx.model.Trade;
+import com.example.fx.repository.QuoteRepository;
+import com.example.fx.repository.TradeRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The queries behind the {@link FxController} search, currency, status and booking handlers, without the bulkhead
+ * hand-off. The handlers run them on the query and booking executors; RepositoryBenchmark in fx-api-bench times
+ * them directly, so it measures whatever the handlers currently do.
+ */
+public final class FxQueries {
+
+    private FxQueries() {
+    }
+
+    /**
+     * Quotes of a currency pair and status; a null criterion matches every quote.
+     */
+    public static List<Quote> searchQuotes(QuoteRepository quotes, String currencyPair, String status) {
+        return quotes.findAll().stream()
+                .filter(q -> currencyPair == null || currencyPair.equals(q.getCurrencyPair()))
+                .filter(q -> status == null || status.equals(q.getQuoteStatus()))
+                .toList();
+    }
+
+    /**
+     * Trades of a currency pair and status; a null criterion matches every trade.
+     */
+    public static List<Trade> searchTrades(TradeRepository trades, String currencyPair, String status) {
+        return trades.findAll().stream()
+                .filter(t -> currencyPair == null || currencyPair.equals(t.getCurrencyPair()))
+                .filter(t -> status == null || status.equals(t.getStatus()))
+                .toList();
+    }
+
+    /**
+     * The quote a trade refers to by its quoteId, as createTrade validates it before booking.
+     */
+    public static Optional<Quote> findByQuoteId(QuoteRepository quotes, String quoteId) {
+        return quotes.findAll().stream()
+                .filter(q -> quoteId.equals(q.getQuoteId()))
+                .findFirst();
+    }
+}
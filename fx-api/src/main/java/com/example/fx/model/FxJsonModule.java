@@ -0,0 +1,255 @@
+package com.example.fx.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Hand-written Jackson serializers for {@link Quote} and {@link Trade}, the payload of every list endpoint.
+ *
+ * The reflective BeanSerializer looks up and calls a property writer per field and goes through the JavaTimeModule
+ * serializer for every timestamp. These serializers call the getters directly, write field names pre-encoded as
+ * UTF-8 ({@link SerializedString}) and format timestamps digit by digit, straight to the response's generator; a
+ * list is written element by element the same way, without an intermediate tree. They still allocate per row: a
+ * timestamp's characters, and the text of every BigDecimal the row has not been written with before.
+ *
+ * The output is the same as the reflective serializer's: the same fields in declaration order, nulls included,
+ * bucket fields left out, numbers and timestamps in the same form (ISO-8601 strings unless
+ * WRITE_DATES_AS_TIMESTAMPS is on). FxJsonModuleTest compares the two; a field added to an entity must be added
+ * here too.
+ */
+public class FxJsonModule extends SimpleModule {
+
+    public FxJsonModule() {
+        super("FxJsonModule");
+        addSerializer(Quote.class, new QuoteSerializer());
+        addSerializer(Trade.class, new TradeSerializer());
+    }
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString CURRENCY_PAIR = new SerializedString("currencyPair");
+    private static final SerializableString QUOTE_ID = new SerializedString("quoteId");
+    private static final SerializableString SETTLEMENT_TYPE = new SerializedString("settlementType");
+    private static final SerializableString SOURCE_SYSTEM = new SerializedString("sourceSystem");
+
+    private static final SerializableString BID = new SerializedString("bid");
+    private static final SerializableString ASK = new SerializedString("ask");
+    private static final SerializableString MID = new SerializedString("mid");
+    private static final SerializableString QUOTE_PROVIDER = new SerializedString("quoteProvider");
+    private static final SerializableString QUOTE_TIME = new SerializedString("quoteTime");
+    private static final SerializableString VENUE = new SerializedString("venue");
+    private static final SerializableString LIQUIDITY_PROVIDER = new SerializedString("liquidityProvider");
+    private static final SerializableString TENOR = new SerializedString("tenor");
+    private static final SerializableString QUOTE_STATUS = new SerializedString("quoteStatus");
+    private static final SerializableString PRICING_MODEL = new SerializedString("pricingModel");
+    private static final SerializableString PRICE_TYPE = new SerializedString("priceType");
+    private static final SerializableString MARKET_DATA_SOURCE = new SerializedString("marketDataSource");
+    private static final SerializableString QUOTE_CONDITION = new SerializedString("quoteCondition");
+    private static final SerializableString QUOTE_ORIGIN = new SerializedString("quoteOrigin");
+    private static final SerializableString QUOTE_TYPE = new SerializedString("quoteType");
+    private static final SerializableString QUOTE_LEVEL = new SerializedString("quoteLevel");
+    private static final SerializableString QUOTE_SIDE = new SerializedString("quoteSide");
+    private static final SerializableString QUOTE_CHANNEL = new SerializedString("quoteChannel");
+    private static final SerializableString QUOTE_VERSION = new SerializedString("quoteVersion");
+    private static final SerializableString QUOTE_REFERENCE = new SerializedString("quoteReference");
+    private static final SerializableString QUOTE_COMMENT = new SerializedString("quoteComment");
+
+    private static final SerializableString TRADE_ID = new SerializedString("tradeId");
+    private static final SerializableString NOTIONAL = new SerializedString("notional");
+    private static final SerializableString DIRECTION = new SerializedString("direction");
+    private static final SerializableString PRICE = new SerializedString("price");
+    private static final SerializableString COUNTERPARTY = new SerializedString("counterparty");
+    private static final SerializableString TRADE_DATE_TIME = new SerializedString("tradeDateTime");
+    private static final SerializableString TRADER = new SerializedString("trader");
+    private static final SerializableString BOOK = new SerializedString("book");
+    private static final SerializableString STATUS = new SerializedString("status");
+    private static final SerializableString SETTLEMENT_DATE = new SerializedString("settlementDate");
+    private static final SerializableString TRADE_TYPE = new SerializedString("tradeType");
+    private static final SerializableString EXECUTION_VENUE = new SerializedString("executionVenue");
+    private static final SerializableString TRADE_REFERENCE = new SerializedString("tradeReference");
+    private static final SerializableString TRADE_COMMENT = new SerializedString("tradeComment");
+    private static final SerializableString TRADE_VERSION = new SerializedString("tradeVersion");
+    private static final SerializableString TRADE_CHANNEL = new SerializedString("tradeChannel");
+    private static final SerializableString TRADE_STRATEGY = new SerializedString("tradeStrategy");
+    private static final SerializableString TRADE_DESK = new SerializedString("tradeDesk");
+    private static final SerializableString TRADE_ORIGIN = new SerializedString("tradeOrigin");
+    private static final SerializableString TRADE_LEVEL = new SerializedString("tradeLevel");
+    private static final SerializableString TRADE_SIDE = new SerializedString("tradeSide");
+    private static final SerializableString TRADE_CONDITION = new SerializedString("tradeCondition");
+    private static final SerializableString TRADE_CATEGORY = new SerializedString("tradeCategory");
+    private static final SerializableString TRADE_SUB_TYPE = new SerializedString("tradeSubType");
+    private static final SerializableString TRADE_BOOK_TYPE = new SerializedString("tradeBookType");
+
+    static final class QuoteSerializer extends StdSerializer<Quote> {
+
+        QuoteSerializer() {
+            super(Quote.class);
+        }
+
+        @Override
+        public void serialize(Quote q, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(q);
+            writeLong(gen, ID, q.getId());
+            writeString(gen, CURRENCY_PAIR, q.getCurrencyPair());
+            writeNumber(gen, BID, q.getBid());
+            writeNumber(gen, ASK, q.getAsk());
+            writeNumber(gen, MID, q.getMid());
+            writeString(gen, QUOTE_PROVIDER, q.getQuoteProvider());
+            writeDateTime(gen, provider, QUOTE_TIME, q.getQuoteTime());
+            writeString(gen, VENUE, q.getVenue());
+            writeString(gen, LIQUIDITY_PROVIDER, q.getLiquidityProvider());
+            writeString(gen, QUOTE_ID, q.getQuoteId());
+            writeString(gen, TENOR, q.getTenor());
+            writeString(gen, SETTLEMENT_TYPE, q.getSettlementType());
+            writeString(gen, QUOTE_STATUS, q.getQuoteStatus());
+            writeString(gen, SOURCE_SYSTEM, q.getSourceSystem());
+            writeString(gen, PRICING_MODEL, q.getPricingModel());
+            writeString(gen, PRICE_TYPE, q.getPriceType());
+            writeString(gen, MARKET_DATA_SOURCE, q.getMarketDataSource());
+            writeString(gen, QUOTE_CONDITION, q.getQuoteCondition());
+            writeString(gen, QUOTE_ORIGIN, q.getQuoteOrigin());
+            writeString(gen, QUOTE_TYPE, q.getQuoteType());
+            writeString(gen, QUOTE_LEVEL, q.getQuoteLevel());
+            writeString(gen, QUOTE_SIDE, q.getQuoteSide());
+            writeString(gen, QUOTE_CHANNEL, q.getQuoteChannel());
+            writeString(gen, QUOTE_VERSION, q.getQuoteVersion());
+            writeString(gen, QUOTE_REFERENCE, q.getQuoteReference());
+            writeString(gen, QUOTE_COMMENT, q.getQuoteComment());
+            gen.writeEndObject();
+        }
+    }
+
+    static final class TradeSerializer extends StdSerializer<Trade> {
+
+        TradeSerializer() {
+            super(Trade.class);
+        }
+
+        @Override
+        public void serialize(Trade t, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(t);
+            writeLong(gen, ID, t.getId());
+            writeString(gen, TRADE_ID, t.getTradeId());
+            writeString(gen, CURRENCY_PAIR, t.getCurrencyPair());
+            writeNumber(gen, NOTIONAL, t.getNotional());
+            writeString(gen, DIRECTION, t.getDirection());
+            writeNumber(gen, PRICE, t.getPrice());
+            writeString(gen, COUNTERPARTY, t.getCounterparty());
+            writeDateTime(gen, provider, TRADE_DATE_TIME, t.getTradeDateTime());
+            writeString(gen, TRADER, t.getTrader());
+            writeString(gen, BOOK, t.getBook());
+            writeString(gen, STATUS, t.getStatus());
+            writeString(gen, SETTLEMENT_TYPE, t.getSettlementType());
+            writeString(gen, SETTLEMENT_DATE, t.getSettlementDate());
+            writeString(gen, TRADE_TYPE, t.getTradeType());
+            writeString(gen, EXECUTION_VENUE, t.getExecutionVenue());
+            writeString(gen, SOURCE_SYSTEM, t.getSourceSystem());
+            writeString(gen, TRADE_REFERENCE, t.getTradeReference());
+            writeString(gen, TRADE_COMMENT, t.getTradeComment());
+            writeString(gen, TRADE_VERSION, t.getTradeVersion());
+            writeString(gen, TRADE_CHANNEL, t.getTradeChannel());
+            writeString(gen, TRADE_STRATEGY, t.getTradeStrategy());
+            writeString(gen, TRADE_DESK, t.getTradeDesk());
+            writeString(gen, TRADE_ORIGIN, t.getTradeOrigin());
+            writeString(gen, TRADE_LEVEL, t.getTradeLevel());
+            writeString(gen, TRADE_SIDE, t.getTradeSide());
+            writeString(gen, TRADE_CONDITION, t.getTradeCondition());
+            writeString(gen, TRADE_CATEGORY, t.getTradeCategory());
+            writeString(gen, TRADE_SUB_TYPE, t.getTradeSubType());
+            writeString(gen, TRADE_BOOK_TYPE, t.getTradeBookType());
+            writeString(gen, QUOTE_ID, t.getQuoteId());
+            gen.writeEndObject();
+        }
+    }
+
+    private static void writeString(JsonGenerator gen, SerializableString name, String value) throws IOException {
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value);
+        }
+    }
+
+    private static void writeLong(JsonGenerator gen, SerializableString name, Long value) throws IOException {
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    private static void writeNumber(JsonGenerator gen, SerializableString name, BigDecimal value) throws IOException {
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    /**
+     * Writes ISO_LOCAL_DATE_TIME, as JavaTimeModule's LocalDateTimeSerializer does: seconds always, the fraction
+     * only as far as it is not zero. The digits go into a small char array instead of through the formatter's
+     * StringBuilder and String; years outside 0..9999 (signed, more digits) go through the formatter, and timestamps as arrays through
+     * JavaTimeModule.
+     */
+    private static void writeDateTime(JsonGenerator gen, SerializerProvider provider, SerializableString name,
+                                      LocalDateTime value) throws IOException {
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+            return;
+        }
+        if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+            provider.defaultSerializeValue(value, gen);
+            return;
+        }
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            gen.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value));
+            return;
+        }
+        // yyyy-MM-ddTHH:mm:ss.nnnnnnnnn
+        char[] text = new char[29];
+        digits(text, 0, year, 4);
+        text[4] = '-';
+        digits(text, 5, value.getMonthValue(), 2);
+        text[7] = '-';
+        digits(text, 8, value.getDayOfMonth(), 2);
+        text[10] = 'T';
+        digits(text, 11, value.getHour(), 2);
+        text[13] = ':';
+        digits(text, 14, value.getMinute(), 2);
+        text[16] = ':';
+        digits(text, 17, value.getSecond(), 2);
+        int length = 19;
+        if (value.getNano() > 0) {
+            text[19] = '.';
+            digits(text, 20, value.getNano(), 9);
+            length = 29;
+            while (text[length - 1] == '0') {
+                length--;
+            }
+        }
+        gen.writeString(text, 0, length);
+    }
+
+    // Zero-padded decimal digits of a non-negative value
+    private static void digits(char[] text, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            text[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
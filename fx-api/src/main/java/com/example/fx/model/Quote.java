@@ -1,10 +1,15 @@
 package com.example.fx.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_quote_bucket_time", columnList = "quoteBucket, quoteTime"),
+        @Index(name = "idx_quote_pair_bucket_time", columnList = "currencyPair, quoteBucket, quoteTime")
+})
 public class Quote {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -36,6 +41,10 @@ public class Quote {
     private String quoteReference;
     private String quoteComment;
 
+    // Time bucket of quoteTime (see TimeBuckets); derived, never part of the API payload
+    @JsonIgnore
+    private Long quoteBucket;
+
     // Getters and setters
     public Long getId() {
         return id;
@@ -244,4 +253,14 @@ public class Quote {
     public void setQuoteComment(String quoteComment) {
         this.quoteComment = quoteComment;
     }
+
+    public Long getQuoteBucket() {
+        return quoteBucket;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void assignQuoteBucket() {
+        this.quoteBucket = TimeBuckets.bucketOf(quoteTime);
+    }
 }
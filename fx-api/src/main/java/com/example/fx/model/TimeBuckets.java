@@ -0,0 +1,23 @@
+package com.example.fx.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Coarse time buckets used to partition quotes and trades by time.
+ *
+ * Each row stores the bucket of its timestamp next to the timestamp itself. Range queries constrain the
+ * bucket first, so the composite (bucket, time) indexes only visit the buckets that overlap the window,
+ * however large the table grows. Timestamps are bucketed as UTC.
+ */
+public final class TimeBuckets {
+
+    public static final long BUCKET_SECONDS = 3600;
+
+    private TimeBuckets() {
+    }
+
+    public static Long bucketOf(LocalDateTime time) {
+        return time == null ? null : Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), BUCKET_SECONDS);
+    }
+}
@@ -1,10 +1,15 @@
 package com.example.fx.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_trade_bucket_time", columnList = "tradeBucket, tradeDateTime"),
+        @Index(name = "idx_trade_pair_bucket_time", columnList = "currencyPair, tradeBucket, tradeDateTime")
+})
 public class Trade {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -41,6 +46,10 @@ public class Trade {
 
     private String quoteId; // Reference to Quote
 
+    // Time bucket of tradeDateTime (see TimeBuckets); derived, never part of the API payload
+    @JsonIgnore
+    private Long tradeBucket;
+
     // Getters and setters...
     public Long getId() {
         return id;
@@ -281,4 +290,14 @@ public class Trade {
     public void setQuoteId(String quoteId) {
         this.quoteId = quoteId;
     }
+
+    public Long getTradeBucket() {
+        return tradeBucket;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void assignTradeBucket() {
+        this.tradeBucket = TimeBuckets.bucketOf(tradeDateTime);
+    }
 }
@@ -1,8 +1,37 @@
 package com.example.fx.repository;
 
 import com.example.fx.model.Quote;
+import com.example.fx.model.TimeBuckets;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 public interface QuoteRepository extends JpaRepository<Quote, Long> {
-}
 
+    // The bucket predicate prunes to the buckets overlapping [from, to) before the exact time filter
+    @Query("select q from Quote q where q.quoteBucket between :fromBucket and :toBucket " +
+            "and q.quoteTime >= :from and q.quoteTime < :to order by q.quoteTime")
+    List<Quote> findInBuckets(@Param("fromBucket") long fromBucket, @Param("toBucket") long toBucket,
+                              @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("select q from Quote q where q.currencyPair = :currencyPair " +
+            "and q.quoteBucket between :fromBucket and :toBucket " +
+            "and q.quoteTime >= :from and q.quoteTime < :to order by q.quoteTime")
+    List<Quote> findInBuckets(@Param("currencyPair") String currencyPair,
+                              @Param("fromBucket") long fromBucket, @Param("toBucket") long toBucket,
+                              @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Quotes with {@code from <= quoteTime < to}, optionally for one currency pair, ordered by quoteTime.
+     */
+    default List<Quote> findByQuoteTimeRange(String currencyPair, LocalDateTime from, LocalDateTime to) {
+        long fromBucket = TimeBuckets.bucketOf(from);
+        long toBucket = TimeBuckets.bucketOf(to);
+        return currencyPair == null
+                ? findInBuckets(fromBucket, toBucket, from, to)
+                : findInBuckets(currencyPair, fromBucket, toBucket, from, to);
+    }
+}
@@ -1,8 +1,62 @@
 package com.example.fx.repository;
 
+import com.example.fx.model.TimeBuckets;
 import com.example.fx.model.Trade;
+import org.springframework.data.domain.Limit;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 public interface TradeRepository extends JpaRepository<Trade, Long> {
-}
 
+    // The bucket predicate prunes to the buckets overlapping [from, to) before the exact time filter
+    @Query("select t from Trade t where t.tradeBucket between :fromBucket and :toBucket " +
+            "and t.tradeDateTime >= :from and t.tradeDateTime < :to order by t.tradeDateTime")
+    List<Trade> findInBuckets(@Param("fromBucket") long fromBucket, @Param("toBucket") long toBucket,
+                              @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("select t from Trade t where t.currencyPair = :currencyPair " +
+            "and t.tradeBucket between :fromBucket and :toBucket " +
+            "and t.tradeDateTime >= :from and t.tradeDateTime < :to order by t.tradeDateTime")
+    List<Trade> findInBuckets(@Param("currencyPair") String currencyPair,
+                              @Param("fromBucket") long fromBucket, @Param("toBucket") long toBucket,
+                              @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Trades with {@code from <= tradeDateTime < to}, optionally for one currency pair, ordered by tradeDateTime.
+     */
+    default List<Trade> findByTradeDateTimeRange(String currencyPair, LocalDateTime from, LocalDateTime to) {
+        long fromBucket = TimeBuckets.bucketOf(from);
+        long toBucket = TimeBuckets.bucketOf(to);
+        return currencyPair == null
+                ? findInBuckets(fromBucket, toBucket, from, to)
+                : findInBuckets(currencyPair, fromBucket, toBucket, from, to);
+    }
+
+    /**
+     * Deletes the trade row with the given id and returns the number of rows deleted: 0 if it was already gone.
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from Trade t where t.id = :id")
+    int deleteRowById(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from Trade t where t.tradeBucket <= :cutoffBucket and t.tradeDateTime < :cutoff order by t.id")
+    List<Trade> findOlderThan(@Param("cutoffBucket") long cutoffBucket, @Param("cutoff") LocalDateTime cutoff, Limit limit);
+
+    /**
+     * Up to {@code limit} trades with {@code tradeDateTime < cutoff}, ordered by id, locked for update until the
+     * surrounding transaction ends. Must be called inside a transaction.
+     */
+    default List<Trade> findOlderThan(LocalDateTime cutoff, int limit) {
+        return findOlderThan(TimeBuckets.bucketOf(cutoff), cutoff, Limit.of(limit));
+    }
+}
@@ -0,0 +1,373 @@
+package com.example.fx.service;
+
+import com.example.fx.config.DatasetGeneratorProperties;
+import com.example.fx.model.TimeBuckets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Fills the quote and trade tables with millions of realistic rows for load testing.
+ *
+ * Rows have the shape of the load test payloads: every field is populated, currency pairs, tenors and statuses
+ * follow the configured weights, and quote times are spread evenly over {@code fx.datagen.time-spread} up to now.
+ * Each trade references a generated quote of the same pair, is booked a few seconds after it at its bid or ask,
+ * and that quote is ACTIVE.
+ *
+ * Generation bypasses JPA: the rows are split into chunks of {@code fx.datagen.batch-size} quotes (and their
+ * trades), each generated and inserted as one JDBC batch and transaction on one of
+ * {@code fx.datagen.writer-threads} connections. Only the startup dataset ({@code fx.datagen.startup-quotes} and
+ * {@code startup-trades}), generated before the server accepts requests, is loaded with the secondary indexes
+ * dropped for the duration; once the application serves, they stay in place, so no request ever runs against
+ * unindexed tables. Each chunk
+ * draws from its own seeded random, so a given seed and size always produces the same dataset. Generated rows are
+ * added to the existing ones; generated quotes are not scheduled for expiry.
+ */
+@Service
+@EnableConfigurationProperties(DatasetGeneratorProperties.class)
+public class DatasetGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(DatasetGenerator.class);
+
+    private static final String QUOTE_INSERT = "INSERT INTO quote (currency_pair, bid, ask, mid, quote_provider, " +
+            "quote_time, venue, liquidity_provider, quote_id, tenor, settlement_type, quote_status, source_system, " +
+            "pricing_model, price_type, market_data_source, quote_condition, quote_origin, quote_type, quote_level, " +
+            "quote_side, quote_channel, quote_version, quote_reference, quote_comment, quote_bucket) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String TRADE_INSERT = "INSERT INTO trade (trade_id, currency_pair, notional, direction, " +
+            "price, counterparty, trade_date_time, trader, book, status, settlement_type, settlement_date, " +
+            "trade_type, execution_venue, source_system, trade_reference, trade_comment, trade_version, " +
+            "trade_channel, trade_strategy, trade_desk, trade_origin, trade_level, trade_side, trade_condition, " +
+            "trade_category, trade_sub_type, trade_book_type, quote_id, trade_bucket) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Reference mid prices; pairs not listed trade around 1
+    private static final Map<String, Double> MIDS = Map.of(
+            "EUR/USD", 1.0850, "USD/JPY", 151.20, "GBP/USD", 1.2650, "AUD/USD", 0.6550,
+            "USD/CHF", 0.8850, "USD/CAD", 1.3650, "NZD/USD", 0.6050, "EUR/GBP", 0.8580, "EUR/JPY", 164.00);
+    private static final long[] NOTIONALS = {100_000, 250_000, 500_000, 1_000_000, 2_000_000, 5_000_000,
+            10_000_000, 25_000_000};
+    private static final String[] PROVIDERS = {"ProviderX", "ProviderY", "ProviderZ", "Provider1", "Provider2"};
+    private static final String[] VENUES = {"VenueA", "VenueB", "VenueC", "VenueD", "VenueE"};
+    private static final String[] LIQUIDITY_PROVIDERS = {"LP1", "LP2", "LP3", "LP4", "LP5", "LP6", "LP7", "LP8"};
+    private static final String[] SYSTEMS = {"SystemA", "SystemB", "SystemC"};
+    private static final String[] MODELS = {"Model1", "Model2", "Model3"};
+    private static final String[] MARKET_DATA = {"MarketX", "MarketY"};
+    private static final String[] ORIGINS = {"Internal", "External"};
+    private static final String[] LEVELS = {"Level1", "Level2", "Level3"};
+    private static final String[] CHANNELS = {"API", "GUI", "FIX"};
+    private static final String[] COUNTERPARTIES = {"BankA", "BankB", "BankC", "BankD", "BankE", "BankF", "BankG",
+            "BankH", "FundX", "FundY", "FundZ", "CorpQ"};
+    private static final String[] BOOKS = {"BookA", "BookB", "BookC", "BookD", "BookE"};
+    private static final String[] STRATEGIES = {"Strategy1", "Strategy2", "Strategy3", "Strategy4"};
+    private static final String[] DESKS = {"Desk1", "Desk2", "Desk3"};
+    private static final String[] CATEGORIES = {"Category1", "Category2"};
+    private static final String[] SUB_TYPES = {"SubTypeA", "SubTypeB", "SubTypeC"};
+    private static final String[] BOOK_TYPES = {"BookTypeA", "BookTypeB"};
+
+    private final DatasetGeneratorProperties properties;
+    private final DataSource dataSource;
+    private final PositionAnalytics positionAnalytics;
+    private volatile boolean serving;
+
+    public DatasetGenerator(DatasetGeneratorProperties properties, DataSource dataSource,
+                            PositionAnalytics positionAnalytics) {
+        this.properties = properties;
+        this.dataSource = dataSource;
+        this.positionAnalytics = positionAnalytics;
+    }
+
+    /**
+     * Generates the {@code fx.datagen.startup-quotes} dataset, if any. Called by {@link StartupDataset} before the
+     * web server starts, after a snapshot restore on startup.
+     */
+    void generateOnStartup() {
+        if (properties.getStartupQuotes() > 0) {
+            Summary summary = generate(properties.getStartupQuotes(), properties.getStartupTrades());
+            log.info("Generated {} quotes and {} trades in {} ms", summary.quotes(), summary.trades(), summary.millis());
+        }
+    }
+
+    // From here on requests may run at any time, so generation must leave the indexes alone
+    @EventListener(ApplicationReadyEvent.class)
+    public void serving() {
+        serving = true;
+    }
+
+    /**
+     * Outcome of a generation run.
+     */
+    public record Summary(long quotes, long trades, long millis) {
+    }
+
+    /**
+     * Adds {@code quotes} quotes and {@code trades} trades, then rebuilds the position analytics.
+     */
+    public synchronized Summary generate(long quotes, long trades) {
+        if (quotes < 0 || trades < 0) {
+            throw new IllegalArgumentException("quotes and trades must not be negative");
+        }
+        if (trades > 0 && quotes == 0) {
+            throw new IllegalArgumentException("Trades reference quotes; generate at least one quote");
+        }
+        long start = System.nanoTime();
+        Plan plan = new Plan(quotes, trades, properties.getBatchSize(),
+                LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS).minus(properties.getTimeSpread()),
+                properties.getTimeSpread().toMillis(), Long.toString(System.currentTimeMillis(), 36).toUpperCase(),
+                new Weighted(properties.getPairWeights()), new Weighted(properties.getTenorWeights()),
+                new Weighted(properties.getQuoteStatusWeights()), new Weighted(properties.getTradeStatusWeights()));
+        try {
+            if (serving) {
+                insertChunks(plan);
+            } else {
+                insertWithoutIndexes(plan);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Dataset generation failed", e);
+        }
+        positionAnalytics.rebuild();
+        return new Summary(quotes, trades, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Only before the application serves: a request meanwhile would scan the unindexed tables
+    private void insertWithoutIndexes(Plan plan) throws SQLException {
+        Map<String, List<String>> quoteIndexes = TableSnapshot.dropSecondaryIndexes(dataSource, "quote");
+        Map<String, List<String>> tradeIndexes = TableSnapshot.dropSecondaryIndexes(dataSource, "trade");
+        try {
+            insertChunks(plan);
+        } finally {
+            TableSnapshot.createIndexes(dataSource, "quote", quoteIndexes);
+            TableSnapshot.createIndexes(dataSource, "trade", tradeIndexes);
+        }
+    }
+
+    private void insertChunks(Plan plan) throws SQLException {
+        long chunks = (plan.quotes() + plan.chunkSize() - 1) / plan.chunkSize();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, properties.getWriterThreads()), task -> {
+            Thread thread = new Thread(task, "dataset-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long chunk = 0; chunk < chunks; chunk++) {
+                long c = chunk;
+                futures.add(pool.submit(() -> {
+                    insertChunk(plan, c);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while generating the dataset", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof SQLException cause ? cause : new SQLException("Dataset generation failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void insertChunk(Plan plan, long chunk) throws SQLException {
+        SplittableRandom random = new SplittableRandom(properties.getSeed() * 1_000_003 + chunk);
+        long fromQuote = chunk * plan.chunkSize();
+        int size = (int) Math.min(plan.chunkSize(), plan.quotes() - fromQuote);
+        // Trade k books quote k * quotes / trades, so trades spread evenly over the quotes
+        long fromTrade = plan.trades() == 0 ? 0 : Math.ceilDiv(fromQuote * plan.trades(), plan.quotes());
+        long toTrade = plan.trades() == 0 ? 0 : Math.ceilDiv((fromQuote + size) * plan.trades(), plan.quotes());
+        boolean[] traded = new boolean[size];
+        for (long k = fromTrade; k < toTrade; k++) {
+            traded[(int) (k * plan.quotes() / plan.trades() - fromQuote)] = true;
+        }
+
+        String[] quoteIds = new String[size];
+        String[] pairs = new String[size];
+        String[] tenors = new String[size];
+        String[] venues = new String[size];
+        BigDecimal[] bids = new BigDecimal[size];
+        BigDecimal[] asks = new BigDecimal[size];
+        LocalDateTime[] times = new LocalDateTime[size];
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement quote = connection.prepareStatement(QUOTE_INSERT);
+                 PreparedStatement trade = connection.prepareStatement(TRADE_INSERT)) {
+                double step = (double) plan.spreadMillis() / plan.quotes();
+                for (int i = 0; i < size; i++) {
+                    long index = fromQuote + i;
+                    String pair = plan.pairs().pick(random);
+                    double mid = MIDS.getOrDefault(pair, 1.0) * (1 + random.nextDouble(-0.01, 0.01));
+                    int scale = mid > 20 ? 3 : 5;
+                    double halfSpread = mid * random.nextDouble(0.00002, 0.0001);
+                    quoteIds[i] = "Q" + plan.runId() + index;
+                    pairs[i] = pair;
+                    tenors[i] = plan.tenors().pick(random);
+                    venues[i] = pick(random, VENUES);
+                    bids[i] = BigDecimal.valueOf(mid - halfSpread).setScale(scale, RoundingMode.HALF_EVEN);
+                    asks[i] = BigDecimal.valueOf(mid + halfSpread).setScale(scale, RoundingMode.HALF_EVEN);
+                    times[i] = plan.start().plus((long) (index * step + random.nextDouble() * step), ChronoUnit.MILLIS);
+                    String quoteType = random.nextInt(10) < 7 ? "Indicative" : "Firm";
+
+                    int p = 1;
+                    quote.setString(p++, pair);
+                    quote.setBigDecimal(p++, bids[i]);
+                    quote.setBigDecimal(p++, asks[i]);
+                    quote.setBigDecimal(p++, BigDecimal.valueOf(mid).setScale(scale + 1, RoundingMode.HALF_EVEN));
+                    quote.setString(p++, pick(random, PROVIDERS));
+                    quote.setObject(p++, times[i]);
+                    quote.setString(p++, venues[i]);
+                    quote.setString(p++, pick(random, LIQUIDITY_PROVIDERS));
+                    quote.setString(p++, quoteIds[i]);
+                    quote.setString(p++, tenors[i]);
+                    quote.setString(p++, "T+2");
+                    quote.setString(p++, traded[i] ? "ACTIVE" : plan.quoteStatuses().pick(random));
+                    quote.setString(p++, pick(random, SYSTEMS));
+                    quote.setString(p++, pick(random, MODELS));
+                    quote.setString(p++, quoteType);
+                    quote.setString(p++, pick(random, MARKET_DATA));
+                    quote.setString(p++, random.nextInt(20) == 0 ? "Fast" : "Normal");
+                    quote.setString(p++, pick(random, ORIGINS));
+                    quote.setString(p++, quoteType);
+                    quote.setString(p++, pick(random, LEVELS));
+                    quote.setString(p++, random.nextBoolean() ? "Buy" : "Sell");
+                    quote.setString(p++, pick(random, CHANNELS));
+                    quote.setString(p++, "1");
+                    quote.setString(p++, "Ref" + index);
+                    quote.setString(p++, "Generated quote");
+                    quote.setLong(p, TimeBuckets.bucketOf(times[i]));
+                    quote.addBatch();
+                }
+                quote.executeBatch();
+
+                for (long k = fromTrade; k < toTrade; k++) {
+                    int i = (int) (k * plan.quotes() / plan.trades() - fromQuote);
+                    boolean buy = random.nextBoolean();
+                    LocalDateTime time = times[i].plus(random.nextLong(50, 3_000), ChronoUnit.MILLIS);
+                    String counterparty = COUNTERPARTIES[(int) (Math.pow(random.nextDouble(), 2) * COUNTERPARTIES.length)];
+
+                    int p = 1;
+                    trade.setString(p++, "T" + plan.runId() + k);
+                    trade.setString(p++, pairs[i]);
+                    trade.setBigDecimal(p++, BigDecimal.valueOf(pick(random, NOTIONALS)));
+                    trade.setString(p++, buy ? "BUY" : "SELL");
+                    trade.setBigDecimal(p++, buy ? asks[i] : bids[i]);
+                    trade.setString(p++, counterparty);
+                    trade.setObject(p++, time);
+                    trade.setString(p++, "Trader" + (1 + random.nextInt(20)));
+                    trade.setString(p++, pick(random, BOOKS));
+                    trade.setString(p++, plan.tradeStatuses().pick(random));
+                    trade.setString(p++, "T+2");
+                    trade.setString(p++, settlementDate(time, tenors[i]));
+                    trade.setString(p++, "SPOT".equals(tenors[i]) ? "SPOT" : "FORWARD");
+                    trade.setString(p++, venues[i]);
+                    trade.setString(p++, pick(random, SYSTEMS));
+                    trade.setString(p++, "RefT" + k);
+                    trade.setString(p++, "Generated trade");
+                    trade.setString(p++, "1");
+                    trade.setString(p++, pick(random, CHANNELS));
+                    trade.setString(p++, pick(random, STRATEGIES));
+                    trade.setString(p++, pick(random, DESKS));
+                    trade.setString(p++, pick(random, ORIGINS));
+                    trade.setString(p++, pick(random, LEVELS));
+                    trade.setString(p++, buy ? "Buy" : "Sell");
+                    trade.setString(p++, "Normal");
+                    trade.setString(p++, pick(random, CATEGORIES));
+                    trade.setString(p++, pick(random, SUB_TYPES));
+                    trade.setString(p++, pick(random, BOOK_TYPES));
+                    trade.setString(p++, quoteIds[i]);
+                    trade.setLong(p, TimeBuckets.bucketOf(time));
+                    trade.addBatch();
+                }
+                trade.executeBatch();
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static String settlementDate(LocalDateTime tradeTime, String tenor) {
+        LocalDateTime spot = tradeTime.plusDays(2);
+        LocalDateTime settlement = switch (tenor) {
+            case "1W" -> spot.plusWeeks(1);
+            case "1M" -> spot.plusMonths(1);
+            case "3M" -> spot.plusMonths(3);
+            default -> spot;
+        };
+        return settlement.toLocalDate().toString();
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static long pick(SplittableRandom random, long[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    // Shared, read-only inputs of one generation run
+    private record Plan(long quotes, long trades, int chunkSize, LocalDateTime start, long spreadMillis, String runId,
+                        Weighted pairs, Weighted tenors, Weighted quoteStatuses, Weighted tradeStatuses) {
+    }
+
+    /**
+     * Draws keys in proportion to their weights.
+     */
+    private static final class Weighted {
+
+        private final String[] keys;
+        private final int[] cumulative;
+
+        Weighted(Map<String, Integer> weights) {
+            List<String> keys = new ArrayList<>();
+            List<Integer> cumulative = new ArrayList<>();
+            int total = 0;
+            for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+                if (entry.getValue() != null && entry.getValue() > 0) {
+                    total += entry.getValue();
+                    keys.add(entry.getKey());
+                    cumulative.add(total);
+                }
+            }
+            if (keys.isEmpty()) {
+                throw new IllegalArgumentException("At least one weight must be positive: " + weights);
+            }
+            this.keys = keys.toArray(String[]::new);
+            this.cumulative = cumulative.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        String pick(SplittableRandom random) {
+            int draw = random.nextInt(cumulative[cumulative.length - 1]);
+            int i = 0;
+            while (cumulative[i] <= draw) {
+                i++;
+            }
+            return keys[i];
+        }
+    }
+}
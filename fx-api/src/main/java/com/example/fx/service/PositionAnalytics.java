@@ -0,0 +1,293 @@
+package com.example.fx.service;
+
+import com.example.fx.model.Trade;
+import com.example.fx.repository.TradeRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Incrementally maintained net position, gross notional and VWAP per currency pair x book and per counterparty.
+ *
+ * Trade create/update/delete apply signed deltas to striped {@link DoubleAdder}/{@link LongAdder} accumulators,
+ * so concurrent bookings never contend on a lock. Snapshot reads sum the adders without blocking writers; a
+ * snapshot taken while trades are being booked may include part of an in-flight update.
+ *
+ * Bookings must run inside {@link #bookTrade}, and updates and deletes of a stored trade inside
+ * {@link #changeTrade}, which serializes changes to the same trade id, so the "before" state they reverse is the
+ * one actually stored. A rebuild fills new maps and swaps them in, so reads never see the figures emptied. It
+ * waits for the changes in flight and holds off new ones until the swap: a change it let through would either land
+ * on the old maps and be lost, or be both in the trades it loads and applied again.
+ *
+ * Net position is signed by direction (BUY +, SELL -, anything else 0). VWAP is weighted by absolute
+ * notional over trades that have a price.
+ */
+@Service
+public class PositionAnalytics {
+
+    private static final String UNKNOWN = "UNKNOWN";
+
+    private final TradeRepository tradeRepository;
+    private final Optional<TradeArchiveService> tradeArchive;
+    private final Object[] tradeLocks = new Object[64];
+    // Read-locked by every change, write-locked by a rebuild
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private volatile ConcurrentMap<BookKey, Accumulator> byBook = new ConcurrentHashMap<>();
+    private volatile ConcurrentMap<String, Accumulator> byCounterparty = new ConcurrentHashMap<>();
+
+    public PositionAnalytics(TradeRepository tradeRepository, Optional<TradeArchiveService> tradeArchive) {
+        this.tradeRepository = tradeRepository;
+        this.tradeArchive = tradeArchive;
+        for (int i = 0; i < tradeLocks.length; i++) {
+            tradeLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * Seeds the accumulators from the trades already stored when the application starts, archived trades included.
+     * Moving a trade into the archive later leaves the figures unchanged.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.writeLock().lock();
+        try {
+            ConcurrentMap<BookKey, Accumulator> books = new ConcurrentHashMap<>();
+            ConcurrentMap<String, Accumulator> counterparties = new ConcurrentHashMap<>();
+            Runnable load = () -> {
+                tradeRepository.findAll().forEach(trade -> apply(books, counterparties, trade, 1));
+                tradeArchive.ifPresent(archive -> archive.forEachArchived(trade -> apply(books, counterparties, trade, 1)));
+            };
+            // Counts a trade being moved into the archive once, not in both the table and its new segment
+            tradeArchive.ifPresentOrElse(archive -> archive.consistently(() -> {
+                load.run();
+                return null;
+            }), load);
+            byBook = books;
+            byCounterparty = counterparties;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stores a new trade with {@code save} and adds the stored trade to the figures, while no rebuild runs.
+     */
+    public Trade bookTrade(Supplier<Trade> save) {
+        rebuildLock.readLock().lock();
+        try {
+            Trade saved = save.get();
+            onCreated(saved);
+            return saved;
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a read-modify-write of the stored trade with the given id, and the {@link #onUpdated}/{@link #onDeleted}
+     * call for it, while no other change to the same id and no rebuild runs.
+     */
+    public <T> T changeTrade(long id, Supplier<T> change) {
+        rebuildLock.readLock().lock();
+        try {
+            synchronized (tradeLocks[Long.hashCode(id) & (tradeLocks.length - 1)]) {
+                return change.get();
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    public void onCreated(Trade trade) {
+        apply(trade, 1);
+    }
+
+    public void onUpdated(Trade before, Trade after) {
+        apply(before, -1);
+        apply(after, 1);
+    }
+
+    public void onDeleted(Trade trade) {
+        apply(trade, -1);
+    }
+
+    public List<BookPosition> bookPositions(String currencyPair, String book) {
+        return byBook.entrySet().stream()
+                .filter(e -> currencyPair == null || currencyPair.equals(e.getKey().currencyPair()))
+                .filter(e -> book == null || book.equals(e.getKey().book()))
+                .map(e -> e.getValue().toBookPosition(e.getKey()))
+                .filter(p -> p.tradeCount() != 0)
+                .sorted(BOOK_ORDER)
+                .toList();
+    }
+
+    public List<CounterpartyPosition> counterpartyPositions(String counterparty) {
+        return byCounterparty.entrySet().stream()
+                .filter(e -> counterparty == null || counterparty.equals(e.getKey()))
+                .map(e -> e.getValue().toCounterpartyPosition(e.getKey()))
+                .filter(p -> p.tradeCount() != 0)
+                .sorted(COUNTERPARTY_ORDER)
+                .toList();
+    }
+
+    private void apply(Trade trade, int sign) {
+        apply(byBook, byCounterparty, trade, sign);
+    }
+
+    private static void apply(ConcurrentMap<BookKey, Accumulator> byBook, ConcurrentMap<String, Accumulator> byCounterparty,
+                              Trade trade, int sign) {
+        BookKey bookKey = new BookKey(orUnknown(trade.getCurrencyPair()), orUnknown(trade.getBook()));
+        byBook.computeIfAbsent(bookKey, k -> new Accumulator()).add(trade, sign);
+        byCounterparty.computeIfAbsent(orUnknown(trade.getCounterparty()), k -> new Accumulator()).add(trade, sign);
+    }
+
+    /**
+     * Batch recompute of the book positions from a full set of trades, using exact decimal arithmetic.
+     * Used to verify the incremental figures.
+     */
+    public static List<BookPosition> recomputeBookPositions(Iterable<Trade> trades) {
+        Map<BookKey, Totals> totals = new HashMap<>();
+        for (Trade trade : trades) {
+            BookKey key = new BookKey(orUnknown(trade.getCurrencyPair()), orUnknown(trade.getBook()));
+            totals.computeIfAbsent(key, k -> new Totals()).add(trade);
+        }
+        return totals.entrySet().stream()
+                .map(e -> e.getValue().toBookPosition(e.getKey()))
+                .sorted(BOOK_ORDER)
+                .toList();
+    }
+
+    /**
+     * Batch recompute of the counterparty positions from a full set of trades, using exact decimal arithmetic.
+     */
+    public static List<CounterpartyPosition> recomputeCounterpartyPositions(Iterable<Trade> trades) {
+        Map<String, Totals> totals = new HashMap<>();
+        for (Trade trade : trades) {
+            totals.computeIfAbsent(orUnknown(trade.getCounterparty()), k -> new Totals()).add(trade);
+        }
+        return totals.entrySet().stream()
+                .map(e -> e.getValue().toCounterpartyPosition(e.getKey()))
+                .sorted(COUNTERPARTY_ORDER)
+                .toList();
+    }
+
+    private static String orUnknown(String value) {
+        return value != null ? value : UNKNOWN;
+    }
+
+    private static int directionSign(Trade trade) {
+        String direction = trade.getDirection();
+        if ("BUY".equalsIgnoreCase(direction)) {
+            return 1;
+        }
+        if ("SELL".equalsIgnoreCase(direction)) {
+            return -1;
+        }
+        return 0;
+    }
+
+    private static final Comparator<BookPosition> BOOK_ORDER =
+            Comparator.comparing(BookPosition::currencyPair).thenComparing(BookPosition::book);
+    private static final Comparator<CounterpartyPosition> COUNTERPARTY_ORDER =
+            Comparator.comparing(CounterpartyPosition::counterparty);
+
+    private record BookKey(String currencyPair, String book) {
+    }
+
+    public record BookPosition(String currencyPair, String book, double netPosition, double grossNotional,
+                               Double vwap, long tradeCount) {
+    }
+
+    public record CounterpartyPosition(String counterparty, double netPosition, double grossNotional,
+                                       Double vwap, long tradeCount) {
+    }
+
+    // Striped accumulators for one key; every field is updated independently without locking
+    private static final class Accumulator {
+        final DoubleAdder netNotional = new DoubleAdder();
+        final DoubleAdder grossNotional = new DoubleAdder();
+        final DoubleAdder pricedNotional = new DoubleAdder();
+        final DoubleAdder priceTimesNotional = new DoubleAdder();
+        final LongAdder tradeCount = new LongAdder();
+
+        void add(Trade trade, int sign) {
+            tradeCount.add(sign);
+            if (trade.getNotional() == null) {
+                return;
+            }
+            double notional = trade.getNotional().abs().doubleValue();
+            netNotional.add(sign * directionSign(trade) * notional);
+            grossNotional.add(sign * notional);
+            if (trade.getPrice() != null) {
+                pricedNotional.add(sign * notional);
+                priceTimesNotional.add(sign * notional * trade.getPrice().doubleValue());
+            }
+        }
+
+        Double vwap() {
+            double weight = pricedNotional.sum();
+            return weight == 0 ? null : priceTimesNotional.sum() / weight;
+        }
+
+        BookPosition toBookPosition(BookKey key) {
+            return new BookPosition(key.currencyPair(), key.book(), netNotional.sum(), grossNotional.sum(),
+                    vwap(), tradeCount.sum());
+        }
+
+        CounterpartyPosition toCounterpartyPosition(String counterparty) {
+            return new CounterpartyPosition(counterparty, netNotional.sum(), grossNotional.sum(),
+                    vwap(), tradeCount.sum());
+        }
+    }
+
+    // Exact totals for the batch recompute
+    private static final class Totals {
+        BigDecimal netNotional = BigDecimal.ZERO;
+        BigDecimal grossNotional = BigDecimal.ZERO;
+        BigDecimal pricedNotional = BigDecimal.ZERO;
+        BigDecimal priceTimesNotional = BigDecimal.ZERO;
+        long tradeCount;
+
+        void add(Trade trade) {
+            tradeCount++;
+            if (trade.getNotional() == null) {
+                return;
+            }
+            BigDecimal notional = trade.getNotional().abs();
+            netNotional = netNotional.add(notional.multiply(BigDecimal.valueOf(directionSign(trade))));
+            grossNotional = grossNotional.add(notional);
+            if (trade.getPrice() != null) {
+                pricedNotional = pricedNotional.add(notional);
+                priceTimesNotional = priceTimesNotional.add(notional.multiply(trade.getPrice()));
+            }
+        }
+
+        Double vwap() {
+            return pricedNotional.signum() == 0 ? null : priceTimesNotional.doubleValue() / pricedNotional.doubleValue();
+        }
+
+        BookPosition toBookPosition(BookKey key) {
+            return new BookPosition(key.currencyPair(), key.book(), netNotional.doubleValue(),
+                    grossNotional.doubleValue(), vwap(), tradeCount);
+        }
+
+        CounterpartyPosition toCounterpartyPosition(String counterparty) {
+            return new CounterpartyPosition(counterparty, netNotional.doubleValue(),
+                    grossNotional.doubleValue(), vwap(), tradeCount);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.fx.service;
+
+import com.example.fx.config.QuoteExpiryProperties;
+import com.example.fx.model.Quote;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Expires quotes after their TTL so the quote table stays bounded under sustained load.
+ *
+ * Saved quotes are queued lock-free and picked up by a single sweeper thread that owns a
+ * {@link TimingWheel}; every tick it expires the due quotes and applies the configured action
+ * (mark, archive or delete) in batched JDBC statements, for at most one tick per sweep; due quotes it
+ * does not get to are carried over to the next sweep. Booking checks quoteIds against an in-memory
+ * deadline map, so an expired quote is rejected in O(1) from the moment its TTL passes, before the
+ * sweeper has touched the row.
+ *
+ * Metrics: {@code fx.quote.expiry.scheduled} (quotes waiting to expire), {@code fx.quote.expiry.backlog}
+ * (quotes past their TTL not yet swept), {@code fx.quote.expiry.sweep} (time per sweep) and
+ * {@code fx.quote.expired} (quotes expired).
+ */
+@Service
+@EnableConfigurationProperties(QuoteExpiryProperties.class)
+public class QuoteExpiryService {
+
+    public static final String EXPIRED = "EXPIRED";
+
+    private static final Logger log = LoggerFactory.getLogger(QuoteExpiryService.class);
+
+    private final QuoteExpiryProperties properties;
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transactions;
+    private final Counter expiredCount;
+    private final Timer sweepTimer;
+
+    // Latest deadline per live quoteId, and quoteIds that expired within the retention window
+    private final Map<String, Long> deadlines = new ConcurrentHashMap<>();
+    private final Set<String> expiredQuoteIds = ConcurrentHashMap.newKeySet();
+
+    // Handed from request threads to the sweeper; the wheel itself is only touched by the sweeper
+    private final Queue<Expiry> pending = new ConcurrentLinkedQueue<>();
+    private final TimingWheel<Expiry> wheel;
+    // Quotes past their TTL that no batch has expired yet; sweeper thread only
+    private final ArrayDeque<Expiry> overdue = new ArrayDeque<>();
+    private final AtomicLong scheduled = new AtomicLong();
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong generation = new AtomicLong();
+    private final ScheduledExecutorService sweeper;
+    private volatile boolean archiveTableReady;
+
+    public QuoteExpiryService(QuoteExpiryProperties properties, NamedParameterJdbcTemplate jdbc,
+                              PlatformTransactionManager transactionManager, MeterRegistry registry) {
+        this.properties = properties;
+        this.jdbc = jdbc;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.wheel = new TimingWheel<>(properties.getTick().toMillis(), properties.getWheelSize(),
+                System.currentTimeMillis());
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "quote-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.expiredCount = Counter.builder("fx.quote.expired")
+                .description("Quotes expired by the TTL sweeper")
+                .tag("action", properties.getAction().name())
+                .register(registry);
+        this.sweepTimer = Timer.builder("fx.quote.expiry.sweep")
+                .description("Time spent per expiry sweep, including the batched database writes")
+                .register(registry);
+        Gauge.builder("fx.quote.expiry.scheduled", scheduled, AtomicLong::get)
+                .description("Quotes scheduled to expire")
+                .register(registry);
+        Gauge.builder("fx.quote.expiry.backlog", backlog, AtomicLong::get)
+                .description("Quotes past their TTL that the sweeper has not processed yet")
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (properties.isEnabled()) {
+            long tickMs = properties.getTick().toMillis();
+            sweeper.scheduleWithFixedDelay(this::sweep, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * Starts the TTL of a saved quote. No-op when expiry is disabled.
+     */
+    public void schedule(Quote quote) {
+        if (!properties.isEnabled() || quote.getId() == null) {
+            return;
+        }
+        long deadline = System.currentTimeMillis()
+                + properties.ttlFor(quote.getTenor(), quote.getQuoteType()).toMillis();
+        if (quote.getQuoteId() != null) {
+            deadlines.merge(quote.getQuoteId(), deadline, Math::max);
+        }
+        pending.add(new Expiry(quote.getId(), quote.getQuoteId(), deadline, generation.get()));
+        scheduled.incrementAndGet();
+    }
+
+    /**
+     * Drops every pending expiry, e.g. after the quote table has been replaced wholesale. Timers already in
+     * the wheel still fire but are ignored.
+     */
+    public void forgetAll() {
+        generation.incrementAndGet();
+        deadlines.clear();
+        expiredQuoteIds.clear();
+        scheduled.set(0);
+    }
+
+    /**
+     * Whether a quoteId belongs to a quote whose TTL has passed. O(1); quoteIds that were never
+     * scheduled, or expired longer ago than the retention window, report false.
+     */
+    public boolean isExpired(String quoteId) {
+        Long deadline = deadlines.get(quoteId);
+        if (deadline != null) {
+            return System.currentTimeMillis() >= deadline;
+        }
+        return expiredQuoteIds.contains(quoteId);
+    }
+
+    void sweep() {
+        try {
+            sweepTimer.record(() -> {
+                List<Expiry> due = new ArrayList<>();
+                Expiry expiry;
+                while ((expiry = pending.poll()) != null) {
+                    wheel.schedule(expiry.deadline(), expiry, due::add);
+                }
+                wheel.advanceTo(System.currentTimeMillis(), due::add);
+                expire(due);
+            });
+        } catch (RuntimeException e) {
+            // Keep the sweeper alive; rows of a failed batch stay put and booking still rejects them
+            log.warn("Quote expiry sweep failed", e);
+        }
+    }
+
+    private void expire(List<Expiry> due) {
+        long expiring = 0;
+        for (Expiry expiry : due) {
+            if (expiry.generation() != generation.get()) {
+                continue;
+            }
+            if (expiry.id() == null) {
+                // Retention timer: forget the expired quoteId
+                expiredQuoteIds.remove(expiry.quoteId());
+                continue;
+            }
+            if (expiry.quoteId() != null && deadlines.remove(expiry.quoteId(), expiry.deadline())) {
+                expiredQuoteIds.add(expiry.quoteId());
+                pending.add(new Expiry(null, expiry.quoteId(),
+                        System.currentTimeMillis() + properties.getExpiredIdRetention().toMillis(), expiry.generation()));
+            }
+            overdue.add(expiry);
+            expiring++;
+        }
+        scheduled.addAndGet(-expiring);
+        backlog.set(overdue.size());
+        long budgetEnd = System.nanoTime() + properties.getTick().toNanos();
+        while (!overdue.isEmpty() && System.nanoTime() < budgetEnd) {
+            List<Long> batch = new ArrayList<>(Math.min(properties.getBatchSize(), overdue.size()));
+            while (batch.size() < properties.getBatchSize() && !overdue.isEmpty()) {
+                Expiry expiry = overdue.poll();
+                if (expiry.generation() == generation.get()) {
+                    batch.add(expiry.id());
+                }
+            }
+            if (!batch.isEmpty()) {
+                transactions.executeWithoutResult(status -> apply(batch));
+                expiredCount.increment(batch.size());
+            }
+            // What the next sweep starts with if this one runs out of time
+            backlog.set(overdue.size());
+        }
+    }
+
+    private void apply(List<Long> ids) {
+        Map<String, Object> params = Map.of("ids", ids, "expired", EXPIRED);
+        switch (properties.getAction()) {
+            case MARK -> jdbc.update("UPDATE quote SET quote_status = :expired WHERE id IN (:ids)", params);
+            case ARCHIVE -> {
+                ensureArchiveTable();
+                jdbc.update("UPDATE quote SET quote_status = :expired WHERE id IN (:ids)", params);
+                jdbc.update("INSERT INTO quote_archive SELECT * FROM quote WHERE id IN (:ids)", params);
+                jdbc.update("DELETE FROM quote WHERE id IN (:ids)", params);
+            }
+            case DELETE -> jdbc.update("DELETE FROM quote WHERE id IN (:ids)", params);
+        }
+    }
+
+    private void ensureArchiveTable() {
+        if (!archiveTableReady) {
+            jdbc.getJdbcTemplate().execute("CREATE TABLE IF NOT EXISTS quote_archive AS SELECT * FROM quote WHERE 1 = 0");
+            archiveTableReady = true;
+        }
+    }
+
+    /**
+     * A quote TTL timer, or with a null id, the end of an expired quoteId's retention window.
+     */
+    private record Expiry(Long id, String quoteId, long deadline, long generation) {
+    }
+}
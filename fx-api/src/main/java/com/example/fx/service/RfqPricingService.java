@@ -0,0 +1,154 @@
+package com.example.fx.service;
+
+import com.example.fx.config.BulkheadConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulated RFQ pricing engine with optional request coalescing (single-flight).
+ *
+ * When coalescing is enabled, RFQs for the same currency pair and tenor that arrive while a price is
+ * being computed, or within {@code fx.rfq.coalescing.window-ms} after it completed, share that price
+ * instead of running their own pricing. Followers do not hold an RFQ pool thread while they wait.
+ * Keys come from the request, so at most {@code fx.rfq.coalescing.max-keys} flights are tracked; once
+ * that many are in flight or within their window, RFQs for further keys are priced on their own.
+ * Pricing work is counted in {@code fx.rfq.pricings}, shared prices in {@code fx.rfq.coalesced}.
+ */
+@Service
+public class RfqPricingService {
+
+    private final Executor rfqExecutor;
+    private final boolean coalescing;
+    private final long windowNanos;
+    private final int maxKeys;
+    private final Counter pricings;
+    private final Counter coalesced;
+    private final Random random = new Random();
+    private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<>();
+
+    public RfqPricingService(@Qualifier(BulkheadConfig.RFQ_EXECUTOR) Executor rfqExecutor,
+                             MeterRegistry registry,
+                             @Value("${fx.rfq.coalescing.enabled:false}") boolean coalescing,
+                             @Value("${fx.rfq.coalescing.window-ms:0}") long windowMs,
+                             @Value("${fx.rfq.coalescing.max-keys:10000}") int maxKeys) {
+        this.rfqExecutor = rfqExecutor;
+        this.coalescing = coalescing;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.maxKeys = maxKeys;
+        this.pricings = Counter.builder("fx.rfq.pricings")
+                .description("RFQ pricing computations performed")
+                .register(registry);
+        this.coalesced = Counter.builder("fx.rfq.coalesced")
+                .description("RFQs answered from a shared in-flight or recent price")
+                .register(registry);
+    }
+
+    /**
+     * Prices an RFQ on the RFQ bulkhead, or joins an identical in-flight RFQ when coalescing is enabled.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if a new pricing cannot be queued
+     */
+    public CompletableFuture<RfqPrice> price(String currencyPair, String tenor) {
+        if (!coalescing) {
+            return startPricing();
+        }
+        String key = currencyPair + '|' + tenor;
+        long now = System.nanoTime();
+        if (flights.size() >= maxKeys && !flights.containsKey(key)) {
+            flights.values().removeIf(f -> f.isStale(now, windowNanos));
+            if (flights.size() >= maxKeys) {
+                return startPricing();
+            }
+        }
+        Flight candidate = new Flight();
+        Flight flight = flights.compute(key, (k, existing) ->
+                existing == null || existing.isStale(now, windowNanos) ? candidate : existing);
+        if (flight != candidate) {
+            coalesced.increment();
+            return flight.price;
+        }
+        try {
+            startPricing().whenComplete((price, error) -> {
+                flight.completedAt = System.nanoTime();
+                if (error != null || windowNanos == 0) {
+                    // Never share a failure with later arrivals, nor keep a price nobody can join
+                    flights.remove(key, flight);
+                }
+                if (error != null) {
+                    flight.price.completeExceptionally(error);
+                } else {
+                    flight.price.complete(price);
+                }
+            });
+        } catch (RuntimeException e) {
+            flights.remove(key, flight);
+            flight.price.completeExceptionally(e);
+            throw e;
+        }
+        return flight.price;
+    }
+
+    // Keys currently tracked for coalescing
+    int trackedKeys() {
+        return flights.size();
+    }
+
+    private CompletableFuture<RfqPrice> startPricing() {
+        CompletableFuture<RfqPrice> future = new CompletableFuture<>();
+        rfqExecutor.execute(() -> {
+            try {
+                future.complete(computePrice());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private RfqPrice computePrice() throws InterruptedException {
+        pricings.increment();
+        // Simulate random delay around 200ms (e.g., 150-250ms)
+        Thread.sleep(150 + random.nextInt(100));
+
+        // Randomize bid/ask/mid
+        double base = 1.10 + random.nextDouble() * 0.1; // e.g., 1.10 - 1.20
+        double spread = 0.0005 + random.nextDouble() * 0.001; // e.g., 0.0005 - 0.0015
+        BigDecimal bid = BigDecimal.valueOf(base);
+        BigDecimal ask = BigDecimal.valueOf(base + spread);
+        BigDecimal mid = BigDecimal.valueOf((bid.doubleValue() + ask.doubleValue()) / 2.0);
+
+        return new RfqPrice(bid, ask, mid,
+                "Model" + (random.nextInt(3) + 1),
+                "Market" + (random.nextInt(3) + 1),
+                LocalDateTime.now());
+    }
+
+    /**
+     * A price shared by every RFQ coalesced onto the same pricing computation.
+     */
+    public record RfqPrice(BigDecimal bid, BigDecimal ask, BigDecimal mid,
+                           String pricingModel, String marketDataSource, LocalDateTime pricedAt) {
+    }
+
+    // One pricing computation and the RFQs attached to it
+    private static final class Flight {
+        final CompletableFuture<RfqPrice> price = new CompletableFuture<>();
+        volatile long completedAt;
+
+        boolean isStale(long now, long windowNanos) {
+            return price.isDone() && now - completedAt >= windowNanos;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.fx.service;
+
+import com.example.fx.config.SnapshotProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Named binary snapshots of the quote and trade tables, and bulk restore from them.
+ *
+ * The in-memory database starts empty on every restart; a snapshot restored at startup
+ * ({@code fx.snapshot.restore-on-startup}) or through the admin endpoint brings back a large dataset in
+ * seconds instead of re-seeding it through the REST API. Restored quotes are not scheduled for expiry.
+ *
+ * Next to each snapshot, {@code <name>.segments} lists the trade archive segments that existed when it was taken.
+ * A restore sets aside segments archived later, since their trades are back in the restored trade table.
+ *
+ * Only the startup restore drops the tables' secondary indexes for the load. Through the endpoint, requests keep
+ * running, so the indexes stay in place and the load maintains them row by row.
+ */
+@Service
+@EnableConfigurationProperties(SnapshotProperties.class)
+public class SnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotService.class);
+    private static final String SUFFIX = ".snap";
+    private static final String SEGMENTS_SUFFIX = ".segments";
+    private static final List<String> TABLES = List.of("quote", "trade");
+
+    private final SnapshotProperties properties;
+    private final DataSource dataSource;
+    private final TradeArchiveService tradeArchive;
+    private final PositionAnalytics positionAnalytics;
+    private final QuoteExpiryService quoteExpiryService;
+
+    public SnapshotService(SnapshotProperties properties, DataSource dataSource, TradeArchiveService tradeArchive,
+                           PositionAnalytics positionAnalytics, QuoteExpiryService quoteExpiryService) {
+        this.properties = properties;
+        this.dataSource = dataSource;
+        this.tradeArchive = tradeArchive;
+        this.positionAnalytics = positionAnalytics;
+        this.quoteExpiryService = quoteExpiryService;
+    }
+
+    /**
+     * Outcome of a snapshot or restore.
+     */
+    public record Summary(String name, long quotes, long trades, long bytes, long millis) {
+    }
+
+    /**
+     * Restores {@code fx.snapshot.restore-on-startup}, if set. Called by {@link StartupDataset} before the web server
+     * starts, so no request sees a half-loaded dataset.
+     */
+    void restoreOnStartup() {
+        String name = properties.getRestoreOnStartup();
+        if (name != null && !name.isBlank()) {
+            Summary summary = restore(name, false);
+            log.info("Restored snapshot '{}': {} quotes, {} trades in {} ms",
+                    name, summary.quotes(), summary.trades(), summary.millis());
+        }
+    }
+
+    public synchronized Summary snapshot(String name) {
+        Path path = pathOf(name);
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(path.getParent());
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            Path segmentsTmp = segmentsPathOf(name).resolveSibling(segmentsPathOf(name).getFileName() + ".tmp");
+            // No archive run may move trades out of the table between the manifest and the table copy
+            List<TableSnapshot.TableCount> counts = tradeArchive.withSegmentNames(segments -> {
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    Files.write(segmentsTmp, segments);
+                    return TableSnapshot.write(dataSource, TABLES, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Snapshot '" + name + "' failed", e);
+                }
+            });
+            Files.move(segmentsTmp, segmentsPathOf(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return summary(name, counts, Files.size(path), start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Replaces the quote and trade tables with a snapshot, then rebuilds the state derived from them.
+     */
+    public Summary restore(String name) {
+        return restore(name, true);
+    }
+
+    public List<String> list() {
+        if (!Files.isDirectory(properties.getDirectory())) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(properties.getDirectory())) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(f -> f.endsWith(SUFFIX))
+                    .map(f -> f.substring(0, f.length() - SUFFIX.length()))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Before the application serves, the load may drop the indexes, and the ApplicationReadyEvent rebuild of the
+    // position analytics follows; once it serves, requests may run against the tables at any time
+    private synchronized Summary restore(String name, boolean serving) {
+        Path path = pathOf(name);
+        long start = System.nanoTime();
+        try (InputStream in = Files.newInputStream(path)) {
+            List<String> segments = archivedSegments(name);
+            // No archive run may move restored trades into a segment that restored() would then set aside
+            List<TableSnapshot.TableCount> counts = tradeArchive.restoring(() -> {
+                try {
+                    List<TableSnapshot.TableCount> loaded = TableSnapshot.load(dataSource, in,
+                            properties.getWriterThreads(), properties.getBatchSize(), !serving);
+                    JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+                    for (String table : TABLES) {
+                        Long maxId = jdbc.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+                        jdbc.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (maxId == null ? 1 : maxId + 1));
+                    }
+                    quoteExpiryService.forgetAll();
+                    tradeArchive.restored(segments);
+                    return loaded;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Restore of '" + name + "' failed", e);
+                }
+            });
+            if (serving) {
+                positionAnalytics.rebuild();
+            }
+            return summary(name, counts, Files.size(path), start);
+        } catch (NoSuchFileException e) {
+            throw new IllegalArgumentException("No snapshot named '" + name + "'");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Segment names recorded with the snapshot; none for snapshots taken before the list was kept
+    private List<String> archivedSegments(String name) throws IOException {
+        Path segments = segmentsPathOf(name);
+        if (!Files.exists(segments)) {
+            log.warn("Snapshot '{}' has no archive segment list; archive segments on disk are set aside", name);
+            return List.of();
+        }
+        return Files.readAllLines(segments);
+    }
+
+    private Path segmentsPathOf(String name) {
+        return pathOf(name).resolveSibling(name + SEGMENTS_SUFFIX);
+    }
+
+    private Path pathOf(String name) {
+        // Names only, so the endpoints cannot reach outside the snapshot directory
+        if (name == null || !name.matches("[A-Za-z0-9][A-Za-z0-9._-]*")) {
+            throw new IllegalArgumentException("Invalid snapshot name: " + name);
+        }
+        return properties.getDirectory().resolve(name + SUFFIX);
+    }
+
+    private static Summary summary(String name, List<TableSnapshot.TableCount> counts, long bytes, long start) {
+        long quotes = 0;
+        long trades = 0;
+        for (TableSnapshot.TableCount count : counts) {
+            if ("quote".equals(count.table())) {
+                quotes = count.rows();
+            } else if ("trade".equals(count.table())) {
+                trades = count.rows();
+            }
+        }
+        return new Summary(name, quotes, trades, bytes, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.fx.service;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the startup dataset once all beans exist but before the web server starts: first the snapshot of
+ * {@code fx.snapshot.restore-on-startup}, then the rows of {@code fx.datagen.startup-quotes} on top of it.
+ *
+ * Both run from here, in this order: as callbacks of their own beans they would run in bean registration order,
+ * and since the restore truncates the tables, the generated rows would survive or not depending on it.
+ */
+@Component
+public class StartupDataset implements SmartInitializingSingleton {
+
+    private final SnapshotService snapshotService;
+    private final DatasetGenerator datasetGenerator;
+
+    public StartupDataset(SnapshotService snapshotService, DatasetGenerator datasetGenerator) {
+        this.snapshotService = snapshotService;
+        this.datasetGenerator = datasetGenerator;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        snapshotService.restoreOnStartup();
+        datasetGenerator.generateOnStartup();
+    }
+}
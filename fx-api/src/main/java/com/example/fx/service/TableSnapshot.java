@@ -0,0 +1,433 @@
+package com.example.fx.service;
+
+import javax.sql.DataSource;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact binary dump and bulk load of whole database tables over plain JDBC.
+ *
+ * The stream is Deflate-compressed and self-describing: per table, the column names and a type tag, then
+ * one null bitmap plus the non-null values per row. Loading maps columns by name, so a snapshot taken before
+ * a column was added still loads (the new column stays null) and dropped columns are skipped.
+ *
+ * Loading truncates each table and inserts through batched prepared statements on one or more connections fed by
+ * a single decoding thread. Unless requests may be running, it drops the non-unique indexes first and recreates
+ * them afterwards: building an index once over the loaded rows is much cheaper than maintaining it row by row.
+ */
+public final class TableSnapshot {
+
+    private static final int MAGIC = 0x4658534E; // "FXSN"
+    private static final int VERSION = 1;
+    private static final byte ROW = 1;
+    private static final byte END = 0;
+
+    // Type tags
+    private static final byte LONG = 'J';
+    private static final byte STRING = 'S';
+    private static final byte DECIMAL = 'N';
+    private static final byte TIMESTAMP = 'T';
+    private static final byte DOUBLE = 'D';
+    private static final byte BOOLEAN = 'Z';
+
+    private TableSnapshot() {
+    }
+
+    /**
+     * Rows written or loaded per table.
+     */
+    public record TableCount(String table, long rows) {
+    }
+
+    public static List<TableCount> write(DataSource dataSource, List<String> tables, OutputStream target)
+            throws IOException, SQLException {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        List<TableCount> counts = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                     new DeflaterOutputStream(target, deflater, 1 << 16), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(tables.size());
+            for (String table : tables) {
+                counts.add(new TableCount(table, writeTable(connection, table, out)));
+            }
+        } finally {
+            deflater.end();
+        }
+        return counts;
+    }
+
+    /**
+     * Replaces the contents of every table in the snapshot.
+     *
+     * @param writers     parallel insert connections per table
+     * @param batchSize   rows per JDBC batch and commit
+     * @param dropIndexes drop the non-unique indexes for the load; only while no request can run against the tables
+     */
+    public static List<TableCount> load(DataSource dataSource, InputStream source, int writers, int batchSize,
+                                        boolean dropIndexes) throws IOException, SQLException {
+        List<TableCount> counts = new ArrayList<>();
+        Inflater inflater = new Inflater();
+        ExecutorService pool = Executors.newFixedThreadPool(writers, task -> {
+            Thread thread = new Thread(task, "snapshot-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(source, inflater, 1 << 16), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a table snapshot");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported table snapshot version " + version);
+            }
+            int tables = in.readInt();
+            for (int i = 0; i < tables; i++) {
+                counts.add(loadTable(dataSource, in, pool, writers, batchSize, dropIndexes));
+            }
+        } finally {
+            pool.shutdownNow();
+            inflater.end();
+        }
+        return counts;
+    }
+
+    // --- Writing ---
+
+    private static long writeTable(Connection connection, String table, DataOutputStream out)
+            throws SQLException, IOException {
+        try (Statement statement = connection.createStatement()) {
+            statement.setFetchSize(10_000);
+            try (ResultSet rs = statement.executeQuery("SELECT * FROM " + table)) {
+                ResultSetMetaData meta = rs.getMetaData();
+                int columns = meta.getColumnCount();
+                byte[] tags = new byte[columns];
+                out.writeUTF(table);
+                out.writeInt(columns);
+                for (int c = 0; c < columns; c++) {
+                    tags[c] = tagOf(meta.getColumnType(c + 1));
+                    out.writeUTF(meta.getColumnName(c + 1));
+                    out.writeByte(tags[c]);
+                }
+                Object[] values = new Object[columns];
+                byte[] nulls = new byte[(columns + 7) / 8];
+                long rows = 0;
+                while (rs.next()) {
+                    Arrays.fill(nulls, (byte) 0);
+                    for (int c = 0; c < columns; c++) {
+                        values[c] = read(rs, c + 1, tags[c]);
+                        if (values[c] == null) {
+                            nulls[c >> 3] |= (byte) (1 << (c & 7));
+                        }
+                    }
+                    out.writeByte(ROW);
+                    out.write(nulls);
+                    for (int c = 0; c < columns; c++) {
+                        if (values[c] != null) {
+                            writeValue(out, tags[c], values[c]);
+                        }
+                    }
+                    rows++;
+                }
+                out.writeByte(END);
+                return rows;
+            }
+        }
+    }
+
+    private static byte tagOf(int sqlType) {
+        return switch (sqlType) {
+            case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT -> LONG;
+            case Types.NUMERIC, Types.DECIMAL -> DECIMAL;
+            case Types.TIMESTAMP -> TIMESTAMP;
+            case Types.DOUBLE, Types.FLOAT, Types.REAL -> DOUBLE;
+            case Types.BOOLEAN, Types.BIT -> BOOLEAN;
+            default -> STRING;
+        };
+    }
+
+    private static Object read(ResultSet rs, int column, byte tag) throws SQLException {
+        Object value = switch (tag) {
+            case LONG -> rs.getLong(column);
+            case DECIMAL -> rs.getBigDecimal(column);
+            case TIMESTAMP -> rs.getObject(column, LocalDateTime.class);
+            case DOUBLE -> rs.getDouble(column);
+            case BOOLEAN -> rs.getBoolean(column);
+            default -> rs.getString(column);
+        };
+        return rs.wasNull() ? null : value;
+    }
+
+    private static void writeValue(DataOutputStream out, byte tag, Object value) throws IOException {
+        switch (tag) {
+            case LONG -> out.writeLong((Long) value);
+            case DECIMAL -> {
+                BigDecimal decimal = (BigDecimal) value;
+                byte[] unscaled = decimal.unscaledValue().toByteArray();
+                out.writeShort(decimal.scale());
+                out.writeByte(unscaled.length);
+                out.write(unscaled);
+            }
+            case TIMESTAMP -> {
+                LocalDateTime time = (LocalDateTime) value;
+                out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(time.getNano());
+            }
+            case DOUBLE -> out.writeDouble((Double) value);
+            case BOOLEAN -> out.writeBoolean((Boolean) value);
+            default -> {
+                byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    // --- Loading ---
+
+    private static TableCount loadTable(DataSource dataSource, DataInputStream in, ExecutorService pool,
+                                        int writers, int batchSize, boolean dropIndexes)
+            throws IOException, SQLException {
+        String table = in.readUTF();
+        int columns = in.readInt();
+        String[] names = new String[columns];
+        byte[] tags = new byte[columns];
+        for (int c = 0; c < columns; c++) {
+            names[c] = in.readUTF();
+            tags[c] = in.readByte();
+        }
+
+        // Only columns present in both the snapshot and the current table are loaded
+        Map<String, Integer> targetTypes = columnTypes(dataSource, table);
+        List<Integer> kept = new ArrayList<>();
+        for (int c = 0; c < columns; c++) {
+            if (targetTypes.containsKey(names[c].toUpperCase(Locale.ROOT))) {
+                kept.add(c);
+            }
+        }
+        int[] sqlTypes = kept.stream().mapToInt(c -> targetTypes.get(names[c].toUpperCase(Locale.ROOT))).toArray();
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", kept.stream().map(c -> names[c]).toList())
+                + ") VALUES (" + String.join(", ", kept.stream().map(c -> "?").toList()) + ")";
+        Layout layout = new Layout(table, tags, kept, sqlTypes, sql);
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE TABLE " + table);
+        }
+        Map<String, List<String>> indexes = dropIndexes ? dropSecondaryIndexes(dataSource, table) : Map.of();
+        try {
+            return new TableCount(table, insertRows(dataSource, in, layout, pool, writers, batchSize));
+        } finally {
+            createIndexes(dataSource, table, indexes);
+        }
+    }
+
+    /**
+     * Drops the non-unique indexes of a table ahead of a bulk insert.
+     *
+     * @return the dropped indexes, to hand back to {@link #createIndexes}
+     */
+    static Map<String, List<String>> dropSecondaryIndexes(DataSource dataSource, String table) throws SQLException {
+        Map<String, List<String>> indexes = secondaryIndexes(dataSource, table);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            for (String index : indexes.keySet()) {
+                statement.execute("DROP INDEX " + index);
+            }
+        }
+        return indexes;
+    }
+
+    static void createIndexes(DataSource dataSource, String table, Map<String, List<String>> indexes) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            for (Map.Entry<String, List<String>> index : indexes.entrySet()) {
+                statement.execute("CREATE INDEX " + index.getKey() + " ON " + table
+                        + " (" + String.join(", ", index.getValue()) + ")");
+            }
+        }
+    }
+
+    // Type tags of the snapshot columns in file order, and the positions of those inserted into the table
+    private record Layout(String table, byte[] tags, List<Integer> kept, int[] sqlTypes, String insertSql) {
+    }
+
+    private static long insertRows(DataSource dataSource, DataInputStream in, Layout layout, ExecutorService pool,
+                                   int writers, int batchSize) throws IOException, SQLException {
+        byte[] tags = layout.tags();
+        int columns = tags.length;
+        List<Integer> kept = layout.kept();
+
+        BlockingQueue<List<Object[]>> queue = new ArrayBlockingQueue<>(writers * 2);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            futures.add(pool.submit(() -> {
+                insertBatches(dataSource, layout.insertSql(), layout.sqlTypes(), queue);
+                return null;
+            }));
+        }
+
+        long rows = 0;
+        try {
+            byte[] nulls = new byte[(columns + 7) / 8];
+            List<Object[]> batch = new ArrayList<>(batchSize);
+            while (in.readByte() == ROW) {
+                in.readFully(nulls);
+                Object[] row = new Object[kept.size()];
+                int k = 0;
+                for (int c = 0; c < columns; c++) {
+                    Object value = (nulls[c >> 3] & (1 << (c & 7))) != 0 ? null : readValue(in, tags[c]);
+                    if (k < kept.size() && kept.get(k) == c) {
+                        row[k++] = value;
+                    }
+                }
+                batch.add(row);
+                rows++;
+                if (batch.size() == batchSize) {
+                    hand(queue, batch, futures);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                hand(queue, batch, futures);
+            }
+            for (int w = 0; w < writers; w++) {
+                hand(queue, List.of(), futures);
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading " + layout.table(), e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof SQLException cause ? cause : new SQLException("Loading " + layout.table() + " failed", e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return rows;
+    }
+
+    // Non-unique indexes of a table with their columns in order, by index name
+    private static Map<String, List<String>> secondaryIndexes(DataSource dataSource, String table) throws SQLException {
+        Map<String, TreeMap<Short, String>> columnsByIndex = new TreeMap<>();
+        try (Connection connection = dataSource.getConnection();
+             ResultSet rs = connection.getMetaData().getIndexInfo(null, null, table.toUpperCase(Locale.ROOT), false, false)) {
+            while (rs.next()) {
+                String index = rs.getString("INDEX_NAME");
+                if (index != null && rs.getBoolean("NON_UNIQUE")) {
+                    columnsByIndex.computeIfAbsent(index, k -> new TreeMap<>())
+                            .put(rs.getShort("ORDINAL_POSITION"), rs.getString("COLUMN_NAME"));
+                }
+            }
+        }
+        Map<String, List<String>> indexes = new TreeMap<>();
+        columnsByIndex.forEach((index, columns) -> indexes.put(index, List.copyOf(columns.values())));
+        return indexes;
+    }
+
+    // Blocks while the writers are busy, but gives up as soon as one of them has failed
+    private static void hand(BlockingQueue<List<Object[]>> queue, List<Object[]> batch, List<Future<?>> writers)
+            throws InterruptedException, ExecutionException {
+        while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+            for (Future<?> writer : writers) {
+                if (writer.isDone()) {
+                    writer.get();
+                }
+            }
+        }
+    }
+
+    private static void insertBatches(DataSource dataSource, String sql, int[] sqlTypes,
+                                      BlockingQueue<List<Object[]>> queue) throws SQLException, InterruptedException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(sql)) {
+                List<Object[]> batch;
+                while (!(batch = queue.take()).isEmpty()) {
+                    for (Object[] row : batch) {
+                        for (int i = 0; i < row.length; i++) {
+                            if (row[i] == null) {
+                                insert.setNull(i + 1, sqlTypes[i]);
+                            } else {
+                                insert.setObject(i + 1, row[i]);
+                            }
+                        }
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static Map<String, Integer> columnTypes(DataSource dataSource, String table) throws SQLException {
+        Map<String, Integer> types = new TreeMap<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT * FROM " + table + " WHERE 1 = 0")) {
+            ResultSetMetaData meta = rs.getMetaData();
+            for (int c = 1; c <= meta.getColumnCount(); c++) {
+                types.put(meta.getColumnName(c).toUpperCase(Locale.ROOT), meta.getColumnType(c));
+            }
+        }
+        return types;
+    }
+
+    private static Object readValue(DataInputStream in, byte tag) throws IOException {
+        return switch (tag) {
+            case LONG -> in.readLong();
+            case DECIMAL -> {
+                int scale = in.readShort();
+                byte[] unscaled = new byte[in.readUnsignedByte()];
+                in.readFully(unscaled);
+                yield new BigDecimal(new BigInteger(unscaled), scale);
+            }
+            case TIMESTAMP -> LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+            case DOUBLE -> in.readDouble();
+            case BOOLEAN -> in.readBoolean();
+            case STRING -> {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                yield new String(bytes, StandardCharsets.UTF_8);
+            }
+            default -> throw new IOException("Unknown column type tag " + tag);
+        };
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.fx.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel holding timers with millisecond deadlines.
+ *
+ * Level 0 has {@code wheelSize} slots of {@code tickMs}; every further level has the same number of slots,
+ * each as wide as the whole level below, and is created on demand. Scheduling and expiring are O(1) per
+ * timer (plus one cascade per level a timer passes through), independent of how many timers are pending.
+ *
+ * Timers fire when the clock has passed their deadline, at most one tick late and never early. The wheel is
+ * not thread-safe: it is owned by a single sweeper thread, which feeds it from a concurrent queue.
+ *
+ * @param <T> payload carried by each timer
+ */
+public class TimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final List<Level<T>> levels = new ArrayList<>();
+    private long size;
+
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMs must be positive and wheelSize at least 2");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        levels.add(new Level<>(tickMs, wheelSize, startMs - Math.floorMod(startMs, tickMs)));
+    }
+
+    /**
+     * Schedules a timer. A deadline that is already behind the wheel clock is handed to {@code expired}
+     * immediately.
+     */
+    public void schedule(long deadlineMs, T payload, Consumer<T> expired) {
+        insert(new Timer<>(deadlineMs, payload), expired);
+        size++;
+    }
+
+    /**
+     * Advances the clock to {@code nowMs}, handing every timer whose deadline has passed to {@code expired}.
+     */
+    public void advanceTo(long nowMs, Consumer<T> expired) {
+        Level<T> root = levels.get(0);
+        while (root.time + tickMs <= nowMs) {
+            long time = root.time + tickMs;
+            for (Level<T> level : levels) {
+                level.time = time - Math.floorMod(time, level.tick);
+            }
+            // Level 0 expires the slot of the tick that just ended; this runs before the cascade, which may
+            // refill the same slot with timers due one full level-0 rotation from now
+            ArrayDeque<Timer<T>> due = root.slotFor(time - tickMs);
+            Timer<T> timer;
+            while ((timer = due.poll()) != null) {
+                size--;
+                expired.accept(timer.payload);
+            }
+            // Cascade higher levels whose current slot just started, highest first
+            for (int i = levels.size() - 1; i > 0; i--) {
+                Level<T> level = levels.get(i);
+                if (level.time == time) {
+                    ArrayDeque<Timer<T>> slot = level.slotFor(time);
+                    List<Timer<T>> cascading = new ArrayList<>(slot);
+                    slot.clear();
+                    cascading.forEach(cascaded -> insert(cascaded, expired));
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of timers scheduled and not yet expired.
+     */
+    public long size() {
+        return size;
+    }
+
+    private void insert(Timer<T> timer, Consumer<T> expired) {
+        Level<T> root = levels.get(0);
+        if (timer.deadline < root.time) {
+            size--;
+            expired.accept(timer.payload);
+            return;
+        }
+        for (int i = 0; ; i++) {
+            if (i == levels.size()) {
+                Level<T> below = levels.get(i - 1);
+                long tick = below.tick * wheelSize;
+                levels.add(new Level<>(tick, wheelSize, root.time - Math.floorMod(root.time, tick)));
+            }
+            Level<T> level = levels.get(i);
+            if (timer.deadline < level.time + level.interval) {
+                level.slotFor(timer.deadline).add(timer);
+                return;
+            }
+        }
+    }
+
+    private record Timer<T>(long deadline, T payload) {
+    }
+
+    private static final class Level<T> {
+        final long tick;
+        final long interval;
+        final ArrayDeque<Timer<T>>[] slots;
+        long time;
+
+        @SuppressWarnings("unchecked")
+        Level(long tick, int wheelSize, long time) {
+            this.tick = tick;
+            this.interval = tick * wheelSize;
+            this.time = time;
+            this.slots = new ArrayDeque[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                slots[i] = new ArrayDeque<>();
+            }
+        }
+
+        ArrayDeque<Timer<T>> slotFor(long timeMs) {
+            return slots[(int) Math.floorMod(Math.floorDiv(timeMs, tick), (long) slots.length)];
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.example.fx.service;
+
+import com.example.fx.config.TradeArchiveProperties;
+import com.example.fx.model.Trade;
+import com.example.fx.repository.TradeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Moves aged trades out of the trade table into compressed columnar {@link TradeSegment} files.
+ *
+ * A background thread periodically writes trades older than {@code fx.trade.archive.max-age} to a new segment
+ * and then deletes them from the table, keeping the live table and its indexes small. Each segment's trades are
+ * read, written and deleted in one transaction that holds their row locks, so an update to one of them either
+ * lands before it is read or finds it gone. Archived trades stay
+ * readable: by id through {@link #find(long)}, in volume totals through the per-pair sums kept in each
+ * segment header, and in full through {@link #forEachArchived(Consumer)}. Archived trades are read-only.
+ *
+ * A segment is synced to disk and published before its rows are deleted, so a lookup by id finds each trade in the
+ * table or in the archive throughout. Until the delete commits, its trades are in both; reads that combine the two,
+ * such as a volume total, go through {@link #consistently(Supplier)}, which waits for that window to close.
+ *
+ * At startup the service reloads existing segments, removes any archived trade still present in the table
+ * (an interrupted archive run) and moves the trade id sequence past the archived ids. With
+ * {@code fx.trade.archive.enabled=false} no segment is read or written and the archive is empty.
+ *
+ * Metrics: {@code fx.trade.archived} (trades archived), {@code fx.trade.archive.run} (time per archive run),
+ * {@code fx.trade.archive.rows} and {@code fx.trade.archive.bytes} (archive size on disk).
+ */
+@Service
+@EnableConfigurationProperties(TradeArchiveProperties.class)
+public class TradeArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(TradeArchiveService.class);
+    private static final String SUFFIX = ".seg";
+    private static final String STALE_SUFFIX = ".stale";
+
+    private final TradeArchiveProperties properties;
+    private final TradeRepository tradeRepository;
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transactions;
+    private final List<TradeSegment.Info> segments = new CopyOnWriteArrayList<>();
+    private final Counter archived;
+    private final Timer runTimer;
+    private final ScheduledExecutorService archiver;
+    // Write-locked by an archive run from publishing a segment until the delete of its rows commits
+    private final ReentrantReadWriteLock publishing = new ReentrantReadWriteLock();
+
+    public TradeArchiveService(TradeArchiveProperties properties, TradeRepository tradeRepository,
+                               NamedParameterJdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+                               MeterRegistry registry) throws IOException {
+        this.properties = properties;
+        this.tradeRepository = tradeRepository;
+        this.jdbc = jdbc;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.archived = Counter.builder("fx.trade.archived")
+                .description("Trades moved from the trade table into archive segments")
+                .register(registry);
+        this.runTimer = Timer.builder("fx.trade.archive.run")
+                .description("Time per archive run, including segment writes and row deletes")
+                .register(registry);
+        Gauge.builder("fx.trade.archive.rows", segments, s -> s.stream().mapToLong(TradeSegment.Info::rowCount).sum())
+                .description("Trades held in archive segments")
+                .register(registry);
+        Gauge.builder("fx.trade.archive.bytes", segments, s -> s.stream().mapToLong(TradeSegment.Info::sizeBytes).sum())
+                .description("Size of the archive segments on disk")
+                .baseUnit("bytes")
+                .register(registry);
+        this.archiver = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "trade-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        loadSegments();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (properties.isEnabled()) {
+            long intervalMs = properties.getInterval().toMillis();
+            archiver.scheduleWithFixedDelay(this::archiveSafely, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        archiver.shutdownNow();
+    }
+
+    /**
+     * Archives every trade older than the configured max age, one segment per {@code segment-rows} trades.
+     *
+     * @return number of trades archived
+     */
+    public synchronized int archive() throws IOException {
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+        Timer.Sample sample = Timer.start();
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getMaxAge());
+        int total = 0;
+        TradeSegment.Info info;
+        do {
+            List<TradeSegment.Info> published = new ArrayList<>(1);
+            try {
+                info = transactions.execute(status -> archiveSegment(cutoff, published));
+            } catch (RuntimeException e) {
+                // Rolled back: the rows are still live, so their segment must not be served or survive
+                for (TradeSegment.Info segment : published) {
+                    segments.remove(segment);
+                    discard(segment.path(), e);
+                }
+                if (e instanceof UncheckedIOException io) {
+                    throw io.getCause();
+                }
+                throw e;
+            } finally {
+                if (publishing.isWriteLockedByCurrentThread()) {
+                    publishing.writeLock().unlock();
+                }
+            }
+            if (info == null) {
+                break;
+            }
+            archived.increment(info.rowCount());
+            total += info.rowCount();
+        } while (info.rowCount() == properties.getSegmentRows());
+        sample.stop(runTimer);
+        return total;
+    }
+
+    // Runs inside the archive transaction: the trades stay locked from the read until their delete commits. Leaves
+    // the publishing lock held for archive() to release once the delete has committed or rolled back
+    private TradeSegment.Info archiveSegment(LocalDateTime cutoff, List<TradeSegment.Info> published) {
+        List<Trade> batch = tradeRepository.findOlderThan(cutoff, properties.getSegmentRows());
+        if (batch.isEmpty()) {
+            return null;
+        }
+        long minId = batch.get(0).getId();
+        long maxId = batch.get(batch.size() - 1).getId();
+        Path path = properties.getDirectory().resolve(String.format("trades-%019d-%019d%s", minId, maxId, SUFFIX));
+        TradeSegment.Info info;
+        try {
+            Files.createDirectories(properties.getDirectory());
+            info = TradeSegment.write(batch, path);
+        } catch (IOException e) {
+            discard(path, e);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            discard(path, e);
+            throw e;
+        }
+        // The segment is on disk before the rows go; a crash in between is repaired by loadSegments()
+        publishing.writeLock().lock();
+        segments.add(info);
+        published.add(info);
+        deleteLive(batch.stream().map(Trade::getId).toList());
+        return info;
+    }
+
+    // The rows of a failed segment stay in the table, so the segment file must not survive to shadow them
+    private static void discard(Path segment, Exception failure) {
+        try {
+            Files.deleteIfExists(segment);
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Runs a read of the trade table and the archive together while no archive run is between publishing a segment
+     * and committing the delete of its rows, so the read counts every trade once.
+     */
+    public <T> T consistently(Supplier<T> read) {
+        publishing.readLock().lock();
+        try {
+            return read.get();
+        } finally {
+            publishing.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cold-path lookup of an archived trade.
+     */
+    public Optional<Trade> find(long id) {
+        for (TradeSegment.Info segment : segments) {
+            if (segment.mayContain(id)) {
+                try {
+                    Optional<Trade> trade = TradeSegment.find(segment.path(), id);
+                    if (trade.isPresent()) {
+                        return trade;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Total archived notional for a currency pair, answered from segment headers.
+     */
+    public BigDecimal volume(String currencyPair) {
+        return segments.stream()
+                .map(segment -> segment.notionalByPair().getOrDefault(currencyPair, BigDecimal.ZERO))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    /**
+     * Decodes every archived trade, one segment at a time.
+     */
+    public void forEachArchived(Consumer<Trade> action) {
+        for (TradeSegment.Info segment : segments) {
+            try {
+                TradeSegment.read(segment.path()).forEach(action);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public List<TradeSegment.Info> segments() {
+        return List.copyOf(segments);
+    }
+
+    /**
+     * Runs {@code action} with the file names of the current segments while no archive run can change them, so a
+     * snapshot of the trade table taken inside it agrees with the names.
+     */
+    public synchronized <T> T withSegmentNames(Function<List<String>, T> action) {
+        return action.apply(segments.stream().map(segment -> segment.path().getFileName().toString()).toList());
+    }
+
+    /**
+     * Runs a snapshot restore while no archive run can start: one in the middle of it would archive restored trades
+     * into a new segment that {@link #restored(Collection)} then sets aside, losing them from table and archive.
+     * {@code restore} loads the tables and calls {@link #restored(Collection)}.
+     */
+    public synchronized <T> T restoring(Supplier<T> restore) {
+        return restore.get();
+    }
+
+    /**
+     * Brings the archive in line with a trade table just restored from a snapshot taken when the archive held
+     * {@code snapshotSegments}. Segments written after that snapshot hold trades that are live again in the
+     * restored table; they are set aside as {@code *.seg.stale} files instead of being reconciled, which would
+     * delete those live rows. The remaining segments are then reconciled.
+     */
+    public synchronized void restored(Collection<String> snapshotSegments) throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (TradeSegment.Info segment : segments) {
+            String name = segment.path().getFileName().toString();
+            if (!snapshotSegments.contains(name)) {
+                Files.move(segment.path(), segment.path().resolveSibling(name + STALE_SUFFIX));
+                segments.remove(segment);
+                log.info("Set aside archive segment {}: written after the restored snapshot", name);
+            }
+        }
+        reconcile();
+    }
+
+    private void archiveSafely() {
+        try {
+            archive();
+        } catch (IOException | RuntimeException e) {
+            // Nothing is deleted before its segment is written, so the next run simply retries
+            log.warn("Trade archive run failed", e);
+        }
+    }
+
+    /**
+     * Removes archived trades that are also in the trade table (an interrupted archive run) and moves the trade
+     * id sequence past the archived ids. After a snapshot restore, use {@link #restored(Collection)}.
+     */
+    public synchronized void reconcile() throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (TradeSegment.Info segment : segments) {
+            deleteLive(TradeSegment.read(segment.path()).stream().map(Trade::getId).toList());
+        }
+        long maxArchivedId = segments.stream().mapToLong(TradeSegment.Info::maxId).max().orElse(0);
+        Long maxLiveId = jdbc.getJdbcTemplate().queryForObject("SELECT MAX(id) FROM trade", Long.class);
+        if (maxArchivedId > 0 && (maxLiveId == null || maxLiveId < maxArchivedId)) {
+            // New trades must not reuse archived ids
+            jdbc.getJdbcTemplate().execute("ALTER TABLE trade ALTER COLUMN id RESTART WITH " + (maxArchivedId + 1));
+        }
+    }
+
+    private void loadSegments() throws IOException {
+        Path directory = properties.getDirectory();
+        if (!properties.isEnabled() || !Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).sorted().toList()) {
+                segments.add(TradeSegment.readInfo(path));
+            }
+        }
+        reconcile();
+    }
+
+    // All or nothing, so a failed run never leaves part of a segment in the table to be archived twice
+    private void deleteLive(List<Long> ids) {
+        int chunk = 1000;
+        transactions.executeWithoutResult(status -> {
+            for (int from = 0; from < ids.size(); from += chunk) {
+                jdbc.update("DELETE FROM trade WHERE id IN (:ids)",
+                        Map.of("ids", ids.subList(from, Math.min(from + chunk, ids.size()))));
+            }
+        });
+    }
+}
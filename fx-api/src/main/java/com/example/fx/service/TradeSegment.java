@@ -0,0 +1,497 @@
+package com.example.fx.service;
+
+import com.example.fx.model.Trade;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Column-oriented, compressed segment file holding a batch of archived trades ordered by id.
+ *
+ * Layout: a header (magic, version, row count, id range, notional per currency pair, column directory)
+ * followed by one Deflate-compressed block per column. Ids and trade times are delta encoded as zig-zag
+ * varints, decimals as a scale plus delta-encoded unscaled value, and every string column as a per-segment
+ * dictionary plus one varint index per row. The header alone is enough to route id lookups and answer
+ * volume queries; a row lookup inflates the other columns only once the id column shows the id is present.
+ */
+public final class TradeSegment {
+
+    private static final int MAGIC = 0x46585453; // "FXTS"
+    private static final int VERSION = 1;
+
+    private static final List<StringColumn> STRING_COLUMNS = List.of(
+            new StringColumn("tradeId", Trade::getTradeId, Trade::setTradeId),
+            new StringColumn("currencyPair", Trade::getCurrencyPair, Trade::setCurrencyPair),
+            new StringColumn("direction", Trade::getDirection, Trade::setDirection),
+            new StringColumn("counterparty", Trade::getCounterparty, Trade::setCounterparty),
+            new StringColumn("trader", Trade::getTrader, Trade::setTrader),
+            new StringColumn("book", Trade::getBook, Trade::setBook),
+            new StringColumn("status", Trade::getStatus, Trade::setStatus),
+            new StringColumn("settlementType", Trade::getSettlementType, Trade::setSettlementType),
+            new StringColumn("settlementDate", Trade::getSettlementDate, Trade::setSettlementDate),
+            new StringColumn("tradeType", Trade::getTradeType, Trade::setTradeType),
+            new StringColumn("executionVenue", Trade::getExecutionVenue, Trade::setExecutionVenue),
+            new StringColumn("sourceSystem", Trade::getSourceSystem, Trade::setSourceSystem),
+            new StringColumn("tradeReference", Trade::getTradeReference, Trade::setTradeReference),
+            new StringColumn("tradeComment", Trade::getTradeComment, Trade::setTradeComment),
+            new StringColumn("tradeVersion", Trade::getTradeVersion, Trade::setTradeVersion),
+            new StringColumn("tradeChannel", Trade::getTradeChannel, Trade::setTradeChannel),
+            new StringColumn("tradeStrategy", Trade::getTradeStrategy, Trade::setTradeStrategy),
+            new StringColumn("tradeDesk", Trade::getTradeDesk, Trade::setTradeDesk),
+            new StringColumn("tradeOrigin", Trade::getTradeOrigin, Trade::setTradeOrigin),
+            new StringColumn("tradeLevel", Trade::getTradeLevel, Trade::setTradeLevel),
+            new StringColumn("tradeSide", Trade::getTradeSide, Trade::setTradeSide),
+            new StringColumn("tradeCondition", Trade::getTradeCondition, Trade::setTradeCondition),
+            new StringColumn("tradeCategory", Trade::getTradeCategory, Trade::setTradeCategory),
+            new StringColumn("tradeSubType", Trade::getTradeSubType, Trade::setTradeSubType),
+            new StringColumn("tradeBookType", Trade::getTradeBookType, Trade::setTradeBookType),
+            new StringColumn("quoteId", Trade::getQuoteId, Trade::setQuoteId));
+
+    private TradeSegment() {
+    }
+
+    /**
+     * Header of a segment file: everything needed to route lookups and aggregate volume without
+     * touching the column blocks.
+     */
+    public record Info(Path path, int rowCount, long minId, long maxId, Map<String, BigDecimal> notionalByPair,
+                       long sizeBytes) {
+
+        public boolean mayContain(long id) {
+            return id >= minId && id <= maxId;
+        }
+    }
+
+    /**
+     * Writes trades (which must have ids) to a new segment file, atomically replacing {@code path}. The file and its
+     * directory entry are synced to disk before this returns.
+     */
+    public static Info write(List<Trade> trades, Path path) throws IOException {
+        if (trades.isEmpty()) {
+            throw new IllegalArgumentException("A segment needs at least one trade");
+        }
+        List<Trade> rows = new ArrayList<>(trades);
+        rows.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+
+        Map<String, BigDecimal> notionalByPair = new TreeMap<>();
+        for (Trade trade : rows) {
+            if (trade.getCurrencyPair() != null && trade.getNotional() != null) {
+                notionalByPair.merge(trade.getCurrencyPair(), trade.getNotional(), BigDecimal::add);
+            }
+        }
+
+        Map<String, byte[]> columns = new LinkedHashMap<>();
+        columns.put("id", encodeIds(rows));
+        columns.put("tradeDateTime", encodeTimes(rows));
+        columns.put("notional", encodeDecimals(rows, Trade::getNotional));
+        columns.put("price", encodeDecimals(rows, Trade::getPrice));
+        for (StringColumn column : STRING_COLUMNS) {
+            columns.put(column.name(), encodeStrings(rows, column.getter()));
+        }
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(rows.size());
+            out.writeLong(rows.get(0).getId());
+            out.writeLong(rows.get(rows.size() - 1).getId());
+            out.writeInt(notionalByPair.size());
+            for (Map.Entry<String, BigDecimal> e : notionalByPair.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeUTF(e.getValue().toString());
+            }
+            List<byte[]> blocks = new ArrayList<>();
+            out.writeInt(columns.size());
+            for (Map.Entry<String, byte[]> e : columns.entrySet()) {
+                byte[] block = deflate(e.getValue());
+                blocks.add(block);
+                out.writeUTF(e.getKey());
+                out.writeInt(e.getValue().length);
+                out.writeInt(block.length);
+            }
+            for (byte[] block : blocks) {
+                out.write(block);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(path.toAbsolutePath().getParent());
+        return readInfo(path);
+    }
+
+    // Makes the rename durable; some platforms cannot open a directory, and make renames durable without it
+    private static void syncDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    public static Info readInfo(Path path) throws IOException {
+        try (DataInputStream in = open(path)) {
+            return readHeader(path, in).info();
+        }
+    }
+
+    /**
+     * Decodes every trade in the segment.
+     */
+    public static List<Trade> read(Path path) throws IOException {
+        try (DataInputStream in = open(path)) {
+            Header header = readHeader(path, in);
+            Columns columns = readColumns(in, header);
+            int rows = header.info().rowCount();
+            Trade[] trades = new Trade[rows];
+            long[] ids = decodeIds(columns.get("id"), rows);
+            for (int i = 0; i < rows; i++) {
+                trades[i] = new Trade();
+                trades[i].setId(ids[i]);
+            }
+            fill(columns, trades);
+            return Arrays.asList(trades);
+        }
+    }
+
+    /**
+     * Looks up one trade by id, inflating the remaining columns only when the id is present.
+     */
+    public static Optional<Trade> find(Path path, long id) throws IOException {
+        try (DataInputStream in = open(path)) {
+            Header header = readHeader(path, in);
+            if (!header.info().mayContain(id)) {
+                return Optional.empty();
+            }
+            Columns columns = readColumns(in, header);
+            int rows = header.info().rowCount();
+            int row = Arrays.binarySearch(decodeIds(columns.get("id"), rows), id);
+            if (row < 0) {
+                return Optional.empty();
+            }
+            Trade[] trades = new Trade[rows];
+            trades[row] = new Trade();
+            trades[row].setId(id);
+            fill(columns, trades);
+            return Optional.of(trades[row]);
+        }
+    }
+
+    // Decodes every non-id column into the non-null slots of trades
+    private static void fill(Columns columns, Trade[] trades) throws IOException {
+        decodeTimes(columns.get("tradeDateTime"), trades);
+        decodeDecimals(columns.get("notional"), trades, Trade::setNotional);
+        decodeDecimals(columns.get("price"), trades, Trade::setPrice);
+        for (StringColumn column : STRING_COLUMNS) {
+            decodeStrings(columns.get(column.name()), trades, column.setter());
+        }
+    }
+
+    // --- Header and blocks ---
+
+    private record Header(Info info, List<String> names, int[] rawLengths, int[] blockLengths) {
+    }
+
+    private static DataInputStream open(Path path) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+    }
+
+    private static Header readHeader(Path path, DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a trade segment: " + path);
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported trade segment version " + version + ": " + path);
+        }
+        int rowCount = in.readInt();
+        long minId = in.readLong();
+        long maxId = in.readLong();
+        int pairs = in.readInt();
+        Map<String, BigDecimal> notionalByPair = new HashMap<>();
+        for (int i = 0; i < pairs; i++) {
+            notionalByPair.put(in.readUTF(), new BigDecimal(in.readUTF()));
+        }
+        int columnCount = in.readInt();
+        List<String> names = new ArrayList<>(columnCount);
+        int[] rawLengths = new int[columnCount];
+        int[] blockLengths = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            names.add(in.readUTF());
+            rawLengths[i] = in.readInt();
+            blockLengths[i] = in.readInt();
+        }
+        Info info = new Info(path, rowCount, minId, maxId, Map.copyOf(notionalByPair), Files.size(path));
+        return new Header(info, names, rawLengths, blockLengths);
+    }
+
+    private static Columns readColumns(InputStream in, Header header) throws IOException {
+        byte[][] blocks = new byte[header.names().size()][];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = in.readNBytes(header.blockLengths()[i]);
+            if (blocks[i].length != header.blockLengths()[i]) {
+                throw new EOFException("Truncated trade segment: " + header.info().path());
+            }
+        }
+        return new Columns(header, blocks);
+    }
+
+    // Compressed column blocks, inflated on first access
+    private record Columns(Header header, byte[][] blocks) {
+
+        ByteBuffer get(String name) throws IOException {
+            int i = header.names().indexOf(name);
+            if (i < 0) {
+                throw new IOException("Trade segment has no column " + name + ": " + header.info().path());
+            }
+            return ByteBuffer.wrap(inflate(blocks[i], header.rawLengths()[i]));
+        }
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] block, int rawLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(block);
+            byte[] raw = new byte[rawLength];
+            int n = 0;
+            while (n < rawLength && !inflater.finished()) {
+                n += inflater.inflate(raw, n, rawLength - n);
+            }
+            if (n != rawLength) {
+                throw new IOException("Corrupt trade segment column");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt trade segment column", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // --- Column encodings ---
+
+    private static byte[] encodeIds(List<Trade> rows) {
+        Varints out = new Varints();
+        long previous = 0;
+        for (Trade trade : rows) {
+            out.writeSigned(trade.getId() - previous);
+            previous = trade.getId();
+        }
+        return out.toByteArray();
+    }
+
+    private static long[] decodeIds(ByteBuffer in, int rows) {
+        long[] ids = new long[rows];
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            previous += Varints.readSigned(in);
+            ids[i] = previous;
+        }
+        return ids;
+    }
+
+    // Per row: 0 for null, otherwise 1 + nano-of-second, followed by the delta of the UTC epoch second
+    private static byte[] encodeTimes(List<Trade> rows) {
+        Varints out = new Varints();
+        long previous = 0;
+        for (Trade trade : rows) {
+            LocalDateTime time = trade.getTradeDateTime();
+            if (time == null) {
+                out.writeUnsigned(0);
+                continue;
+            }
+            long seconds = time.toEpochSecond(ZoneOffset.UTC);
+            out.writeUnsigned(1L + time.getNano());
+            out.writeSigned(seconds - previous);
+            previous = seconds;
+        }
+        return out.toByteArray();
+    }
+
+    private static void decodeTimes(ByteBuffer in, Trade[] trades) {
+        long previous = 0;
+        for (Trade trade : trades) {
+            long tag = Varints.readUnsigned(in);
+            if (tag == 0) {
+                continue;
+            }
+            previous += Varints.readSigned(in);
+            if (trade != null) {
+                trade.setTradeDateTime(LocalDateTime.ofEpochSecond(previous, (int) (tag - 1), ZoneOffset.UTC));
+            }
+        }
+    }
+
+    // Per row: 0 for null, 1 for a scale and the delta of a long unscaled value, 2 for a scale and raw bytes
+    private static byte[] encodeDecimals(List<Trade> rows, Function<Trade, BigDecimal> getter) {
+        Varints out = new Varints();
+        long previous = 0;
+        for (Trade trade : rows) {
+            BigDecimal value = getter.apply(trade);
+            if (value == null) {
+                out.writeUnsigned(0);
+            } else if (value.unscaledValue().bitLength() < 63) {
+                long unscaled = value.unscaledValue().longValue();
+                out.writeUnsigned(1);
+                out.writeSigned(value.scale());
+                out.writeSigned(unscaled - previous);
+                previous = unscaled;
+            } else {
+                byte[] bytes = value.unscaledValue().toByteArray();
+                out.writeUnsigned(2);
+                out.writeSigned(value.scale());
+                out.writeUnsigned(bytes.length);
+                out.writeBytes(bytes);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void decodeDecimals(ByteBuffer in, Trade[] trades, BiConsumer<Trade, BigDecimal> setter) {
+        long previous = 0;
+        for (Trade trade : trades) {
+            long tag = Varints.readUnsigned(in);
+            BigDecimal value = null;
+            if (tag == 1) {
+                int scale = (int) Varints.readSigned(in);
+                previous += Varints.readSigned(in);
+                value = BigDecimal.valueOf(previous, scale);
+            } else if (tag == 2) {
+                int scale = (int) Varints.readSigned(in);
+                byte[] bytes = new byte[(int) Varints.readUnsigned(in)];
+                in.get(bytes);
+                value = new BigDecimal(new BigInteger(bytes), scale);
+            }
+            if (trade != null && value != null) {
+                setter.accept(trade, value);
+            }
+        }
+    }
+
+    // Dictionary of distinct values in first-seen order, then one index per row (0 = null, i = dictionary[i - 1])
+    private static byte[] encodeStrings(List<Trade> rows, Function<Trade, String> getter) {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        int[] indexes = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            String value = getter.apply(rows.get(i));
+            indexes[i] = value == null ? 0 : dictionary.computeIfAbsent(value, v -> dictionary.size() + 1);
+        }
+        Varints out = new Varints();
+        out.writeUnsigned(dictionary.size());
+        for (String value : dictionary.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeUnsigned(bytes.length);
+            out.writeBytes(bytes);
+        }
+        for (int index : indexes) {
+            out.writeUnsigned(index);
+        }
+        return out.toByteArray();
+    }
+
+    private static void decodeStrings(ByteBuffer in, Trade[] trades, BiConsumer<Trade, String> setter) {
+        String[] dictionary = new String[(int) Varints.readUnsigned(in)];
+        for (int i = 0; i < dictionary.length; i++) {
+            byte[] bytes = new byte[(int) Varints.readUnsigned(in)];
+            in.get(bytes);
+            dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        for (Trade trade : trades) {
+            int index = (int) Varints.readUnsigned(in);
+            if (trade != null && index != 0) {
+                setter.accept(trade, dictionary[index - 1]);
+            }
+        }
+    }
+
+    private record StringColumn(String name, Function<Trade, String> getter, BiConsumer<Trade, String> setter) {
+    }
+
+    /**
+     * LEB128 varints; signed values are zig-zag encoded so small negative deltas stay short.
+     */
+    private static final class Varints extends ByteArrayOutputStream {
+
+        void writeUnsigned(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeSigned(long value) {
+            writeUnsigned((value << 1) ^ (value >> 63));
+        }
+
+        static long readUnsigned(ByteBuffer in) {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = in.get();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+
+        static long readSigned(ByteBuffer in) {
+            long raw = readUnsigned(in);
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+    }
+}
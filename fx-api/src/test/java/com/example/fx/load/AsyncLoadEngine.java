@@ -0,0 +1,171 @@
+package com.example.fx.load;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.Timeout;
+
+import java.net.URI;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Non-blocking request engine for LoadTest, built on the HttpClient 5 async client.
+ *
+ * Requests are sent without a thread waiting for each response, so a single generator thread can keep many
+ * requests in flight over a few connections:
+ * - {@link Protocol#HTTP_1}: one pooled client with {@code connections} connections. HTTP/1.1 without pipelining
+ *   carries one request per connection at a time, so at most {@code connections} requests are in flight.
+ * - {@link Protocol#HTTP_2}: {@code connections} clients, each multiplexing up to {@code maxInFlightPerConnection}
+ *   streams over its single cleartext HTTP/2 (h2c, prior knowledge) connection. The server needs
+ *   {@code server.http2.enabled=true}, which its {@code loadtest} profile sets; {@link #probe(URI)} tells.
+ *
+ * Callers take a {@link Slot} for each request or chain of requests and release it once the last response arrived.
+ * Response callbacks run on the I/O reactor threads and must not block.
+ */
+final class AsyncLoadEngine implements AutoCloseable {
+
+    enum Protocol { HTTP_1, HTTP_2 }
+
+    private static final Timeout CONNECT_TIMEOUT = Timeout.ofSeconds(5);
+
+    private final List<CloseableHttpAsyncClient> clients = new ArrayList<>();
+    private final List<Semaphore> permits = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final int maxInFlight;
+
+    AsyncLoadEngine(Protocol protocol, int connections, int maxInFlightPerConnection, int ioThreads) {
+        IOReactorConfig reactor = IOReactorConfig.custom()
+                .setIoThreadCount(ioThreads)
+                .setTcpNoDelay(true)
+                .build();
+        ConnectionConfig connection = ConnectionConfig.custom().setConnectTimeout(CONNECT_TIMEOUT).build();
+        if (protocol == Protocol.HTTP_2) {
+            for (int i = 0; i < connections; i++) {
+                clients.add(HttpAsyncClients.customHttp2()
+                        .setIOReactorConfig(reactor)
+                        .setDefaultConnectionConfig(connection)
+                        .setH2Config(H2Config.custom().setPushEnabled(false).build())
+                        .build());
+                permits.add(new Semaphore(maxInFlightPerConnection));
+            }
+            maxInFlight = connections * maxInFlightPerConnection;
+        } else {
+            clients.add(HttpAsyncClients.custom()
+                    .setIOReactorConfig(reactor)
+                    .setConnectionManager(PoolingAsyncClientConnectionManagerBuilder.create()
+                            .setMaxConnTotal(connections)
+                            .setMaxConnPerRoute(connections)
+                            .setDefaultConnectionConfig(connection)
+                            .setDefaultTlsConfig(TlsConfig.custom()
+                                    .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_1)
+                                    .build())
+                            .build())
+                    .build());
+            permits.add(new Semaphore(connections));
+            maxInFlight = connections;
+        }
+        clients.forEach(CloseableHttpAsyncClient::start);
+    }
+
+    /**
+     * Upper bound of concurrently outstanding requests across all connections.
+     */
+    int maxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Sends one GET over the first connection and returns its status, or 0 if no response arrived, e.g. from a
+     * server without h2c when the protocol is HTTP/2.
+     */
+    int probe(URI uri) throws InterruptedException {
+        try {
+            return clients.get(0).execute(SimpleRequestBuilder.get(uri).build(), null)
+                    .get(CONNECT_TIMEOUT.toMilliseconds(), TimeUnit.MILLISECONDS)
+                    .getCode();
+        } catch (ExecutionException | TimeoutException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Waits for a free stream, preferring the next connection in turn and falling back to any with room left.
+     */
+    Slot acquire() throws InterruptedException {
+        int first = Math.floorMod(next.getAndIncrement(), clients.size());
+        for (int i = 0; i < clients.size(); i++) {
+            int index = (first + i) % clients.size();
+            if (permits.get(index).tryAcquire()) {
+                return new Slot(index);
+            }
+        }
+        permits.get(first).acquire();
+        return new Slot(first);
+    }
+
+    @Override
+    public void close() {
+        clients.forEach(client -> client.close(CloseMode.GRACEFUL));
+    }
+
+    /**
+     * One in-flight stream on one connection. Requests posted through a slot go out on its connection, one after
+     * another; {@link #release()} frees the stream for the next caller.
+     */
+    final class Slot {
+
+        private final int index;
+
+        private Slot(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Sends a JSON POST and passes the status code to {@code onStatus}, or 0 if the request failed. The body is
+         * sent as is, without copying, so it must stay unchanged until {@code onStatus} ran.
+         */
+        void post(URI uri, byte[] json, IntConsumer onStatus) {
+            SimpleHttpRequest request = SimpleRequestBuilder.post(uri)
+                    .setBody(json, ContentType.APPLICATION_JSON)
+                    .build();
+            clients.get(index).execute(request, new FutureCallback<SimpleHttpResponse>() {
+                @Override
+                public void completed(SimpleHttpResponse response) {
+                    onStatus.accept(response.getCode());
+                }
+
+                @Override
+                public void failed(Exception e) {
+                    onStatus.accept(0);
+                }
+
+                @Override
+                public void cancelled() {
+                    onStatus.accept(0);
+                }
+            });
+        }
+
+        void release() {
+            permits.get(index).release();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.fx.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * One tuned, shared connection pool for all LoadTest workers, instead of a private default client per worker.
+ *
+ * The pool is configured from the {@code pool.*} load test properties: size (total and per route), keep-alive,
+ * connection time-to-live, validation of connections idle longer than a threshold, socket buffers and TCP_NODELAY.
+ * Every connection lease and every new connection is timed into wait-free HDR recorders, so time spent waiting for
+ * a free pooled connection and time spent opening one can be reported apart from the server's response time.
+ */
+final class ConnectionPool implements AutoCloseable {
+
+    private final PoolingHttpClientConnectionManager manager;
+    private final CloseableHttpClient client;
+    private final Recorder leaseWait = new Recorder(LatencyRecorder.HIGHEST_TRACKABLE_MICROS, 3);
+    private final Recorder connectTime = new Recorder(LatencyRecorder.HIGHEST_TRACKABLE_MICROS, 3);
+
+    ConnectionPool(Properties props) {
+        int maxPerRoute = Integer.parseInt(props.getProperty("pool.maxPerRoute", "200"));
+        int socketBuffer = Integer.parseInt(props.getProperty("pool.socketBufferBytes", "0"));
+        long timeToLive = Long.parseLong(props.getProperty("pool.timeToLiveMs", "0"));
+        SocketConfig.Builder socket = SocketConfig.custom()
+                .setTcpNoDelay(Boolean.parseBoolean(props.getProperty("pool.tcpNoDelay", "true")))
+                .setSoKeepAlive(true);
+        if (socketBuffer > 0) {
+            socket.setRcvBufSize(socketBuffer).setSndBufSize(socketBuffer);
+        }
+        manager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(Integer.parseInt(props.getProperty("pool.maxTotal", String.valueOf(maxPerRoute))))
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultSocketConfig(socket.build())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofSeconds(5))
+                        .setValidateAfterInactivity(millis(props, "pool.validateAfterInactivityMs", "2000"))
+                        .setTimeToLive(timeToLive > 0 ? TimeValue.ofMilliseconds(timeToLive) : null)
+                        .build())
+                .build();
+        TimeValue keepAlive = millis(props, "pool.keepAliveMs", "30000");
+        client = HttpClients.custom()
+                .setConnectionManager(new TimedConnectionManager(manager))
+                .setKeepAliveStrategy((response, context) -> keepAlive)
+                .evictExpiredConnections()
+                .build();
+    }
+
+    private static TimeValue millis(Properties props, String key, String defaultValue) {
+        return TimeValue.ofMilliseconds(Long.parseLong(props.getProperty(key, defaultValue)));
+    }
+
+    /**
+     * The shared client. It is thread-safe; workers use it for every request and never close it.
+     */
+    CloseableHttpClient client() {
+        return client;
+    }
+
+    /**
+     * Starts a new measurement interval, dropping the lease waits and connection setups recorded so far.
+     */
+    void startInterval() {
+        leaseWait.reset();
+        connectTime.reset();
+    }
+
+    /**
+     * Lease waits and connection setups recorded since the interval started, and the pool's current occupancy.
+     */
+    Usage usage() {
+        return new Usage(leaseWait.getIntervalHistogram(), connectTime.getIntervalHistogram(), manager.getTotalStats());
+    }
+
+    @Override
+    public void close() {
+        client.close(CloseMode.GRACEFUL);
+    }
+
+    record Usage(Histogram leaseWait, Histogram connect, PoolStats pool) {
+    }
+
+    /**
+     * Delegates to the pooling manager and times {@link LeaseRequest#get} and {@link #connect}.
+     */
+    private final class TimedConnectionManager implements HttpClientConnectionManager {
+
+        private final HttpClientConnectionManager delegate;
+
+        TimedConnectionManager(HttpClientConnectionManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+            LeaseRequest request = delegate.lease(id, route, requestTimeout, state);
+            return new LeaseRequest() {
+                @Override
+                public ConnectionEndpoint get(Timeout timeout)
+                        throws InterruptedException, ExecutionException, TimeoutException {
+                    long start = System.nanoTime();
+                    try {
+                        return request.get(timeout);
+                    } finally {
+                        leaseWait.recordValue(micros(start));
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return request.cancel();
+                }
+            };
+        }
+
+        @Override
+        public void release(ConnectionEndpoint endpoint, Object newState, TimeValue validDuration) {
+            delegate.release(endpoint, newState, validDuration);
+        }
+
+        @Override
+        public void connect(ConnectionEndpoint endpoint, TimeValue connectTimeout, HttpContext context) throws IOException {
+            long start = System.nanoTime();
+            try {
+                delegate.connect(endpoint, connectTimeout, context);
+            } finally {
+                connectTime.recordValue(micros(start));
+            }
+        }
+
+        @Override
+        public void upgrade(ConnectionEndpoint endpoint, HttpContext context) throws IOException {
+            delegate.upgrade(endpoint, context);
+        }
+
+        @Override
+        public void close(CloseMode closeMode) {
+            delegate.close(closeMode);
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        private long micros(long startNanos) {
+            return Math.min((System.nanoTime() - startNanos) / 1_000, LatencyRecorder.HIGHEST_TRACKABLE_MICROS);
+        }
+    }
+}
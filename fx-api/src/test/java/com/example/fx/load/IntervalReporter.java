@@ -0,0 +1,288 @@
+package com.example.fx.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Cuts every scenario into fixed intervals (report.intervalMs) and keeps throughput, errors and percentiles per
+ * interval, so degradation during a run (GC creep, growing tables, a leak) shows up instead of being averaged away
+ * in the end-of-run summary.
+ *
+ * A scenario's {@link Series} from {@link #start} reads the requests its {@link OperationRecorder} recorded: every
+ * interval a scheduler thread collects the latencies recorded since the previous one into the interval histogram,
+ * while worker threads keep recording, appends it to {@code intervals.hlog} (HdrHistogram interval
+ * log, tagged with the scenario, readable with HistogramLogProcessor) and keeps a row for {@code intervals.csv}
+ * and {@code intervals.json}. Interval rows carry wall-clock end times so they can be lined up with server logs
+ * and GC events. With report.console the rows are also printed as they are taken.
+ *
+ * Given a {@link ServerSampler}, every interval also samples the server's state (heap, GC, threads, pools, table
+ * rows) right after the interval histogram is taken. The sample is taken in the background and becomes part of the
+ * interval's row once it completes; while the previous sample is still running, an interval gets none.
+ */
+final class IntervalReporter implements AutoCloseable {
+
+    static final String HLOG = "intervals.hlog";
+    static final String CSV = "intervals.csv";
+    static final String JSON = "intervals.json";
+
+    private final Path directory;
+    private final long intervalMillis;
+    private final boolean console;
+    private final ServerSampler sampler;
+    private final ScheduledExecutorService scheduler;
+    private final PrintStream hlogStream;
+    private final HistogramLogWriter hlog;
+    private final long baseEpochMillis;
+    private final List<Series> series = new ArrayList<>();
+
+    /**
+     * One interval of a scenario; latencies in milliseconds. {@code server} holds the server sample taken at the
+     * end of the interval, empty without a sampler or until the sample completes.
+     */
+    record Interval(long endEpochMillis, double elapsedSeconds, long requests, long errors, double rps,
+                    double errorRate, double p50, double p90, double p99, double p999, double max,
+                    Map<String, Double> server) {
+
+        Interval withServer(Map<String, Double> sample) {
+            return new Interval(endEpochMillis, elapsedSeconds, requests, errors, rps, errorRate, p50, p90, p99, p999,
+                    max, sample);
+        }
+    }
+
+    private record SeriesReport(String scenario, long startEpochMillis, long intervalMillis, List<Interval> intervals) {
+    }
+
+    /**
+     * @param directory where the interval log, CSV and JSON files are written; created if missing
+     * @param intervalMillis length of an interval
+     * @param console whether to print each interval as it is taken
+     */
+    IntervalReporter(Path directory, long intervalMillis, boolean console) throws IOException {
+        this(directory, intervalMillis, console, null);
+    }
+
+    /**
+     * @param sampler samples the server at the end of every interval; null for client-side figures only
+     */
+    IntervalReporter(Path directory, long intervalMillis, boolean console, ServerSampler sampler) throws IOException {
+        this.directory = directory;
+        this.intervalMillis = intervalMillis;
+        this.console = console;
+        this.sampler = sampler;
+        Files.createDirectories(directory);
+        hlogStream = new PrintStream(Files.newOutputStream(directory.resolve(HLOG)), false, StandardCharsets.UTF_8);
+        hlog = new HistogramLogWriter(hlogStream);
+        baseEpochMillis = System.currentTimeMillis();
+        hlog.outputLogFormatVersion();
+        hlog.outputStartTime(baseEpochMillis);
+        hlog.outputBaseTime(baseEpochMillis);
+        hlog.outputLegend();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "interval-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts the intervals of a scenario. Close the series when the scenario has finished; the last, partial
+     * interval is taken then.
+     */
+    synchronized Series start(String scenario) {
+        if (sampler != null) {
+            // Restarts the running totals (GC pauses), so the first interval does not include the warm-up
+            sampler.sample();
+        }
+        Series started = new Series(scenario);
+        series.add(started);
+        started.task = scheduler.scheduleAtFixedRate(started::take, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        return started;
+    }
+
+    synchronized List<Series> series() {
+        return List.copyOf(series);
+    }
+
+    Path directory() {
+        return directory;
+    }
+
+    /**
+     * Writes the intervals of all series taken so far to {@code intervals.csv} and {@code intervals.json}.
+     */
+    synchronized void write() throws IOException {
+        // Server columns in order of first appearance; table rows may appear in later scenarios only
+        Set<String> serverColumns = new LinkedHashSet<>();
+        for (Series s : series) {
+            s.intervals().forEach(i -> serverColumns.addAll(i.server().keySet()));
+        }
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(directory.resolve(CSV), StandardCharsets.UTF_8))) {
+            csv.print("scenario,endEpochMillis,elapsedSeconds,requests,errors,rps,errorRate,p50Ms,p90Ms,p99Ms,p999Ms,maxMs");
+            serverColumns.forEach(column -> csv.print("," + column));
+            csv.println();
+            for (Series s : series) {
+                for (Interval i : s.intervals()) {
+                    csv.printf(Locale.ROOT, "\"%s\",%d,%.3f,%d,%d,%.2f,%.4f,%.3f,%.3f,%.3f,%.3f,%.3f", s.scenario,
+                            i.endEpochMillis(), i.elapsedSeconds(), i.requests(), i.errors(), i.rps(), i.errorRate(),
+                            i.p50(), i.p90(), i.p99(), i.p999(), i.max());
+                    for (String column : serverColumns) {
+                        Double value = i.server().get(column);
+                        csv.print(value == null ? "," : String.format(Locale.ROOT, ",%.2f", value));
+                    }
+                    csv.println();
+                }
+            }
+        }
+        List<SeriesReport> json = new ArrayList<>();
+        for (Series s : series) {
+            json.add(new SeriesReport(s.scenario, s.startEpochMillis, intervalMillis, s.intervals()));
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(directory.resolve(JSON).toFile(), json);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        synchronized (hlog) {
+            hlogStream.close();
+        }
+    }
+
+    /**
+     * The intervals of one scenario run.
+     */
+    final class Series implements AutoCloseable {
+
+        private final String scenario;
+        private final long startEpochMillis = System.currentTimeMillis();
+        private final long startNanos = System.nanoTime();
+        private final List<Interval> intervals = new ArrayList<>();
+        private final Histogram reusable = new Histogram(LatencyRecorder.HIGHEST_TRACKABLE_MICROS, 3);
+        private OperationRecorder source;
+        private long lastNanos = startNanos;
+        private long lastEpochMillis = startEpochMillis;
+        // The server sample of the latest interval, until it completes
+        private CompletableFuture<?> sampling = CompletableFuture.completedFuture(null);
+        private ScheduledFuture<?> task;
+        private boolean closed;
+
+        private Series(String scenario) {
+            this.scenario = scenario;
+        }
+
+        String scenario() {
+            return scenario;
+        }
+
+        /**
+         * Makes {@code operations} the source of the series' intervals; a request outside 2xx (0: no response)
+         * counts as an error. Called by the {@link OperationRecorder} constructed with this series.
+         */
+        synchronized void recordedBy(OperationRecorder operations) {
+            source = operations;
+        }
+
+        synchronized List<Interval> intervals() {
+            return List.copyOf(intervals);
+        }
+
+        // Runs on the scheduler thread until the series is closed
+        private synchronized void take() {
+            if (!closed) {
+                takeInterval();
+            }
+        }
+
+        // Caller holds the monitor
+        private void takeInterval() {
+            long now = System.nanoTime();
+            long nowEpochMillis = System.currentTimeMillis();
+            reusable.reset();
+            long errorCount = source == null ? 0 : source.takeInterval(reusable);
+            reusable.setStartTimeStamp(lastEpochMillis);
+            reusable.setEndTimeStamp(nowEpochMillis);
+            lastEpochMillis = nowEpochMillis;
+            // Interval log fields are separated by spaces and commas
+            reusable.setTag(scenario.replaceAll("[\\s,]", "_"));
+            double seconds = (now - lastNanos) / 1_000_000_000.0;
+            lastNanos = now;
+            long count = reusable.getTotalCount();
+            Interval interval = new Interval(nowEpochMillis, (now - startNanos) / 1_000_000_000.0, count,
+                    errorCount, seconds <= 0 ? 0 : count / seconds, count == 0 ? 0 : (double) errorCount / count,
+                    millis(reusable, 50), millis(reusable, 90), millis(reusable, 99), millis(reusable, 99.9),
+                    reusable.getMaxValue() / 1000.0, Map.of());
+            int index = intervals.size();
+            intervals.add(interval);
+            CompletableFuture<Map<String, Double>> sample = sampler == null ? null : sampler.sampleAsync();
+            if (sample != null) {
+                sampling = sample.thenAccept(server -> attach(index, server));
+            }
+            synchronized (hlog) {
+                // Values are microseconds; the Interval_Max column is in milliseconds
+                hlog.outputIntervalHistogram((reusable.getStartTimeStamp() - baseEpochMillis) / 1000.0,
+                        (reusable.getEndTimeStamp() - baseEpochMillis) / 1000.0, reusable, 1000.0);
+            }
+            if (console) {
+                System.out.printf(Locale.ROOT, "[%s] %6.1f s: %8.1f req/s, errors %5.2f%%, p50 %8.2f ms, p99 %8.2f ms, max %8.2f ms%n",
+                        scenario, interval.elapsedSeconds(), interval.rps(), interval.errorRate() * 100, interval.p50(),
+                        interval.p99(), interval.max());
+            }
+        }
+
+        private synchronized void attach(int index, Map<String, Double> server) {
+            intervals.set(index, intervals.get(index).withServer(server));
+        }
+
+        private static double millis(Histogram histogram, double percentile) {
+            return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        /**
+         * Stops the interval timer and takes the last, partial interval.
+         */
+        @Override
+        public void close() {
+            task.cancel(false);
+            CompletableFuture<?> last;
+            // Closed before the last interval is taken, so a scheduled take() still due cannot add one after it
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                takeInterval();
+                last = sampling;
+            }
+            // The scenario's results read the intervals next; a sample that times out leaves its interval without one
+            try {
+                last.get(ServerSampler.TIMEOUT_SECONDS * 10L, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | TimeoutException e) {
+                // No sample for the last interval
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.fx.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * Records a scenario over a few short intervals and reads the interval log, CSV and JSON back, and checks that a slow
+ * server does not hold up the intervals.
+ */
+public class IntervalReporterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void intervalsAddUpToWhatWasRecorded() throws Exception {
+        List<IntervalReporter.Interval> intervals;
+        try (IntervalReporter reporter = new IntervalReporter(directory, 50, false)) {
+            IntervalReporter.Series series = reporter.start("Soak Test");
+            OperationRecorder operations = new OperationRecorder(series);
+            for (int i = 0; i < 10; i++) {
+                operations.record(OperationRecorder.CREATE_QUOTE, 201, 0, 2_000_000);
+            }
+            Thread.sleep(120);
+            operations.record(OperationRecorder.CREATE_TRADE, 500, 0, 8_000_000);
+            series.close();
+            reporter.write();
+            intervals = series.intervals();
+        }
+
+        Assertions.assertTrue(intervals.size() >= 2, intervals.toString());
+        Assertions.assertEquals(11, intervals.stream().mapToLong(IntervalReporter.Interval::requests).sum());
+        Assertions.assertEquals(1, intervals.stream().mapToLong(IntervalReporter.Interval::errors).sum());
+        // On a busy machine an interval may pass before the first request, or between the last one and close
+        IntervalReporter.Interval first = intervals.stream().filter(i -> i.requests() > 0).findFirst().orElseThrow();
+        Assertions.assertEquals(2.0, first.p99(), 0.01);
+        Assertions.assertEquals(8.0, intervals.stream().mapToDouble(IntervalReporter.Interval::max).max().orElse(0), 0.01);
+
+        List<String> csv = Files.readAllLines(directory.resolve(IntervalReporter.CSV));
+        Assertions.assertEquals(intervals.size() + 1, csv.size());
+        Assertions.assertTrue(csv.get(1).startsWith("\"Soak Test\","), csv.get(1));
+
+        JsonNode json = new ObjectMapper().readTree(directory.resolve(IntervalReporter.JSON).toFile());
+        Assertions.assertEquals("Soak Test", json.get(0).get("scenario").asText());
+        Assertions.assertEquals(intervals.size(), json.get(0).get("intervals").size());
+
+        HistogramLogReader log = new HistogramLogReader(directory.resolve(IntervalReporter.HLOG).toFile());
+        long logged = 0;
+        Histogram histogram;
+        while ((histogram = (Histogram) log.nextIntervalHistogram()) != null) {
+            Assertions.assertEquals("Soak_Test", histogram.getTag());
+            logged += histogram.getTotalCount();
+        }
+        Assertions.assertEquals(11, logged);
+    }
+
+    @Test
+    void slowServerSamplesDoNotHoldUpIntervals() throws Exception {
+        HttpServer actuator = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        actuator.createContext("/actuator/metrics", exchange -> {
+            boolean threads = exchange.getRequestURI().getPath().endsWith("/jvm.threads.live");
+            if (threads) {
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            byte[] body = (threads ? "{\"measurements\":[{\"statistic\":\"VALUE\",\"value\":42}]}" : "{}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        actuator.setExecutor(Executors.newCachedThreadPool());
+        actuator.start();
+        List<IntervalReporter.Interval> intervals;
+        try (ServerSampler sampler = new ServerSampler("http://localhost:" + actuator.getAddress().getPort() + "/actuator");
+             IntervalReporter reporter = new IntervalReporter(directory, 50, false, sampler)) {
+            IntervalReporter.Series series = reporter.start("Soak Test");
+            new OperationRecorder(series).record(OperationRecorder.CREATE_QUOTE, 201, 0, 2_000_000);
+            Thread.sleep(700);
+            series.close();
+            intervals = series.intervals();
+        } finally {
+            actuator.stop(0);
+        }
+
+        // A sample takes 300 ms; sampled in line, 700 ms would give about two intervals
+        Assertions.assertTrue(intervals.size() >= 6, intervals.toString());
+        Assertions.assertTrue(intervals.stream().anyMatch(i -> i.server().containsKey(ServerSampler.LIVE_THREADS)),
+                intervals.toString());
+        Assertions.assertTrue(intervals.stream().anyMatch(i -> i.server().isEmpty()), "skipped while a sample runs");
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.fx.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.DataFormatException;
+
+/**
+ * Collects request latencies of one scenario in per-thread HDR histograms.
+ *
+ * Each worker thread asks for its own histogram once and records into it without locks or allocation; memory
+ * stays constant however long the scenario runs. Values are kept in microseconds with three significant digits
+ * up to one hour. {@link #merged()} adds the thread histograms together once the workers have finished.
+ *
+ * Virtual threads cannot have one each: a scenario may start tens of thousands of them, and a histogram of this
+ * range takes about 180 KB. They record into one of {@link #STRIPES} concurrent histograms instead, picked by
+ * {@link #stripe()}, so only threads that run at the same time and land on the same stripe contend.
+ */
+final class LatencyRecorder {
+
+    static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+    // A power of two, at least four per core: threads running at the same time rarely share a stripe
+    static final int STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Queue<Histogram> histograms = new ConcurrentLinkedQueue<>();
+    private final AtomicReferenceArray<Histogram> stripes = new AtomicReferenceArray<>(STRIPES);
+
+    /**
+     * A histogram owned by the calling worker thread; only that thread may record into it. Virtual threads get the
+     * concurrent histogram of their stripe, which other threads may record into as well.
+     */
+    Histogram threadHistogram() {
+        if (Thread.currentThread().isVirtual()) {
+            int stripe = stripe();
+            if (stripes.get(stripe) == null) {
+                stripes.compareAndSet(stripe, null, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS));
+            }
+            return stripes.get(stripe);
+        }
+        Histogram histogram = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        histograms.add(histogram);
+        return histogram;
+    }
+
+    /**
+     * The stripe of the calling thread, below {@link #STRIPES}. Thread ids are handed out in sequence, so the threads
+     * of a scenario spread evenly over the stripes.
+     */
+    static int stripe() {
+        return (int) (Thread.currentThread().threadId() & (STRIPES - 1));
+    }
+
+    /**
+     * Records the time between two {@link System#nanoTime()} readings.
+     */
+    static void record(Histogram histogram, long startNanos, long endNanos) {
+        long micros = Math.max(0, (endNanos - startNanos) / 1_000);
+        histogram.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+    }
+
+    /**
+     * All thread histograms added together. Call only after every worker thread has finished recording.
+     */
+    Histogram merged() {
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        for (int i = 0; i < STRIPES; i++) {
+            if (stripes.get(i) != null) {
+                total.add(stripes.get(i));
+            }
+        }
+        for (Histogram histogram : histograms) {
+            total.add(histogram);
+        }
+        return total;
+    }
+
+    /**
+     * A histogram compressed and Base64 encoded, for a worker's reply or a stored baseline.
+     */
+    static String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    static Histogram decode(String encoded) {
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(Base64.getDecoder().decode(encoded)), 0);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt encoded histogram", e);
+        }
+    }
+}
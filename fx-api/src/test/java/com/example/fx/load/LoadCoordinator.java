@@ -0,0 +1,322 @@
+package com.example.fx.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs a scenario on several {@link LoadWorker} processes at once and merges their results, for load beyond what one
+ * generator JVM can produce.
+ *
+ * Workers are either launched as local JVMs on this host ({@link #launchLocal}), with a fresh random token, or
+ * already running elsewhere ({@link #connect}) with the token they were started with; every connection
+ * authenticates with it first. Before each run the coordinator estimates every worker's clock offset from a few
+ * CLOCK round trips, keeping the sample with the shortest round trip (offset = worker time minus the midpoint of
+ * the round trip). It refuses to run when an offset exceeds the allowed maximum, because the start time it hands out
+ * is a wall-clock time translated into each worker's clock. The workers' HDR histograms, per-operation results and
+ * counters are added together; the run lasts as long as its slowest worker.
+ */
+final class LoadCoordinator implements AutoCloseable {
+
+    private static final int CLOCK_SAMPLES = 8;
+    private static final long LAUNCH_TIMEOUT_SECONDS = 60;
+
+    private final List<Worker> workers = new ArrayList<>();
+    private final List<Process> processes = new ArrayList<>();
+
+    /**
+     * Clock offset and round trip of one worker, and what it sent and measured in a run.
+     */
+    record WorkerResult(String worker, double clockOffsetMillis, double roundTripMillis, long startLateMillis,
+                        int requests, int errors, double seconds, double cpuPercent) {
+    }
+
+    /**
+     * The merged outcome of one distributed run.
+     */
+    record Result(Histogram latencies, OperationRecorder operations, int requests, int errors, double seconds,
+                  List<WorkerResult> workers) {
+
+        /**
+         * CPU use of the busiest worker, as a percentage of its host's cores.
+         */
+        double maxWorkerCpu() {
+            return workers.stream().mapToDouble(WorkerResult::cpuPercent).max().orElse(0);
+        }
+    }
+
+    private record ClockSample(double offsetMillis, double roundTripMillis) {
+    }
+
+    private LoadCoordinator() {
+    }
+
+    /**
+     * Starts {@code count} worker JVMs on this host with the current classpath and connects to them.
+     *
+     * @param propertiesResource classpath resource configuring the workers' connection pools
+     */
+    static LoadCoordinator launchLocal(int count, String propertiesResource) throws IOException {
+        LoadCoordinator coordinator = new LoadCoordinator();
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        String token = HexFormat.of().formatHex(random);
+        try {
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            for (int i = 0; i < count; i++) {
+                ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        "-D" + LoadWorker.COORDINATOR_PID + "=" + ProcessHandle.current().pid(),
+                        LoadWorker.class.getName(), "0", propertiesResource)
+                        .redirectErrorStream(true);
+                builder.environment().put(LoadWorker.TOKEN_ENV, token);
+                Process process = builder.start();
+                coordinator.processes.add(process);
+                String loopback = InetAddress.getLoopbackAddress().getHostAddress();
+                int port = awaitListening(process, "worker-" + (i + 1));
+                coordinator.workers.add(new Worker(loopback + ":" + port, loopback, port, token));
+            }
+        } catch (IOException | RuntimeException e) {
+            coordinator.close();
+            throw e;
+        }
+        return coordinator;
+    }
+
+    /**
+     * Connects to workers already listening at {@code host:port} addresses.
+     *
+     * @param token the token the workers were started with in {@value LoadWorker#TOKEN_ENV}
+     */
+    static LoadCoordinator connect(List<String> addresses, String token) throws IOException {
+        LoadCoordinator coordinator = new LoadCoordinator();
+        try {
+            for (String address : addresses) {
+                int colon = address.lastIndexOf(':');
+                coordinator.workers.add(new Worker(address, address.substring(0, colon),
+                        Integer.parseInt(address.substring(colon + 1)), token));
+            }
+        } catch (IOException | RuntimeException e) {
+            coordinator.close();
+            throw e;
+        }
+        return coordinator;
+    }
+
+    // Forwards the worker's output in the background and waits, at most LAUNCH_TIMEOUT_SECONDS, for it to report its port
+    private static int awaitListening(Process process, String name) throws IOException {
+        BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        CompletableFuture<Integer> port = new CompletableFuture<>();
+        Thread forwarder = new Thread(() -> forward(output, name, port), name + "-output");
+        forwarder.setDaemon(true);
+        forwarder.start();
+        try {
+            return port.get(LAUNCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new IOException(name + " did not start listening within " + LAUNCH_TIMEOUT_SECONDS + " s");
+        } catch (ExecutionException e) {
+            throw new IOException(name + " exited before it started listening");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while launching " + name, e);
+        }
+    }
+
+    private static void forward(BufferedReader output, String name, CompletableFuture<Integer> port) {
+        try {
+            String line;
+            while ((line = output.readLine()) != null) {
+                if (!port.isDone() && line.startsWith(LoadWorker.LISTENING)) {
+                    port.complete(Integer.parseInt(line.substring(LoadWorker.LISTENING.length()).trim()));
+                } else {
+                    System.out.println("[" + name + "] " + line);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // The worker exited, or printed a port that is not a number
+        }
+        port.completeExceptionally(new IOException(name + " exited"));
+    }
+
+    int size() {
+        return workers.size();
+    }
+
+    /**
+     * Runs closed-loop booking flows on every worker from a common start time and merges the results.
+     *
+     * @param threadsPerWorker concurrent users on each worker
+     * @param requestsPerThread booking flows (two requests each) per user
+     * @param warmUpFlowsPerThread unrecorded flows per user before the start, to warm up the worker JVM
+     * @param baseUrl API base URL as seen from the workers
+     * @param startDelayMillis time from now to the common start; must cover the warm-up
+     * @param maxClockOffsetMillis largest tolerated worker clock offset
+     * @throws IllegalStateException if a worker's clock is off by more than {@code maxClockOffsetMillis}
+     */
+    Result run(int threadsPerWorker, int requestsPerThread, int warmUpFlowsPerThread, String baseUrl,
+               long startDelayMillis, double maxClockOffsetMillis) throws IOException {
+        List<ClockSample> clocks = new ArrayList<>();
+        for (Worker worker : workers) {
+            ClockSample clock = worker.measureClock();
+            if (Math.abs(clock.offsetMillis()) > maxClockOffsetMillis) {
+                throw new IllegalStateException(String.format(
+                        "Clock of worker %s is off by %.1f ms (round trip %.1f ms), more than the allowed %.1f ms; "
+                                + "synchronise the hosts' clocks (NTP)", worker.name, clock.offsetMillis(),
+                        clock.roundTripMillis(), maxClockOffsetMillis));
+            }
+            clocks.add(clock);
+        }
+
+        long startMillis = System.currentTimeMillis() + startDelayMillis;
+        for (int i = 0; i < workers.size(); i++) {
+            long workerStart = startMillis + Math.round(clocks.get(i).offsetMillis());
+            workers.get(i).send("RUN " + workerStart + " " + threadsPerWorker + " " + requestsPerThread + " "
+                    + warmUpFlowsPerThread + " " + baseUrl);
+        }
+
+        Histogram latencies = new Histogram(LatencyRecorder.HIGHEST_TRACKABLE_MICROS, 3);
+        OperationRecorder operations = new OperationRecorder();
+        List<WorkerResult> results = new ArrayList<>();
+        int requests = 0;
+        int errors = 0;
+        double seconds = 0;
+        for (int i = 0; i < workers.size(); i++) {
+            Worker worker = workers.get(i);
+            String[] counters = worker.expect("RESULT").split(" ");
+            int workerRequests = Integer.parseInt(counters[1]);
+            int workerErrors = Integer.parseInt(counters[2]);
+            double workerSeconds = Long.parseLong(counters[3]) / 1_000_000_000.0;
+            results.add(new WorkerResult(worker.name, clocks.get(i).offsetMillis(), clocks.get(i).roundTripMillis(),
+                    Long.parseLong(counters[5]), workerRequests, workerErrors, workerSeconds,
+                    Double.parseDouble(counters[4])));
+            requests += workerRequests;
+            errors += workerErrors;
+            seconds = Math.max(seconds, workerSeconds);
+
+            latencies.add(LatencyRecorder.decode(worker.expect("LATENCIES").substring("LATENCIES ".length())));
+            String line;
+            while (!(line = worker.readLine()).equals("END")) {
+                // OPERATION <2xx> <4xx> <5xx> <other> <no response> <histogram> <name with spaces>
+                String[] fields = line.split(" ", 8);
+                long[] statusCounts = new long[OperationRecorder.StatusClass.values().length];
+                for (int c = 0; c < statusCounts.length; c++) {
+                    statusCounts[c] = Long.parseLong(fields[1 + c]);
+                }
+                operations.add(new OperationRecorder.OperationResult(fields[7], LatencyRecorder.decode(fields[6]), statusCounts));
+            }
+        }
+        return new Result(latencies, operations, requests, errors, seconds, results);
+    }
+
+    /**
+     * Stops the locally launched workers. Workers connected to with {@link #connect} keep running for the next
+     * coordinator.
+     */
+    @Override
+    public void close() {
+        for (Worker worker : workers) {
+            worker.close(!processes.isEmpty());
+        }
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The control connection to one worker.
+     */
+    private static final class Worker {
+
+        private final String name;
+        private final Socket socket;
+        private final BufferedReader in;
+        private final Writer out;
+
+        Worker(String name, String host, int port, String token) throws IOException {
+            this.name = name;
+            socket = new Socket();
+            socket.connect(new InetSocketAddress(host, port), 10_000);
+            socket.setTcpNoDelay(true);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            try {
+                send("AUTH " + token);
+                expect("AUTH");
+            } catch (IOException e) {
+                socket.close();
+                throw new IOException("Worker " + name + " refused the token; start it with the same "
+                        + LoadWorker.TOKEN_ENV, e);
+            }
+        }
+
+        ClockSample measureClock() throws IOException {
+            ClockSample best = null;
+            for (int i = 0; i < CLOCK_SAMPLES; i++) {
+                long sent = LoadWorker.epochMicros();
+                send("CLOCK " + sent);
+                long workerMicros = Long.parseLong(expect("CLOCK").substring("CLOCK ".length()));
+                long received = LoadWorker.epochMicros();
+                ClockSample sample = new ClockSample((workerMicros - (sent + received) / 2.0) / 1000.0,
+                        (received - sent) / 1000.0);
+                if (best == null || sample.roundTripMillis() < best.roundTripMillis()) {
+                    best = sample;
+                }
+            }
+            return best;
+        }
+
+        void send(String command) throws IOException {
+            out.write(command + "\n");
+            out.flush();
+        }
+
+        String readLine() throws IOException {
+            String line = in.readLine();
+            if (line == null) {
+                throw new IOException("Worker " + name + " closed the connection");
+            }
+            return line;
+        }
+
+        String expect(String reply) throws IOException {
+            String line = readLine();
+            if (!line.startsWith(reply + " ")) {
+                throw new IOException("Worker " + name + " replied '" + line + "' instead of " + reply);
+            }
+            return line;
+        }
+
+        void close(boolean quit) {
+            try (socket) {
+                if (quit) {
+                    send("QUIT");
+                }
+            } catch (IOException e) {
+                // Already gone
+            }
+        }
+    }
+}
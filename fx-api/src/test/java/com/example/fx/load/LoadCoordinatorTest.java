@@ -0,0 +1,107 @@
+package com.example.fx.load;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Launches two local worker JVMs against a stub HTTP server and checks the merged counters, histograms and clock
+ * offsets, and that a remote worker only takes commands from a coordinator with its token.
+ */
+public class LoadCoordinatorTest {
+
+    private HttpServer server;
+
+    @BeforeEach
+    void startStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+            int status = exchange.getRequestURI().getPath().endsWith("/trades") ? 201 : 200;
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopStubServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void mergesTheResultsOfLocalWorkers() throws Exception {
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/api";
+        try (LoadCoordinator coordinator = LoadCoordinator.launchLocal(2, "loadtest_low.properties")) {
+            LoadCoordinator.Result result = coordinator.run(2, 3, 1, baseUrl, 1000, 50);
+
+            // 2 workers x 2 threads x 3 flows x 2 requests
+            Assertions.assertEquals(24, result.requests());
+            Assertions.assertEquals(0, result.errors());
+            Assertions.assertEquals(24, result.latencies().getTotalCount());
+            List<OperationRecorder.OperationResult> operations = result.operations().results();
+            Assertions.assertEquals(List.of(OperationRecorder.CREATE_QUOTE, OperationRecorder.CREATE_TRADE),
+                    operations.stream().map(OperationRecorder.OperationResult::operation).toList());
+            Assertions.assertEquals(12, operations.get(1).count(OperationRecorder.StatusClass.SUCCESS));
+            Assertions.assertEquals(2, result.workers().size());
+            for (LoadCoordinator.WorkerResult worker : result.workers()) {
+                Assertions.assertEquals(12, worker.requests());
+                // Same host, same clock
+                Assertions.assertTrue(Math.abs(worker.clockOffsetMillis()) < 50, worker.toString());
+            }
+        }
+    }
+
+    @Test
+    void refusesToRunWhenClockOffsetsExceedTheLimit() throws Exception {
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/api";
+        try (LoadCoordinator coordinator = LoadCoordinator.launchLocal(1, "loadtest_low.properties")) {
+            // A negative limit no offset can meet
+            Assertions.assertThrows(IllegalStateException.class, () -> coordinator.run(1, 1, 0, baseUrl, 500, -1));
+        }
+    }
+
+    @Test
+    void remoteWorkersOnlyServeCoordinatorsWithTheirToken() throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                LoadWorker.class.getName(), "0", "loadtest_low.properties").redirectErrorStream(true);
+        builder.environment().put(LoadWorker.TOKEN_ENV, "secret");
+        Process worker = builder.start();
+        try {
+            BufferedReader output = new BufferedReader(new InputStreamReader(worker.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            while (!(line = output.readLine()).startsWith(LoadWorker.LISTENING)) {
+                // Startup output
+            }
+            int port = Integer.parseInt(line.substring(LoadWorker.LISTENING.length()).trim());
+
+            try (Socket socket = new Socket("localhost", port)) {
+                OutputStream out = socket.getOutputStream();
+                out.write("RUN 0 1 1 0 http://example.com\n".getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                Assertions.assertEquals(-1, socket.getInputStream().read(), "closed without running anything");
+            }
+            Assertions.assertThrows(IOException.class, () -> LoadCoordinator.connect(List.of("localhost:" + port), "guess"));
+            try (LoadCoordinator coordinator = LoadCoordinator.connect(List.of("localhost:" + port), "secret")) {
+                Assertions.assertEquals(1, coordinator.size());
+            }
+        } finally {
+            worker.destroyForcibly();
+        }
+    }
+}
@@ -1,37 +1,64 @@
 package com.example.fx.load;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.restassured.RestAssured;
-import io.restassured.http.ContentType;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.junit.jupiter.api.*;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.io.InputStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
 import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
 
 /**
  * LoadTest is a comprehensive JUnit-based load testing framework for the FX Pricing & Booking REST API.
  *
- * It supports Baseline, Load, Spike, Soak, and Stress test scenarios, and measures:
+ * It supports Baseline, Load, Spike, Soak, Stress, Mixed Workload (a weighted mix of all endpoints, see
+ * {@link WorkloadMix}) and Bulkhead (mixed RFQ/booking) test scenarios, and measures:
  * - Throughput (RPS)
- * - Latency (average, p90, p95, p99, p99.9, p99.99)
+ * - Latency (average, p90, p95, p99, p99.9, p99.99), recorded in striped HDR recorders (see {@link OperationRecorder})
  * - Error rate
+ * - Per-operation latency, status classes and share of response time (see {@link OperationRecorder})
+ * - Throughput, errors and percentiles per interval of each scenario (see {@link IntervalReporter})
+ * - Server heap, GC, threads, pools and table rows per interval, through Actuator (see {@link ServerSampler})
  * - SLA compliance
  *
  * All test parameters are externalized in loadtest.properties for easy tuning.
  *
- * The test summary is printed in a tabular format with a legend for interpretation.
+ * The test summary is printed in a tabular format with a legend for interpretation, and written to report.dir as
+ * summary.json and summary.csv next to the interval series, for comparing runs offline. When a baseline run is
+ * stored at regression.baseline, the test fails on statistically significant regressions against it (see
+ * {@link RegressionGate}).
  */
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 public class LoadTest {
 
+    // Classpath resource the parameters are read from; distributed workers read it as well
+    private static final String PROPERTIES = "loadtest_low.properties";
+
     // Load test parameters (populated from loadtest.properties)
     private String BASE_URL;
     private int THREADS;
@@ -45,13 +72,74 @@ public class LoadTest {
     private int SOAK_DURATION_SECONDS;
     private int STRESS_THREADS;
     private int STRESS_REQUESTS_PER_THREAD;
+    private int BULKHEAD_RFQ_THREADS;
+    private int BULKHEAD_BOOKING_THREADS;
+    private int BULKHEAD_REQUESTS_PER_THREAD;
+    private double OPEN_LOOP_RATE;
+    private int OPEN_LOOP_DURATION_SECONDS;
+    private int OPEN_LOOP_THREADS;
+    private boolean VIRTUAL_THREADS;
+    private int MANY_USERS;
+    private int MANY_USERS_REQUESTS_PER_USER;
+    private long MANY_USERS_THINK_TIME_MS;
+    private int ASYNC_FLOWS;
+    private AsyncLoadEngine.Protocol ASYNC_PROTOCOL;
+    private int ASYNC_CONNECTIONS;
+    private int ASYNC_MAX_IN_FLIGHT_PER_CONNECTION;
+    private int ASYNC_IO_THREADS;
+    private int MIX_USERS;
+    private int MIX_DURATION_SECONDS;
+    private int DISTRIBUTED_LOCAL_WORKERS;
+    private List<String> DISTRIBUTED_HOSTS;
+    private int DISTRIBUTED_THREADS_PER_WORKER;
+    private int DISTRIBUTED_REQUESTS_PER_THREAD;
+    private int DISTRIBUTED_WARMUP_FLOWS_PER_THREAD;
+    private long DISTRIBUTED_START_DELAY_MS;
+    private double DISTRIBUTED_MAX_CLOCK_OFFSET_MS;
+    private double CAPACITY_START_RATE;
+    private double CAPACITY_STEP_FACTOR;
+    private double CAPACITY_MAX_RATE;
+    private int CAPACITY_SEARCH_STEPS;
+    private int CAPACITY_STEP_SECONDS;
+    private int CAPACITY_THREADS;
+    private double CAPACITY_P95_LATENCY_MS;
+    private int WARMUP_MAX_SECONDS;
+    private long WARMUP_WINDOW_MILLIS;
+    private int WARMUP_WINDOWS;
+    private long WARMUP_MIN_REQUESTS;
+    private double WARMUP_MAX_VARIATION;
+    private long WARMUP_MAX_JIT_MILLIS;
+    private Properties properties;
+    private ConnectionPool connectionPool;
     private double SLA_MAX_ERROR_RATE;
     private long SLA_P95_LATENCY_MS;
     private double SLA_MIN_RPS;
+    private long SEED_QUOTES;
+    private long SEED_TRADES;
+    private String REPORT_DIR;
+    private long REPORT_INTERVAL_MS;
+    private boolean REPORT_CONSOLE;
+    private String REGRESSION_BASELINE;
+    private double REGRESSION_TOLERANCE;
+    private boolean REGRESSION_UPDATE_BASELINE;
+    private boolean MONITOR_ENABLED;
+    private String MONITOR_ACTUATOR_URL;
+    private double MONITOR_GROWTH;
+
+    // Pre-rendered quote and trade request bodies, and the endpoints they are posted to
+    private PayloadFactory quotePayloads;
+    private PayloadFactory tradePayloads;
+    private URI quotesUri;
+    private URI tradesUri;
+    private URI rfqUri;
+
+    // Weighted operations over all FX endpoints for the Mixed Workload scenario
+    private WorkloadMix workloadMix;
+    private static final ObjectMapper JSON = new ObjectMapper();
 
-    // JSON templates for quote and trade requests
-    private String quoteJsonTemplate;
-    private String tradeJsonTemplate;
+    // Per-interval series of every scenario, written to REPORT_DIR, with server samples when Actuator is reachable
+    private IntervalReporter intervals;
+    private ServerSampler serverSampler;
 
     /**
      * Optionally sets CPU affinity for the current process to improve performance on multi-core systems.
@@ -83,7 +171,7 @@ public class LoadTest {
     void setup() throws IOException {
         setCpuAffinity();
         Properties props = new Properties();
-        try (InputStream in = getClass().getClassLoader().getResourceAsStream("loadtest_low.properties")) {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(PROPERTIES)) {
             props.load(in);
         }
         BASE_URL = props.getProperty("baseUrl", "http://localhost:8080/api");
@@ -98,13 +186,131 @@ public class LoadTest {
         SOAK_DURATION_SECONDS = Integer.parseInt(props.getProperty("soak.durationSeconds", "120"));
         STRESS_THREADS = Integer.parseInt(props.getProperty("stress.threads", "100"));
         STRESS_REQUESTS_PER_THREAD = Integer.parseInt(props.getProperty("stress.requestsPerThread", "20"));
+        BULKHEAD_RFQ_THREADS = Integer.parseInt(props.getProperty("bulkhead.rfqThreads", "50"));
+        BULKHEAD_BOOKING_THREADS = Integer.parseInt(props.getProperty("bulkhead.bookingThreads", "5"));
+        BULKHEAD_REQUESTS_PER_THREAD = Integer.parseInt(props.getProperty("bulkhead.requestsPerThread", "20"));
+        OPEN_LOOP_RATE = Double.parseDouble(props.getProperty("openLoop.rate", "20"));
+        OPEN_LOOP_DURATION_SECONDS = Integer.parseInt(props.getProperty("openLoop.durationSeconds", "30"));
+        OPEN_LOOP_THREADS = Integer.parseInt(props.getProperty("openLoop.threads", "50"));
+        VIRTUAL_THREADS = Boolean.parseBoolean(props.getProperty("virtualThreads", "false"));
+        MANY_USERS = Integer.parseInt(props.getProperty("manyUsers.users", "10000"));
+        MANY_USERS_REQUESTS_PER_USER = Integer.parseInt(props.getProperty("manyUsers.requestsPerUser", "2"));
+        MANY_USERS_THINK_TIME_MS = Long.parseLong(props.getProperty("manyUsers.thinkTimeMs", "1000"));
+        ASYNC_FLOWS = Integer.parseInt(props.getProperty("async.flows", "5000"));
+        ASYNC_PROTOCOL = AsyncLoadEngine.Protocol.valueOf(props.getProperty("async.protocol", "HTTP_2"));
+        ASYNC_CONNECTIONS = Integer.parseInt(props.getProperty("async.connections", "2"));
+        ASYNC_MAX_IN_FLIGHT_PER_CONNECTION = Integer.parseInt(props.getProperty("async.maxInFlightPerConnection", "50"));
+        ASYNC_IO_THREADS = Integer.parseInt(props.getProperty("async.ioThreads", "1"));
+        MIX_USERS = Integer.parseInt(props.getProperty("mix.users", "200"));
+        MIX_DURATION_SECONDS = Integer.parseInt(props.getProperty("mix.durationSeconds", "120"));
+        DISTRIBUTED_LOCAL_WORKERS = Integer.parseInt(props.getProperty("distributed.localWorkers", "0"));
+        DISTRIBUTED_HOSTS = Arrays.stream(props.getProperty("distributed.hosts", "").split(","))
+                .map(String::trim).filter(host -> !host.isEmpty()).toList();
+        DISTRIBUTED_THREADS_PER_WORKER = Integer.parseInt(props.getProperty("distributed.threadsPerWorker", "50"));
+        DISTRIBUTED_REQUESTS_PER_THREAD = Integer.parseInt(props.getProperty("distributed.requestsPerThread", "20"));
+        DISTRIBUTED_WARMUP_FLOWS_PER_THREAD = Integer.parseInt(props.getProperty("distributed.warmUpFlowsPerThread", "20"));
+        DISTRIBUTED_START_DELAY_MS = Long.parseLong(props.getProperty("distributed.startDelayMs", "3000"));
+        DISTRIBUTED_MAX_CLOCK_OFFSET_MS = Double.parseDouble(props.getProperty("distributed.maxClockOffsetMs", "50"));
         SLA_MAX_ERROR_RATE = Double.parseDouble(props.getProperty("sla.maxErrorRate", "0.01"));
         SLA_P95_LATENCY_MS = Long.parseLong(props.getProperty("sla.p95LatencyMs", "250"));
         SLA_MIN_RPS = Double.parseDouble(props.getProperty("sla.minRps", "50.0"));
+        CAPACITY_START_RATE = Double.parseDouble(props.getProperty("capacity.startRate", "10"));
+        CAPACITY_STEP_FACTOR = Double.parseDouble(props.getProperty("capacity.stepFactor", "2"));
+        CAPACITY_MAX_RATE = Double.parseDouble(props.getProperty("capacity.maxRate", "2000"));
+        CAPACITY_SEARCH_STEPS = Integer.parseInt(props.getProperty("capacity.searchSteps", "3"));
+        CAPACITY_STEP_SECONDS = Integer.parseInt(props.getProperty("capacity.stepSeconds", "20"));
+        CAPACITY_THREADS = Integer.parseInt(props.getProperty("capacity.threads", "200"));
+        CAPACITY_P95_LATENCY_MS = Double.parseDouble(props.getProperty("capacity.p95LatencyMs",
+                String.valueOf(2 * SLA_P95_LATENCY_MS)));
+        // Otherwise the search would run no step at all, or never stop raising the rate
+        if (!(CAPACITY_START_RATE > 0) || CAPACITY_START_RATE > CAPACITY_MAX_RATE) {
+            throw new IllegalArgumentException("capacity.startRate must be positive and at most capacity.maxRate, was "
+                    + CAPACITY_START_RATE + " with capacity.maxRate " + CAPACITY_MAX_RATE);
+        }
+        if (!(CAPACITY_STEP_FACTOR > 1)) {
+            throw new IllegalArgumentException("capacity.stepFactor must be greater than 1, was " + CAPACITY_STEP_FACTOR);
+        }
+        WARMUP_MAX_SECONDS = Integer.parseInt(props.getProperty("warmup.maxSeconds", "60"));
+        WARMUP_WINDOW_MILLIS = Long.parseLong(props.getProperty("warmup.windowMillis", "2000"));
+        WARMUP_WINDOWS = Integer.parseInt(props.getProperty("warmup.windows", "5"));
+        WARMUP_MIN_REQUESTS = Long.parseLong(props.getProperty("warmup.minRequests", "50"));
+        WARMUP_MAX_VARIATION = Double.parseDouble(props.getProperty("warmup.maxVariation", "0.25"));
+        WARMUP_MAX_JIT_MILLIS = Long.parseLong(props.getProperty("warmup.maxJitMillisPerWindow", "20"));
+        properties = props;
+        SEED_QUOTES = Long.parseLong(props.getProperty("seed.quotes", "0"));
+        SEED_TRADES = Long.parseLong(props.getProperty("seed.trades", "0"));
+        REPORT_DIR = props.getProperty("report.dir", "target/loadtest-reports");
+        REPORT_INTERVAL_MS = Long.parseLong(props.getProperty("report.intervalMs", "1000"));
+        REPORT_CONSOLE = Boolean.parseBoolean(props.getProperty("report.console", "false"));
+        REGRESSION_BASELINE = props.getProperty("regression.baseline", "src/test/baselines/" + PROPERTIES.replace(".properties", ".json"));
+        REGRESSION_TOLERANCE = Double.parseDouble(props.getProperty("regression.tolerance", "0.10"));
+        REGRESSION_UPDATE_BASELINE = Boolean.parseBoolean(props.getProperty("regression.updateBaseline", "false"));
+        MONITOR_ENABLED = Boolean.parseBoolean(props.getProperty("monitor.enabled", "true"));
+        MONITOR_ACTUATOR_URL = props.getProperty("monitor.actuatorUrl", BASE_URL.replaceFirst("/api/?$", "") + "/actuator");
+        MONITOR_GROWTH = Double.parseDouble(props.getProperty("monitor.growthThreshold", "0.2"));
+
+        connectionPool = new ConnectionPool(props);
+        // Warm-up reads the server's JIT time through the sampler even when interval sampling is off
+        try {
+            serverSampler = new ServerSampler(MONITOR_ACTUATOR_URL);
+        } catch (IOException e) {
+            System.out.println("Server sampling and warm-up JIT check off: " + e.getMessage());
+        }
+        intervals = new IntervalReporter(Path.of(REPORT_DIR), REPORT_INTERVAL_MS, REPORT_CONSOLE,
+                MONITOR_ENABLED ? serverSampler : null);
 
         RestAssured.baseURI = BASE_URL;
-        quoteJsonTemplate = readResourceFile("quote.json");
-        tradeJsonTemplate = readResourceFile("trade.json");
+        // The booking scenarios trade EUR/USD only; the workload mix fills in skewed pairs itself
+        quotePayloads = new PayloadFactory(readResourceFile("quote.json").replace("${pair}", "EUR/USD"));
+        tradePayloads = new PayloadFactory(readResourceFile("trade.json").replace("${pair}", "EUR/USD"));
+        workloadMix = WorkloadMix.fromClasspath(props.getProperty("mix.workload", "workload.properties"));
+        quotesUri = URI.create(BASE_URL + "/quotes");
+        tradesUri = URI.create(BASE_URL + "/trades");
+        rfqUri = URI.create(BASE_URL + "/quotes/rfq");
+        seedDataset();
+    }
+
+    @AfterAll
+    void closeConnectionPool() {
+        if (connectionPool != null) {
+            connectionPool.close();
+        }
+        if (intervals != null) {
+            intervals.close();
+        }
+        if (serverSampler != null) {
+            try {
+                serverSampler.close();
+            } catch (IOException e) {
+                // Nothing left to sample
+            }
+        }
+    }
+
+    /**
+     * Fills the database with seed.quotes quotes and seed.trades trades through the admin dataset endpoint,
+     * so the scenarios run against realistic table sizes instead of a near-empty database.
+     */
+    private void seedDataset() {
+        if (SEED_QUOTES <= 0) {
+            return;
+        }
+        int status;
+        long millis;
+        try (CloseableHttpClient client = HttpClients.createDefault()) {
+            long start = System.nanoTime();
+            status = doPost(client, BASE_URL + "/admin/dataset?quotes=" + SEED_QUOTES + "&trades=" + SEED_TRADES, "");
+            millis = (System.nanoTime() - start) / 1_000_000;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Scenarios against a half-seeded or empty database would measure the wrong thing
+        if (status < 200 || status >= 300) {
+            throw new IllegalStateException(status == 0
+                    ? "Seeding the dataset failed: no response from " + BASE_URL
+                    : "Seeding the dataset failed with HTTP " + status);
+        }
+        System.out.printf("Seeded %,d quotes and %,d trades in %,d ms%n", SEED_QUOTES, SEED_TRADES, millis);
     }
 
     /**
@@ -126,17 +332,21 @@ public class LoadTest {
         double durationSeconds;
         double rps;
         double avgLatency;
-        long p90Latency;
-        long p95Latency;
-        long p99Latency;
-        long p999Latency;
-        long p9999Latency;
+        double p90Latency;
+        double p95Latency;
+        double p99Latency;
+        double p999Latency;
+        double p9999Latency;
         int concurrency;
         int errorCount;
         double errorRate;
+        double generatorCpu;
+        List<OperationRecorder.OperationResult> operations = List.of();
+        Histogram latencies;
+        List<IntervalReporter.Interval> intervals = List.of();
 
         TestResult(String name, int totalRequests, double durationSeconds, double rps, double avgLatency,
-                   long p90Latency, long p95Latency, long p99Latency, long p999Latency, long p9999Latency,
+                   double p90Latency, double p95Latency, double p99Latency, double p999Latency, double p9999Latency,
                    int concurrency, int errorCount, double errorRate) {
             this.name = name;
             this.totalRequests = totalRequests;
@@ -152,10 +362,79 @@ public class LoadTest {
             this.errorCount = errorCount;
             this.errorRate = errorRate;
         }
+
+        /**
+         * Builds a result from the merged latency histogram of a scenario (values in microseconds).
+         */
+        static TestResult of(String name, int totalRequests, double durationSeconds, Histogram latencies,
+                             int concurrency, int errorCount, double generatorCpu, OperationRecorder operations) {
+            double rps = totalRequests / durationSeconds;
+            double errorRate = totalRequests == 0 ? 0 : ((double) errorCount / totalRequests);
+            TestResult result = new TestResult(name, totalRequests, durationSeconds, rps, latencies.getMean() / 1000.0,
+                    percentileMs(latencies, 90), percentileMs(latencies, 95), percentileMs(latencies, 99),
+                    percentileMs(latencies, 99.9), percentileMs(latencies, 99.99), concurrency, errorCount, errorRate);
+            result.generatorCpu = generatorCpu;
+            result.operations = operations.results();
+            result.latencies = latencies;
+            result.intervals = operations.intervals();
+            return result;
+        }
+
+        private static double percentileMs(Histogram latencies, double percentile) {
+            return latencies.getTotalCount() == 0 ? 0 : latencies.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+
+    /**
+     * Corrected and uncorrected latencies of an open-loop scenario, reported side by side.
+     */
+    private record OpenLoopResult(String name, double targetRate, double achievedRate, Histogram corrected,
+                                  Histogram uncorrected, long lateStarts) {
+    }
+
+    /**
+     * Connection lease waits and connection setups of one scenario on the shared {@link ConnectionPool}.
+     */
+    private record PoolUsage(String name, ConnectionPool.Usage usage) {
+    }
+
+    /**
+     * One rate tried by the capacity search, with whether it met the SLA.
+     */
+    private record CapacityStep(double targetRate, OpenLoopResult detail, TestResult result, boolean sustainable) {
+    }
+
+    /**
+     * How a scenario's warm-up ended: after how long, and with the last window's percentiles, the rolling
+     * variation (coefficient of variation of the window p50s and p99s) and the JIT time of the recent windows.
+     */
+    private record WarmUpResult(String name, double seconds, long flows, String outcome, double p50, double p99,
+                                double p50Variation, double p99Variation, long jitMillis) {
+    }
+
+    /**
+     * Operations and read/write ratio of a mixed-workload scenario, against the ratio its weights call for.
+     */
+    private record MixResult(String name, int operations, int skipped, int gone, int requests, int reads,
+                             double expectedReadShare) {
+    }
+
+    /**
+     * Clock offsets and per-worker figures of a distributed scenario.
+     */
+    private record DistributedRun(String name, List<LoadCoordinator.WorkerResult> workers) {
     }
 
     // Stores all test scenario results for summary reporting
     private final List<TestResult> allResults = new ArrayList<>();
+    private final List<OpenLoopResult> openLoopResults = new ArrayList<>();
+    private final List<PoolUsage> poolUsages = new ArrayList<>();
+    private final List<CapacityStep> capacitySteps = new ArrayList<>();
+    private final List<WarmUpResult> warmUps = new ArrayList<>();
+    private final List<MixResult> mixResults = new ArrayList<>();
+    private final List<DistributedRun> distributedRuns = new ArrayList<>();
+    private double capacityMaxRate;
+    private boolean capacityLimitReached;
 
     /**
      * Runs all load test scenarios and prints a summary.
@@ -165,23 +444,156 @@ public class LoadTest {
      * - Load: Typical expected load
      * - Spike: Sudden high concurrency
      * - Soak: Sustained load over time
+     * - Open Loop: Constant arrival rate, independent of response times (coordinated-omission corrected)
      * - Stress: Very high concurrency to find breaking point
+     * - Capacity: Open-loop steps of rising rate, then a binary search, for the highest rate that meets the SLA
+     * - Many Users: Thousands of simulated users with think time, one virtual thread each
+     * - Async: Many requests in flight over a few multiplexed connections from one non-blocking client
+     * - Mixed Workload: Users running a weighted mix of reads, searches, RFQs, bookings and amendments
+     * - Distributed: Booking flows from several worker JVMs started together, merged into one result (optional)
+     * - Bulkhead: Booking latency alone, then again while RFQ traffic saturates its pool
      */
     @Test
     void allLoadTestScenariosSummary() throws InterruptedException {
+        warmUp("Baseline Test", "baseline", BASELINE_THREADS);
         TestResult baselineResult = runLoadTest("Baseline Test", BASELINE_THREADS, BASELINE_REQUESTS_PER_THREAD);
+        warmUp("Load Test", "load", THREADS);
         TestResult loadResult = runLoadTest("Load Test", THREADS, REQUESTS_PER_THREAD);
+        warmUp("Spike Test", "spike", SPIKE_THREADS);
         TestResult spikeResult = runLoadTest("Spike Test", SPIKE_THREADS, SPIKE_REQUESTS_PER_THREAD);
+        warmUp("Soak Test", "soak", SOAK_THREADS);
         TestResult soakResult = runSoakTest("Soak Test", SOAK_THREADS, SOAK_REQUESTS_PER_THREAD, SOAK_DURATION_SECONDS);
+        warmUp("Open Loop", "openLoop", OPEN_LOOP_THREADS);
+        TestResult openLoopResult = runOpenLoopTest("Open Loop", OPEN_LOOP_RATE, OPEN_LOOP_DURATION_SECONDS, OPEN_LOOP_THREADS);
+        warmUp("Stress Test", "stress", STRESS_THREADS);
         TestResult stressResult = runLoadTest("Stress Test", STRESS_THREADS, STRESS_REQUESTS_PER_THREAD);
+        warmUp("Capacity", "capacity", THREADS);
+        TestResult capacityResult = runCapacitySearch("Capacity");
+        warmUp("Many Users", "manyUsers", THREADS);
+        TestResult manyUsersResult = runLoadTest("Many Users", MANY_USERS, MANY_USERS_REQUESTS_PER_USER, true,
+                MANY_USERS_THINK_TIME_MS);
+        warmUp("Async", "async", THREADS);
+        TestResult asyncResult = runAsyncLoadTest("Async " + ASYNC_PROTOCOL, ASYNC_FLOWS, ASYNC_PROTOCOL,
+                ASYNC_CONNECTIONS, ASYNC_MAX_IN_FLIGHT_PER_CONNECTION, ASYNC_IO_THREADS);
+        warmUp("Mixed Workload", "mix", THREADS);
+        TestResult mixResult = runMixedWorkload("Mixed Workload", MIX_USERS, MIX_DURATION_SECONDS);
+        TestResult distributedResult = null;
+        if (DISTRIBUTED_LOCAL_WORKERS > 0 || !DISTRIBUTED_HOSTS.isEmpty()) {
+            warmUp("Distributed", "distributed", THREADS);
+            distributedResult = runDistributedTest("Distributed");
+        }
+        warmUp("Booking", "bulkhead", BULKHEAD_BOOKING_THREADS);
+        TestResult bookingAloneResult = runBulkheadTest("Booking Alone", 0, BULKHEAD_BOOKING_THREADS, BULKHEAD_REQUESTS_PER_THREAD);
+        TestResult bookingWithRfqResult = runBulkheadTest("Booking w/ RFQ", BULKHEAD_RFQ_THREADS, BULKHEAD_BOOKING_THREADS, BULKHEAD_REQUESTS_PER_THREAD);
 
         allResults.add(baselineResult);
         allResults.add(loadResult);
         allResults.add(spikeResult);
         allResults.add(soakResult);
+        allResults.add(openLoopResult);
         allResults.add(stressResult);
+        allResults.add(capacityResult);
+        allResults.add(manyUsersResult);
+        allResults.add(asyncResult);
+        allResults.add(mixResult);
+        if (distributedResult != null) {
+            allResults.add(distributedResult);
+        }
+        allResults.add(bookingAloneResult);
+        allResults.add(bookingWithRfqResult);
 
         printSummary();
+        exportResults();
+        checkRegressions();
+    }
+
+    /**
+     * Drives booking flows that are not recorded until the system reaches steady state, so class loading, JIT
+     * compilation and connection setup do not end up in the scenario's results.
+     *
+     * Every warmup.windowMillis the latencies of the past window and the server's JIT compilation time
+     * ({@code jvm.compilation.time} from its Actuator) are handed to a {@link SteadyStateDetector}. Without a
+     * reachable Actuator the JIT is not judged. Warm-up ends as soon as it reports steady state, when
+     * {@code <key>.warmup.maxSeconds} (default warmup.maxSeconds, 0 skips warm-up) have passed, or when a whole
+     * window failed because the server does not respond. Only successful requests count towards the windows.
+     *
+     * @param scenario Name of the scenario about to be measured
+     * @param key Property prefix of the scenario, for its own warmup.maxSeconds
+     * @param threads Concurrent warm-up flows
+     */
+    private void warmUp(String scenario, String key, int threads) throws InterruptedException {
+        int maxSeconds = Integer.parseInt(properties.getProperty(key + ".warmup.maxSeconds", String.valueOf(WARMUP_MAX_SECONDS)));
+        if (maxSeconds <= 0) {
+            return;
+        }
+        ExecutorService executor = newUserExecutor(threads, VIRTUAL_THREADS);
+        Recorder window = new Recorder(LatencyRecorder.HIGHEST_TRACKABLE_MICROS, 3);
+        AtomicBoolean stop = new AtomicBoolean(false);
+        AtomicLong flows = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                CloseableHttpClient client = connectionPool.client();
+                PayloadFactory.Payload quote = quotePayloads.acquire();
+                PayloadFactory.Payload trade = tradePayloads.acquire();
+                while (!stop.get()) {
+                    long quoteId = ThreadLocalRandom.current().nextLong(PayloadFactory.ID_LIMIT);
+                    quote.quoteId(quoteId);
+                    trade.tradeId(ThreadLocalRandom.current().nextLong(PayloadFactory.ID_LIMIT)).quoteId(quoteId);
+                    warmUpRequest(client, quotesUri, quote, window, errors);
+                    warmUpRequest(client, tradesUri, trade, window, errors);
+                    flows.incrementAndGet();
+                }
+            });
+        }
+
+        SteadyStateDetector detector = new SteadyStateDetector(WARMUP_WINDOWS, WARMUP_MIN_REQUESTS, WARMUP_MAX_VARIATION,
+                WARMUP_MAX_JIT_MILLIS);
+        Double jitMillis = serverSampler == null ? null : serverSampler.compilationMillis();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(maxSeconds);
+        String outcome = "not steady";
+        Histogram last = null;
+        while (System.nanoTime() < deadline) {
+            long errorsBefore = errors.get();
+            Thread.sleep(WARMUP_WINDOW_MILLIS);
+            last = window.getIntervalHistogram();
+            Double jitNow = jitMillis == null ? null : serverSampler.compilationMillis();
+            // A window whose reading failed is judged on its latencies alone
+            boolean steady = detector.add(last, jitNow == null ? 0 : Math.round(jitNow - jitMillis));
+            if (jitNow != null) {
+                jitMillis = jitNow;
+            }
+            if (steady) {
+                outcome = "steady";
+                break;
+            }
+            if (last.getTotalCount() == 0 && errors.get() > errorsBefore) {
+                outcome = "server not responding";
+                break;
+            }
+        }
+        stop.set(true);
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        WarmUpResult result = new WarmUpResult(scenario, (System.nanoTime() - start) / 1_000_000_000.0, flows.get(),
+                outcome, last == null ? 0 : TestResult.percentileMs(last, 50), last == null ? 0 : TestResult.percentileMs(last, 99),
+                detector.variation(0), detector.variation(1), detector.recentJitMillis());
+        warmUps.add(result);
+        System.out.printf("Warm-up %s: %s after %.1f s and %d flows (last window p50 %.2f ms, p99 %.2f ms)%n",
+                scenario, outcome, result.seconds(), result.flows(), result.p50(), result.p99());
+    }
+
+    private void warmUpRequest(CloseableHttpClient client, URI uri, PayloadFactory.Payload payload, Recorder window,
+                               AtomicLong errors) {
+        long start = System.nanoTime();
+        int status = doPost(client, uri, payload.entity());
+        if (status >= 200 && status < 300) {
+            window.recordValue(Math.min((System.nanoTime() - start) / 1_000, LatencyRecorder.HIGHEST_TRACKABLE_MICROS));
+        } else {
+            errors.incrementAndGet();
+        }
     }
 
     /**
@@ -194,38 +606,56 @@ public class LoadTest {
      * @return TestResult with all metrics
      */
     private TestResult runLoadTest(String testName, int threads, int requestsPerThread) throws InterruptedException {
-        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        return runLoadTest(testName, threads, requestsPerThread, VIRTUAL_THREADS, 0);
+    }
+
+    /**
+     * Runs a load test scenario, optionally on one virtual thread per simulated user and with a pause between
+     * a user's booking flows.
+     *
+     * @param virtualThreads Whether each user runs on a virtual thread instead of a platform thread
+     * @param thinkTimeMs Pause after each quote + trade flow (0 for none)
+     */
+    private TestResult runLoadTest(String testName, int threads, int requestsPerThread, boolean virtualThreads,
+                                   long thinkTimeMs) throws InterruptedException {
+        ExecutorService executor = newUserExecutor(threads, virtualThreads);
         List<Future<?>> futures = new ArrayList<>();
-        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        IntervalReporter.Series series = intervals.start(testName);
+        OperationRecorder operations = new OperationRecorder(series);
         AtomicInteger errorCount = new AtomicInteger(0);
         int totalRequests = threads * requestsPerThread * 2; // 2 requests per loop (quote + trade)
 
+        connectionPool.startInterval();
         long testStart = System.nanoTime();
+        long cpuStart = processCpuNanos();
 
         for (int i = 0; i < threads; i++) {
             futures.add(executor.submit(() -> {
-                try (CloseableHttpClient client = HttpClients.createDefault()) {
+                CloseableHttpClient client = connectionPool.client();
+                PayloadFactory.Payload quote = quotePayloads.acquire();
+                PayloadFactory.Payload trade = tradePayloads.acquire();
+                try {
                     for (int j = 0; j < requestsPerThread; j++) {
-                        String quoteId = "Q" + ThreadLocalRandom.current().nextInt(100000, 999999);
-                        String tradeId = "T" + ThreadLocalRandom.current().nextInt(100000, 999999);
+                        long quoteId = ThreadLocalRandom.current().nextLong(PayloadFactory.ID_LIMIT);
+                        quote.quoteId(quoteId);
+                        trade.tradeId(ThreadLocalRandom.current().nextLong(PayloadFactory.ID_LIMIT)).quoteId(quoteId);
 
                         // Send quote request
-                        String quoteJson = quoteJsonTemplate.replace("${quoteId}", quoteId);
                         long start = System.nanoTime();
-                        int status1 = doPost(client, BASE_URL + "/quotes", quoteJson);
+                        int status1 = doPost(client, quotesUri, quote.entity());
                         long end = System.nanoTime();
-                        latencies.add((end - start) / 1_000_000); // ms
+                        operations.record(OperationRecorder.CREATE_QUOTE, status1, start, end);
                         if (status1 < 200 || status1 >= 300) errorCount.incrementAndGet();
 
                         // Send trade request referencing the quote
-                        String tradeJson = tradeJsonTemplate
-                                .replace("${tradeId}", tradeId)
-                                .replace("${quoteId}", quoteId);
                         start = System.nanoTime();
-                        int status2 = doPost(client, BASE_URL + "/trades", tradeJson);
+                        int status2 = doPost(client, tradesUri, trade.entity());
                         end = System.nanoTime();
-                        latencies.add((end - start) / 1_000_000); // ms
+                        operations.record(OperationRecorder.CREATE_TRADE, status2, start, end);
                         if (status2 < 200 || status2 >= 300) errorCount.incrementAndGet();
+                        if (thinkTimeMs > 0) {
+                            Thread.sleep(thinkTimeMs);
+                        }
                     }
                 } catch (Exception e) {
                     errorCount.incrementAndGet();
@@ -247,23 +677,12 @@ public class LoadTest {
         Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
 
         long testEnd = System.nanoTime();
+        series.close();
         double durationSeconds = (testEnd - testStart) / 1_000_000_000.0;
-        double rps = totalRequests / durationSeconds;
-
-        // Calculate latency percentiles and error rate
-        List<Long> sortedLatencies = new ArrayList<>(latencies);
-        Collections.sort(sortedLatencies);
-        double avg = sortedLatencies.stream().mapToLong(l -> l).average().orElse(0);
-        long p90 = getPercentile(sortedLatencies, 0.90);
-        long p95 = getPercentile(sortedLatencies, 0.95);
-        long p99 = getPercentile(sortedLatencies, 0.99);
-        long p999 = getPercentile(sortedLatencies, 0.999);
-        long p9999 = getPercentile(sortedLatencies, 0.9999);
 
-        double errorRate = totalRequests == 0 ? 0 : ((double) errorCount.get() / totalRequests);
-
-        return new TestResult(testName, totalRequests, durationSeconds, rps, avg, p90, p95, p99, p999, p9999,
-                threads, errorCount.get(), errorRate);
+        poolUsages.add(new PoolUsage(testName, connectionPool.usage()));
+        return TestResult.of(testName, totalRequests, durationSeconds, operations.merged(), threads, errorCount.get(),
+                generatorCpu(cpuStart, testStart), operations);
     }
 
     /**
@@ -276,39 +695,42 @@ public class LoadTest {
      * @return TestResult with all metrics
      */
     private TestResult runSoakTest(String testName, int threads, int requestsPerThread, int durationSeconds) throws InterruptedException {
-        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ExecutorService executor = newUserExecutor(threads, VIRTUAL_THREADS);
         List<Future<?>> futures = new ArrayList<>();
-        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        IntervalReporter.Series series = intervals.start(testName);
+        OperationRecorder operations = new OperationRecorder(series);
         AtomicInteger errorCount = new AtomicInteger(0);
         int totalRequests = 0;
+        connectionPool.startInterval();
         long testStart = System.nanoTime();
+        long cpuStart = processCpuNanos();
         long endTime = System.currentTimeMillis() + durationSeconds * 1000L;
 
         for (int i = 0; i < threads; i++) {
             futures.add(executor.submit(() -> {
                 int localCount = 0;
-                try (CloseableHttpClient client = HttpClients.createDefault()) {
+                CloseableHttpClient client = connectionPool.client();
+                PayloadFactory.Payload quote = quotePayloads.acquire();
+                PayloadFactory.Payload trade = tradePayloads.acquire();
+                try {
                     while (System.currentTimeMillis() < endTime) {
                         for (int j = 0; j < requestsPerThread; j++) {
-                            String quoteId = "Q" + ThreadLocalRandom.current().nextInt(100000, 999999);
-                            String tradeId = "T" + ThreadLocalRandom.current().nextInt(100000, 999999);
+                            long quoteId = ThreadLocalRandom.current().nextLong(PayloadFactory.ID_LIMIT);
+                            quote.quoteId(quoteId);
+                            trade.tradeId(ThreadLocalRandom.current().nextLong(PayloadFactory.ID_LIMIT)).quoteId(quoteId);
 
                             // Send quote request
-                            String quoteJson = quoteJsonTemplate.replace("${quoteId}", quoteId);
                             long start = System.nanoTime();
-                            int status1 = doPost(client, BASE_URL + "/quotes", quoteJson);
+                            int status1 = doPost(client, quotesUri, quote.entity());
                             long end = System.nanoTime();
-                            latencies.add((end - start) / 1_000_000); // ms
+                            operations.record(OperationRecorder.CREATE_QUOTE, status1, start, end);
                             if (status1 < 200 || status1 >= 300) errorCount.incrementAndGet();
 
                             // Send trade request referencing the quote
-                            String tradeJson = tradeJsonTemplate
-                                    .replace("${tradeId}", tradeId)
-                                    .replace("${quoteId}", quoteId);
                             start = System.nanoTime();
-                            int status2 = doPost(client, BASE_URL + "/trades", tradeJson);
+                            int status2 = doPost(client, tradesUri, trade.entity());
                             end = System.nanoTime();
-                            latencies.add((end - start) / 1_000_000); // ms
+                            operations.record(OperationRecorder.CREATE_TRADE, status2, start, end);
                             if (status2 < 200 || status2 >= 300) errorCount.incrementAndGet();
                             localCount += 2;
                         }
@@ -335,37 +757,469 @@ public class LoadTest {
         Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
 
         long testEnd = System.nanoTime();
+        series.close();
         double actualDurationSeconds = (testEnd - testStart) / 1_000_000_000.0;
-        double rps = totalRequestsSoak / actualDurationSeconds;
 
-        // Calculate latency percentiles and error rate
-        List<Long> sortedLatencies = new ArrayList<>(latencies);
-        Collections.sort(sortedLatencies);
-        double avg = sortedLatencies.stream().mapToLong(l -> l).average().orElse(0);
-        long p90 = getPercentile(sortedLatencies, 0.90);
-        long p95 = getPercentile(sortedLatencies, 0.95);
-        long p99 = getPercentile(sortedLatencies, 0.99);
-        long p999 = getPercentile(sortedLatencies, 0.999);
-        long p9999 = getPercentile(sortedLatencies, 0.9999);
+        poolUsages.add(new PoolUsage(testName, connectionPool.usage()));
+        return TestResult.of(testName, totalRequestsSoak, actualDurationSeconds, operations.merged(), threads, errorCount.get(),
+                generatorCpu(cpuStart, testStart), operations);
+    }
+
+    /**
+     * Runs an open-loop scenario: booking flows (a quote, then a trade referencing it) start at a constant
+     * arrival rate, whatever the response times. Flow i is due at {@code start + i / rate}; a pool of worker
+     * threads claims the flows in order and sends each one at its due time, or as soon as a worker is free
+     * when the server has fallen behind.
+     *
+     * Latency is measured from the due time (corrected for coordinated omission: a stall delays every flow
+     * queued behind it, and those delays are counted) and, for comparison, from the moment the flow was
+     * actually sent (uncorrected, what a closed-loop client would report). The returned result carries the
+     * corrected figures; both sets are printed side by side in the summary.
+     *
+     * @param testName Name of the scenario
+     * @param rate Target arrival rate in booking flows per second (two requests each)
+     * @param durationSeconds How long new flows keep arriving
+     * @param threads Maximum flows in flight; when all workers are busy, flows start late
+     * @return TestResult with corrected latencies of whole flows
+     */
+    private TestResult runOpenLoopTest(String testName, double rate, int durationSeconds, int threads) throws InterruptedException {
+        OpenLoopRun run = runOpenLoop(testName, rate, durationSeconds, threads);
+        openLoopResults.add(run.detail());
+        poolUsages.add(new PoolUsage(testName, connectionPool.usage()));
+        return run.result();
+    }
+
+    /**
+     * Outcome of one open-loop run: the summary row and the corrected/uncorrected detail.
+     */
+    private record OpenLoopRun(TestResult result, OpenLoopResult detail) {
+    }
+
+    private OpenLoopRun runOpenLoop(String testName, double rate, int durationSeconds, int threads) throws InterruptedException {
+        ExecutorService executor = newUserExecutor(threads, VIRTUAL_THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        LatencyRecorder corrected = new LatencyRecorder();
+        LatencyRecorder uncorrected = new LatencyRecorder();
+        IntervalReporter.Series series = intervals.start(testName);
+        OperationRecorder operations = new OperationRecorder(series);
+        AtomicLong nextFlow = new AtomicLong();
+        AtomicLong lateStarts = new AtomicLong();
+        AtomicInteger errorCount = new AtomicInteger(0);
+        AtomicInteger flows = new AtomicInteger(0);
+        long intervalNanos = (long) (1_000_000_000L / rate);
+        long durationNanos = durationSeconds * 1_000_000_000L;
+
+        connectionPool.startInterval();
+        long testStart = System.nanoTime();
+        long cpuStart = processCpuNanos();
+
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                Histogram correctedHistogram = corrected.threadHistogram();
+                Histogram uncorrectedHistogram = uncorrected.threadHistogram();
+                CloseableHttpClient client = connectionPool.client();
+                PayloadFactory.Payload quote = quotePayloads.acquire();
+                PayloadFactory.Payload trade = tradePayloads.acquire();
+                try {
+                    long flow;
+                    while ((flow = nextFlow.getAndIncrement()) * intervalNanos < durationNanos) {
+                        long due = testStart + flow * intervalNanos;
+                        long now;
+                        while ((now = System.nanoTime()) < due) {
+                            LockSupport.parkNanos(due - now);
+                        }
+                        if (now - due > intervalNanos) {
+                            lateStarts.incrementAndGet();
+                        }
+                        long quoteId = ThreadLocalRandom.current().nextLong(PayloadFactory.ID_LIMIT);
+                        quote.quoteId(quoteId);
+                        trade.tradeId(ThreadLocalRandom.current().nextLong(PayloadFactory.ID_LIMIT)).quoteId(quoteId);
+
+                        int status1 = doPost(client, quotesUri, quote.entity());
+                        long quoteEnd = System.nanoTime();
+                        operations.record(OperationRecorder.CREATE_QUOTE, status1, now, quoteEnd);
+                        if (status1 < 200 || status1 >= 300) errorCount.incrementAndGet();
+                        int status2 = doPost(client, tradesUri, trade.entity());
+                        long end = System.nanoTime();
+                        operations.record(OperationRecorder.CREATE_TRADE, status2, quoteEnd, end);
+                        if (status2 < 200 || status2 >= 300) errorCount.incrementAndGet();
+
+                        LatencyRecorder.record(correctedHistogram, due, end);
+                        LatencyRecorder.record(uncorrectedHistogram, now, end);
+                        flows.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    errorCount.incrementAndGet();
+                }
+            }));
+        }
+
+        for (Future<?> f : futures) {
+            try {
+                f.get(durationSeconds + 300, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                errorCount.incrementAndGet();
+                Assertions.fail(testName + " thread failed: " + e.getMessage());
+            }
+        }
+
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        long testEnd = System.nanoTime();
+        series.close();
+        double durationSecondsActual = (testEnd - testStart) / 1_000_000_000.0;
+        Histogram correctedLatencies = corrected.merged();
+        OpenLoopResult detail = new OpenLoopResult(testName, rate, flows.get() / durationSecondsActual, correctedLatencies,
+                uncorrected.merged(), lateStarts.get());
+
+        return new OpenLoopRun(TestResult.of(testName, flows.get() * 2, durationSecondsActual, correctedLatencies, threads,
+                errorCount.get(), generatorCpu(cpuStart, testStart), operations), detail);
+    }
+
+    /**
+     * Finds the highest open-loop arrival rate that still meets the SLA (the knee of the latency-vs-load curve).
+     *
+     * The rate starts at capacity.startRate and is multiplied by capacity.stepFactor after every step that meets
+     * the SLA, up to capacity.maxRate. Once a step fails, capacity.searchSteps rounds of binary search narrow the
+     * gap between the last passing and the first failing rate. Each step is a {@link #runOpenLoop} run of
+     * capacity.stepSeconds, so latencies are corrected for coordinated omission. A step meets the SLA when
+     * - the error rate is at most sla.maxErrorRate,
+     * - the corrected p95 of a whole booking flow (two requests) is at most capacity.p95LatencyMs, and
+     * - the achieved rate is at least 95% of the target (otherwise the server, or the generator, fell behind).
+     *
+     * @return TestResult of the highest passing step, or of the first step when none passed
+     */
+    private TestResult runCapacitySearch(String testName) throws InterruptedException {
+        CapacityStep best = null;
+        double passRate = 0;
+        double failRate = Double.NaN;
+        for (double rate = CAPACITY_START_RATE; rate <= CAPACITY_MAX_RATE; rate *= CAPACITY_STEP_FACTOR) {
+            CapacityStep step = runCapacityStep(testName, rate);
+            if (!step.sustainable()) {
+                failRate = rate;
+                break;
+            }
+            best = step;
+            passRate = rate;
+        }
+        for (int i = 0; i < CAPACITY_SEARCH_STEPS && !Double.isNaN(failRate); i++) {
+            double rate = (passRate + failRate) / 2;
+            CapacityStep step = runCapacityStep(testName, rate);
+            if (step.sustainable()) {
+                best = step;
+                passRate = rate;
+            } else {
+                failRate = rate;
+            }
+        }
+        capacityMaxRate = passRate;
+        capacityLimitReached = !Double.isNaN(failRate);
+        return best != null ? best.result() : capacitySteps.get(0).result();
+    }
+
+    private CapacityStep runCapacityStep(String testName, double rate) throws InterruptedException {
+        OpenLoopRun run = runOpenLoop(testName, rate, CAPACITY_STEP_SECONDS, CAPACITY_THREADS);
+        TestResult result = run.result();
+        double p95 = TestResult.percentileMs(run.detail().corrected(), 95);
+        boolean sustainable = result.errorRate <= SLA_MAX_ERROR_RATE && p95 <= CAPACITY_P95_LATENCY_MS
+                && run.detail().achievedRate() >= 0.95 * rate;
+        CapacityStep step = new CapacityStep(rate, run.detail(), result, sustainable);
+        capacitySteps.add(step);
+        System.out.printf("Capacity step %.1f flows/s: achieved %.1f, p95 %.1f ms, errors %.2f%% -> %s%n", rate,
+                run.detail().achievedRate(), p95, result.errorRate * 100, sustainable ? "sustainable" : "over capacity");
+        return step;
+    }
+
+    /**
+     * Runs booking flows through the non-blocking {@link AsyncLoadEngine} instead of one blocked thread per request.
+     *
+     * The calling thread only hands out flows: it takes a free stream, sends the quote and returns immediately;
+     * the trade is sent from the quote's response callback and the stream is released when the trade's response
+     * arrives. Up to connections x maxInFlightPerConnection flows (HTTP/2) or one per connection (HTTP/1.1) are
+     * outstanding at any time, and latencies are recorded on the I/O reactor threads.
+     *
+     * @param testName Name of the scenario
+     * @param totalFlows Number of quote + trade flows to send
+     * @param protocol HTTP/1.1 connection pooling or HTTP/2 multiplexing
+     * @param connections Connections to the server
+     * @param maxInFlightPerConnection Concurrent streams per HTTP/2 connection
+     * @param ioThreads I/O reactor threads per client
+     * @return TestResult with all metrics, concurrency being the maximum requests in flight
+     */
+    private TestResult runAsyncLoadTest(String testName, int totalFlows, AsyncLoadEngine.Protocol protocol, int connections,
+                                        int maxInFlightPerConnection, int ioThreads) throws InterruptedException {
+        IntervalReporter.Series series = intervals.start(testName);
+        OperationRecorder operations = new OperationRecorder(series);
+        AtomicInteger errorCount = new AtomicInteger(0);
+        CountDownLatch done = new CountDownLatch(totalFlows);
+        int concurrency;
+
+        long testStart = System.nanoTime();
+        long cpuStart = processCpuNanos();
+
+        try (AsyncLoadEngine engine = new AsyncLoadEngine(protocol, connections, maxInFlightPerConnection, ioThreads)) {
+            if (protocol == AsyncLoadEngine.Protocol.HTTP_2 && engine.probe(URI.create(BASE_URL + "/quotes/count")) == 0) {
+                Assertions.fail(testName + ": the server does not accept cleartext HTTP/2. Start it with the loadtest "
+                        + "profile (--spring.profiles.active=loadtest), or set async.protocol=HTTP_1");
+            }
+            concurrency = engine.maxInFlight();
+            for (int i = 0; i < totalFlows; i++) {
+                AsyncLoadEngine.Slot slot = engine.acquire();
+                PayloadFactory.Payload quote = quotePayloads.acquire();
+                PayloadFactory.Payload trade = tradePayloads.acquire();
+                long quoteId = ThreadLocalRandom.current().nextLong(PayloadFactory.ID_LIMIT);
+                quote.quoteId(quoteId);
+                trade.tradeId(ThreadLocalRandom.current().nextLong(PayloadFactory.ID_LIMIT)).quoteId(quoteId);
+
+                long quoteStart = System.nanoTime();
+                slot.post(quotesUri, quote.bytes(), quoteStatus -> {
+                    long tradeStart = System.nanoTime();
+                    operations.record(OperationRecorder.CREATE_QUOTE, quoteStatus, quoteStart, tradeStart);
+                    if (quoteStatus < 200 || quoteStatus >= 300) errorCount.incrementAndGet();
+                    slot.post(tradesUri, trade.bytes(), tradeStatus -> {
+                        long tradeEnd = System.nanoTime();
+                        operations.record(OperationRecorder.CREATE_TRADE, tradeStatus, tradeStart, tradeEnd);
+                        if (tradeStatus < 200 || tradeStatus >= 300) errorCount.incrementAndGet();
+                        slot.release();
+                        quotePayloads.release(quote);
+                        tradePayloads.release(trade);
+                        done.countDown();
+                    });
+                });
+            }
+            Assertions.assertTrue(done.await(5, TimeUnit.MINUTES), testName + " did not finish");
+        }
+
+        long testEnd = System.nanoTime();
+        series.close();
+        double durationSeconds = (testEnd - testStart) / 1_000_000_000.0;
+        return TestResult.of(testName, totalFlows * 2, durationSeconds, operations.merged(), concurrency, errorCount.get(),
+                generatorCpu(cpuStart, testStart), operations);
+    }
+
+    /**
+     * Runs the weighted workload mix: each user draws operations from {@link #workloadMix}, sends their steps one after
+     * another and thinks between operations, until the duration is over. Every request is recorded, and a failed step
+     * ends its operation since later steps depend on its response.
+     *
+     * @param testName Name of the scenario
+     * @param users Number of concurrent users
+     * @param durationSeconds How long users keep starting operations
+     * @return TestResult over all requests of the mix
+     */
+    private TestResult runMixedWorkload(String testName, int users, int durationSeconds) throws InterruptedException {
+        ExecutorService executor = newUserExecutor(users, VIRTUAL_THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        IntervalReporter.Series series = intervals.start(testName);
+        OperationRecorder operations = new OperationRecorder(series);
+        AtomicInteger errorCount = new AtomicInteger(0);
+        AtomicInteger requests = new AtomicInteger(0);
+        AtomicInteger reads = new AtomicInteger(0);
+        AtomicInteger completed = new AtomicInteger(0);
+        AtomicInteger skipped = new AtomicInteger(0);
+        AtomicInteger gone = new AtomicInteger(0);
+        connectionPool.startInterval();
+        long testStart = System.nanoTime();
+        long cpuStart = processCpuNanos();
+        long endTime = System.currentTimeMillis() + durationSeconds * 1000L;
+
+        for (int i = 0; i < users; i++) {
+            futures.add(executor.submit(() -> {
+                CloseableHttpClient client = connectionPool.client();
+                WorkloadMix.Session session = workloadMix.newSession();
+                Random random = ThreadLocalRandom.current();
+                try {
+                    while (System.currentTimeMillis() < endTime) {
+                        WorkloadMix.Operation operation = workloadMix.nextOperation(random);
+                        session.begin(random);
+                        boolean sent = false;
+                        for (WorkloadMix.Step step : operation.steps()) {
+                            String path = session.path(step, random);
+                            String body = path == null ? null : session.body(step, random);
+                            if (body == null) {
+                                // Refers to an entity nobody has captured yet
+                                break;
+                            }
+                            long start = System.nanoTime();
+                            int status = doMixStep(client, session, step, path, body);
+                            long end = System.nanoTime();
+                            operations.record(step.label(), status, start, end);
+                            requests.incrementAndGet();
+                            if (step.isRead()) reads.incrementAndGet();
+                            sent = true;
+                            if (session.forget(step, status)) {
+                                // Deleted or expired since it was captured; the mix drops it, not an error
+                                gone.incrementAndGet();
+                                break;
+                            }
+                            if (status < 200 || status >= 300) {
+                                errorCount.incrementAndGet();
+                                break;
+                            }
+                        }
+                        (sent ? completed : skipped).incrementAndGet();
+                        long think = Math.min(WorkloadMix.thinkTimeMs(operation, random), endTime - System.currentTimeMillis());
+                        if (think > 0) {
+                            Thread.sleep(think);
+                        }
+                    }
+                } catch (Exception e) {
+                    errorCount.incrementAndGet();
+                }
+            }));
+        }
+
+        for (Future<?> f : futures) {
+            try {
+                f.get(durationSeconds + 300, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                errorCount.incrementAndGet();
+                Assertions.fail(testName + " thread failed: " + e.getMessage());
+            }
+        }
+
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
 
-        double errorRate = totalRequestsSoak == 0 ? 0 : ((double) errorCount.get() / totalRequestsSoak);
+        long testEnd = System.nanoTime();
+        series.close();
+        double durationSecondsActual = (testEnd - testStart) / 1_000_000_000.0;
 
-        return new TestResult(testName, totalRequestsSoak, actualDurationSeconds, rps, avg, p90, p95, p99, p999, p9999,
-                threads, errorCount.get(), errorRate);
+        mixResults.add(new MixResult(testName, completed.get(), skipped.get(), gone.get(), requests.get(), reads.get(),
+                workloadMix.expectedReadShare()));
+        poolUsages.add(new PoolUsage(testName, connectionPool.usage()));
+        return TestResult.of(testName, requests.get(), durationSecondsActual, operations.merged(), users, errorCount.get(),
+                generatorCpu(cpuStart, testStart), operations);
     }
 
     /**
-     * Utility to get the Nth percentile from a sorted list of latencies.
+     * Runs closed-loop booking flows on several load generator JVMs at once through a {@link LoadCoordinator}: the
+     * workers at distributed.hosts, or else distributed.localWorkers JVMs launched on this host. All workers start at
+     * the same time, after their own warm-up, and their histograms and counters are merged.
      *
-     * @param sortedLatencies List of latencies (must be sorted)
-     * @param percentile e.g. 0.95 for 95th percentile
-     * @return latency value at the given percentile
+     * @param testName Name of the scenario
+     * @return TestResult over all workers; Gen CPU% is that of the busiest worker
+     */
+    private TestResult runDistributedTest(String testName) {
+        try (LoadCoordinator coordinator = DISTRIBUTED_HOSTS.isEmpty()
+                ? LoadCoordinator.launchLocal(DISTRIBUTED_LOCAL_WORKERS, PROPERTIES)
+                : LoadCoordinator.connect(DISTRIBUTED_HOSTS, workerToken())) {
+            LoadCoordinator.Result result = coordinator.run(DISTRIBUTED_THREADS_PER_WORKER, DISTRIBUTED_REQUESTS_PER_THREAD,
+                    DISTRIBUTED_WARMUP_FLOWS_PER_THREAD, BASE_URL, DISTRIBUTED_START_DELAY_MS,
+                    DISTRIBUTED_MAX_CLOCK_OFFSET_MS);
+            distributedRuns.add(new DistributedRun(testName, result.workers()));
+            return TestResult.of(testName, result.requests(), result.seconds(), result.latencies(),
+                    coordinator.size() * DISTRIBUTED_THREADS_PER_WORKER, result.errors(), result.maxWorkerCpu(),
+                    result.operations());
+        } catch (IOException e) {
+            return Assertions.fail(testName + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    // The remote workers' shared token, from the same environment variable they were started with
+    private static String workerToken() {
+        String token = System.getenv(LoadWorker.TOKEN_ENV);
+        if (token == null || token.isBlank()) {
+            throw new IllegalStateException("distributed.hosts is set but " + LoadWorker.TOKEN_ENV
+                    + " is not; set it to the token the workers were started with");
+        }
+        return token;
+    }
+
+    /**
+     * Runs a mixed-load scenario that measures only trade booking latency while background threads keep
+     * the RFQ endpoint saturated. With bulkheads in place, booking latency should match the
+     * {@code rfqThreads = 0} run. Each booking iteration creates its quote first (not measured) so the
+     * trade passes quoteId validation.
+     *
+     * @param testName Name of the scenario
+     * @param rfqThreads Number of background threads continuously sending RFQs (0 for booking alone)
+     * @param bookingThreads Number of concurrent booking threads
+     * @param requestsPerThread Number of trades booked per booking thread
+     * @return TestResult with booking metrics only
      */
-    private long getPercentile(List<Long> sortedLatencies, double percentile) {
-        if (sortedLatencies.isEmpty()) return 0;
-        int index = (int) Math.ceil(percentile * sortedLatencies.size()) - 1;
-        index = Math.min(Math.max(index, 0), sortedLatencies.size() - 1);
-        return sortedLatencies.get(index);
+    private TestResult runBulkheadTest(String testName, int rfqThreads, int bookingThreads, int requestsPerThread) throws InterruptedException {
+        ExecutorService executor = newUserExecutor(rfqThreads + bookingThreads, VIRTUAL_THREADS);
+        List<Future<?>> rfqFutures = new ArrayList<>();
+        List<Future<?>> bookingFutures = new ArrayList<>();
+        LatencyRecorder latencies = new LatencyRecorder();
+        IntervalReporter.Series series = intervals.start(testName);
+        OperationRecorder operations = new OperationRecorder(series);
+        AtomicInteger errorCount = new AtomicInteger(0);
+        AtomicBoolean bookingDone = new AtomicBoolean(false);
+        ByteArrayEntity rfqEntity = new ByteArrayEntity(
+                "{\"currencyPair\": \"EUR/USD\", \"tenor\": \"SPOT\"}".getBytes(StandardCharsets.UTF_8),
+                ContentType.APPLICATION_JSON);
+        int totalRequests = bookingThreads * requestsPerThread;
+
+        // Background RFQ pressure, running until all booking threads are finished
+        for (int i = 0; i < rfqThreads; i++) {
+            rfqFutures.add(executor.submit(() -> {
+                CloseableHttpClient client = connectionPool.client();
+                try {
+                    while (!bookingDone.get()) {
+                        long start = System.nanoTime();
+                        int status = doPost(client, rfqUri, rfqEntity);
+                        operations.record(OperationRecorder.RFQ, status, start, System.nanoTime());
+                    }
+                } catch (Exception e) {
+                    // RFQ traffic is load only; its failures are not part of the booking result
+                }
+            }));
+        }
+
+        connectionPool.startInterval();
+        long testStart = System.nanoTime();
+        long cpuStart = processCpuNanos();
+
+        for (int i = 0; i < bookingThreads; i++) {
+            bookingFutures.add(executor.submit(() -> {
+                Histogram histogram = latencies.threadHistogram();
+                CloseableHttpClient client = connectionPool.client();
+                PayloadFactory.Payload quote = quotePayloads.acquire();
+                PayloadFactory.Payload trade = tradePayloads.acquire();
+                try {
+                    for (int j = 0; j < requestsPerThread; j++) {
+                        long quoteId = ThreadLocalRandom.current().nextLong(PayloadFactory.ID_LIMIT);
+                        quote.quoteId(quoteId);
+                        trade.tradeId(ThreadLocalRandom.current().nextLong(PayloadFactory.ID_LIMIT)).quoteId(quoteId);
+                        long quoteStart = System.nanoTime();
+                        int quoteStatus = doPost(client, quotesUri, quote.entity());
+                        long start = System.nanoTime();
+                        operations.record(OperationRecorder.CREATE_QUOTE, quoteStatus, quoteStart, start);
+                        int status = doPost(client, tradesUri, trade.entity());
+                        long end = System.nanoTime();
+                        LatencyRecorder.record(histogram, start, end);
+                        operations.record(OperationRecorder.CREATE_TRADE, status, start, end);
+                        if (status < 200 || status >= 300) errorCount.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    errorCount.incrementAndGet();
+                }
+            }));
+        }
+
+        for (Future<?> f : bookingFutures) {
+            try {
+                f.get(5, TimeUnit.MINUTES);
+            } catch (Exception e) {
+                errorCount.incrementAndGet();
+                Assertions.fail(testName + " thread failed: " + e.getMessage());
+            }
+        }
+        long testEnd = System.nanoTime();
+        series.close();
+
+        bookingDone.set(true);
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        double durationSeconds = (testEnd - testStart) / 1_000_000_000.0;
+
+        poolUsages.add(new PoolUsage(testName, connectionPool.usage()));
+        return TestResult.of(testName, totalRequests, durationSeconds, latencies.merged(),
+                rfqThreads + bookingThreads, errorCount.get(), generatorCpu(cpuStart, testStart), operations);
     }
 
     /**
@@ -381,25 +1235,31 @@ public class LoadTest {
         System.out.println("===============================================================================================================================================================================");
         System.out.println("                                                          LOAD TEST RESULTS SUMMARY");
         System.out.println("===============================================================================================================================================================================");
-        System.out.printf("%-16s | %-15s | %-10s | %-10s | %-14s | %-10s | %-10s | %-10s | %-10s | %-10s | %-10s | %-10s | %-10s | %-10s%n",
-                "Scenario", "Total Requests", "Duration", "RPS", "Avg Latency", "p90(ms)", "p95(ms)", "p99(ms)", "p99.9(ms)", "p99.99(ms)", "Concurrency", "Errors", "ErrRate", "SLA");
+        System.out.printf("%-16s | %-15s | %-10s | %-10s | %-14s | %-10s | %-10s | %-10s | %-10s | %-10s | %-10s | %-10s | %-10s | %-10s | %-10s%n",
+                "Scenario", "Total Requests", "Duration", "RPS", "Avg Latency", "p90(ms)", "p95(ms)", "p99(ms)", "p99.9(ms)", "p99.99(ms)", "Concurrency", "Errors", "ErrRate", "Gen CPU%", "SLA");
         System.out.println("-------------------------------------------------------------------------------------------------------------------------------------------------------------------------------");
         for (TestResult r : allResults) {
-            long max = Math.max(Math.max(Math.max(Math.max(r.p90Latency, r.p95Latency), r.p99Latency), r.p999Latency), r.p9999Latency);
-            String slaStatus = (r.errorRate <= SLA_MAX_ERROR_RATE && r.p95Latency <= SLA_P95_LATENCY_MS && r.rps >= SLA_MIN_RPS)
-                    ? "PASS" : "FAIL";
-            System.out.printf("%-16s | %-15d | %-10.2f | %-10.2f | %-14.2f | %-10d | %-10d | %-10d | %-10d | %-10d | %-10d | %-10d | %-10.2f | %-10s%n",
+            String slaStatus = slaStatus(r);
+            System.out.printf("%-16s | %-15d | %-10.2f | %-10.2f | %-14.3f | %-10.3f | %-10.3f | %-10.3f | %-10.3f | %-10.3f | %-10d | %-10d | %-10.2f | %-10.1f | %-10s%n",
                     r.name, r.totalRequests, r.durationSeconds, r.rps, r.avgLatency, r.p90Latency, r.p95Latency, r.p99Latency, r.p999Latency, r.p9999Latency,
-                    r.concurrency, r.errorCount, r.errorRate * 100, slaStatus);
+                    r.concurrency, r.errorCount, r.errorRate * 100, r.generatorCpu, slaStatus);
         }
         System.out.println("===============================================================================================================================================================================");
+        printOperationSummary();
+        printMixSummary();
+        printDistributedSummary();
+        printOpenLoopSummary();
+        printWarmUpSummary();
+        printPoolSummary();
+        printCapacitySummary();
+        printServerSummary();
         System.out.println();
         System.out.println("Legend:");
-        System.out.println("  Scenario        : Name of the test scenario (Baseline, Load, Spike, Soak, Stress)");
+        System.out.println("  Scenario        : Name of the test scenario (Baseline, Load, Spike, Soak, Open Loop, Stress, Capacity, Many Users, Async, Mixed Workload, Distributed, Booking Alone/w/ RFQ)");
         System.out.println("  Total Requests  : Total number of HTTP requests sent during the scenario");
         System.out.println("  Duration        : Total duration of the scenario in seconds");
         System.out.println("  RPS             : Requests per second (throughput)");
-        System.out.println("  Avg Latency     : Average response time in milliseconds");
+        System.out.println("  Avg Latency     : Average response time in milliseconds (recorded at microsecond resolution)");
         System.out.println("  p90(ms)         : 90th percentile latency (90% of requests were faster than this)");
         System.out.println("  p95(ms)         : 95th percentile latency (95% of requests were faster than this)");
         System.out.println("  p99(ms)         : 99th percentile latency (99% of requests were faster than this)");
@@ -408,24 +1268,446 @@ public class LoadTest {
         System.out.println("  Concurrency     : Number of concurrent threads/users used in the scenario");
         System.out.println("  Errors          : Number of failed requests (non-2xx status)");
         System.out.println("  ErrRate         : Error rate as a percentage");
+        System.out.println("  Gen CPU%        : CPU used by the load generator JVM during the scenario, as a percentage of all cores");
+        System.out.println("                    (Distributed: the busiest worker JVM)");
         System.out.println("  SLA             : PASS if error rate <= 1%, p95 latency <= 250ms, RPS >= 50; otherwise FAIL");
         System.out.println();
         System.out.println("Interpretation:");
         System.out.println("  - Lower latency and higher RPS indicate better performance.");
         System.out.println("  - p90, p95, p99, p99.9, and p99.99 latencies help identify outliers and worst-case response times.");
         System.out.println("  - Use Baseline to establish a reference, Load for expected traffic, Spike for sudden surges, Soak for long-term stability, and Stress to find breaking points.");
+        System.out.println("  - Mixed Workload replays the weighted mix of mix.workload; compare its achieved read share with the production ratio.");
+        System.out.println("  - Distributed merges several generator JVMs; use it once Gen CPU% shows one generator saturating. A non-zero");
+        System.out.println("    Start late means a worker's warm-up overran distributed.startDelayMs and the workers did not start together.");
+        System.out.println("  - Booking Alone vs Booking w/ RFQ: booking-only latency without and with RFQ saturation; they should stay close when the bulkheads hold.");
         System.out.println("  - SLA is considered PASS if error rate <= 1%, p95 latency <= 250ms, and RPS >= 50.");
+        System.out.println("  - Gen CPU% close to 100 means the generator itself is saturated and the results understate what the server can do.");
+        System.out.println("  - Lease waits well above zero mean workers queued for a pooled connection (raise pool.maxPerRoute); frequent");
+        System.out.println("    connects mean connections are not reused (keep-alive, time-to-live) and add setup time to the latencies above.");
+        System.out.println("  - Capacity shows the highest passing step of the capacity search; use its maximum sustainable rate for capacity planning.");
+        System.out.println("  - Open Loop latencies in the table above are per booking flow (quote + trade) and corrected for coordinated omission.");
+        System.out.println("  - Per-interval series of every scenario (report.intervalMs) are in report.dir: look there for latency that creeps up");
+        System.out.println("    during a Soak, and line the interval end times up with server logs and GC events.");
+        System.out.println("  - The regression check (when regression.baseline exists) fails the test when a p50, p99 or throughput is");
+        System.out.println("    significantly worse than the baseline run (non-overlapping 95% intervals) by more than regression.tolerance.");
+        System.out.println("  - Server resources come from the server's Actuator at the end of every interval, next to the latencies in");
+        System.out.println("    intervals.csv. Growing flags heap after GC or live threads rising steadily during a scenario: a likely leak.");
+        System.out.println("    Tomcat busy threads at the pool maximum or Hikari pending above zero mean requests queued inside the server.");
+        System.out.println("  - Per-operation rows are measured from send time; Time% is each endpoint's share of the scenario's total response time,");
+        System.out.println("    so the endpoint with the largest share (and highest p99) is where optimisation pays off first.");
+        System.out.println();
+    }
+
+    /**
+     * Prints one row per operation (endpoint) of each scenario: its latencies, its responses by status class and its
+     * share of the scenario's total response time. Background RFQ traffic of the bulkhead scenarios is included.
+     */
+    private void printOperationSummary() {
+        System.out.println();
+        System.out.println("Per-operation breakdown (ms, from send time)");
+        int width = allResults.stream().flatMap(r -> r.operations.stream())
+                .mapToInt(op -> op.operation().length()).max().orElse(0);
+        width = Math.max(width, 16);
+        String format = "%-16s | %-" + width + "s | %-10s | %-10s | %-10s | %-10s | %-10s | %-10s | %-8s | %-8s | %-8s | %-8s | %-11s | %-7s%n";
+        System.out.printf(format, "Scenario", "Operation", "Requests", "Avg", "p50", "p95", "p99", "max",
+                "2xx", "4xx", "5xx", "1xx/3xx", "no response", "Time%");
+        System.out.println("-".repeat(165 + width));
+        String rowFormat = "%-16s | %-" + width + "s | %-10d | %-10.3f | %-10.3f | %-10.3f | %-10.3f | %-10.3f | %-8d | %-8d | %-8d | %-8d | %-11d | %-7.1f%n";
+        for (TestResult r : allResults) {
+            double totalMillis = r.operations.stream().mapToDouble(OperationRecorder.OperationResult::totalMillis).sum();
+            for (OperationRecorder.OperationResult op : r.operations) {
+                Histogram latencies = op.latencies();
+                System.out.printf(rowFormat,
+                        r.name, op.operation(), op.requests(), latencies.getMean() / 1000.0,
+                        TestResult.percentileMs(latencies, 50), TestResult.percentileMs(latencies, 95),
+                        TestResult.percentileMs(latencies, 99), latencies.getMaxValue() / 1000.0,
+                        op.count(OperationRecorder.StatusClass.SUCCESS), op.count(OperationRecorder.StatusClass.CLIENT_ERROR),
+                        op.count(OperationRecorder.StatusClass.SERVER_ERROR), op.count(OperationRecorder.StatusClass.OTHER),
+                        op.count(OperationRecorder.StatusClass.FAILED),
+                        totalMillis == 0 ? 0 : op.totalMillis() * 100 / totalMillis);
+            }
+        }
+    }
+
+    /**
+     * Prints the operations and the achieved read/write ratio of each mixed-workload scenario. Skipped operations
+     * referred to an entity that no step had captured yet, typically early in the run. Gone operations got a 404 for
+     * a captured entity another operation had deleted or the server had expired; they are not counted as errors.
+     */
+    private void printMixSummary() {
+        for (MixResult r : mixResults) {
+            System.out.println();
+            System.out.printf("%s: %d operations (%d skipped, %d found their entity gone), %d requests, reads %.1f%% of "
+                            + "requests (mix weights: %.1f%%)%n",
+                    r.name(), r.operations(), r.skipped(), r.gone(), r.requests(),
+                    r.requests() == 0 ? 0 : r.reads() * 100.0 / r.requests(), r.expectedReadShare() * 100);
+        }
+    }
+
+    /**
+     * Prints each worker of a distributed scenario: its measured clock offset and round trip, how late it started
+     * after the common start time, and its own counters.
+     */
+    private void printDistributedSummary() {
+        if (distributedRuns.isEmpty()) {
+            return;
+        }
         System.out.println();
+        System.out.println("Distributed workers");
+        System.out.printf("%-16s | %-24s | %-16s | %-10s | %-14s | %-10s | %-10s | %-10s | %-10s%n",
+                "Scenario", "Worker", "Clock offset(ms)", "RTT(ms)", "Start late(ms)", "Requests", "Errors", "Seconds", "CPU%");
+        System.out.println("-".repeat(142));
+        for (DistributedRun run : distributedRuns) {
+            for (LoadCoordinator.WorkerResult w : run.workers()) {
+                System.out.printf("%-16s | %-24s | %-16.3f | %-10.3f | %-14d | %-10d | %-10d | %-10.2f | %-10.1f%n",
+                        run.name(), w.worker(), w.clockOffsetMillis(), w.roundTripMillis(), w.startLateMillis(),
+                        w.requests(), w.errors(), w.seconds(), w.cpuPercent());
+            }
+        }
+    }
+
+    /**
+     * Prints corrected and uncorrected percentiles of each open-loop scenario side by side. A wide gap means the
+     * server stalled and flows queued up behind the stall; a closed-loop test would have hidden that wait.
+     */
+    private void printOpenLoopSummary() {
+        if (openLoopResults.isEmpty()) {
+            return;
+        }
+        System.out.println();
+        System.out.println("Open-loop latency per booking flow (ms): corrected (from due time) / uncorrected (from send time)");
+        System.out.printf("%-16s | %-12s | %-12s | %-11s | %-19s | %-19s | %-19s | %-19s | %-19s%n",
+                "Scenario", "Target/s", "Achieved/s", "Late starts", "p50", "p90", "p99", "p99.9", "max");
+        System.out.println("-".repeat(176));
+        for (OpenLoopResult r : openLoopResults) {
+            System.out.printf("%-16s | %-12.2f | %-12.2f | %-11d | %-19s | %-19s | %-19s | %-19s | %-19s%n",
+                    r.name(), r.targetRate(), r.achievedRate(), r.lateStarts(),
+                    sideBySide(r, 50), sideBySide(r, 90), sideBySide(r, 99), sideBySide(r, 99.9), sideBySide(r, 100));
+        }
+    }
+
+    /**
+     * Prints, per scenario on the shared connection pool, how long workers waited to lease a connection and how
+     * many new connections were opened and how long that took. Both are part of the request latencies above.
+     */
+    private void printPoolSummary() {
+        if (poolUsages.isEmpty()) {
+            return;
+        }
+        System.out.println();
+        System.out.println("Shared connection pool: lease wait and connection setup (ms)");
+        System.out.printf("%-16s | %-10s | %-10s | %-10s | %-10s | %-10s | %-10s | %-10s | %-16s%n",
+                "Scenario", "Leases", "Wait p50", "Wait p99", "Wait max", "Connects", "Conn p99", "Conn max", "Leased/Avail");
+        System.out.println("-".repeat(124));
+        for (PoolUsage r : poolUsages) {
+            Histogram wait = r.usage().leaseWait();
+            Histogram connect = r.usage().connect();
+            System.out.printf("%-16s | %-10d | %-10.3f | %-10.3f | %-10.3f | %-10d | %-10.3f | %-10.3f | %-16s%n",
+                    r.name(), wait.getTotalCount(), TestResult.percentileMs(wait, 50), TestResult.percentileMs(wait, 99),
+                    wait.getMaxValue() / 1000.0, connect.getTotalCount(), TestResult.percentileMs(connect, 99),
+                    connect.getMaxValue() / 1000.0,
+                    r.usage().pool().getLeased() + "/" + r.usage().pool().getAvailable());
+        }
+    }
+
+    /**
+     * Prints how each scenario's warm-up ended. Scenarios whose warm-up ended "not steady" were measured while the
+     * system was still settling.
+     */
+    private void printWarmUpSummary() {
+        if (warmUps.isEmpty()) {
+            return;
+        }
+        System.out.println();
+        System.out.println("Warm-up before measurement (unrecorded traffic)");
+        System.out.printf("%-16s | %-22s | %-10s | %-10s | %-10s | %-10s | %-10s | %-10s | %-10s%n",
+                "Scenario", "Outcome", "Seconds", "Flows", "p50(ms)", "p99(ms)", "p50 CV", "p99 CV", "JIT(ms)");
+        System.out.println("-".repeat(131));
+        for (WarmUpResult r : warmUps) {
+            System.out.printf("%-16s | %-22s | %-10.1f | %-10d | %-10.2f | %-10.2f | %-10.2f | %-10.2f | %-10d%n",
+                    r.name(), r.outcome(), r.seconds(), r.flows(), r.p50(), r.p99(), r.p50Variation(), r.p99Variation(),
+                    r.jitMillis());
+        }
+    }
+
+    /**
+     * Prints the latency-vs-load curve of the capacity search, in order of rate, and the highest rate that met
+     * the SLA.
+     */
+    private void printCapacitySummary() {
+        if (capacitySteps.isEmpty()) {
+            return;
+        }
+        System.out.println();
+        System.out.println("Capacity search: corrected latency per booking flow (ms) by offered load");
+        System.out.printf("%-12s | %-12s | %-10s | %-10s | %-10s | %-10s | %-10s | %-14s%n",
+                "Target/s", "Achieved/s", "p50", "p95", "p99", "max", "ErrRate", "SLA");
+        System.out.println("-".repeat(106));
+        capacitySteps.stream()
+                .sorted(Comparator.comparingDouble(CapacityStep::targetRate))
+                .forEach(step -> {
+                    Histogram latencies = step.detail().corrected();
+                    System.out.printf("%-12.2f | %-12.2f | %-10.2f | %-10.2f | %-10.2f | %-10.2f | %-10.2f | %-14s%n",
+                            step.targetRate(), step.detail().achievedRate(), TestResult.percentileMs(latencies, 50),
+                            TestResult.percentileMs(latencies, 95), TestResult.percentileMs(latencies, 99),
+                            latencies.getMaxValue() / 1000.0, step.result().errorRate * 100,
+                            step.sustainable() ? "sustainable" : "over capacity");
+                });
+        if (capacityMaxRate == 0) {
+            System.out.printf("Maximum sustainable rate: below %.2f flows/s, the starting rate already missed the SLA%n",
+                    CAPACITY_START_RATE);
+        } else {
+            System.out.printf("Maximum sustainable rate: %.2f flows/s (%.2f requests/s)%s%n", capacityMaxRate,
+                    capacityMaxRate * 2, capacityLimitReached ? "" : ", the search stopped at capacity.maxRate without missing the SLA");
+        }
+    }
+
+    private static String sideBySide(OpenLoopResult r, double percentile) {
+        return String.format("%.2f / %.2f", r.corrected().getValueAtPercentile(percentile) / 1000.0,
+                r.uncorrected().getValueAtPercentile(percentile) / 1000.0);
+    }
+
+    /**
+     * Prints, per scenario, how the server's resources developed over its intervals: heap, GC pauses, threads and
+     * pool use, table growth, and which leak indicators ({@link ServerSampler#LEAK_INDICATORS}) grew steadily by
+     * more than monitor.growthThreshold.
+     */
+    private void printServerSummary() {
+        List<IntervalReporter.Series> sampled = intervals.series().stream()
+                .filter(series -> series.intervals().stream().anyMatch(i -> !i.server().isEmpty()))
+                .toList();
+        if (sampled.isEmpty()) {
+            return;
+        }
+        System.out.println();
+        System.out.println("Server resources per scenario (sampled through Actuator every report.intervalMs)");
+        System.out.printf("%-16s | %-7s | %-12s | %-17s | %-14s | %-11s | %-11s | %-13s | %-10s | %-24s | %s%n",
+                "Scenario", "Samples", "Heap max(MB)", "After GC(MB)", "GC pauses(ms)", "Threads max", "Tomcat busy",
+                "Hikari active", "Hikari pend", "Rows first -> last", "Growing");
+        System.out.println("-".repeat(190));
+        for (IntervalReporter.Series series : sampled) {
+            List<IntervalReporter.Interval> samples = series.intervals();
+            ServerSampler.Trend afterGc = ServerSampler.trend(ServerSampler.HEAP_AFTER_GC, samples, MONITOR_GROWTH);
+            long rowsFirst = 0;
+            long rowsLast = 0;
+            for (String column : samples.get(samples.size() - 1).server().keySet()) {
+                if (column.startsWith(ServerSampler.ROWS)) {
+                    ServerSampler.Trend rows = ServerSampler.trend(column, samples, MONITOR_GROWTH);
+                    rowsFirst += (long) rows.first();
+                    rowsLast += (long) rows.last();
+                }
+            }
+            List<String> growing = new ArrayList<>();
+            for (String indicator : ServerSampler.LEAK_INDICATORS) {
+                ServerSampler.Trend trend = ServerSampler.trend(indicator, samples, MONITOR_GROWTH);
+                if (trend != null && trend.growing()) {
+                    growing.add(String.format(Locale.ROOT, "%s +%.0f%% (r %.2f)", indicator, trend.growth() * 100,
+                            trend.correlation()));
+                }
+            }
+            System.out.printf(Locale.ROOT, "%-16s | %-7d | %-12.1f | %-17s | %-14.1f | %-11.0f | %-11.0f | %-13.0f | %-10.0f | %-24s | %s%n",
+                    series.scenario(), samples.size(), serverMax(samples, "heapUsedMb"),
+                    afterGc == null ? "-" : String.format(Locale.ROOT, "%.1f -> %.1f", afterGc.first(), afterGc.last()),
+                    serverSum(samples, "gcPauseMs"), serverMax(samples, ServerSampler.LIVE_THREADS),
+                    serverMax(samples, "tomcatBusyThreads"), serverMax(samples, "hikariActive"),
+                    serverMax(samples, "hikariPending"), String.format(Locale.ROOT, "%,d -> %,d", rowsFirst, rowsLast),
+                    growing.isEmpty() ? "-" : String.join(", ", growing));
+        }
+    }
+
+    private static double serverMax(List<IntervalReporter.Interval> samples, String metric) {
+        return samples.stream().map(i -> i.server().get(metric)).filter(Objects::nonNull)
+                .mapToDouble(Double::doubleValue).max().orElse(0);
+    }
+
+    private static double serverSum(List<IntervalReporter.Interval> samples, String metric) {
+        return samples.stream().map(i -> i.server().get(metric)).filter(Objects::nonNull)
+                .mapToDouble(Double::doubleValue).sum();
+    }
+
+    private String slaStatus(TestResult r) {
+        return (r.errorRate <= SLA_MAX_ERROR_RATE && r.p95Latency <= SLA_P95_LATENCY_MS && r.rps >= SLA_MIN_RPS)
+                ? "PASS" : "FAIL";
+    }
+
+    /**
+     * Writes the results to report.dir for comparing runs offline: summary.csv holds the summary table,
+     * summary.json the same figures per scenario with its per-operation rows, and intervals.csv / intervals.json
+     * the interval series of every scenario (intervals.hlog is written while the scenarios run).
+     */
+    private void exportResults() {
+        Path dir = intervals.directory();
+        List<Map<String, Object>> scenarios = new ArrayList<>();
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(dir.resolve("summary.csv"), StandardCharsets.UTF_8))) {
+            csv.println("scenario,totalRequests,durationSeconds,rps,avgMs,p90Ms,p95Ms,p99Ms,p999Ms,p9999Ms,concurrency,errors,errorRate,generatorCpu,sla");
+            for (TestResult r : allResults) {
+                csv.printf(Locale.ROOT, "\"%s\",%d,%.3f,%.2f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%d,%d,%.4f,%.1f,%s%n", r.name,
+                        r.totalRequests, r.durationSeconds, r.rps, r.avgLatency, r.p90Latency, r.p95Latency, r.p99Latency,
+                        r.p999Latency, r.p9999Latency, r.concurrency, r.errorCount, r.errorRate, r.generatorCpu, slaStatus(r));
+
+                Map<String, Object> scenario = new LinkedHashMap<>();
+                scenario.put("scenario", r.name);
+                scenario.put("totalRequests", r.totalRequests);
+                scenario.put("durationSeconds", r.durationSeconds);
+                scenario.put("rps", r.rps);
+                scenario.put("avgMs", r.avgLatency);
+                scenario.put("p90Ms", r.p90Latency);
+                scenario.put("p95Ms", r.p95Latency);
+                scenario.put("p99Ms", r.p99Latency);
+                scenario.put("p999Ms", r.p999Latency);
+                scenario.put("p9999Ms", r.p9999Latency);
+                scenario.put("concurrency", r.concurrency);
+                scenario.put("errors", r.errorCount);
+                scenario.put("errorRate", r.errorRate);
+                scenario.put("generatorCpu", r.generatorCpu);
+                scenario.put("sla", slaStatus(r));
+                List<Map<String, Object>> operations = new ArrayList<>();
+                for (OperationRecorder.OperationResult op : r.operations) {
+                    Map<String, Object> operation = new LinkedHashMap<>();
+                    operation.put("operation", op.operation());
+                    operation.put("requests", op.requests());
+                    operation.put("avgMs", op.latencies().getMean() / 1000.0);
+                    operation.put("p50Ms", TestResult.percentileMs(op.latencies(), 50));
+                    operation.put("p95Ms", TestResult.percentileMs(op.latencies(), 95));
+                    operation.put("p99Ms", TestResult.percentileMs(op.latencies(), 99));
+                    operation.put("maxMs", op.latencies().getMaxValue() / 1000.0);
+                    for (OperationRecorder.StatusClass statusClass : OperationRecorder.StatusClass.values()) {
+                        operation.put(statusClass.label, op.count(statusClass));
+                    }
+                    operations.add(operation);
+                }
+                scenario.put("operations", operations);
+                scenarios.add(scenario);
+            }
+        } catch (IOException e) {
+            System.out.println("Could not write the summary: " + e.getMessage());
+            return;
+        }
+        try {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("properties", PROPERTIES);
+            summary.put("baseUrl", BASE_URL);
+            summary.put("endEpochMillis", System.currentTimeMillis());
+            summary.put("scenarios", scenarios);
+            JSON.writerWithDefaultPrettyPrinter().writeValue(dir.resolve("summary.json").toFile(), summary);
+            intervals.write();
+            System.out.println("Results and interval series written to " + dir.toAbsolutePath());
+        } catch (IOException e) {
+            System.out.println("Could not write the results: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Compares this run with the baseline at regression.baseline and fails the test on a regression (see
+     * {@link RegressionGate}). Each scenario is checked as a whole (p50, p99, throughput) and per operation (p50,
+     * p99), so a slower endpoint shows up even when the scenario as a whole stays within tolerance.
+     *
+     * The run itself is always saved as baseline.json in report.dir; copy it to regression.baseline to make it the
+     * new baseline, or set regression.updateBaseline to write it there directly instead of comparing.
+     */
+    private void checkRegressions() {
+        List<RegressionGate.Sample> samples = new ArrayList<>();
+        for (TestResult r : allResults) {
+            samples.add(new RegressionGate.Sample(r.name, r.latencies,
+                    r.intervals.stream().mapToDouble(IntervalReporter.Interval::rps).toArray()));
+            for (OperationRecorder.OperationResult op : r.operations) {
+                samples.add(new RegressionGate.Sample(r.name + " / " + op.operation(), op.latencies(), new double[0]));
+            }
+        }
+        RegressionGate.Baseline run = new RegressionGate.Baseline(RegressionGate.FORMAT_VERSION, PROPERTIES,
+                System.currentTimeMillis(), samples);
+        Path baselineFile = Path.of(REGRESSION_BASELINE);
+        RegressionGate.Baseline baseline;
+        try {
+            RegressionGate.write(run, intervals.directory().resolve("baseline.json"));
+            if (REGRESSION_UPDATE_BASELINE) {
+                RegressionGate.write(run, baselineFile);
+                System.out.println("Baseline written to " + baselineFile.toAbsolutePath());
+                return;
+            }
+            if (!Files.exists(baselineFile)) {
+                System.out.println("No baseline at " + baselineFile.toAbsolutePath() + ", regression check skipped; copy "
+                        + intervals.directory().resolve("baseline.json") + " there to record one");
+                return;
+            }
+            baseline = RegressionGate.read(baselineFile);
+        } catch (IOException e) {
+            Assertions.fail("Could not write or read the regression baseline: " + e.getMessage(), e);
+            return;
+        }
+        if (!PROPERTIES.equals(baseline.properties())) {
+            System.out.println("Baseline " + baselineFile + " was recorded with " + baseline.properties() + ", not "
+                    + PROPERTIES + "; regression check skipped");
+            return;
+        }
+
+        List<RegressionGate.Check> checks = RegressionGate.compare(baseline, samples, REGRESSION_TOLERANCE);
+        int width = Math.max(20, checks.stream().mapToInt(check -> check.name().length()).max().orElse(0));
+        System.out.println();
+        System.out.printf("Regression check against %s (recorded %s, tolerance %.0f%%, 95%% confidence intervals)%n",
+                baselineFile, Instant.ofEpochMilli(baseline.createdEpochMillis()), REGRESSION_TOLERANCE * 100);
+        System.out.printf("%-" + width + "s | %-6s | %-10s | %-21s | %-10s | %-21s | %-8s | %-15s%n",
+                "Scenario / operation", "Metric", "Baseline", "Baseline 95% CI", "Current", "Current 95% CI", "Change", "Verdict");
+        System.out.println("-".repeat(width + 115));
+        for (RegressionGate.Check check : checks) {
+            System.out.printf(Locale.ROOT, "%-" + width + "s | %-6s | %-10s | %-21s | %-10.3f | %-21s | %-8s | %-15s%n",
+                    check.name(), check.metric(),
+                    check.baseline() == null ? "-" : String.format(Locale.ROOT, "%.3f", check.baseline().value()),
+                    confidenceInterval(check.baseline()), check.current().value(), confidenceInterval(check.current()),
+                    check.baseline() == null ? "-" : String.format(Locale.ROOT, "%+.1f%%", check.change() * 100),
+                    check.verdict());
+        }
+        if (RegressionGate.regressed(checks)) {
+            Assertions.fail("Performance regressed against " + baselineFile + ": " + checks.stream()
+                    .filter(check -> check.verdict() == RegressionGate.Verdict.REGRESSION)
+                    .map(check -> String.format(Locale.ROOT, "%s %s %+.1f%%", check.name(), check.metric(), check.change() * 100))
+                    .toList());
+        }
+    }
+
+    private static String confidenceInterval(RegressionGate.Estimate estimate) {
+        return estimate == null || !estimate.hasInterval() ? "-"
+                : String.format(Locale.ROOT, "%.3f - %.3f", estimate.lower(), estimate.upper());
+    }
+
+    /**
+     * One thread per simulated user: a fixed pool of platform threads, or a new virtual thread per user. Virtual
+     * threads park instead of blocking a carrier while waiting on a socket, so tens of thousands of users fit in
+     * one generator JVM.
+     */
+    private static ExecutorService newUserExecutor(int users, boolean virtualThreads) {
+        return virtualThreads ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newFixedThreadPool(users);
+    }
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    /**
+     * CPU used by this (generator) JVM since a scenario started, as a percentage of all cores. Near 100% means
+     * the generator, not the server, limits the measured throughput.
+     */
+    private static double generatorCpu(long cpuStartNanos, long wallStartNanos) {
+        long wallNanos = System.nanoTime() - wallStartNanos;
+        long cpuNanos = processCpuNanos() - cpuStartNanos;
+        return wallNanos <= 0 ? 0 : 100.0 * cpuNanos / wallNanos / Runtime.getRuntime().availableProcessors();
     }
 
     /**
      * Helper method to POST JSON using Apache HttpClient 5.x and return HTTP status code.
      */
     private int doPost(CloseableHttpClient client, String url, String json) {
+        return doPost(client, URI.create(url), new StringEntity(json, ContentType.APPLICATION_JSON));
+    }
+
+    /**
+     * POSTs a ready-made entity, e.g. a reusable {@link PayloadFactory.Payload#entity()}, and returns the HTTP
+     * status code, or 0 if the request failed.
+     */
+    private int doPost(CloseableHttpClient client, URI uri, HttpEntity entity) {
         try {
-            HttpPost post = new HttpPost(url);
-            post.setHeader("Content-Type", "application/json");
-            post.setEntity(new StringEntity(json));
+            HttpPost post = new HttpPost(uri);
+            post.setEntity(entity);
             try (ClassicHttpResponse response = client.executeOpen(null, post, null)) {
                 return response.getCode();
             }
@@ -434,17 +1716,40 @@ public class LoadTest {
         }
     }
 
+    /**
+     * Sends one workload mix step and returns the HTTP status code, or 0 if the request failed. The response is read
+     * fully, and handed to the session when the step captures it.
+     */
+    private int doMixStep(CloseableHttpClient client, WorkloadMix.Session session, WorkloadMix.Step step, String path,
+                          String body) {
+        try {
+            ClassicRequestBuilder request = ClassicRequestBuilder.create(step.method()).setUri(URI.create(BASE_URL + path));
+            if (!body.isEmpty()) {
+                request.setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
+            }
+            try (ClassicHttpResponse response = client.executeOpen(null, request.build(), null)) {
+                HttpEntity entity = response.getEntity();
+                if (step.capture() != null && entity != null && response.getCode() / 100 == 2) {
+                    session.capture(step, JSON.readTree(EntityUtils.toByteArray(entity)));
+                } else {
+                    EntityUtils.consume(entity);
+                }
+                return response.getCode();
+            }
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
     // =========================
     // EXTENSION SUGGESTIONS
     // =========================
     // - Add support for custom endpoints or payloads via properties or feeders.
-    // - Add CSV/JSON export for results.
     // - Integrate with monitoring APIs (Prometheus, etc.) for system metrics.
     // - Add warm-up phase before main test.
     // - Add ramp-up/ramp-down logic for more realistic scenarios.
     // - Add assertions for individual metrics (fail test if SLA not met).
     // - Parameterize endpoints for different environments.
-    // - Add support for GET/PUT/DELETE and more complex workflows.
     // - Add logging of slowest requests or error responses for diagnostics.
     // - Add support for distributed load generation.
 }
@@ -0,0 +1,267 @@
+package com.example.fx.load;
+
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpEntity;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A load generator process driven by a {@link LoadCoordinator}, on the coordinator's host or another one.
+ *
+ * The worker listens on a TCP port and prints {@code LISTENING <port>} once it accepts connections. A worker
+ * launched by a coordinator on the same host listens on the loopback address only; a remote worker listens on all
+ * interfaces. Either way a connection must first send {@code AUTH <token>} with the token in the worker's
+ * {@value #TOKEN_ENV} environment variable, which the worker answers with {@code AUTH ok}; any other first line
+ * closes the connection, so the port is not an open relay for load against any URL. After that the coordinator
+ * sends one command per line and the worker answers:
+ * - {@code CLOCK <micros>}: replies {@code CLOCK <micros>} with its own wall clock (epoch microseconds), from which
+ *   the coordinator estimates the clock offset.
+ * - {@code RUN <startMillis> <threads> <requestsPerThread> <warmUpFlowsPerThread> <baseUrl>}: sends unrecorded
+ *   warm-up flows, waits until {@code startMillis} (epoch milliseconds on the worker's clock), runs closed-loop
+ *   booking flows (quote, then trade) and replies with its counters and HDR histograms, compressed and Base64
+ *   encoded, ending with {@code END}.
+ * - {@code QUIT}: exits the process.
+ *
+ * Start one on a remote host with
+ * {@code LOAD_WORKER_TOKEN=<secret> java -cp <fx-api test classpath> com.example.fx.load.LoadWorker <port> [properties resource]}.
+ * The properties (default {@code loadtest.properties}) configure the worker's connection pool.
+ */
+public final class LoadWorker {
+
+    static final String LISTENING = "LISTENING ";
+    // Set on locally launched workers so they exit with the coordinator JVM
+    static final String COORDINATOR_PID = "load.coordinatorPid";
+    // Shared secret of coordinator and worker; an environment variable, so it does not show in process listings
+    static final String TOKEN_ENV = "LOAD_WORKER_TOKEN";
+    private static final int AUTH_TIMEOUT_MILLIS = 10_000;
+
+    private final ConnectionPool connectionPool;
+    private final PayloadFactory quotePayloads;
+    private final PayloadFactory tradePayloads;
+    private final boolean virtualThreads;
+    private final byte[] token;
+
+    LoadWorker(Properties props, String token) throws IOException {
+        this.token = ("AUTH " + token).getBytes(StandardCharsets.UTF_8);
+        connectionPool = new ConnectionPool(props);
+        quotePayloads = new PayloadFactory(resource("quote.json").replace("${pair}", "EUR/USD"));
+        tradePayloads = new PayloadFactory(resource("trade.json").replace("${pair}", "EUR/USD"));
+        virtualThreads = Boolean.parseBoolean(props.getProperty("virtualThreads", "false"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        Properties props = new Properties();
+        try (InputStream in = resourceStream(args.length > 1 ? args[1] : "loadtest.properties")) {
+            props.load(in);
+        }
+        String token = System.getenv(TOKEN_ENV);
+        if (token == null || token.isBlank()) {
+            System.out.println("Set " + TOKEN_ENV + " to the token the coordinator authenticates with");
+            System.exit(2);
+        }
+        String coordinator = System.getProperty(COORDINATOR_PID);
+        if (coordinator != null) {
+            ProcessHandle.of(Long.parseLong(coordinator))
+                    .ifPresentOrElse(handle -> handle.onExit().thenRun(() -> System.exit(1)), () -> System.exit(1));
+        }
+        LoadWorker worker = new LoadWorker(props, token);
+        // Only the coordinator on this host talks to a worker it launched
+        InetAddress bindAddress = coordinator != null ? InetAddress.getLoopbackAddress() : null;
+        try (ServerSocket server = new ServerSocket(port, 50, bindAddress)) {
+            System.out.println(LISTENING + server.getLocalPort());
+            System.out.flush();
+            boolean quit = false;
+            while (!quit) {
+                try (Socket socket = server.accept()) {
+                    socket.setTcpNoDelay(true);
+                    quit = worker.serve(socket);
+                } catch (IOException e) {
+                    System.out.println("Coordinator connection failed: " + e.getMessage());
+                }
+            }
+        } finally {
+            worker.connectionPool.close();
+        }
+    }
+
+    /**
+     * Answers the commands of one coordinator connection.
+     *
+     * @return whether the coordinator asked the worker to quit
+     */
+    private boolean serve(Socket socket) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+        // A peer that never sends its token must not hold up the next connection
+        socket.setSoTimeout(AUTH_TIMEOUT_MILLIS);
+        String auth = in.readLine();
+        if (auth == null || !MessageDigest.isEqual(token, auth.getBytes(StandardCharsets.UTF_8))) {
+            System.out.println("Refused unauthenticated connection from " + socket.getRemoteSocketAddress());
+            return false;
+        }
+        socket.setSoTimeout(0);
+        out.write("AUTH ok\n");
+        out.flush();
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] command = line.split(" ");
+            switch (command[0]) {
+                case "CLOCK" -> out.write("CLOCK " + epochMicros() + "\n");
+                case "RUN" -> run(Long.parseLong(command[1]), Integer.parseInt(command[2]), Integer.parseInt(command[3]),
+                        Integer.parseInt(command[4]), command[5], out);
+                case "QUIT" -> {
+                    return true;
+                }
+                default -> out.write("ERROR unknown command " + command[0] + "\n");
+            }
+            out.flush();
+        }
+        return false;
+    }
+
+    static long epochMicros() {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+    }
+
+    private void run(long startMillis, int threads, int requestsPerThread, int warmUpFlows, String baseUrl, Writer out)
+            throws IOException {
+        URI quotesUri = URI.create(baseUrl + "/quotes");
+        URI tradesUri = URI.create(baseUrl + "/trades");
+        OperationRecorder operations = new OperationRecorder();
+        AtomicInteger requests = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        long cpuStart;
+        long startLateMillis;
+
+        ExecutorService executor = virtualThreads ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(threads);
+        try {
+            // Unrecorded flows first, so the worker JVM's JIT is warm when the synchronised start comes
+            runFlows(executor, threads, warmUpFlows, quotesUri, tradesUri, null, null, null);
+            long now;
+            while ((now = System.currentTimeMillis()) < startMillis) {
+                Thread.sleep(startMillis - now);
+            }
+            startLateMillis = now - startMillis;
+            cpuStart = processCpuNanos();
+            runFlows(executor, threads, requestsPerThread, quotesUri, tradesUri, operations, requests, errors);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running", e);
+        } finally {
+            executor.shutdown();
+        }
+        long elapsedNanos = (System.currentTimeMillis() - startMillis) * 1_000_000L;
+        double cpuPercent = 100.0 * (processCpuNanos() - cpuStart) / Math.max(1, elapsedNanos)
+                / Runtime.getRuntime().availableProcessors();
+
+        out.write(String.format(Locale.ROOT, "RESULT %d %d %d %.1f %d\n", requests.get(), errors.get(), elapsedNanos,
+                cpuPercent, startLateMillis));
+        out.write("LATENCIES " + LatencyRecorder.encode(operations.merged()) + "\n");
+        for (OperationRecorder.OperationResult result : operations.results()) {
+            StringBuilder line = new StringBuilder("OPERATION");
+            for (long count : result.statusCounts()) {
+                line.append(' ').append(count);
+            }
+            line.append(' ').append(LatencyRecorder.encode(result.latencies())).append(' ').append(result.operation());
+            out.write(line + "\n");
+        }
+        out.write("END\n");
+    }
+
+    // Closed-loop booking flows as in LoadTest.runLoadTest; recorders are null for warm-up
+    private void runFlows(ExecutorService executor, int threads, int flowsPerThread, URI quotesUri, URI tradesUri,
+                          OperationRecorder operations, AtomicInteger requests, AtomicInteger errors) throws InterruptedException {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                CloseableHttpClient client = connectionPool.client();
+                PayloadFactory.Payload quote = quotePayloads.acquire();
+                PayloadFactory.Payload trade = tradePayloads.acquire();
+                for (int j = 0; j < flowsPerThread; j++) {
+                    long quoteId = ThreadLocalRandom.current().nextLong(PayloadFactory.ID_LIMIT);
+                    quote.quoteId(quoteId);
+                    trade.tradeId(ThreadLocalRandom.current().nextLong(PayloadFactory.ID_LIMIT)).quoteId(quoteId);
+
+                    long start = System.nanoTime();
+                    int quoteStatus = post(client, quotesUri, quote.entity());
+                    long tradeStart = System.nanoTime();
+                    int tradeStatus = post(client, tradesUri, trade.entity());
+                    long end = System.nanoTime();
+                    if (operations != null) {
+                        operations.record(OperationRecorder.CREATE_QUOTE, quoteStatus, start, tradeStart);
+                        operations.record(OperationRecorder.CREATE_TRADE, tradeStatus, tradeStart, end);
+                        requests.addAndGet(2);
+                        if (quoteStatus < 200 || quoteStatus >= 300) errors.incrementAndGet();
+                        if (tradeStatus < 200 || tradeStatus >= 300) errors.incrementAndGet();
+                    }
+                }
+                quotePayloads.release(quote);
+                tradePayloads.release(trade);
+            }));
+        }
+        for (Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (Exception e) {
+                if (errors != null) errors.incrementAndGet();
+            }
+        }
+    }
+
+    private static int post(CloseableHttpClient client, URI uri, HttpEntity entity) {
+        try {
+            HttpPost post = new HttpPost(uri);
+            post.setEntity(entity);
+            try (ClassicHttpResponse response = client.executeOpen(null, post, null)) {
+                return response.getCode();
+            }
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    private static InputStream resourceStream(String name) throws IOException {
+        InputStream in = LoadWorker.class.getClassLoader().getResourceAsStream(name);
+        if (in == null) {
+            throw new IOException("Resource not found on the classpath: " + name);
+        }
+        return in;
+    }
+
+    private static String resource(String name) throws IOException {
+        try (InputStream in = resourceStream(name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.fx.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects latencies and response status classes of one scenario per operation (endpoint), so the summary can
+ * show which endpoint drives the tail and where the time goes. It is where a scenario's requests are recorded: its
+ * {@link IntervalReporter.Series}, if it has one, and {@link #merged()} read from it instead of recording again.
+ *
+ * Operations are named by method and path, e.g. {@link #CREATE_QUOTE}. Each has a counter per status class and
+ * {@link LatencyRecorder#STRIPES} HDR {@link Recorder}s (microseconds, three significant digits), created when a
+ * thread of that stripe first records the operation. A recorder per thread would not fit a mix of twenty operations
+ * over hundreds of users in memory; with a stripe per thread id, only threads that run at the same time and land on
+ * the same stripe contend. Any worker thread, including I/O reactor threads, may record without locks.
+ *
+ * The recorders are emptied into each operation's total when the series takes an interval, and once more when the
+ * results are read.
+ */
+final class OperationRecorder {
+
+    static final String CREATE_QUOTE = "POST /quotes";
+    static final String CREATE_TRADE = "POST /trades";
+    static final String RFQ = "POST /quotes/rfq";
+
+    enum StatusClass {
+        SUCCESS("2xx"), CLIENT_ERROR("4xx"), SERVER_ERROR("5xx"), OTHER("1xx/3xx"), FAILED("no response");
+
+        final String label;
+
+        StatusClass(String label) {
+            this.label = label;
+        }
+
+        /**
+         * The class of an HTTP status code; 0 stands for a request that got no response.
+         */
+        static StatusClass of(int status) {
+            if (status >= 200 && status < 300) return SUCCESS;
+            if (status >= 400 && status < 500) return CLIENT_ERROR;
+            if (status >= 500) return SERVER_ERROR;
+            return status <= 0 ? FAILED : OTHER;
+        }
+    }
+
+    private final Map<String, Stats> operations = new ConcurrentHashMap<>();
+    private final IntervalReporter.Series intervals;
+    // Requests outside 2xx since the series last took an interval
+    private final LongAdder intervalErrors = new LongAdder();
+    // Guarded by this, like the operation totals
+    private final Histogram sample = newHistogram();
+
+    OperationRecorder() {
+        this(null);
+    }
+
+    OperationRecorder(IntervalReporter.Series intervals) {
+        this.intervals = intervals;
+        if (intervals != null) {
+            intervals.recordedBy(this);
+        }
+    }
+
+    /**
+     * Records one request between two {@link System#nanoTime()} readings and the status code it returned.
+     */
+    void record(String operation, int status, long startNanos, long endNanos) {
+        Stats stats = operations.computeIfAbsent(operation, name -> new Stats());
+        long micros = Math.max(0, (endNanos - startNanos) / 1_000);
+        stats.recorder().recordValue(Math.min(micros, LatencyRecorder.HIGHEST_TRACKABLE_MICROS));
+        StatusClass statusClass = StatusClass.of(status);
+        stats.statuses[statusClass.ordinal()].increment();
+        if (intervals != null && statusClass != StatusClass.SUCCESS) {
+            intervalErrors.increment();
+        }
+    }
+
+    /**
+     * Adds an operation's latencies and status counts recorded elsewhere, e.g. by a {@link LoadWorker} process.
+     */
+    synchronized void add(OperationResult result) {
+        Stats stats = operations.computeIfAbsent(result.operation(), name -> new Stats());
+        stats.total.add(result.latencies());
+        for (int i = 0; i < stats.statuses.length; i++) {
+            stats.statuses[i].add(result.statusCounts()[i]);
+        }
+    }
+
+    /**
+     * Moves the latencies recorded since the previous call into the operation totals and adds them to
+     * {@code interval}; recording threads carry on meanwhile.
+     *
+     * @return the requests outside 2xx since the previous call
+     */
+    synchronized long takeInterval(Histogram interval) {
+        collect(interval);
+        return intervalErrors.sumThenReset();
+    }
+
+    // Empties every stripe's recorder into its operation's total, and into the interval if there is one
+    private void collect(Histogram interval) {
+        for (Stats stats : operations.values()) {
+            for (int i = 0; i < stats.recorders.length(); i++) {
+                Recorder recorder = stats.recorders.get(i);
+                if (recorder != null) {
+                    recorder.getIntervalHistogramInto(sample);
+                    stats.total.add(sample);
+                    if (interval != null) {
+                        interval.add(sample);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The intervals taken by the scenario's interval series, or none when it has no series.
+     */
+    List<IntervalReporter.Interval> intervals() {
+        return intervals == null ? List.of() : intervals.intervals();
+    }
+
+    /**
+     * Results of the recorded operations, ordered by name. Call once the workers have finished.
+     */
+    synchronized List<OperationResult> results() {
+        collect(null);
+        List<OperationResult> results = new ArrayList<>();
+        operations.forEach((operation, stats) -> {
+            long[] counts = new long[StatusClass.values().length];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = stats.statuses[i].sum();
+            }
+            results.add(new OperationResult(operation, stats.total.copy(), counts));
+        });
+        results.sort(Comparator.comparing(OperationResult::operation));
+        return results;
+    }
+
+    /**
+     * The latencies of all operations added together. Call once the workers have finished.
+     */
+    synchronized Histogram merged() {
+        collect(null);
+        Histogram merged = newHistogram();
+        for (Stats stats : operations.values()) {
+            merged.add(stats.total);
+        }
+        return merged;
+    }
+
+    private static Histogram newHistogram() {
+        return new Histogram(LatencyRecorder.HIGHEST_TRACKABLE_MICROS, 3);
+    }
+
+    private static final class Stats {
+
+        // Created on a stripe's first request; auto-resizing, so they only grow to the latencies actually seen
+        final AtomicReferenceArray<Recorder> recorders = new AtomicReferenceArray<>(LatencyRecorder.STRIPES);
+        // Guarded by the OperationRecorder
+        final Histogram total = newHistogram();
+        final LongAdder[] statuses = new LongAdder[StatusClass.values().length];
+
+        Stats() {
+            for (int i = 0; i < statuses.length; i++) {
+                statuses[i] = new LongAdder();
+            }
+        }
+
+        Recorder recorder() {
+            int stripe = LatencyRecorder.stripe();
+            Recorder recorder = recorders.get(stripe);
+            if (recorder == null) {
+                recorders.compareAndSet(stripe, null, new Recorder(3));
+                recorder = recorders.get(stripe);
+            }
+            return recorder;
+        }
+    }
+
+    /**
+     * Latencies (microseconds) and status class counts, indexed by {@link StatusClass#ordinal()}, of one operation.
+     */
+    record OperationResult(String operation, Histogram latencies, long[] statusCounts) {
+
+        long requests() {
+            return latencies.getTotalCount();
+        }
+
+        long count(StatusClass statusClass) {
+            return statusCounts[statusClass.ordinal()];
+        }
+
+        /**
+         * Time spent waiting for this operation's responses, summed over all requests, in milliseconds.
+         */
+        double totalMillis() {
+            return latencies.getMean() * latencies.getTotalCount() / 1000.0;
+        }
+    }
+}
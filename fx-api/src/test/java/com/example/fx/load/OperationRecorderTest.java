@@ -0,0 +1,71 @@
+package com.example.fx.load;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records a few requests per operation and checks the status classes, the per-operation latencies and the time totals,
+ * and that requests recorded from many threads are counted once across intervals and results.
+ */
+public class OperationRecorderTest {
+
+    @Test
+    void statusCodesFallIntoTheirClasses() {
+        Assertions.assertEquals(OperationRecorder.StatusClass.SUCCESS, OperationRecorder.StatusClass.of(201));
+        Assertions.assertEquals(OperationRecorder.StatusClass.CLIENT_ERROR, OperationRecorder.StatusClass.of(404));
+        Assertions.assertEquals(OperationRecorder.StatusClass.SERVER_ERROR, OperationRecorder.StatusClass.of(503));
+        Assertions.assertEquals(OperationRecorder.StatusClass.OTHER, OperationRecorder.StatusClass.of(302));
+        Assertions.assertEquals(OperationRecorder.StatusClass.FAILED, OperationRecorder.StatusClass.of(0));
+    }
+
+    @Test
+    void resultsAreKeptApartPerOperation() {
+        OperationRecorder recorder = new OperationRecorder();
+        recorder.record(OperationRecorder.CREATE_QUOTE, 201, 0, 1_000_000);
+        recorder.record(OperationRecorder.CREATE_TRADE, 201, 0, 3_000_000);
+        recorder.record(OperationRecorder.CREATE_TRADE, 400, 0, 5_000_000);
+
+        List<OperationRecorder.OperationResult> results = recorder.results();
+
+        Assertions.assertEquals(2, results.size(), "only recorded operations are listed");
+        OperationRecorder.OperationResult quotes = results.get(0);
+        OperationRecorder.OperationResult trades = results.get(1);
+        Assertions.assertEquals(OperationRecorder.CREATE_QUOTE, quotes.operation());
+        Assertions.assertEquals(1, quotes.requests());
+        Assertions.assertEquals(1.0, quotes.totalMillis(), 0.01);
+        Assertions.assertEquals(OperationRecorder.CREATE_TRADE, trades.operation());
+        Assertions.assertEquals(1, trades.count(OperationRecorder.StatusClass.SUCCESS));
+        Assertions.assertEquals(1, trades.count(OperationRecorder.StatusClass.CLIENT_ERROR));
+        Assertions.assertEquals(8.0, trades.totalMillis(), 0.01);
+        Assertions.assertEquals(5.0, trades.latencies().getMaxValue() / 1000.0, 0.01);
+    }
+
+    @Test
+    void requestsFromManyThreadsAreCountedOnce() throws Exception {
+        OperationRecorder recorder = new OperationRecorder();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            boolean virtual = t % 2 == 0;
+            Runnable work = () -> {
+                for (int i = 0; i < 1_000; i++) {
+                    recorder.record(OperationRecorder.CREATE_QUOTE, 201, 0, 1_000_000);
+                }
+            };
+            threads.add(virtual ? Thread.startVirtualThread(work) : Thread.ofPlatform().start(work));
+        }
+        Histogram interval = new Histogram(LatencyRecorder.HIGHEST_TRACKABLE_MICROS, 3);
+        recorder.takeInterval(interval);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        recorder.takeInterval(interval);
+
+        Assertions.assertEquals(8_000, interval.getTotalCount());
+        Assertions.assertEquals(8_000, recorder.results().get(0).requests());
+        Assertions.assertEquals(8_000, recorder.merged().getTotalCount(), "taking results does not count twice");
+    }
+}
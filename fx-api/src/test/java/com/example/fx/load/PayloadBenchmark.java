@@ -0,0 +1,91 @@
+package com.example.fx.load;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * PayloadBenchmark compares the generator-side cost of preparing one quote + trade pair of request bodies:
+ * String.replace on the JSON templates with a new StringEntity per request (the previous LoadTest code), against
+ * patching IDs into pre-rendered {@link PayloadFactory} buffers and reusing their entities.
+ *
+ * Each body is written to a discarding stream, as the client would write it to the socket. The benchmark prints
+ * nanoseconds and allocated bytes per pair for both variants.
+ *
+ * Run with:
+ * mvn -pl fx-api test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.fx.load.PayloadBenchmark
+ *
+ * Optional system properties: iterations (default 2000000).
+ */
+public class PayloadBenchmark {
+
+    private static final OutputStream DISCARD = OutputStream.nullOutputStream();
+
+    public static void main(String[] args) throws Exception {
+        int iterations = Integer.getInteger("iterations", 2_000_000);
+        String quoteTemplate = resource("quote.json");
+        String tradeTemplate = resource("trade.json");
+        PayloadFactory quotes = new PayloadFactory(quoteTemplate);
+        PayloadFactory trades = new PayloadFactory(tradeTemplate);
+        PayloadFactory.Payload quote = quotes.acquire();
+        PayloadFactory.Payload trade = trades.acquire();
+
+        Runnable replace = () -> {
+            String quoteId = "Q" + ThreadLocalRandom.current().nextInt(100000, 999999);
+            String tradeId = "T" + ThreadLocalRandom.current().nextInt(100000, 999999);
+            write(new StringEntity(quoteTemplate.replace("${quoteId}", quoteId), ContentType.APPLICATION_JSON));
+            write(new StringEntity(tradeTemplate.replace("${tradeId}", tradeId).replace("${quoteId}", quoteId),
+                    ContentType.APPLICATION_JSON));
+        };
+        Runnable patch = () -> {
+            long quoteId = ThreadLocalRandom.current().nextLong(PayloadFactory.ID_LIMIT);
+            write(quote.quoteId(quoteId).entity());
+            write(trade.tradeId(ThreadLocalRandom.current().nextLong(PayloadFactory.ID_LIMIT)).quoteId(quoteId).entity());
+        };
+
+        // Warm up both variants before measuring
+        measure(replace, iterations / 4);
+        measure(patch, iterations / 4);
+
+        System.out.println();
+        System.out.printf("%-22s | %-14s | %-16s%n", "Variant", "ns/pair", "bytes/pair");
+        System.out.println("-".repeat(58));
+        print("String.replace", measure(replace, iterations), iterations);
+        print("Pre-rendered patch", measure(patch, iterations), iterations);
+    }
+
+    private static long[] measure(Runnable body, int iterations) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            body.run();
+        }
+        return new long[]{System.nanoTime() - start, threads.getCurrentThreadAllocatedBytes() - bytesBefore};
+    }
+
+    private static void print(String name, long[] result, int iterations) {
+        System.out.printf("%-22s | %-14.1f | %-16.1f%n", name, (double) result[0] / iterations,
+                (double) result[1] / iterations);
+    }
+
+    private static void write(HttpEntity entity) {
+        try {
+            entity.writeTo(DISCARD);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String resource(String name) throws IOException {
+        try (var in = PayloadBenchmark.class.getClassLoader().getResourceAsStream(name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("${pair}", "EUR/USD");
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.fx.load;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Request bodies rendered once and then patched in place, so sending a request allocates no payload.
+ *
+ * The JSON template is encoded to UTF-8 a single time with each {@code ${quoteId}} and {@code ${tradeId}} replaced
+ * by a fixed-width field: a prefix letter ('Q' or 'T') followed by {@value #ID_DIGITS} digits. The byte offsets of
+ * those digits are recorded, and {@link Payload#quoteId(long)} / {@link Payload#tradeId(long)} overwrite them
+ * directly in the payload's buffer. The width never changes, so neither does the Content-Length, and each
+ * payload's {@link ByteArrayEntity} wraps the same buffer for every request.
+ *
+ * A payload must not be patched while a request using it is still in flight. Blocking workers keep one payload
+ * per template for their whole run; asynchronous flows {@link #acquire()} one and {@link #release(Payload)} it
+ * once the response arrived.
+ */
+final class PayloadFactory {
+
+    static final int ID_DIGITS = 12;
+    static final long ID_LIMIT = 1_000_000_000_000L;
+    private static final String QUOTE_ID = "${quoteId}";
+    private static final String TRADE_ID = "${tradeId}";
+
+    private final byte[] template;
+    private final int[] quoteIdOffsets;
+    private final int[] tradeIdOffsets;
+    private final Queue<Payload> pool = new ConcurrentLinkedQueue<>();
+
+    PayloadFactory(String template) {
+        StringBuilder rendered = new StringBuilder();
+        List<Integer> quoteIds = new ArrayList<>();
+        List<Integer> tradeIds = new ArrayList<>();
+        int i = 0;
+        while (i < template.length()) {
+            if (template.startsWith(QUOTE_ID, i)) {
+                quoteIds.add(appendIdField(rendered, 'Q'));
+                i += QUOTE_ID.length();
+            } else if (template.startsWith(TRADE_ID, i)) {
+                tradeIds.add(appendIdField(rendered, 'T'));
+                i += TRADE_ID.length();
+            } else {
+                rendered.append(template.charAt(i++));
+            }
+        }
+        this.template = rendered.toString().getBytes(StandardCharsets.UTF_8);
+        this.quoteIdOffsets = quoteIds.stream().mapToInt(Integer::intValue).toArray();
+        this.tradeIdOffsets = tradeIds.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Appends the prefix and zeroed digits and returns the byte offset of the first digit
+    private static int appendIdField(StringBuilder rendered, char prefix) {
+        rendered.append(prefix);
+        int offset = rendered.toString().getBytes(StandardCharsets.UTF_8).length;
+        rendered.append("0".repeat(ID_DIGITS));
+        return offset;
+    }
+
+    /**
+     * A payload from the pool, or a fresh copy of the rendered template when the pool is empty.
+     */
+    Payload acquire() {
+        Payload payload = pool.poll();
+        return payload != null ? payload : new Payload(template.clone());
+    }
+
+    /**
+     * Returns a payload whose request has completed, for the next {@link #acquire()}.
+     */
+    void release(Payload payload) {
+        pool.offer(payload);
+    }
+
+    /**
+     * One mutable request body with its entity.
+     */
+    final class Payload {
+
+        private final byte[] bytes;
+        private final ByteArrayEntity entity;
+
+        private Payload(byte[] bytes) {
+            this.bytes = bytes;
+            this.entity = new ByteArrayEntity(bytes, ContentType.APPLICATION_JSON);
+        }
+
+        /**
+         * Writes {@code id} (below {@link #ID_LIMIT}), zero-padded, into every quote ID field.
+         */
+        Payload quoteId(long id) {
+            return patch(quoteIdOffsets, id);
+        }
+
+        Payload tradeId(long id) {
+            return patch(tradeIdOffsets, id);
+        }
+
+        private Payload patch(int[] offsets, long id) {
+            for (int offset : offsets) {
+                long remaining = id;
+                for (int i = offset + ID_DIGITS - 1; i >= offset; i--) {
+                    bytes[i] = (byte) ('0' + remaining % 10);
+                    remaining /= 10;
+                }
+            }
+            return this;
+        }
+
+        byte[] bytes() {
+            return bytes;
+        }
+
+        ByteArrayEntity entity() {
+            return entity;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.fx.load;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Checks that patched payloads match the text the old String.replace rendering produced, with every placeholder
+ * filled, and that pooled payloads are handed out again.
+ */
+public class PayloadFactoryTest {
+
+    private static final String TEMPLATE =
+            "{\"tradeId\": \"${tradeId}\", \"trader\": \"Zoë\", \"quoteId\": \"${quoteId}\", \"ref\": \"${quoteId}\"}";
+
+    @Test
+    void patchesEveryPlaceholderInPlace() {
+        PayloadFactory factory = new PayloadFactory(TEMPLATE);
+        PayloadFactory.Payload payload = factory.acquire();
+
+        payload.quoteId(987_654_321_012L).tradeId(42);
+        Assertions.assertEquals(expected("Q987654321012", "T000000000042"), text(payload));
+
+        payload.quoteId(7);
+        Assertions.assertEquals(expected("Q000000000007", "T000000000042"), text(payload));
+        Assertions.assertEquals(payload.bytes().length, payload.entity().getContentLength());
+    }
+
+    @Test
+    void reusesReleasedPayloads() {
+        PayloadFactory factory = new PayloadFactory(TEMPLATE);
+        PayloadFactory.Payload first = factory.acquire();
+        PayloadFactory.Payload second = factory.acquire();
+        Assertions.assertNotSame(first.bytes(), second.bytes());
+
+        factory.release(first);
+        Assertions.assertSame(first, factory.acquire());
+    }
+
+    private static String expected(String quoteId, String tradeId) {
+        return TEMPLATE.replace("${quoteId}", quoteId).replace("${tradeId}", tradeId);
+    }
+
+    private static String text(PayloadFactory.Payload payload) {
+        return new String(payload.bytes(), StandardCharsets.UTF_8);
+    }
+}
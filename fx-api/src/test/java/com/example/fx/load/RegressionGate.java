@@ -0,0 +1,225 @@
+package com.example.fx.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares a run with a stored baseline run and flags statistically significant regressions beyond a tolerance,
+ * which the fixed sla.* thresholds miss as long as a slower build still passes them.
+ *
+ * A baseline holds, per scenario and per scenario operation (e.g. {@code Load Test / POST /trades}), the full latency
+ * histogram and the throughput of every interval (see {@link IntervalReporter}). Each check puts a 95% confidence
+ * interval around the baseline and the current figure:
+ * - p50 and p99: distribution-free intervals from order statistics of the histogram (the ranks
+ *   {@code n q +- 1.96 sqrt(n q (1 - q))}), so they need no assumption about the latency distribution;
+ * - throughput: a Student t interval around the mean requests per second of the intervals, leaving out the last
+ *   interval, which the end of the scenario cuts short.
+ *
+ * A metric regressed when the two confidence intervals do not overlap and the current figure is worse than the
+ * baseline by more than the tolerance. Requiring both keeps run-to-run noise from failing the build, and keeps a
+ * significant but negligible shift from failing it too. Metrics with too few samples for an interval (e.g. a p99
+ * over fewer than about 600 requests) are reported but not judged.
+ */
+final class RegressionGate {
+
+    static final int FORMAT_VERSION = 1;
+
+    private static final double Z_95 = 1.96;
+    // Two-sided 95% quantiles of Student's t for 1..30 degrees of freedom
+    private static final double[] T_95 = {12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086, 2.080, 2.074, 2.069, 2.064, 2.060,
+            2.056, 2.052, 2.048, 2.045, 2.042};
+    private static final int MIN_INTERVALS = 3;
+
+    private RegressionGate() {
+    }
+
+    enum Verdict {
+        OK, IMPROVED, REGRESSION, TOO_FEW_SAMPLES, NO_BASELINE
+    }
+
+    /**
+     * The latencies (microseconds) and per-interval throughput of one scenario, or of one operation within it.
+     */
+    record Sample(String name, Histogram latencies, double[] intervalRps) {
+    }
+
+    /**
+     * A run as stored in a baseline file.
+     */
+    record Baseline(int version, String properties, long createdEpochMillis, List<Sample> samples) {
+
+        Map<String, Sample> byName() {
+            Map<String, Sample> byName = new LinkedHashMap<>();
+            samples.forEach(sample -> byName.put(sample.name(), sample));
+            return byName;
+        }
+    }
+
+    /**
+     * A 95% confidence interval around an estimate, or null bounds when there were too few samples.
+     */
+    record Estimate(double value, Double lower, Double upper) {
+
+        boolean hasInterval() {
+            return lower != null && upper != null;
+        }
+    }
+
+    /**
+     * One metric of one sample compared with its baseline.
+     */
+    record Check(String name, String metric, Estimate baseline, Estimate current, Verdict verdict) {
+
+        /**
+         * Relative change of the current figure against the baseline, e.g. 0.3 for 30% higher.
+         */
+        double change() {
+            return baseline == null || baseline.value() == 0 ? 0 : current.value() / baseline.value() - 1;
+        }
+    }
+
+    // JSON form of a baseline: histograms compressed and Base64 encoded
+    private record StoredSample(String name, String latencies, double[] intervalRps) {
+    }
+
+    private record StoredBaseline(int version, String properties, long createdEpochMillis, List<StoredSample> samples) {
+    }
+
+    static void write(Baseline baseline, Path file) throws IOException {
+        List<StoredSample> samples = new ArrayList<>();
+        for (Sample sample : baseline.samples()) {
+            samples.add(new StoredSample(sample.name(), LatencyRecorder.encode(sample.latencies()), sample.intervalRps()));
+        }
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(),
+                new StoredBaseline(baseline.version(), baseline.properties(), baseline.createdEpochMillis(), samples));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the file was written in another format version
+     */
+    static Baseline read(Path file) throws IOException {
+        StoredBaseline stored = new ObjectMapper().readValue(file.toFile(), StoredBaseline.class);
+        if (stored.version() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Baseline " + file + " has format version " + stored.version()
+                    + ", expected " + FORMAT_VERSION + "; record it again");
+        }
+        List<Sample> samples = new ArrayList<>();
+        for (StoredSample sample : stored.samples()) {
+            samples.add(new Sample(sample.name(), LatencyRecorder.decode(sample.latencies()), sample.intervalRps()));
+        }
+        return new Baseline(stored.version(), stored.properties(), stored.createdEpochMillis(), samples);
+    }
+
+    /**
+     * Checks p50, p99 and throughput of every current sample against the baseline sample of the same name.
+     *
+     * @param tolerance relative change tolerated before a significant change counts as a regression, e.g. 0.1
+     */
+    static List<Check> compare(Baseline baseline, List<Sample> current, double tolerance) {
+        Map<String, Sample> baselineSamples = baseline.byName();
+        List<Check> checks = new ArrayList<>();
+        for (Sample sample : current) {
+            Sample before = baselineSamples.get(sample.name());
+            if (before == null) {
+                checks.add(new Check(sample.name(), "all", null, new Estimate(0, null, null), Verdict.NO_BASELINE));
+                continue;
+            }
+            checks.add(latencyCheck(sample.name(), "p50", before, sample, 50, tolerance));
+            checks.add(latencyCheck(sample.name(), "p99", before, sample, 99, tolerance));
+            if (sample.intervalRps().length > 0 || before.intervalRps().length > 0) {
+                Estimate was = mean(before.intervalRps());
+                Estimate now = mean(sample.intervalRps());
+                // Lower throughput is worse
+                checks.add(new Check(sample.name(), "rps", was, now, verdict(-was.value(), negate(was), -now.value(),
+                        negate(now), tolerance)));
+            }
+        }
+        return checks;
+    }
+
+    /**
+     * Whether any check found a regression.
+     */
+    static boolean regressed(List<Check> checks) {
+        return checks.stream().anyMatch(check -> check.verdict() == Verdict.REGRESSION);
+    }
+
+    private static Check latencyCheck(String name, String metric, Sample before, Sample sample, double percentile,
+                                      double tolerance) {
+        Estimate was = percentile(before.latencies(), percentile);
+        Estimate now = percentile(sample.latencies(), percentile);
+        return new Check(name, metric, was, now, verdict(was.value(), was, now.value(), now, tolerance));
+    }
+
+    // Higher is worse here; throughput is passed negated
+    private static Verdict verdict(double was, Estimate wasInterval, double now, Estimate nowInterval, double tolerance) {
+        if (!wasInterval.hasInterval() || !nowInterval.hasInterval()) {
+            return Verdict.TOO_FEW_SAMPLES;
+        }
+        double margin = tolerance * Math.abs(was);
+        if (nowInterval.lower() > wasInterval.upper() && now > was + margin) {
+            return Verdict.REGRESSION;
+        }
+        if (nowInterval.upper() < wasInterval.lower() && now < was - margin) {
+            return Verdict.IMPROVED;
+        }
+        return Verdict.OK;
+    }
+
+    private static Estimate negate(Estimate estimate) {
+        return estimate.hasInterval() ? new Estimate(-estimate.value(), -estimate.upper(), -estimate.lower()) : estimate;
+    }
+
+    /**
+     * A percentile of a histogram in milliseconds, with the 95% confidence interval given by the order statistics
+     * around its rank; no interval when that rank range runs past either end of the recorded values.
+     */
+    static Estimate percentile(Histogram histogram, double percentile) {
+        long n = histogram.getTotalCount();
+        if (n == 0) {
+            return new Estimate(0, null, null);
+        }
+        double value = histogram.getValueAtPercentile(percentile) / 1000.0;
+        double q = percentile / 100;
+        double spread = Z_95 * Math.sqrt(n * q * (1 - q));
+        long lowerRank = (long) Math.floor(n * q - spread);
+        long upperRank = (long) Math.ceil(n * q + spread) + 1;
+        if (lowerRank < 1 || upperRank > n) {
+            return new Estimate(value, null, null);
+        }
+        return new Estimate(value, histogram.getValueAtPercentile(100.0 * lowerRank / n) / 1000.0,
+                histogram.getValueAtPercentile(100.0 * upperRank / n) / 1000.0);
+    }
+
+    /**
+     * The mean of per-interval samples with its Student t 95% confidence interval, leaving out the last, partial
+     * interval; no interval with fewer than three full intervals.
+     */
+    static Estimate mean(double[] intervalSamples) {
+        double[] samples = intervalSamples.length > 1
+                ? Arrays.copyOf(intervalSamples, intervalSamples.length - 1) : intervalSamples;
+        int n = samples.length;
+        double mean = Arrays.stream(samples).average().orElse(0);
+        if (n < MIN_INTERVALS) {
+            return new Estimate(mean, null, null);
+        }
+        double variance = Arrays.stream(samples).map(x -> (x - mean) * (x - mean)).sum() / (n - 1);
+        double t = n - 1 <= T_95.length ? T_95[n - 2] : Z_95;
+        double halfWidth = t * Math.sqrt(variance / n);
+        return new Estimate(mean, mean - halfWidth, mean + halfWidth);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.fx.load;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares synthetic runs: the same latency distribution passes, a 30% slower one fails, small samples are judged only
+ * where they give a confidence interval, and a baseline survives being written and read back.
+ */
+public class RegressionGateTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void noiseWithinTheSameDistributionIsNotARegression() {
+        RegressionGate.Baseline baseline = baseline(sample("Load Test", 10_000, 1.0, 1), rps(100, 1));
+
+        List<RegressionGate.Check> checks = RegressionGate.compare(baseline,
+                List.of(withRps(sample("Load Test", 10_000, 1.0, 2), rps(100, 2))), 0.1);
+
+        Assertions.assertEquals(3, checks.size());
+        Assertions.assertFalse(RegressionGate.regressed(checks), checks.toString());
+    }
+
+    @Test
+    void thirtyPercentSlowerIsARegression() {
+        RegressionGate.Baseline baseline = baseline(sample("Load Test", 10_000, 1.0, 1), rps(100, 1));
+
+        List<RegressionGate.Check> checks = RegressionGate.compare(baseline,
+                List.of(withRps(sample("Load Test", 10_000, 1.3, 2), rps(70, 2))), 0.1);
+
+        Assertions.assertTrue(RegressionGate.regressed(checks));
+        for (RegressionGate.Check check : checks) {
+            Assertions.assertEquals(RegressionGate.Verdict.REGRESSION, check.verdict(), check.toString());
+        }
+        Assertions.assertEquals(0.3, checks.get(0).change(), 0.05);
+    }
+
+    @Test
+    void smallSamplesAreJudgedOnlyWhereTheyGiveAnInterval() {
+        RegressionGate.Baseline baseline = baseline(sample("Baseline Test", 20, 1.0, 1), new double[]{50});
+
+        List<RegressionGate.Check> checks = RegressionGate.compare(baseline, List.of(
+                withRps(sample("Baseline Test", 20, 3.0, 2), new double[]{10}), sample("Async HTTP_2", 100, 1.0, 3)), 0.1);
+
+        Assertions.assertEquals(RegressionGate.Verdict.REGRESSION, checks.get(0).verdict(), "p50 of 20 requests, 3x slower");
+        Assertions.assertEquals(RegressionGate.Verdict.TOO_FEW_SAMPLES, checks.get(1).verdict(), "p99 of 20 requests");
+        Assertions.assertEquals(RegressionGate.Verdict.TOO_FEW_SAMPLES, checks.get(2).verdict(), "one interval");
+        Assertions.assertEquals(RegressionGate.Verdict.NO_BASELINE, checks.get(3).verdict());
+    }
+
+    @Test
+    void baselineSurvivesWritingAndReading() throws Exception {
+        RegressionGate.Baseline baseline = baseline(sample("Soak Test / POST /trades", 1_000, 1.0, 1), rps(90, 1));
+        Path file = directory.resolve("baselines/loadtest.json");
+
+        RegressionGate.write(baseline, file);
+        RegressionGate.Baseline read = RegressionGate.read(file);
+
+        Assertions.assertEquals("loadtest_low.properties", read.properties());
+        RegressionGate.Sample sample = read.samples().get(0);
+        Assertions.assertEquals("Soak Test / POST /trades", sample.name());
+        Assertions.assertEquals(baseline.samples().get(0).latencies(), sample.latencies());
+        Assertions.assertArrayEquals(baseline.samples().get(0).intervalRps(), sample.intervalRps());
+    }
+
+    // Log-normal latencies around 10 ms, scaled by a factor
+    private static RegressionGate.Sample sample(String name, int requests, double scale, long seed) {
+        Random random = new Random(seed);
+        Histogram histogram = new Histogram(LatencyRecorder.HIGHEST_TRACKABLE_MICROS, 3);
+        for (int i = 0; i < requests; i++) {
+            histogram.recordValue((long) (10_000 * scale * Math.exp(0.5 * random.nextGaussian())));
+        }
+        return new RegressionGate.Sample(name, histogram, new double[0]);
+    }
+
+    private static RegressionGate.Sample withRps(RegressionGate.Sample sample, double[] rps) {
+        return new RegressionGate.Sample(sample.name(), sample.latencies(), rps);
+    }
+
+    // Twenty intervals around a mean throughput, plus a partial last one
+    private static double[] rps(double mean, long seed) {
+        Random random = new Random(seed);
+        double[] rps = new double[21];
+        for (int i = 0; i < 20; i++) {
+            rps[i] = mean * (1 + 0.05 * random.nextGaussian());
+        }
+        rps[20] = mean / 10;
+        return rps;
+    }
+
+    private static RegressionGate.Baseline baseline(RegressionGate.Sample sample, double[] rps) {
+        return new RegressionGate.Baseline(RegressionGate.FORMAT_VERSION, "loadtest_low.properties", 0,
+                List.of(withRps(sample, rps)));
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.fx.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Samples the server's JVM, pools and tables through its Actuator metrics endpoint, once per
+ * {@link IntervalReporter} interval, so each interval's latencies sit next to the server state they were measured
+ * under.
+ *
+ * A sample holds, as far as the server publishes them:
+ * - heapUsedMb and heapAfterGcMb (long-lived heap after the last major collection, {@code jvm.gc.live.data.size})
+ * - gcPauses and gcPauseMs, both since the previous sample
+ * - liveThreads, tomcatBusyThreads, hikariActive and hikariPending
+ * - serverCpu (percent of the server's cores)
+ * - rows.&lt;table&gt; for every table of {@code fx.db.table.rows}
+ *
+ * Each metric is one small HTTP request to the server; at the default one-second interval that is negligible next
+ * to the load itself. Requests time out after {@value #TIMEOUT_SECONDS} s, and {@link #sampleAsync} samples on the
+ * sampler's own thread, so a server slowed down by the load delays its samples but never the intervals. {@link #trend} fits a line through a metric over a scenario's samples to flag steady growth,
+ * the signature of a leak in a soak run.
+ */
+final class ServerSampler implements AutoCloseable {
+
+    static final String HEAP_AFTER_GC = "heapAfterGcMb";
+    static final String LIVE_THREADS = "liveThreads";
+    static final String ROWS = "rows.";
+    // Metrics whose steady growth during a scenario points to a leak rather than to load
+    static final List<String> LEAK_INDICATORS = List.of(HEAP_AFTER_GC, LIVE_THREADS);
+
+    static final int TIMEOUT_SECONDS = 2;
+    private static final double MB = 1024 * 1024;
+    private static final int MIN_TREND_SAMPLES = 5;
+    private static final double MIN_TREND_CORRELATION = 0.8;
+
+    private final String actuatorUrl;
+    private final CloseableHttpClient client = HttpClients.custom()
+            .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                    .setDefaultConnectionConfig(ConnectionConfig.custom()
+                            .setConnectTimeout(Timeout.ofSeconds(TIMEOUT_SECONDS))
+                            .setSocketTimeout(Timeout.ofSeconds(TIMEOUT_SECONDS))
+                            .build())
+                    .build())
+            .setDefaultRequestConfig(RequestConfig.custom()
+                    .setConnectionRequestTimeout(Timeout.ofSeconds(TIMEOUT_SECONDS))
+                    .setResponseTimeout(Timeout.ofSeconds(TIMEOUT_SECONDS))
+                    .build())
+            .build();
+    private final ObjectMapper json = new ObjectMapper();
+    private final List<Metric> metrics = new ArrayList<>();
+    private final Map<String, Double> previousTotals = new HashMap<>();
+    private final ExecutorService background = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "server-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicReference<CompletableFuture<Map<String, Double>>> pending = new AtomicReference<>();
+
+    /**
+     * One column of a sample: a statistic of an Actuator metric, optionally narrowed by a tag, scaled, and for
+     * running totals turned into the change since the previous sample.
+     */
+    private record Metric(String column, String name, String tag, String statistic, double scale, boolean delta) {
+    }
+
+    /**
+     * How a metric developed over a scenario: the first, last and highest sample, the growth of the fitted line from
+     * the first to the last sample relative to its start, and how closely the samples follow that line.
+     */
+    record Trend(String metric, int samples, double first, double last, double max, double growth, double correlation,
+                 boolean growing) {
+    }
+
+    /**
+     * @param actuatorUrl the server's Actuator base URL, e.g. {@code http://localhost:8080/actuator}
+     * @throws IOException if the metrics endpoint cannot be reached
+     */
+    ServerSampler(String actuatorUrl) throws IOException {
+        this.actuatorUrl = actuatorUrl;
+        if (get("/metrics") == null) {
+            throw new IOException("No metrics endpoint at " + actuatorUrl + "/metrics");
+        }
+        metrics.add(new Metric("heapUsedMb", "jvm.memory.used", "area:heap", "VALUE", 1 / MB, false));
+        metrics.add(new Metric(HEAP_AFTER_GC, "jvm.gc.live.data.size", null, "VALUE", 1 / MB, false));
+        metrics.add(new Metric("gcPauses", "jvm.gc.pause", null, "COUNT", 1, true));
+        metrics.add(new Metric("gcPauseMs", "jvm.gc.pause", null, "TOTAL_TIME", 1000, true));
+        metrics.add(new Metric(LIVE_THREADS, "jvm.threads.live", null, "VALUE", 1, false));
+        metrics.add(new Metric("tomcatBusyThreads", "tomcat.threads.busy", null, "VALUE", 1, false));
+        metrics.add(new Metric("hikariActive", "hikaricp.connections.active", null, "VALUE", 1, false));
+        metrics.add(new Metric("hikariPending", "hikaricp.connections.pending", null, "VALUE", 1, false));
+        metrics.add(new Metric("serverCpu", "process.cpu.usage", null, "VALUE", 100, false));
+        JsonNode tables = get("/metrics/fx.db.table.rows");
+        if (tables != null) {
+            for (JsonNode tag : tables.path("availableTags")) {
+                if (tag.path("tag").asText().equals("table")) {
+                    for (JsonNode table : tag.path("values")) {
+                        metrics.add(new Metric(ROWS + table.asText(), "fx.db.table.rows", "table:" + table.asText(),
+                                "VALUE", 1, false));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes one sample. Metrics the server does not publish are left out; running totals are reported as the change
+     * since the previous sample.
+     */
+    synchronized Map<String, Double> sample() {
+        Map<String, JsonNode> responses = new HashMap<>();
+        Map<String, Double> sample = new LinkedHashMap<>();
+        for (Metric metric : metrics) {
+            String path = "/metrics/" + metric.name() + (metric.tag() == null ? "" : "?tag=" + metric.tag());
+            JsonNode response = responses.computeIfAbsent(path, this::get);
+            Double value = statistic(response, metric.statistic());
+            if (value == null) {
+                continue;
+            }
+            value *= metric.scale();
+            if (metric.delta()) {
+                Double previous = previousTotals.put(metric.column(), value);
+                value = previous == null ? 0 : value - previous;
+            }
+            sample.put(metric.column(), value);
+        }
+        return sample;
+    }
+
+    /**
+     * Starts a {@link #sample} on the sampler's own thread.
+     *
+     * @return the sample once taken, or null while the previous one is still running
+     */
+    CompletableFuture<Map<String, Double>> sampleAsync() {
+        CompletableFuture<Map<String, Double>> previous = pending.get();
+        if (previous != null && !previous.isDone()) {
+            return null;
+        }
+        CompletableFuture<Map<String, Double>> next = new CompletableFuture<>();
+        if (!pending.compareAndSet(previous, next)) {
+            return null;
+        }
+        background.execute(() -> {
+            try {
+                next.complete(sample());
+            } catch (RuntimeException e) {
+                next.completeExceptionally(e);
+            }
+        });
+        return next;
+    }
+
+    /**
+     * The server's total JIT compilation time in milliseconds ({@code jvm.compilation.time}), for warm-up to judge
+     * when the server's hot paths are compiled.
+     *
+     * @return null if the server does not publish it or cannot be reached
+     */
+    Double compilationMillis() {
+        return statistic(get("/metrics/jvm.compilation.time"), "COUNT");
+    }
+
+    private static Double statistic(JsonNode response, String statistic) {
+        if (response == null) {
+            return null;
+        }
+        for (JsonNode measurement : response.path("measurements")) {
+            if (measurement.path("statistic").asText().equals(statistic)) {
+                double value = measurement.path("value").asDouble(Double.NaN);
+                return Double.isNaN(value) ? null : value;
+            }
+        }
+        return null;
+    }
+
+    // The parsed response, or null if the server does not publish the metric or cannot be reached
+    private JsonNode get(String path) {
+        try {
+            HttpGet get = new HttpGet(URI.create(actuatorUrl + path));
+            try (ClassicHttpResponse response = client.executeOpen(null, get, null)) {
+                byte[] body = response.getEntity() == null ? new byte[0] : EntityUtils.toByteArray(response.getEntity());
+                return response.getCode() == 200 ? json.readTree(body) : null;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Fits a least-squares line through a metric's samples over time. The metric is growing when there are at least
+     * five samples, they follow the line closely (correlation of at least 0.8) and the line rises by at least
+     * {@code minGrowth} of its starting value over the scenario. A line starting at zero or below, e.g. heapAfterGcMb
+     * before the first major collection, is not judged.
+     *
+     * @return null when no interval has a sample of the metric
+     */
+    static Trend trend(String metric, List<IntervalReporter.Interval> intervals, double minGrowth) {
+        List<double[]> points = new ArrayList<>();
+        for (IntervalReporter.Interval interval : intervals) {
+            Double value = interval.server().get(metric);
+            if (value != null) {
+                points.add(new double[]{interval.elapsedSeconds(), value});
+            }
+        }
+        if (points.isEmpty()) {
+            return null;
+        }
+        int n = points.size();
+        double first = points.get(0)[1];
+        double last = points.get(n - 1)[1];
+        double max = points.stream().mapToDouble(p -> p[1]).max().orElse(0);
+        double meanX = points.stream().mapToDouble(p -> p[0]).average().orElse(0);
+        double meanY = points.stream().mapToDouble(p -> p[1]).average().orElse(0);
+        double sxx = 0;
+        double syy = 0;
+        double sxy = 0;
+        for (double[] p : points) {
+            sxx += (p[0] - meanX) * (p[0] - meanX);
+            syy += (p[1] - meanY) * (p[1] - meanY);
+            sxy += (p[0] - meanX) * (p[1] - meanY);
+        }
+        if (n < 2 || sxx == 0 || syy == 0) {
+            return new Trend(metric, n, first, last, max, 0, 0, false);
+        }
+        double slope = sxy / sxx;
+        double start = meanY + slope * (points.get(0)[0] - meanX);
+        double rise = slope * (points.get(n - 1)[0] - points.get(0)[0]);
+        // A line from zero (e.g. no major collection yet) has no relative growth to judge
+        double growth = start <= 0 ? 0 : rise / start;
+        double correlation = sxy / Math.sqrt(sxx * syy);
+        boolean growing = n >= MIN_TREND_SAMPLES && correlation >= MIN_TREND_CORRELATION && growth >= minGrowth;
+        return new Trend(metric, n, first, last, max, growth, correlation, growing);
+    }
+
+    @Override
+    public void close() throws IOException {
+        background.shutdownNow();
+        client.close();
+    }
+}
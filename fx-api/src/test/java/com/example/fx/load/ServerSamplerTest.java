@@ -0,0 +1,113 @@
+package com.example.fx.load;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Samples a stub Actuator whose GC pause total grows with every scrape, and fits trends through growing and flat
+ * series.
+ */
+public class ServerSamplerTest {
+
+    private HttpServer server;
+    private final AtomicInteger gcScrapes = new AtomicInteger();
+
+    @BeforeEach
+    void startStubActuator() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/actuator/metrics", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            String query = exchange.getRequestURI().getQuery();
+            String body = switch (path) {
+                case "/actuator/metrics" -> "{\"names\":[]}";
+                case "/actuator/metrics/jvm.memory.used" -> "tag=area:heap".equals(query) ? value(256 * 1024 * 1024) : null;
+                case "/actuator/metrics/jvm.threads.live" -> value(42);
+                case "/actuator/metrics/jvm.gc.pause" -> {
+                    int n = gcScrapes.incrementAndGet();
+                    yield "{\"measurements\":[{\"statistic\":\"COUNT\",\"value\":" + 2 * n
+                            + "},{\"statistic\":\"TOTAL_TIME\",\"value\":" + 0.005 * n + "}]}";
+                }
+                case "/actuator/metrics/fx.db.table.rows" -> query == null
+                        ? "{\"measurements\":[],\"availableTags\":[{\"tag\":\"table\",\"values\":[\"trade\"]}]}"
+                        : value(1000);
+                default -> null;
+            };
+            byte[] bytes = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(body == null ? 404 : 200, bytes.length == 0 ? -1 : bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopStubActuator() {
+        server.stop(0);
+    }
+
+    @Test
+    void samplesPublishedMetricsAndTurnsTotalsIntoDeltas() throws Exception {
+        try (ServerSampler sampler = new ServerSampler("http://localhost:" + server.getAddress().getPort() + "/actuator")) {
+            Map<String, Double> first = sampler.sample();
+            Map<String, Double> second = sampler.sample();
+
+            Assertions.assertEquals(256.0, first.get("heapUsedMb"), 0.001);
+            Assertions.assertEquals(42.0, first.get(ServerSampler.LIVE_THREADS));
+            Assertions.assertEquals(1000.0, first.get(ServerSampler.ROWS + "trade"));
+            // No previous total yet
+            Assertions.assertEquals(0.0, first.get("gcPauses"));
+            Assertions.assertEquals(2.0, second.get("gcPauses"));
+            Assertions.assertEquals(5.0, second.get("gcPauseMs"), 0.001);
+            // Not published by the stub
+            Assertions.assertFalse(second.containsKey(ServerSampler.HEAP_AFTER_GC));
+            Assertions.assertFalse(second.containsKey("hikariActive"));
+        }
+    }
+
+    @Test
+    void refusesAServerWithoutMetricsEndpoint() {
+        Assertions.assertThrows(IOException.class,
+                () -> new ServerSampler("http://localhost:" + server.getAddress().getPort() + "/missing"));
+    }
+
+    @Test
+    void flagsSteadyGrowthButNotNoiseAroundAFlatLine() {
+        List<IntervalReporter.Interval> growing = new ArrayList<>();
+        List<IntervalReporter.Interval> flat = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            growing.add(interval(i, 100 + 10 * i));
+            flat.add(interval(i, i % 2 == 0 ? 105 : 95));
+        }
+
+        ServerSampler.Trend leak = ServerSampler.trend(ServerSampler.HEAP_AFTER_GC, growing, 0.2);
+        Assertions.assertTrue(leak.growing(), leak.toString());
+        Assertions.assertEquals(0.82, leak.growth(), 0.01);
+        Assertions.assertEquals(200.0, leak.last());
+
+        ServerSampler.Trend steady = ServerSampler.trend(ServerSampler.HEAP_AFTER_GC, flat, 0.2);
+        Assertions.assertFalse(steady.growing(), steady.toString());
+        Assertions.assertFalse(ServerSampler.trend(ServerSampler.HEAP_AFTER_GC, growing.subList(0, 4), 0.2).growing(),
+                "too few samples");
+        Assertions.assertNull(ServerSampler.trend(ServerSampler.LIVE_THREADS, growing, 0.2));
+    }
+
+    private static String value(double value) {
+        return "{\"measurements\":[{\"statistic\":\"VALUE\",\"value\":" + value + "}]}";
+    }
+
+    private static IntervalReporter.Interval interval(int second, double heapAfterGcMb) {
+        return new IntervalReporter.Interval(second * 1000L, second, 100, 0, 100, 0, 1, 2, 3, 4, 5,
+                Map.of(ServerSampler.HEAP_AFTER_GC, heapAfterGcMb));
+    }
+}
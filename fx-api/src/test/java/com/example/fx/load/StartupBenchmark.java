@@ -0,0 +1,126 @@
+package com.example.fx.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StartupBenchmark measures time-to-first-successful-request of fx-api.
+ *
+ * It starts the application repeatedly as a child JVM and polls {@code GET /api/quotes/count} until it
+ * answers 200, timing from process launch. Two variants are compared:
+ * - Default: the plain boot jar, no AOT, no CDS, everything eager
+ * - Fast startup: extracted jar with the AppCDS archive, the AOT-processed context and lazy springdoc
+ *
+ * Run by the fast-startup Maven profile after the archive has been trained:
+ * mvn -Pfast-startup verify -pl fx-api
+ *
+ * Usage: StartupBenchmark &lt;java&gt; &lt;boot jar&gt; &lt;fast-startup dir&gt; [iterations]
+ */
+public class StartupBenchmark {
+
+    private static final long STARTUP_TIMEOUT_MS = 120_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: StartupBenchmark <java> <boot jar> <fast-startup dir> [iterations]");
+            System.exit(2);
+        }
+        String java = args[0];
+        File bootJar = new File(args[1]);
+        File fastDir = new File(args[2]);
+        int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        File fastJar = new File(fastDir, bootJar.getName());
+        File archive = new File(fastDir, "application.jsa");
+
+        List<Long> defaultTimes = new ArrayList<>();
+        List<Long> fastTimes = new ArrayList<>();
+        for (int i = 0; i < iterations; i++) {
+            // Alternate the variants so that machine noise hits both equally
+            defaultTimes.add(timeToFirstRequest(List.of(java, "-jar", bootJar.getPath())));
+            fastTimes.add(timeToFirstRequest(List.of(java,
+                    "-XX:SharedArchiveFile=" + archive.getPath(),
+                    "-Dspring.aot.enabled=true",
+                    "-Dspring.profiles.active=fast-startup",
+                    "-jar", fastJar.getPath())));
+        }
+
+        System.out.println();
+        System.out.println("==========================================================================");
+        System.out.println("                 STARTUP BENCHMARK (time to first successful request)");
+        System.out.println("==========================================================================");
+        System.out.printf("%-28s | %-10s | %-10s | %-10s | %-10s%n", "Variant", "Runs", "Min(ms)", "Median(ms)", "Max(ms)");
+        System.out.println("--------------------------------------------------------------------------");
+        printRow("Default", defaultTimes);
+        printRow("AOT + AppCDS + lazy docs", fastTimes);
+        System.out.println("==========================================================================");
+        System.out.printf("Median speed-up: %.2fx%n", (double) median(defaultTimes) / median(fastTimes));
+        System.out.println();
+    }
+
+    /**
+     * Launches the application on a free port and returns the milliseconds until the first 200 response.
+     */
+    private static long timeToFirstRequest(List<String> command) throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> fullCommand = new ArrayList<>(command);
+        fullCommand.add("--server.port=" + port);
+        URI uri = URI.create("http://localhost:" + port + "/api/quotes/count");
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(2)).GET().build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(fullCommand)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            while (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(STARTUP_TIMEOUT_MS)) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with code " + process.exitValue() + ": " + fullCommand);
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(5);
+            }
+            throw new IllegalStateException("No successful request within " + STARTUP_TIMEOUT_MS + " ms: " + fullCommand);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void printRow(String variant, List<Long> times) {
+        System.out.printf("%-28s | %-10d | %-10d | %-10d | %-10d%n",
+                variant, times.size(), Collections.min(times), median(times), Collections.max(times));
+    }
+
+    private static long median(List<Long> times) {
+        Long[] sorted = times.toArray(new Long[0]);
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.fx.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Decides when warm-up traffic has reached steady state, from one latency histogram and JIT reading per window.
+ *
+ * The detector keeps the p50 and p99 of the last {@code windows} windows. The system counts as steady once all of
+ * them hold at least {@code minRequests} requests, the coefficient of variation (standard deviation over mean) of
+ * both the p50s and the p99s is at most {@code maxVariation}, and the JIT compiled for at most
+ * {@code maxJitMillis} per window on average over those windows. Early windows are slow and erratic while classes
+ * load, connections open and the JIT compiles hot paths; they drop out of the rolling window as traffic goes on.
+ */
+final class SteadyStateDetector {
+
+    // Stands in for a window with too few requests; ArrayDeque takes no nulls
+    private static final double[] TOO_FEW = new double[0];
+
+    private final int windows;
+    private final long minRequests;
+    private final double maxVariation;
+    private final long maxJitMillis;
+    private final Deque<double[]> recent = new ArrayDeque<>();
+    private final Deque<Long> jitMillis = new ArrayDeque<>();
+    private long jitMillisInRecent;
+
+    SteadyStateDetector(int windows, long minRequests, double maxVariation, long maxJitMillis) {
+        this.windows = windows;
+        this.minRequests = minRequests;
+        this.maxVariation = maxVariation;
+        this.maxJitMillis = maxJitMillis;
+    }
+
+    /**
+     * Adds the latencies (in microseconds) and JIT compilation milliseconds of one window.
+     *
+     * @return whether the last {@code windows} windows are steady
+     */
+    boolean add(Histogram window, long windowJitMillis) {
+        recent.addLast(window.getTotalCount() < minRequests ? TOO_FEW
+                : new double[]{window.getValueAtPercentile(50), window.getValueAtPercentile(99)});
+        jitMillis.addLast(windowJitMillis);
+        jitMillisInRecent += windowJitMillis;
+        if (recent.size() > windows) {
+            recent.removeFirst();
+            jitMillisInRecent -= jitMillis.removeFirst();
+        }
+        return isSteady();
+    }
+
+    boolean isSteady() {
+        if (recent.size() < windows || recent.contains(TOO_FEW)) {
+            return false;
+        }
+        return variation(0) <= maxVariation && variation(1) <= maxVariation
+                && jitMillisInRecent <= maxJitMillis * windows;
+    }
+
+    /**
+     * JIT compilation milliseconds over the recent windows.
+     */
+    long recentJitMillis() {
+        return jitMillisInRecent;
+    }
+
+    /**
+     * Coefficient of variation of the p50s (index 0) or p99s (index 1) of the recent windows.
+     */
+    double variation(int index) {
+        double sum = 0;
+        double sumOfSquares = 0;
+        for (double[] percentiles : recent) {
+            if (percentiles == TOO_FEW) {
+                return Double.POSITIVE_INFINITY;
+            }
+            sum += percentiles[index];
+            sumOfSquares += percentiles[index] * percentiles[index];
+        }
+        double mean = sum / recent.size();
+        double variance = Math.max(0, sumOfSquares / recent.size() - mean * mean);
+        return mean == 0 ? 0 : Math.sqrt(variance) / mean;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.fx.load;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Feeds the detector synthetic windows: a slow, erratic start that settles, thin windows, and ongoing JIT activity.
+ */
+public class SteadyStateDetectorTest {
+
+    @Test
+    void becomesSteadyOnceTheRollingWindowSettles() {
+        SteadyStateDetector detector = new SteadyStateDetector(3, 10, 0.2, 5);
+
+        Assertions.assertFalse(detector.add(window(900, 5_000), 0));
+        Assertions.assertFalse(detector.add(window(300, 1_500), 0));
+        Assertions.assertFalse(detector.add(window(100, 400), 0));
+        Assertions.assertFalse(detector.add(window(95, 380), 0));
+        Assertions.assertTrue(detector.add(window(105, 420), 0));
+    }
+
+    @Test
+    void thinWindowsAndJitActivityAreNotSteady() {
+        SteadyStateDetector detector = new SteadyStateDetector(2, 10, 0.2, 5);
+
+        detector.add(window(100, 400), 0);
+        Assertions.assertFalse(detector.add(sparse(100), 0));
+        Assertions.assertFalse(detector.add(window(100, 400), 40));
+        Assertions.assertFalse(detector.add(window(100, 400), 0));
+        Assertions.assertTrue(detector.add(window(100, 400), 0));
+    }
+
+    // 100 requests: 50 at p50, 49 in between, one at the tail
+    private static Histogram window(long p50Micros, long p99Micros) {
+        Histogram histogram = new Histogram(LatencyRecorder.HIGHEST_TRACKABLE_MICROS, 3);
+        histogram.recordValueWithCount(p50Micros, 50);
+        histogram.recordValueWithCount((p50Micros + p99Micros) / 2, 49);
+        histogram.recordValue(p99Micros);
+        return histogram;
+    }
+
+    private static Histogram sparse(long micros) {
+        Histogram histogram = new Histogram(LatencyRecorder.HIGHEST_TRACKABLE_MICROS, 3);
+        histogram.recordValue(micros);
+        return histogram;
+    }
+}
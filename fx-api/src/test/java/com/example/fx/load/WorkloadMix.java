@@ -0,0 +1,392 @@
+package com.example.fx.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A weighted mix of user operations across the FX endpoints, read from a workload file such as
+ * {@code workload.properties}.
+ *
+ * Each operation is one user action: a single request, or a chain of requests where later steps use values from
+ * earlier responses (e.g. book a trade on the quote an RFQ returned). Operations are drawn by weight, currency pairs
+ * by their own weights, and users think for an exponentially distributed time (mean {@code thinkTimeMs}) between
+ * operations. The file format:
+ *
+ * <pre>
+ * pairs = EUR/USD:35, USD/JPY:20, ...
+ * thinkTimeMs = 500
+ * operation.&lt;name&gt;.weight = 10
+ * operation.&lt;name&gt;.thinkTimeMs = 2000              (optional)
+ * operation.&lt;name&gt;.steps = METHOD path [body.json] [name=value ...] [-&gt; capture] ; ...
+ * </pre>
+ *
+ * Paths, body templates and bound values may refer to {@code ${pair}} (URL-encoded in paths), {@code ${quoteId}} and
+ * {@code ${tradeId}} (fresh per operation), {@code ${hourAgo}} (ISO date-time) and {@code ${capture.field}}: a field
+ * of the JSON response a previous step captured with {@code -> capture}. Captures outlive the operation, and are also
+ * shared between users through a small ring per capture, so a read by ID finds a recent entity even when its own
+ * user has not created one. An operation that still refers to a missing value is skipped. Within an operation every
+ * reference to a capture resolves to the same entity, and an entity a step deleted, or found gone (404, e.g. deleted
+ * by another user or expired), is dropped from the captures, see {@link Session#forget}.
+ */
+final class WorkloadMix {
+
+    private static final Pattern VARIABLE = Pattern.compile("\\$\\{([^}]+)}");
+    private static final int SHARED_CAPTURES = 256;
+
+    private final List<Operation> operations = new ArrayList<>();
+    private final int[] cumulativeWeights;
+    private final List<String> pairs = new ArrayList<>();
+    private final int[] cumulativePairWeights;
+    private final long thinkTimeMs;
+    private final Map<String, Ring> shared = new ConcurrentHashMap<>();
+
+    /**
+     * One request of an operation. {@code label} names the endpoint in the per-operation results.
+     */
+    record Step(String method, String path, String body, Map<String, String> bindings, String capture, String label) {
+
+        boolean isRead() {
+            return method.equals("GET");
+        }
+    }
+
+    record Operation(String name, int weight, List<Step> steps, long thinkTimeMs) {
+    }
+
+    WorkloadMix(Properties workload, TemplateLoader templates) throws IOException {
+        thinkTimeMs = Long.parseLong(workload.getProperty("thinkTimeMs", "0"));
+        TreeSet<String> names = new TreeSet<>();
+        for (String key : workload.stringPropertyNames()) {
+            if (key.startsWith("operation.") && key.endsWith(".weight")) {
+                names.add(key.substring("operation.".length(), key.length() - ".weight".length()));
+            }
+        }
+        for (String name : names) {
+            String prefix = "operation." + name + ".";
+            int weight = Integer.parseInt(workload.getProperty(prefix + "weight").trim());
+            String steps = workload.getProperty(prefix + "steps");
+            if (steps == null) {
+                throw new IllegalArgumentException("Workload operation " + name + " has no steps");
+            }
+            List<Step> parsed = new ArrayList<>();
+            for (String step : steps.split(";")) {
+                parsed.add(parseStep(name, step.trim(), templates));
+            }
+            long think = Long.parseLong(workload.getProperty(prefix + "thinkTimeMs", String.valueOf(thinkTimeMs)));
+            operations.add(new Operation(name, weight, List.copyOf(parsed), think));
+        }
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("Workload defines no operations");
+        }
+        cumulativeWeights = cumulative(operations.stream().mapToInt(Operation::weight).toArray());
+
+        List<Integer> pairWeights = new ArrayList<>();
+        for (String entry : workload.getProperty("pairs", "EUR/USD:1").split(",")) {
+            String[] pairAndWeight = entry.trim().split(":");
+            pairs.add(pairAndWeight[0].trim());
+            pairWeights.add(pairAndWeight.length > 1 ? Integer.parseInt(pairAndWeight[1].trim()) : 1);
+        }
+        cumulativePairWeights = cumulative(pairWeights.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Reads a request body template by file name, e.g. from the test classpath.
+     */
+    interface TemplateLoader {
+        String load(String name) throws IOException;
+    }
+
+    /**
+     * Loads a workload file and its body templates from the classpath.
+     */
+    static WorkloadMix fromClasspath(String resource) throws IOException {
+        ClassLoader loader = WorkloadMix.class.getClassLoader();
+        Properties workload = new Properties();
+        try (InputStream in = loader.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("Workload file not found on the classpath: " + resource);
+            }
+            workload.load(in);
+        }
+        return new WorkloadMix(workload, name -> {
+            try (InputStream in = loader.getResourceAsStream(name)) {
+                if (in == null) {
+                    throw new IOException("Body template not found on the classpath: " + name);
+                }
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        });
+    }
+
+    // METHOD path [body.json] [name=value ...] [-> capture]
+    private static Step parseStep(String operation, String step, TemplateLoader templates) throws IOException {
+        String capture = null;
+        int arrow = step.indexOf("->");
+        if (arrow >= 0) {
+            capture = step.substring(arrow + 2).trim();
+            step = step.substring(0, arrow).trim();
+        }
+        String[] tokens = step.split("\\s+");
+        if (tokens.length < 2) {
+            throw new IllegalArgumentException("Workload operation " + operation + " has an invalid step: " + step);
+        }
+        String method = tokens[0].toUpperCase();
+        String path = tokens[1];
+        String body = null;
+        Map<String, String> bindings = new LinkedHashMap<>();
+        for (int i = 2; i < tokens.length; i++) {
+            int equals = tokens[i].indexOf('=');
+            if (equals > 0) {
+                bindings.put(tokens[i].substring(0, equals), tokens[i].substring(equals + 1));
+            } else {
+                body = templates.load(tokens[i]);
+            }
+        }
+        String label = method + " " + path.replace("${", "{");
+        return new Step(method, path, body, Map.copyOf(bindings), capture, label);
+    }
+
+    private static int[] cumulative(int[] weights) {
+        int[] cumulative = new int[weights.length];
+        int total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] < 0) {
+                throw new IllegalArgumentException("Workload weights must not be negative");
+            }
+            total += weights[i];
+            cumulative[i] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Workload weights must not all be zero");
+        }
+        return cumulative;
+    }
+
+    private static int pick(int[] cumulative, Random random) {
+        int point = random.nextInt(cumulative[cumulative.length - 1]);
+        for (int i = 0; i < cumulative.length; i++) {
+            if (point < cumulative[i]) {
+                return i;
+            }
+        }
+        return cumulative.length - 1;
+    }
+
+    List<Operation> operations() {
+        return operations;
+    }
+
+    Operation nextOperation(Random random) {
+        return operations.get(pick(cumulativeWeights, random));
+    }
+
+    String nextPair(Random random) {
+        return pairs.get(pick(cumulativePairWeights, random));
+    }
+
+    /**
+     * Share of reads (GET) among the requests the weights call for.
+     */
+    double expectedReadShare() {
+        double reads = 0;
+        double total = 0;
+        for (Operation operation : operations) {
+            for (Step step : operation.steps()) {
+                total += operation.weight();
+                reads += step.isRead() ? operation.weight() : 0;
+            }
+        }
+        return reads / total;
+    }
+
+    /**
+     * Think time after an operation: exponentially distributed around the operation's mean.
+     */
+    static long thinkTimeMs(Operation operation, Random random) {
+        return operation.thinkTimeMs() <= 0 ? 0 : (long) (-operation.thinkTimeMs() * Math.log(1 - random.nextDouble()));
+    }
+
+    Session newSession() {
+        return new Session();
+    }
+
+    /**
+     * The state of one simulated user: its captured responses and the variables of its current operation.
+     * Confined to the user's thread.
+     */
+    final class Session {
+
+        // Capture name to the fields of the entity last captured under it
+        private final Map<String, Map<String, String>> captured = new HashMap<>();
+        private final Map<String, String> variables = new HashMap<>();
+        // Capture name to the entity the current operation refers to
+        private final Map<String, Map<String, String>> referenced = new HashMap<>();
+
+        /**
+         * Starts an operation with a fresh currency pair and business IDs.
+         */
+        void begin(Random random) {
+            variables.clear();
+            referenced.clear();
+            String pair = nextPair(random);
+            variables.put("pair", pair);
+            variables.put("quoteId", String.format("Q%012d", random.nextLong(PayloadFactory.ID_LIMIT)));
+            variables.put("tradeId", String.format("T%012d", random.nextLong(PayloadFactory.ID_LIMIT)));
+            variables.put("hourAgo", LocalDateTime.now().minusHours(1).truncatedTo(ChronoUnit.SECONDS).toString());
+        }
+
+        /**
+         * The step's path with variables filled in and URL-encoded, or null if a value is missing.
+         */
+        String path(Step step, Random random) {
+            return resolve(step.path(), true, random);
+        }
+
+        /**
+         * The step's body with its bindings applied, or null if a value is missing. Steps without a body give "".
+         */
+        String body(Step step, Random random) {
+            for (Map.Entry<String, String> binding : step.bindings().entrySet()) {
+                String value = resolve(binding.getValue(), false, random);
+                if (value == null) {
+                    return null;
+                }
+                variables.put(binding.getKey(), value);
+            }
+            return step.body() == null ? "" : resolve(step.body(), false, random);
+        }
+
+        /**
+         * Keeps the scalar fields of a JSON object response as {@code capture.field}, for this user and all others.
+         */
+        void capture(Step step, JsonNode response) {
+            if (step.capture() == null || response == null || !response.isObject()) {
+                return;
+            }
+            Map<String, String> fields = new HashMap<>();
+            response.fields().forEachRemaining(field -> {
+                if (field.getValue().isValueNode() && !field.getValue().isNull()) {
+                    fields.put(field.getKey(), field.getValue().asText());
+                }
+            });
+            captured.put(step.capture(), fields);
+            referenced.remove(step.capture());
+            shared.computeIfAbsent(step.capture(), name -> new Ring()).add(fields);
+        }
+
+        /**
+         * Drops the entities the current operation referred to from this user's and the shared captures once a step
+         * deleted them (DELETE with 2xx) or found them gone (404), so no later operation refers to them again.
+         *
+         * @return true if the step got a 404 for a captured entity: the entity was deleted or expired since it was
+         * captured, which the mix expects rather than counts as an error
+         */
+        boolean forget(Step step, int status) {
+            boolean deleted = step.method().equals("DELETE") && status >= 200 && status < 300;
+            if (!deleted && status != 404) {
+                return false;
+            }
+            boolean gone = status == 404 && !referenced.isEmpty();
+            referenced.forEach((name, fields) -> {
+                captured.remove(name, fields);
+                Ring ring = shared.get(name);
+                if (ring != null) {
+                    ring.remove(fields);
+                }
+            });
+            referenced.clear();
+            return gone;
+        }
+
+        private String resolve(String template, boolean urlEncode, Random random) {
+            Matcher matcher = VARIABLE.matcher(template);
+            StringBuilder resolved = new StringBuilder();
+            while (matcher.find()) {
+                String value = lookup(matcher.group(1), random);
+                if (value == null) {
+                    return null;
+                }
+                if (urlEncode) {
+                    value = URLEncoder.encode(value, StandardCharsets.UTF_8);
+                }
+                matcher.appendReplacement(resolved, Matcher.quoteReplacement(value));
+            }
+            matcher.appendTail(resolved);
+            return resolved.toString();
+        }
+
+        private String lookup(String name, Random random) {
+            String value = variables.get(name);
+            int dot = name.indexOf('.');
+            if (value != null || dot <= 0) {
+                return value;
+            }
+            String capture = name.substring(0, dot);
+            Map<String, String> fields = referenced.get(capture);
+            if (fields == null) {
+                fields = captured.get(capture);
+            }
+            if (fields == null) {
+                Ring ring = shared.get(capture);
+                fields = ring == null ? null : ring.any(random);
+            }
+            if (fields == null) {
+                return null;
+            }
+            referenced.put(capture, fields);
+            return fields.get(name.substring(dot + 1));
+        }
+    }
+
+    /**
+     * The most recent captures of one name, overwritten round-robin; a dropped capture leaves its slot empty until
+     * it is overwritten.
+     */
+    private static final class Ring {
+
+        private final AtomicReferenceArray<Map<String, String>> entries = new AtomicReferenceArray<>(SHARED_CAPTURES);
+        private final AtomicLong next = new AtomicLong();
+
+        void add(Map<String, String> fields) {
+            entries.set((int) (next.getAndIncrement() % SHARED_CAPTURES), fields);
+        }
+
+        // From a random slot on, the first capture not dropped
+        Map<String, String> any(Random random) {
+            int size = (int) Math.min(next.get(), SHARED_CAPTURES);
+            int start = size == 0 ? 0 : random.nextInt(size);
+            for (int i = 0; i < size; i++) {
+                Map<String, String> fields = entries.get((start + i) % size);
+                if (fields != null) {
+                    return fields;
+                }
+            }
+            return null;
+        }
+
+        void remove(Map<String, String> fields) {
+            for (int i = 0; i < SHARED_CAPTURES; i++) {
+                entries.compareAndSet(i, fields, null);
+            }
+        }
+    }
+}
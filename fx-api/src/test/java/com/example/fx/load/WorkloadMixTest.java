@@ -0,0 +1,107 @@
+package com.example.fx.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Parses a small workload and walks an RFQ-and-book chain: variable resolution, captures, bindings and skipping,
+ * and dropping captures that were deleted or found gone.
+ */
+public class WorkloadMixTest {
+
+    private static final String WORKLOAD = """
+            pairs=EUR/USD:1
+            operation.lookup.weight=3
+            operation.lookup.steps=GET /quotes/${quote.id}
+            operation.cancel.weight=1
+            operation.cancel.steps=DELETE /quotes/${quote.id}
+            operation.book.weight=1
+            operation.book.steps=POST /quotes/rfq rfq.json -> quote ; POST /trades trade.json quoteId=${quote.quoteId}
+            """;
+
+    private static final Map<String, String> TEMPLATES = Map.of(
+            "rfq.json", "{\"currencyPair\": \"${pair}\"}",
+            "trade.json", "{\"tradeId\": \"${tradeId}\", \"quoteId\": \"${quoteId}\"}");
+
+    @Test
+    void bookingStepUsesTheQuoteCapturedFromTheRfq() throws Exception {
+        WorkloadMix mix = load();
+        WorkloadMix.Operation book = operation(mix, "book");
+        WorkloadMix.Session session = mix.newSession();
+        Random random = new Random(1);
+        session.begin(random);
+
+        WorkloadMix.Step rfq = book.steps().get(0);
+        Assertions.assertEquals("/quotes/rfq", session.path(rfq, random));
+        Assertions.assertEquals("{\"currencyPair\": \"EUR/USD\"}", session.body(rfq, random));
+        session.capture(rfq, new ObjectMapper().readTree("{\"id\": 7, \"quoteId\": \"Q12345\"}"));
+
+        String trade = session.body(book.steps().get(1), random);
+        Assertions.assertTrue(trade.contains("\"quoteId\": \"Q12345\""), trade);
+        Assertions.assertTrue(trade.matches(".*\"tradeId\": \"T\\d{12}\".*"), trade);
+
+        // Another user reads the captured quote through the shared captures
+        WorkloadMix.Session other = mix.newSession();
+        other.begin(random);
+        Assertions.assertEquals("/quotes/7", other.path(operation(mix, "lookup").steps().get(0), random));
+    }
+
+    @Test
+    void missingCapturesSkipAndWeightsGiveTheReadShare() throws Exception {
+        WorkloadMix mix = load();
+        WorkloadMix.Session session = mix.newSession();
+        Random random = new Random(1);
+        session.begin(random);
+
+        Assertions.assertNull(session.path(operation(mix, "lookup").steps().get(0), random));
+        Assertions.assertEquals("GET /quotes/{quote.id}", operation(mix, "lookup").steps().get(0).label());
+        // 3 reads against 3 writes (one per step of the booking chain, one cancellation)
+        Assertions.assertEquals(0.5, mix.expectedReadShare(), 1e-9);
+    }
+
+    @Test
+    void deletedAndGoneEntitiesAreDroppedFromTheCaptures() throws Exception {
+        WorkloadMix mix = load();
+        WorkloadMix.Step rfq = operation(mix, "book").steps().get(0);
+        WorkloadMix.Step lookup = operation(mix, "lookup").steps().get(0);
+        WorkloadMix.Step cancel = operation(mix, "cancel").steps().get(0);
+        WorkloadMix.Session creator = mix.newSession();
+        WorkloadMix.Session other = mix.newSession();
+        Random random = new Random(1);
+        creator.begin(random);
+        creator.capture(rfq, new ObjectMapper().readTree("{\"id\": 7}"));
+        creator.capture(rfq, new ObjectMapper().readTree("{\"id\": 8}"));
+
+        // Quote 8 expired on the server: the lookup's 404 is expected, and no user looks it up again
+        creator.begin(random);
+        Assertions.assertEquals("/quotes/8", creator.path(lookup, random));
+        Assertions.assertTrue(creator.forget(lookup, 404));
+        for (int i = 0; i < 20; i++) {
+            other.begin(random);
+            Assertions.assertEquals("/quotes/7", other.path(lookup, random));
+        }
+
+        // Quote 7 is cancelled by the other user; a 404 for an uncaptured path is a plain error
+        Assertions.assertFalse(other.forget(cancel, 204));
+        creator.begin(random);
+        Assertions.assertNull(creator.path(lookup, random));
+        Assertions.assertFalse(creator.forget(operation(mix, "book").steps().get(1), 404));
+    }
+
+    private static WorkloadMix load() throws IOException {
+        Properties workload = new Properties();
+        workload.load(new StringReader(WORKLOAD));
+        return new WorkloadMix(workload, TEMPLATES::get);
+    }
+
+    private static WorkloadMix.Operation operation(WorkloadMix mix, String name) {
+        return mix.operations().stream().filter(op -> op.name().equals(name)).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.fx.model;
+
+import com.example.fx.config.JsonCodecConfig;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Checks that every codec writes exactly the JSON of Jackson's reflective serializers, for fully populated and empty
+ * entities, lists, timestamps of any precision and timestamps as arrays, and that the STREAMING output reads back
+ * into equal entities.
+ *
+ * Entities are populated through reflection, so a field added to Quote or Trade but not to FxJsonModule fails here.
+ */
+public class FxJsonModuleTest {
+
+    @Test
+    void everyCodecWritesTheSameJson() throws Exception {
+        List<Object> values = List.of(populated(new Quote()), populated(new Trade()), new Quote(), new Trade(),
+                List.of(populated(new Quote()), new Quote()));
+        for (boolean timestamps : new boolean[]{false, true}) {
+            ObjectMapper reference = mapper(JsonCodecConfig.Codec.DEFAULT, timestamps);
+            for (JsonCodecConfig.Codec codec : JsonCodecConfig.Codec.values()) {
+                ObjectMapper mapper = mapper(codec, timestamps);
+                for (Object value : values) {
+                    Assertions.assertEquals(reference.writeValueAsString(value), mapper.writeValueAsString(value),
+                            codec + ", timestamps " + timestamps);
+                }
+            }
+        }
+    }
+
+    @Test
+    void timestampsAreWrittenLikeJavaTimeModule() throws Exception {
+        ObjectMapper reference = mapper(JsonCodecConfig.Codec.DEFAULT, false);
+        ObjectMapper streaming = mapper(JsonCodecConfig.Codec.STREAMING, false);
+        int[] nanos = {0, 1, 10, 100_000_000, 120_000_000, 123_000_000, 123_456_000, 999_999_999};
+        for (int year : new int[]{0, 7, 2024, 9999, 10_000, -1}) {
+            for (int nano : nanos) {
+                Quote quote = new Quote();
+                quote.setQuoteTime(LocalDateTime.of(year, 1, 2, 3, 4, 0, nano));
+                Assertions.assertEquals(reference.writeValueAsString(quote), streaming.writeValueAsString(quote));
+            }
+        }
+    }
+
+    @Test
+    void bucketsStayOutOfThePayload() throws Exception {
+        String json = mapper(JsonCodecConfig.Codec.STREAMING, false).writeValueAsString(populated(new Trade()));
+
+        Assertions.assertFalse(json.contains("tradeBucket"), json);
+        Assertions.assertTrue(json.contains("\"tradeDateTime\":\"2024-06-01T12:35:00.123456789\""), json);
+        Assertions.assertTrue(json.contains("\"notional\":1.1000"), json);
+    }
+
+    @Test
+    void streamingOutputReadsBack() throws Exception {
+        ObjectMapper mapper = mapper(JsonCodecConfig.Codec.STREAMING, false);
+        List<Trade> trades = List.of(populated(new Trade()), new Trade());
+
+        List<Trade> read = mapper.readValue(mapper.writeValueAsBytes(trades), new TypeReference<>() {
+        });
+
+        Assertions.assertEquals(mapper.writeValueAsString(trades), mapper.writeValueAsString(read));
+    }
+
+    // The ObjectMapper as Spring Boot configures it, with the codec's modules
+    private static ObjectMapper mapper(JsonCodecConfig.Codec codec, boolean timestamps) {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (!timestamps) {
+            builder.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        }
+        return JsonCodecConfig.configure(builder.build(), codec);
+    }
+
+    // Sets every field, with strings that need escaping
+    private static <T> T populated(T entity) throws IllegalAccessException {
+        for (Field field : entity.getClass().getDeclaredFields()) {
+            field.setAccessible(true);
+            if (field.getType() == String.class) {
+                field.set(entity, field.getName() + " \"é\" \\ /");
+            } else if (field.getType() == Long.class) {
+                field.set(entity, 42L);
+            } else if (field.getType() == BigDecimal.class) {
+                field.set(entity, new BigDecimal("1.1000"));
+            } else if (field.getType() == LocalDateTime.class) {
+                field.set(entity, LocalDateTime.of(2024, 6, 1, 12, 35, 0, 123_456_789));
+            } else {
+                Assertions.fail("No test value for " + field);
+            }
+        }
+        return entity;
+    }
+}
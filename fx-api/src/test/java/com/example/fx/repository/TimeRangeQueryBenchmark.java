@@ -0,0 +1,144 @@
+package com.example.fx.repository;
+
+import com.example.fx.FxTradeApplication;
+import com.example.fx.model.TimeBuckets;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * TimeRangeQueryBenchmark shows that time-range quote queries cost in proportion to the window, not the table.
+ *
+ * It starts the application context without the web layer, seeds one month of quotes through JDBC and times
+ * {@link QuoteRepository#findByQuoteTimeRange} for several window sizes, then seeds the remaining eleven
+ * months and times the same windows again. With the bucketed (currencyPair, bucket, time) index the per-query
+ * cost should follow the rows in the window and stay flat as the table grows twelvefold.
+ *
+ * Run with:
+ * mvn -pl fx-api test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.fx.repository.TimeRangeQueryBenchmark
+ *
+ * Optional system properties: quotesPerHourPerPair (default 20), queriesPerWindow (default 50).
+ */
+public class TimeRangeQueryBenchmark {
+
+    private static final String[] PAIRS = {"EUR/USD", "GBP/USD", "USD/JPY", "AUD/USD"};
+    private static final Duration[] WINDOWS = {
+            Duration.ofMinutes(5), Duration.ofHours(1), Duration.ofDays(1), Duration.ofDays(7)};
+    private static final LocalDateTime END = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final int BATCH_SIZE = 10_000;
+    private static final int WARMUP_QUERIES = 50;
+
+    public static void main(String[] args) {
+        int quotesPerHourPerPair = Integer.getInteger("quotesPerHourPerPair", 20);
+        int queriesPerWindow = Integer.getInteger("queriesPerWindow", 50);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FxTradeApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .run("--logging.level.root=WARN", "--spring.jpa.show-sql=false")) {
+            JdbcTemplate jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+            QuoteRepository quoteRepository = context.getBean(QuoteRepository.class);
+            LocalDateTime lastMonth = END.minusDays(30);
+
+            seed(jdbc, lastMonth, END, quotesPerHourPerPair);
+            measure(quoteRepository, lastMonth, queriesPerWindow); // JIT warm-up, discarded
+            List<String> monthRows = measure(quoteRepository, lastMonth, queriesPerWindow);
+            long monthCount = quoteRepository.count();
+
+            seed(jdbc, END.minusYears(1), lastMonth, quotesPerHourPerPair);
+            List<String> yearRows = measure(quoteRepository, lastMonth, queriesPerWindow);
+            long yearCount = quoteRepository.count();
+
+            System.out.println();
+            System.out.println("==========================================================================================");
+            System.out.println("                       TIME-RANGE QUERY BENCHMARK (EUR/USD quotes)");
+            System.out.println("==========================================================================================");
+            System.out.printf("%-12s | %-10s | %-12s | %-12s | %-14s | %-14s%n",
+                    "Table rows", "Window", "Rows/query", "Median(us)", "p90(us)", "us per row");
+            System.out.println("------------------------------------------------------------------------------------------");
+            monthRows.forEach(row -> System.out.printf("%-12d | %s%n", monthCount, row));
+            yearRows.forEach(row -> System.out.printf("%-12d | %s%n", yearCount, row));
+            System.out.println("==========================================================================================");
+            String plan = jdbc.queryForObject(
+                    "EXPLAIN SELECT * FROM quote WHERE currency_pair = 'EUR/USD' AND quote_bucket BETWEEN 1 AND 2 " +
+                            "AND quote_time >= TIMESTAMP '2024-12-01 00:00:00' AND quote_time < TIMESTAMP '2024-12-01 00:05:00'",
+                    String.class);
+            // H2 reports the chosen index as a /* ... */ comment in the plan
+            System.out.println("Index used: " + plan.substring(plan.indexOf("/*") + 2, plan.indexOf(':', plan.indexOf("/*"))).trim());
+            System.out.println();
+        }
+    }
+
+    /**
+     * Inserts quotesPerHourPerPair quotes per hour for every pair in [from, to), evenly spaced, through JDBC batches.
+     */
+    private static void seed(JdbcTemplate jdbc, LocalDateTime from, LocalDateTime to, int quotesPerHourPerPair) {
+        long stepSeconds = Math.max(1, 3600 / quotesPerHourPerPair);
+        Random random = new Random(42);
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (LocalDateTime time = from; time.isBefore(to); time = time.plusSeconds(stepSeconds)) {
+            for (String pair : PAIRS) {
+                double bid = 1.10 + random.nextDouble() * 0.1;
+                batch.add(new Object[]{pair, bid, bid + 0.0005, bid + 0.00025, "Q" + random.nextInt(1_000_000),
+                        "ACTIVE", "SPOT", Timestamp.valueOf(time), TimeBuckets.bucketOf(time)});
+                if (batch.size() == BATCH_SIZE) {
+                    insert(jdbc, batch);
+                }
+            }
+        }
+        insert(jdbc, batch);
+    }
+
+    private static void insert(JdbcTemplate jdbc, List<Object[]> batch) {
+        jdbc.batchUpdate("INSERT INTO quote (currency_pair, bid, ask, mid, quote_id, quote_status, tenor, quote_time, quote_bucket) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+
+    /**
+     * Times repository time-range queries for each window size at random positions within the last month.
+     */
+    private static List<String> measure(QuoteRepository quoteRepository, LocalDateTime lastMonth, int queriesPerWindow) {
+        Random random = new Random(7);
+        List<String> rows = new ArrayList<>();
+        for (Duration window : WINDOWS) {
+            long[] micros = new long[queriesPerWindow];
+            long totalRows = 0;
+            long span = Duration.between(lastMonth, END).minus(window).toSeconds();
+            for (int i = -WARMUP_QUERIES; i < queriesPerWindow; i++) {
+                LocalDateTime from = lastMonth.plusSeconds((long) (random.nextDouble() * span));
+                long start = System.nanoTime();
+                int found = quoteRepository.findByQuoteTimeRange("EUR/USD", from, from.plus(window)).size();
+                long elapsed = (System.nanoTime() - start) / 1_000;
+                if (i >= 0) { // first iterations are warm-up
+                    micros[i] = elapsed;
+                    totalRows += found;
+                }
+            }
+            Arrays.sort(micros);
+            double rowsPerQuery = (double) totalRows / queriesPerWindow;
+            long median = micros[queriesPerWindow / 2];
+            rows.add(String.format("%-10s | %-12.1f | %-12d | %-14d | %-14.2f",
+                    format(window), rowsPerQuery, median, micros[(int) (queriesPerWindow * 0.9)],
+                    rowsPerQuery == 0 ? 0 : median / rowsPerQuery));
+        }
+        return rows;
+    }
+
+    private static String format(Duration window) {
+        if (window.toDays() > 0) return window.toDays() + "d";
+        if (window.toHours() > 0) return window.toHours() + "h";
+        return window.toMinutes() + "m";
+    }
+}
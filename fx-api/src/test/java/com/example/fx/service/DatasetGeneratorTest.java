@@ -0,0 +1,133 @@
+package com.example.fx.service;
+
+import com.example.fx.config.DatasetGeneratorProperties;
+import com.example.fx.repository.TradeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.lang.reflect.Proxy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Generates a dataset into a standalone H2 schema and checks the row counts, the quote references of the trades,
+ * the pair skew, the time spread and that the secondary indexes survive.
+ */
+public class DatasetGeneratorTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void createTables() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:datagen-test;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute(table("quote", "bid DECIMAL(38, 6), ask DECIMAL(38, 6), mid DECIMAL(38, 6), " +
+                "quote_time TIMESTAMP, quote_bucket BIGINT", "currency_pair", "quote_provider", "venue",
+                "liquidity_provider", "quote_id", "tenor", "settlement_type", "quote_status", "source_system",
+                "pricing_model", "price_type", "market_data_source", "quote_condition", "quote_origin", "quote_type",
+                "quote_level", "quote_side", "quote_channel", "quote_version", "quote_reference", "quote_comment"));
+        jdbc.execute(table("trade", "notional DECIMAL(38, 2), price DECIMAL(38, 6), trade_date_time TIMESTAMP, " +
+                "trade_bucket BIGINT", "trade_id", "currency_pair", "direction", "counterparty", "trader", "book",
+                "status", "settlement_type", "settlement_date", "trade_type", "execution_venue", "source_system",
+                "trade_reference", "trade_comment", "trade_version", "trade_channel", "trade_strategy", "trade_desk",
+                "trade_origin", "trade_level", "trade_side", "trade_condition", "trade_category", "trade_sub_type",
+                "trade_book_type", "quote_id"));
+        jdbc.execute("CREATE INDEX idx_quote_pair_bucket_time ON quote (currency_pair, quote_bucket, quote_time)");
+        jdbc.execute("CREATE INDEX idx_trade_pair_bucket_time ON trade (currency_pair, trade_bucket, trade_date_time)");
+    }
+
+    @AfterEach
+    void dropTables() {
+        jdbc.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void generatesReferencedSkewedAndSpreadRows() {
+        DatasetGeneratorProperties properties = new DatasetGeneratorProperties();
+        properties.setBatchSize(700);
+        properties.setWriterThreads(3);
+        LocalDateTime before = LocalDateTime.now();
+
+        DatasetGenerator.Summary summary = generator(properties).generate(10_000, 7_000);
+
+        Assertions.assertEquals(10_000, summary.quotes());
+        Assertions.assertEquals(7_000, summary.trades());
+        Assertions.assertEquals(10_000, count("SELECT COUNT(DISTINCT quote_id) FROM quote"));
+        Assertions.assertEquals(7_000, count("SELECT COUNT(DISTINCT trade_id) FROM trade"));
+        // Every trade books an ACTIVE quote of its own pair, after the quote time and at its bid or ask
+        Assertions.assertEquals(7_000, count("SELECT COUNT(*) FROM trade t JOIN quote q ON q.quote_id = t.quote_id " +
+                "WHERE q.currency_pair = t.currency_pair AND q.quote_status = 'ACTIVE' " +
+                "AND t.trade_date_time > q.quote_time AND t.price IN (q.bid, q.ask)"));
+        Assertions.assertEquals(0, count("SELECT COUNT(*) FROM trade WHERE trade_bucket IS NULL OR settlement_date IS NULL"));
+
+        long eurUsd = count("SELECT COUNT(*) FROM quote WHERE currency_pair = 'EUR/USD'");
+        long nzdUsd = count("SELECT COUNT(*) FROM quote WHERE currency_pair = 'NZD/USD'");
+        Assertions.assertTrue(eurUsd > 3_000 && eurUsd < 4_000, "EUR/USD share " + eurUsd);
+        Assertions.assertTrue(nzdUsd > 300 && nzdUsd < 700, "NZD/USD share " + nzdUsd);
+
+        Map<String, Object> range = jdbc.queryForMap("SELECT MIN(quote_time) lo, MAX(quote_time) hi FROM quote");
+        LocalDateTime lo = ((Timestamp) range.get("LO")).toLocalDateTime();
+        LocalDateTime hi = ((Timestamp) range.get("HI")).toLocalDateTime();
+        Assertions.assertTrue(lo.isBefore(before.minusDays(29)) && lo.isAfter(before.minusDays(31)), "first " + lo);
+        Assertions.assertTrue(hi.isAfter(before.minusDays(1)) && !hi.isAfter(LocalDateTime.now()), "last " + hi);
+
+        Assertions.assertEquals(2, count("SELECT COUNT(*) FROM information_schema.indexes " +
+                "WHERE index_name IN ('IDX_QUOTE_PAIR_BUCKET_TIME', 'IDX_TRADE_PAIR_BUCKET_TIME')"));
+    }
+
+    @Test
+    void sameSeedGeneratesSameRows() {
+        DatasetGeneratorProperties properties = new DatasetGeneratorProperties();
+        properties.setBatchSize(250);
+        properties.setWriterThreads(4);
+        DatasetGenerator generator = generator(properties);
+
+        generator.generate(1_000, 1_500);
+        List<Map<String, Object>> first = jdbc.queryForList(
+                "SELECT currency_pair, bid, ask, tenor, quote_status FROM quote ORDER BY quote_reference");
+        jdbc.execute("TRUNCATE TABLE quote");
+        generator.generate(1_000, 1_500);
+
+        Assertions.assertEquals(first, jdbc.queryForList(
+                "SELECT currency_pair, bid, ask, tenor, quote_status FROM quote ORDER BY quote_reference"));
+    }
+
+    @Test
+    void rejectsTradesWithoutQuotes() {
+        DatasetGenerator generator = generator(new DatasetGeneratorProperties());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> generator.generate(0, 10));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> generator.generate(-1, 0));
+    }
+
+    private DatasetGenerator generator(DatasetGeneratorProperties properties) {
+        TradeRepository noTrades = (TradeRepository) Proxy.newProxyInstance(TradeRepository.class.getClassLoader(),
+                new Class<?>[]{TradeRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findAll") && method.getParameterCount() == 0) {
+                        return List.of();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        return new DatasetGenerator(properties, dataSource, new PositionAnalytics(noTrades, Optional.empty()));
+    }
+
+    private long count(String sql) {
+        return jdbc.queryForObject(sql, Long.class);
+    }
+
+    private static String table(String name, String typedColumns, String... textColumns) {
+        StringBuilder ddl = new StringBuilder("CREATE TABLE " + name
+                + " (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " + typedColumns);
+        for (String column : textColumns) {
+            ddl.append(", ").append(column).append(" VARCHAR(255)");
+        }
+        return ddl.append(")").toString();
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.fx.service;
+
+import com.example.fx.model.Trade;
+import com.example.fx.repository.TradeRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Books, amends and deletes trades from many threads at once and checks the incremental positions
+ * against a batch recompute over the surviving trades.
+ */
+public class PositionAnalyticsTest {
+
+    private static final String[] PAIRS = {"EUR/USD", "GBP/USD", "USD/JPY"};
+    private static final String[] BOOKS = {"BookA", "BookB"};
+    private static final String[] COUNTERPARTIES = {"BankA", "BankB", "BankC", null};
+    private static final String[] DIRECTIONS = {"BUY", "SELL"};
+
+    private static final double TOLERANCE = 1e-6;
+
+    @Test
+    void incrementalPositionsMatchBatchRecomputeUnderConcurrentBooking() throws Exception {
+        PositionAnalytics analytics = new PositionAnalytics(repositoryOf(List.of()), Optional.empty());
+        Map<Long, Trade> liveTrades = new ConcurrentHashMap<>();
+        AtomicLong ids = new AtomicLong();
+        int threads = 8;
+        int operationsPerThread = 5_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                List<Long> mine = new ArrayList<>();
+                start.await();
+                for (int i = 0; i < operationsPerThread; i++) {
+                    int op = random.nextInt(10);
+                    if (op < 6 || mine.isEmpty()) {
+                        Trade trade = randomTrade(random, ids.incrementAndGet());
+                        liveTrades.put(trade.getId(), trade);
+                        mine.add(trade.getId());
+                        analytics.onCreated(trade);
+                    } else if (op < 8) {
+                        Long id = mine.get(random.nextInt(mine.size()));
+                        Trade amended = randomTrade(random, id);
+                        analytics.onUpdated(liveTrades.put(id, amended), amended);
+                    } else {
+                        Long id = mine.remove(random.nextInt(mine.size()));
+                        analytics.onDeleted(liveTrades.remove(id));
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertBookPositionsEqual(PositionAnalytics.recomputeBookPositions(liveTrades.values()),
+                analytics.bookPositions(null, null));
+        assertCounterpartyPositionsEqual(PositionAnalytics.recomputeCounterpartyPositions(liveTrades.values()),
+                analytics.counterpartyPositions(null));
+
+        // A rebuild from the stored trades must land on the same figures
+        PositionAnalytics rebuilt = new PositionAnalytics(repositoryOf(new ArrayList<>(liveTrades.values())), Optional.empty());
+        rebuilt.rebuild();
+        assertBookPositionsEqual(analytics.bookPositions(null, null), rebuilt.bookPositions(null, null));
+    }
+
+    @Test
+    void concurrentChangesToTheSameTradeApplyEachDeltaOnce() throws Exception {
+        PositionAnalytics analytics = new PositionAnalytics(repositoryOf(List.of()), Optional.empty());
+        // Stands in for the trade table: read, write and delete as the controller does
+        Map<Long, Trade> table = new ConcurrentHashMap<>();
+        for (long id = 1; id <= 4; id++) {
+            Trade trade = randomTrade(new Random(id), id);
+            table.put(id, trade);
+            analytics.onCreated(trade);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            long seed = 100 + t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                start.await();
+                for (int i = 0; i < 2_000; i++) {
+                    long id = 1 + random.nextInt(4);
+                    Trade amended = randomTrade(random, id);
+                    boolean delete = i == 1_999;
+                    analytics.changeTrade(id, () -> {
+                        Trade existing = table.get(id);
+                        if (existing == null) {
+                            return null;
+                        }
+                        if (delete) {
+                            if (table.remove(id, existing)) {
+                                analytics.onDeleted(existing);
+                            }
+                        } else {
+                            table.put(id, amended);
+                            analytics.onUpdated(existing, amended);
+                        }
+                        return null;
+                    });
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertBookPositionsEqual(PositionAnalytics.recomputeBookPositions(table.values()),
+                analytics.bookPositions(null, null));
+        assertCounterpartyPositionsEqual(PositionAnalytics.recomputeCounterpartyPositions(table.values()),
+                analytics.counterpartyPositions(null));
+    }
+
+    @Test
+    void rebuildKeepsServingThePreviousFiguresUntilItCompletes() throws Exception {
+        Trade stored = trade(1L, "EUR/USD", "BookA", "BankA", "BUY", "1000000", "1.10");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch checked = new CountDownLatch(1);
+        PositionAnalytics analytics = new PositionAnalytics(repositoryOf(() -> {
+            loading.countDown();
+            checked.await(5, TimeUnit.SECONDS);
+            return List.of(stored);
+        }), Optional.empty());
+        analytics.onCreated(stored);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> rebuild = executor.submit(analytics::rebuild);
+        Assertions.assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, analytics.bookPositions(null, null).size());
+        checked.countDown();
+        rebuild.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        Assertions.assertEquals(1, analytics.bookPositions(null, null).get(0).tradeCount());
+    }
+
+    @Test
+    void tradesBookedDuringARebuildAreCountedOnce() throws Exception {
+        Map<Long, Trade> table = new ConcurrentHashMap<>();
+        for (long id = 1; id <= 10; id++) {
+            table.put(id, randomTrade(new Random(id), id));
+        }
+        CountDownLatch loaded = new CountDownLatch(1);
+        CountDownLatch booked = new CountDownLatch(1);
+        // Reads the table, then gives the bookings time to land before the rebuild swaps its maps in
+        PositionAnalytics analytics = new PositionAnalytics(repositoryOf(() -> {
+            List<Trade> rows = new ArrayList<>(table.values());
+            loaded.countDown();
+            booked.await(200, TimeUnit.MILLISECONDS);
+            return rows;
+        }), Optional.empty());
+        table.values().forEach(analytics::onCreated);
+
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        Future<?> rebuild = executor.submit(analytics::rebuild);
+        Assertions.assertTrue(loaded.await(5, TimeUnit.SECONDS));
+        AtomicLong ids = new AtomicLong(10);
+        List<Future<?>> bookings = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long seed = 200 + t;
+            bookings.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 50; i++) {
+                    Trade trade = randomTrade(random, ids.incrementAndGet());
+                    analytics.bookTrade(() -> {
+                        table.put(trade.getId(), trade);
+                        return trade;
+                    });
+                }
+                return null;
+            }));
+        }
+        for (Future<?> booking : bookings) {
+            booking.get(5, TimeUnit.SECONDS);
+        }
+        booked.countDown();
+        rebuild.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        Assertions.assertEquals(210, table.size());
+        assertBookPositionsEqual(PositionAnalytics.recomputeBookPositions(table.values()),
+                analytics.bookPositions(null, null));
+        assertCounterpartyPositionsEqual(PositionAnalytics.recomputeCounterpartyPositions(table.values()),
+                analytics.counterpartyPositions(null));
+    }
+
+    @Test
+    void filtersBookPositionsAndSignsByDirection() {
+        PositionAnalytics analytics = new PositionAnalytics(repositoryOf(List.of()), Optional.empty());
+        analytics.onCreated(trade(1L, "EUR/USD", "BookA", "BankA", "BUY", "1000000", "1.10"));
+        analytics.onCreated(trade(2L, "EUR/USD", "BookA", "BankA", "SELL", "250000", "1.20"));
+        analytics.onCreated(trade(3L, "GBP/USD", "BookA", "BankB", "BUY", "500000", "1.25"));
+
+        List<PositionAnalytics.BookPosition> positions = analytics.bookPositions("EUR/USD", "BookA");
+        Assertions.assertEquals(1, positions.size());
+        PositionAnalytics.BookPosition position = positions.get(0);
+        Assertions.assertEquals(750000, position.netPosition(), TOLERANCE);
+        Assertions.assertEquals(1250000, position.grossNotional(), TOLERANCE);
+        Assertions.assertEquals((1000000 * 1.10 + 250000 * 1.20) / 1250000, position.vwap(), TOLERANCE);
+        Assertions.assertEquals(2, position.tradeCount());
+    }
+
+    private static void assertBookPositionsEqual(List<PositionAnalytics.BookPosition> expected,
+                                                 List<PositionAnalytics.BookPosition> actual) {
+        Assertions.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            PositionAnalytics.BookPosition e = expected.get(i);
+            PositionAnalytics.BookPosition a = actual.get(i);
+            Assertions.assertEquals(e.currencyPair(), a.currencyPair());
+            Assertions.assertEquals(e.book(), a.book());
+            Assertions.assertEquals(e.tradeCount(), a.tradeCount());
+            Assertions.assertEquals(e.netPosition(), a.netPosition(), TOLERANCE * Math.max(1, Math.abs(e.grossNotional())));
+            Assertions.assertEquals(e.grossNotional(), a.grossNotional(), TOLERANCE * Math.max(1, e.grossNotional()));
+            assertVwapEquals(e.vwap(), a.vwap());
+        }
+    }
+
+    private static void assertCounterpartyPositionsEqual(List<PositionAnalytics.CounterpartyPosition> expected,
+                                                         List<PositionAnalytics.CounterpartyPosition> actual) {
+        Assertions.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            PositionAnalytics.CounterpartyPosition e = expected.get(i);
+            PositionAnalytics.CounterpartyPosition a = actual.get(i);
+            Assertions.assertEquals(e.counterparty(), a.counterparty());
+            Assertions.assertEquals(e.tradeCount(), a.tradeCount());
+            Assertions.assertEquals(e.netPosition(), a.netPosition(), TOLERANCE * Math.max(1, Math.abs(e.grossNotional())));
+            Assertions.assertEquals(e.grossNotional(), a.grossNotional(), TOLERANCE * Math.max(1, e.grossNotional()));
+            assertVwapEquals(e.vwap(), a.vwap());
+        }
+    }
+
+    // A position without a priced trade has no vwap
+    private static void assertVwapEquals(Double expected, Double actual) {
+        if (expected == null) {
+            Assertions.assertNull(actual);
+        } else {
+            Assertions.assertNotNull(actual);
+            Assertions.assertEquals(expected, actual, TOLERANCE);
+        }
+    }
+
+    private static Trade randomTrade(Random random, long id) {
+        return trade(id,
+                PAIRS[random.nextInt(PAIRS.length)],
+                BOOKS[random.nextInt(BOOKS.length)],
+                COUNTERPARTIES[random.nextInt(COUNTERPARTIES.length)],
+                DIRECTIONS[random.nextInt(DIRECTIONS.length)],
+                String.valueOf((1 + random.nextInt(100)) * 10_000),
+                random.nextInt(10) == 0 ? null : String.valueOf(1 + random.nextInt(5000) / 10000.0));
+    }
+
+    private static Trade trade(Long id, String currencyPair, String book, String counterparty, String direction,
+                               String notional, String price) {
+        Trade trade = new Trade();
+        trade.setId(id);
+        trade.setCurrencyPair(currencyPair);
+        trade.setBook(book);
+        trade.setCounterparty(counterparty);
+        trade.setDirection(direction);
+        trade.setNotional(new BigDecimal(notional));
+        trade.setPrice(price != null ? new BigDecimal(price) : null);
+        return trade;
+    }
+
+    private static TradeRepository repositoryOf(List<Trade> trades) {
+        return repositoryOf(() -> trades);
+    }
+
+    // Only findAll() is needed by PositionAnalytics
+    private static TradeRepository repositoryOf(Callable<List<Trade>> findAll) {
+        return (TradeRepository) Proxy.newProxyInstance(TradeRepository.class.getClassLoader(),
+                new Class<?>[]{TradeRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findAll") && method.getParameterCount() == 0) {
+                        return findAll.call();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
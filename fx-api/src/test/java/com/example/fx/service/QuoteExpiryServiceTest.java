@@ -0,0 +1,166 @@
+package com.example.fx.service;
+
+import com.example.fx.config.QuoteExpiryProperties;
+import com.example.fx.controller.FxController;
+import com.example.fx.model.Quote;
+import com.example.fx.model.Trade;
+import com.example.fx.repository.QuoteRepository;
+import com.example.fx.repository.TradeRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Expires quotes in a standalone H2 table and checks the TTL chosen by quote type, then tenor, then default, each
+ * expiry action, that booking rejects an expired quoteId before the sweeper has run, and that forgetAll drops the
+ * pending expiries.
+ */
+public class QuoteExpiryServiceTest {
+
+    // Short enough to pass within a test, far below the others
+    private static final Duration SHORT = Duration.ofMillis(30);
+    private static final Duration LONG = Duration.ofHours(1);
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void createTable() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:expiry-test;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE quote (id BIGINT PRIMARY KEY, quote_id VARCHAR(20), tenor VARCHAR(10), " +
+                "quote_type VARCHAR(20), quote_status VARCHAR(20))");
+    }
+
+    @AfterEach
+    void dropTables() {
+        jdbc.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void ttlComesFromTheQuoteTypeThenTheTenorThenTheDefault() throws Exception {
+        QuoteExpiryService expiry = service(QuoteExpiryProperties.Action.MARK);
+        expiry.schedule(quote(1, "SPOT", "Indicative"));
+        expiry.schedule(quote(2, "SPOT", "Streaming"));
+        expiry.schedule(quote(3, "1M", "Indicative"));
+
+        Thread.sleep(SHORT.toMillis() * 3);
+
+        // Rejected from the moment the TTL passes, before any sweep
+        Assertions.assertTrue(expiry.isExpired("Q1"));
+        Assertions.assertFalse(expiry.isExpired("Q2"));
+        Assertions.assertFalse(expiry.isExpired("Q3"));
+        expiry.sweep();
+        Assertions.assertEquals(List.of("EXPIRED", "ACTIVE", "ACTIVE"), statuses("quote"));
+        Assertions.assertTrue(expiry.isExpired("Q1"));
+    }
+
+    @Test
+    void archiveMovesExpiredQuotesToTheArchiveTable() throws Exception {
+        QuoteExpiryService expiry = service(QuoteExpiryProperties.Action.ARCHIVE);
+        expiry.schedule(quote(1, "SPOT", "Indicative"));
+        expiry.schedule(quote(2, "1M", "Indicative"));
+
+        Thread.sleep(SHORT.toMillis() * 3);
+        expiry.sweep();
+
+        Assertions.assertEquals(List.of(2L), ids("quote"));
+        Assertions.assertEquals(List.of(1L), ids("quote_archive"));
+        Assertions.assertEquals(List.of("EXPIRED"), statuses("quote_archive"));
+    }
+
+    @Test
+    void deleteRemovesExpiredQuotes() throws Exception {
+        QuoteExpiryService expiry = service(QuoteExpiryProperties.Action.DELETE);
+        expiry.schedule(quote(1, "SPOT", "Indicative"));
+        expiry.schedule(quote(2, "1M", "Indicative"));
+
+        Thread.sleep(SHORT.toMillis() * 3);
+        expiry.sweep();
+
+        Assertions.assertEquals(List.of(2L), ids("quote"));
+        Assertions.assertTrue(expiry.isExpired("Q1"));
+    }
+
+    @Test
+    void forgetAllDropsPendingExpiries() throws Exception {
+        QuoteExpiryService expiry = service(QuoteExpiryProperties.Action.DELETE);
+        expiry.schedule(quote(1, "SPOT", "Indicative"));
+
+        expiry.forgetAll();
+        Thread.sleep(SHORT.toMillis() * 3);
+        expiry.sweep();
+
+        Assertions.assertFalse(expiry.isExpired("Q1"));
+        Assertions.assertEquals(List.of(1L), ids("quote"));
+    }
+
+    @Test
+    void bookingRejectsAnExpiredQuoteId() throws Exception {
+        QuoteExpiryService expiry = service(QuoteExpiryProperties.Action.MARK);
+        expiry.schedule(quote(1, "SPOT", "Indicative"));
+        Thread.sleep(SHORT.toMillis() * 3);
+
+        // The repositories refuse every call: an expired quoteId is rejected before either is touched
+        Executor direct = Runnable::run;
+        FxController controller = new FxController(refusing(QuoteRepository.class), refusing(TradeRepository.class),
+                null, null, expiry, null, direct, direct, direct);
+        Trade trade = new Trade();
+        trade.setQuoteId("Q1");
+
+        Object response = controller.createTrade(trade).join();
+        Assertions.assertEquals("{\"error\":\"Expired quoteId: Q1\"}", new ObjectMapper().writeValueAsString(response));
+    }
+
+    private QuoteExpiryService service(QuoteExpiryProperties.Action action) {
+        QuoteExpiryProperties properties = new QuoteExpiryProperties();
+        properties.setEnabled(true);
+        properties.setAction(action);
+        properties.setTick(Duration.ofMillis(10));
+        properties.setDefaultTtl(LONG);
+        properties.setTenorTtl(Map.of("SPOT", SHORT));
+        properties.setQuoteTypeTtl(Map.of("Streaming", LONG));
+        return new QuoteExpiryService(properties, new NamedParameterJdbcTemplate(dataSource),
+                new DataSourceTransactionManager(dataSource), new SimpleMeterRegistry());
+    }
+
+    // Stored as ACTIVE, as a saved quote would be
+    private Quote quote(long id, String tenor, String quoteType) {
+        jdbc.update("INSERT INTO quote (id, quote_id, tenor, quote_type, quote_status) VALUES (?, ?, ?, ?, 'ACTIVE')",
+                id, "Q" + id, tenor, quoteType);
+        Quote quote = new Quote();
+        quote.setId(id);
+        quote.setQuoteId("Q" + id);
+        quote.setTenor(tenor);
+        quote.setQuoteType(quoteType);
+        return quote;
+    }
+
+    private List<Long> ids(String table) {
+        return jdbc.queryForList("SELECT id FROM " + table + " ORDER BY id", Long.class);
+    }
+
+    private List<String> statuses(String table) {
+        return jdbc.queryForList("SELECT quote_status FROM " + table + " ORDER BY id", String.class);
+    }
+
+    private static <T> T refusing(Class<T> repository) {
+        return repository.cast(Proxy.newProxyInstance(repository.getClassLoader(), new Class<?>[]{repository},
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                }));
+    }
+}
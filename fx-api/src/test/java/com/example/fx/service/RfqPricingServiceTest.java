@@ -0,0 +1,111 @@
+package com.example.fx.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies that concurrent identical RFQs share one pricing computation only when coalescing is enabled.
+ */
+public class RfqPricingServiceTest {
+
+    private static final int CALLERS = 50;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void coalescesConcurrentIdenticalRfqs() throws Exception {
+        RfqPricingService service = new RfqPricingService(executor, registry, true, 0, 10_000);
+
+        List<CompletableFuture<RfqPricingService.RfqPrice>> prices = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            prices.add(service.price("EUR/USD", "SPOT"));
+        }
+        CompletableFuture<RfqPricingService.RfqPrice> otherTenor = service.price("EUR/USD", "1M");
+
+        Set<RfqPricingService.RfqPrice> distinct = new HashSet<>();
+        for (CompletableFuture<RfqPricingService.RfqPrice> price : prices) {
+            distinct.add(price.get(5, TimeUnit.SECONDS));
+        }
+        Assertions.assertEquals(1, distinct.size());
+        Assertions.assertNotSame(prices.get(0).get(), otherTenor.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(2.0, registry.counter("fx.rfq.pricings").count());
+        Assertions.assertEquals(CALLERS - 1.0, registry.counter("fx.rfq.coalesced").count());
+    }
+
+    @Test
+    void pricesAgainOnceTheWindowHasPassed() throws Exception {
+        RfqPricingService service = new RfqPricingService(executor, registry, true, 50, 10_000);
+
+        RfqPricingService.RfqPrice first = service.price("GBP/USD", "SPOT").get(5, TimeUnit.SECONDS);
+        Thread.sleep(100);
+        RfqPricingService.RfqPrice second = service.price("GBP/USD", "SPOT").get(5, TimeUnit.SECONDS);
+
+        Assertions.assertNotSame(first, second);
+        Assertions.assertEquals(2.0, registry.counter("fx.rfq.pricings").count());
+        Assertions.assertEquals(0.0, registry.counter("fx.rfq.coalesced").count());
+    }
+
+    @Test
+    void sharesACompletedPriceWithinTheWindow() throws Exception {
+        RfqPricingService service = new RfqPricingService(executor, registry, true, 60_000, 10_000);
+
+        RfqPricingService.RfqPrice first = service.price("USD/JPY", "SPOT").get(5, TimeUnit.SECONDS);
+        RfqPricingService.RfqPrice second = service.price("USD/JPY", "SPOT").get(5, TimeUnit.SECONDS);
+
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(1.0, registry.counter("fx.rfq.pricings").count());
+        Assertions.assertEquals(1.0, registry.counter("fx.rfq.coalesced").count());
+    }
+
+    @Test
+    void tracksAtMostMaxKeys() throws Exception {
+        RfqPricingService service = new RfqPricingService(executor, registry, true, 60_000, 2);
+
+        for (String pair : List.of("EUR/USD", "GBP/USD", "USD/JPY", "AUD/USD")) {
+            service.price(pair, "SPOT").get(5, TimeUnit.SECONDS);
+        }
+
+        Assertions.assertEquals(2, service.trackedKeys());
+        Assertions.assertEquals(4.0, registry.counter("fx.rfq.pricings").count());
+    }
+
+    @Test
+    void forgetsCompletedFlightsWithoutAWindow() throws Exception {
+        RfqPricingService service = new RfqPricingService(executor, registry, true, 0, 10_000);
+
+        service.price("EUR/USD", "SPOT").get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(0, service.trackedKeys());
+    }
+
+    @Test
+    void pricesEveryRfqWhenCoalescingIsDisabled() throws Exception {
+        RfqPricingService service = new RfqPricingService(executor, registry, false, 0, 10_000);
+
+        List<CompletableFuture<RfqPricingService.RfqPrice>> prices = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            prices.add(service.price("EUR/USD", "SPOT"));
+        }
+        CompletableFuture.allOf(prices.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(CALLERS, registry.counter("fx.rfq.pricings").count());
+        Assertions.assertEquals(0.0, registry.counter("fx.rfq.coalesced").count());
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.fx.service;
+
+import com.example.fx.FxTradeApplication;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * SnapshotBenchmark measures how fast the quote and trade tables are snapshotted and restored.
+ *
+ * It starts the application context without the web layer, generates quotes and trades with the
+ * {@link DatasetGenerator}, takes a snapshot, restores it into the emptied tables (including the analytics rebuild
+ * a restore triggers) and prints the time and rows per second of each step.
+ * The in-memory database has to hold the whole dataset, so size the heap for the row count (roughly
+ * 1 GB per million trades and quotes).
+ *
+ * Run with:
+ * mvn -pl fx-api test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.fx.service.SnapshotBenchmark
+ *
+ * Optional system properties: rows (quotes and trades each, default 500000), writerThreads (default: number of CPUs).
+ */
+public class SnapshotBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rows = Integer.getInteger("rows", 500_000);
+        int writerThreads = Integer.getInteger("writerThreads", Runtime.getRuntime().availableProcessors());
+        Path directory = Files.createTempDirectory("fx-snapshot-benchmark");
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FxTradeApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .run("--logging.level.root=WARN", "--spring.jpa.show-sql=false",
+                        "--fx.snapshot.directory=" + directory,
+                        "--fx.snapshot.writer-threads=" + writerThreads,
+                        "--fx.datagen.writer-threads=" + writerThreads,
+                        "--spring.datasource.hikari.maximum-pool-size=" + (writerThreads + 2))) {
+            JdbcTemplate jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+            SnapshotService snapshots = context.getBean(SnapshotService.class);
+
+            DatasetGenerator.Summary generated = context.getBean(DatasetGenerator.class).generate(rows, rows);
+
+            SnapshotService.Summary taken = snapshots.snapshot("benchmark");
+            jdbc.execute("TRUNCATE TABLE quote");
+            jdbc.execute("TRUNCATE TABLE trade");
+            SnapshotService.Summary restored = snapshots.restore("benchmark");
+
+            long quotes = jdbc.queryForObject("SELECT COUNT(*) FROM quote", Long.class);
+            long trades = jdbc.queryForObject("SELECT COUNT(*) FROM trade", Long.class);
+            long total = 2L * rows;
+
+            System.out.println();
+            System.out.printf("%-22s | %-12s | %-14s%n", "Step", "Time (ms)", "Rows/s");
+            System.out.println("-".repeat(54));
+            System.out.printf("%-22s | %-12d | %-14s%n", "Generate", generated.millis(), rate(total, generated.millis()));
+            System.out.printf("%-22s | %-12d | %-14s%n", "Snapshot", taken.millis(), rate(total, taken.millis()));
+            System.out.printf("%-22s | %-12d | %-14s%n", "Restore + rebuild", restored.millis(), rate(total, restored.millis()));
+            System.out.println();
+            System.out.printf("Snapshot size: %,d bytes for %,d quotes and %,d trades; restored %,d quotes, %,d trades%n",
+                    taken.bytes(), taken.quotes(), taken.trades(), quotes, trades);
+            if (quotes != rows || trades != rows) {
+                throw new IllegalStateException("Restore lost rows");
+            }
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static String rate(long rows, long millis) {
+        return String.format("%,d", millis == 0 ? rows : rows * 1000 / millis);
+    }
+}
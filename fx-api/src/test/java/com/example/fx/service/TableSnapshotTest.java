@@ -0,0 +1,80 @@
+package com.example.fx.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Verifies that table snapshots restore every row and value, including nulls, keep the tables' indexes, and
+ * load snapshots taken before a column was added.
+ */
+public class TableSnapshotTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void createTable() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:snapshot-test;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE item (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "name VARCHAR(50), price DECIMAL(19, 6), created TIMESTAMP, ratio DOUBLE PRECISION, active BOOLEAN)");
+        jdbc.execute("CREATE INDEX idx_item_name ON item (name, created)");
+    }
+
+    @AfterEach
+    void dropTable() {
+        jdbc.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void roundTripsEveryRowAndValue() throws Exception {
+        List<Object[]> rows = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 9, 30, 15, 123_000_000);
+        for (int i = 0; i < 2_500; i++) {
+            rows.add(new Object[]{i % 7 == 0 ? null : "Item" + (i % 40), BigDecimal.valueOf(i * 37L + 5, 4),
+                    Timestamp.valueOf(start.plusSeconds(i)), i % 5 == 0 ? null : i / 3.0, i % 2 == 0});
+        }
+        jdbc.batchUpdate("INSERT INTO item (name, price, created, ratio, active) VALUES (?, ?, ?, ?, ?)", rows);
+        List<Map<String, Object>> before = jdbc.queryForList("SELECT * FROM item ORDER BY id");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<TableSnapshot.TableCount> written = TableSnapshot.write(dataSource, List.of("item"), out);
+        jdbc.update("DELETE FROM item WHERE id > 100");
+        List<TableSnapshot.TableCount> loaded =
+                TableSnapshot.load(dataSource, new ByteArrayInputStream(out.toByteArray()), 2, 300, true);
+
+        Assertions.assertEquals(List.of(new TableSnapshot.TableCount("item", 2_500)), written);
+        Assertions.assertEquals(written, loaded);
+        Assertions.assertEquals(before, jdbc.queryForList("SELECT * FROM item ORDER BY id"));
+        Assertions.assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM information_schema.indexes " +
+                "WHERE index_name = 'IDX_ITEM_NAME'", Integer.class));
+    }
+
+    @Test
+    void loadsSnapshotTakenBeforeColumnWasAdded() throws Exception {
+        jdbc.update("INSERT INTO item (name, price) VALUES ('Old', 1.5)");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TableSnapshot.write(dataSource, List.of("item"), out);
+
+        jdbc.execute("ALTER TABLE item ADD COLUMN category VARCHAR(20)");
+        TableSnapshot.load(dataSource, new ByteArrayInputStream(out.toByteArray()), 1, 100, true);
+
+        Map<String, Object> row = jdbc.queryForMap("SELECT * FROM item");
+        Assertions.assertEquals("Old", row.get("NAME"));
+        Assertions.assertEquals(0, new BigDecimal("1.5").compareTo((BigDecimal) row.get("PRICE")));
+        Assertions.assertNull(row.get("CATEGORY"));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.fx.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Verifies that the timing wheel fires every timer exactly once, never early and at most one tick late,
+ * including timers that cascade down from overflow levels.
+ */
+public class TimingWheelTest {
+
+    private static final long TICK = 10;
+    private static final int WHEEL_SIZE = 8;
+    private static final long START = 1_000_003;
+
+    @Test
+    void firesEveryTimerWithinOneTickOfItsDeadline() {
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, WHEEL_SIZE, START);
+        Map<Long, Long> firedAt = new HashMap<>();
+        long[] now = {START};
+        Random random = new Random(42);
+
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            // Spans level 0 (80ms), level 1 (640ms), level 2 (5.1s) and level 3
+            long deadline = START + (long) (Math.pow(random.nextDouble(), 3) * 20_000);
+            deadlines.add(deadline);
+        }
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < deadlines.size(); i++) {
+            long id = i;
+            ids.add(id);
+            wheel.schedule(deadlines.get(i), id, fired -> firedAt.put(fired, now[0]));
+        }
+        Assertions.assertEquals(deadlines.size(), wheel.size() + firedAt.size());
+
+        while (now[0] < START + 21_000) {
+            now[0] += 1 + random.nextInt(3 * (int) TICK);
+            wheel.advanceTo(now[0], fired -> Assertions.assertNull(firedAt.put(fired, now[0]), "fired twice: " + fired));
+            // Schedule more timers while the wheel is running
+            if (now[0] < START + 15_000) {
+                long id = ids.size();
+                long deadline = now[0] + random.nextInt(3_000);
+                ids.add(id);
+                deadlines.add(deadline);
+                wheel.schedule(deadline, id, fired -> firedAt.put(fired, now[0]));
+            }
+        }
+
+        Assertions.assertEquals(0, wheel.size());
+        Assertions.assertEquals(ids.size(), firedAt.size());
+        for (long id : ids) {
+            long deadline = deadlines.get((int) id);
+            long fired = firedAt.get(id);
+            // Fired on the first advance at or past the deadline's tick boundary
+            Assertions.assertTrue(fired >= deadline, "timer " + id + " fired early");
+            Assertions.assertTrue(fired < deadline + TICK + 3 * TICK, "timer " + id + " fired late");
+        }
+    }
+
+    @Test
+    void expiresPastDeadlinesImmediately() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, WHEEL_SIZE, START);
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(START + 100, fired::add);
+
+        wheel.schedule(START + 50, "past", fired::add);
+        wheel.schedule(START + 150, "future", fired::add);
+
+        Assertions.assertEquals(List.of("past"), fired);
+        Assertions.assertEquals(1, wheel.size());
+        wheel.advanceTo(START + 200, fired::add);
+        Assertions.assertEquals(List.of("past", "future"), fired);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.fx.service;
+
+import com.example.fx.config.TradeArchiveProperties;
+import com.example.fx.model.Trade;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+/**
+ * Verifies that restoring a snapshot sets aside archive segments written after it was taken instead of deleting
+ * their trades from the restored table, and that a disabled archive never reads the segment directory.
+ */
+public class TradeArchiveServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void createTable() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:archive-test;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE trade (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, trade_id VARCHAR(20))");
+    }
+
+    @AfterEach
+    void dropTable() {
+        jdbc.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void restoreSetsAsideSegmentsWrittenAfterTheSnapshot() throws Exception {
+        // Trades 1-2 were archived before the snapshot was taken, trades 3-4 after it
+        Path before = TradeSegment.write(trades(1, 2), dir.resolve("trades-1-2.seg")).path();
+        Path after = TradeSegment.write(trades(3, 4), dir.resolve("trades-3-4.seg")).path();
+        TradeArchiveService archive = service(true);
+
+        // The snapshot's trade table still holds trades 3-4, live
+        jdbc.update("INSERT INTO trade (id, trade_id) VALUES (3, 'T3'), (4, 'T4'), (5, 'T5')");
+        archive.restored(List.of(before.getFileName().toString()));
+
+        Assertions.assertEquals(List.of(3L, 4L, 5L), jdbc.queryForList("SELECT id FROM trade ORDER BY id", Long.class));
+        Assertions.assertEquals(List.of(before), archive.segments().stream().map(TradeSegment.Info::path).toList());
+        Assertions.assertTrue(archive.find(1).isPresent());
+        Assertions.assertTrue(archive.find(3).isEmpty());
+        Assertions.assertFalse(Files.exists(after));
+        Assertions.assertTrue(Files.exists(dir.resolve("trades-3-4.seg.stale")));
+    }
+
+    @Test
+    void reconcilesSegmentsTheSnapshotKnew() throws Exception {
+        Path segment = TradeSegment.write(trades(1, 2), dir.resolve("trades-1-2.seg")).path();
+        TradeArchiveService archive = service(true);
+
+        // Snapshot taken while the archive run that wrote the segment was still deleting its rows
+        jdbc.update("INSERT INTO trade (id, trade_id) VALUES (2, 'T2'), (3, 'T3')");
+        archive.restored(List.of(segment.getFileName().toString()));
+
+        Assertions.assertEquals(List.of(3L), jdbc.queryForList("SELECT id FROM trade ORDER BY id", Long.class));
+    }
+
+    @Test
+    void disabledArchiveIgnoresSegmentsOnDisk() throws Exception {
+        TradeSegment.write(trades(1, 2), dir.resolve("trades-1-2.seg"));
+        jdbc.update("INSERT INTO trade (id, trade_id) VALUES (1, 'T1')");
+
+        TradeArchiveService archive = service(false);
+        archive.restored(List.of());
+
+        Assertions.assertTrue(archive.segments().isEmpty());
+        Assertions.assertTrue(archive.find(1).isEmpty());
+        Assertions.assertEquals(0, archive.archive());
+        Assertions.assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM trade", Integer.class));
+        Assertions.assertTrue(Files.exists(dir.resolve("trades-1-2.seg")));
+    }
+
+    // reconcile() and restored() only use JDBC; archive() is not called with archival enabled here
+    private TradeArchiveService service(boolean enabled) throws Exception {
+        TradeArchiveProperties properties = new TradeArchiveProperties();
+        properties.setEnabled(enabled);
+        properties.setDirectory(dir);
+        return new TradeArchiveService(properties, null, new NamedParameterJdbcTemplate(dataSource),
+                new DataSourceTransactionManager(dataSource), new SimpleMeterRegistry());
+    }
+
+    private static List<Trade> trades(long fromId, long toId) {
+        return LongStream.rangeClosed(fromId, toId).mapToObj(id -> {
+            Trade trade = new Trade();
+            trade.setId(id);
+            trade.setTradeId("T" + id);
+            trade.setCurrencyPair("EUR/USD");
+            trade.setNotional(new BigDecimal("1000000"));
+            trade.setTradeDateTime(LocalDateTime.of(2024, 1, 1, 12, 0).plusMinutes(id));
+            return trade;
+        }).toList();
+    }
+}
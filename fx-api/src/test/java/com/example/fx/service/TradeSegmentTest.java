@@ -0,0 +1,128 @@
+package com.example.fx.service;
+
+import com.example.fx.model.Trade;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Verifies that trade segments round-trip every field, find single trades by id, and take a fraction of the
+ * space of the same trades stored row by row as JSON.
+ */
+public class TradeSegmentTest {
+
+    private static final String[] PAIRS = {"EUR/USD", "GBP/USD", "USD/JPY", "AUD/USD", "USD/CHF"};
+    private static final String[] COUNTERPARTIES = {"BankA", "BankB", "BankC", "FundX", "FundY"};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsEveryField() throws Exception {
+        List<Trade> trades = trades(5_000, new Random(7));
+        Path path = dir.resolve("trades.seg");
+
+        TradeSegment.Info info = TradeSegment.write(trades, path);
+        List<Trade> read = TradeSegment.read(path);
+
+        ObjectMapper mapper = mapper();
+        Assertions.assertEquals(trades.size(), info.rowCount());
+        Assertions.assertEquals(mapper.writeValueAsString(trades), mapper.writeValueAsString(read));
+        Assertions.assertEquals(trades.get(0).getId(), info.minId());
+        Assertions.assertEquals(trades.get(trades.size() - 1).getId(), info.maxId());
+        BigDecimal eurUsd = trades.stream()
+                .filter(t -> "EUR/USD".equals(t.getCurrencyPair()) && t.getNotional() != null)
+                .map(Trade::getNotional)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        Assertions.assertEquals(0, eurUsd.compareTo(info.notionalByPair().get("EUR/USD")));
+    }
+
+    @Test
+    void findsSingleTradesById() throws Exception {
+        List<Trade> trades = trades(1_000, new Random(11));
+        Path path = dir.resolve("trades.seg");
+        TradeSegment.write(trades, path);
+
+        ObjectMapper mapper = mapper();
+        Trade expected = trades.get(519); // followed by an id gap
+        Trade found = TradeSegment.find(path, expected.getId()).orElseThrow();
+        Assertions.assertEquals(mapper.writeValueAsString(expected), mapper.writeValueAsString(found));
+        // Ids are sparse; gaps and out-of-range ids are absent
+        Assertions.assertTrue(TradeSegment.find(path, expected.getId() + 1).isEmpty());
+        Assertions.assertTrue(TradeSegment.find(path, trades.get(trades.size() - 1).getId() + 10).isEmpty());
+    }
+
+    @Test
+    void takesAFractionOfRowStorage() throws Exception {
+        List<Trade> trades = trades(20_000, new Random(3));
+        TradeSegment.Info info = TradeSegment.write(trades, dir.resolve("trades.seg"));
+
+        long rowBytes = 0;
+        ObjectMapper mapper = mapper();
+        for (Trade trade : trades) {
+            rowBytes += mapper.writeValueAsBytes(trade).length;
+        }
+        double ratio = (double) info.sizeBytes() / rowBytes;
+        Assertions.assertTrue(ratio < 0.1, "segment is " + info.sizeBytes() + " bytes, rows " + rowBytes + " bytes");
+    }
+
+    private static ObjectMapper mapper() {
+        return new ObjectMapper().registerModule(new JavaTimeModule());
+    }
+
+    // Trades shaped like the load test's: sequential ids with gaps, a few pairs and counterparties, unique trade ids
+    private static List<Trade> trades(int count, Random random) {
+        List<Trade> trades = new ArrayList<>();
+        LocalDateTime time = LocalDateTime.of(2024, 6, 1, 9, 0);
+        long id = 1;
+        for (int i = 0; i < count; i++) {
+            id += 1 + (i % 10 == 0 ? 1 : 0);
+            time = time.plusNanos(random.nextInt(2_000_000_000));
+            Trade trade = new Trade();
+            trade.setId(id);
+            trade.setTradeId("T" + (100000 + i));
+            trade.setCurrencyPair(PAIRS[random.nextInt(PAIRS.length)]);
+            trade.setNotional(i % 97 == 0 ? null : BigDecimal.valueOf(1_000_000L * (1 + random.nextInt(50))));
+            trade.setDirection(random.nextBoolean() ? "BUY" : "SELL");
+            trade.setPrice(i % 500 == 0
+                    ? new BigDecimal(new BigInteger(80, random), 4)
+                    : BigDecimal.valueOf(10500 + random.nextInt(200), 4));
+            trade.setCounterparty(COUNTERPARTIES[random.nextInt(COUNTERPARTIES.length)]);
+            trade.setTradeDateTime(i % 53 == 0 ? null : time);
+            trade.setTrader("Trader" + (1 + random.nextInt(10)));
+            trade.setBook("Book" + (char) ('A' + random.nextInt(4)));
+            trade.setStatus("CONFIRMED");
+            trade.setSettlementType("T+2");
+            trade.setSettlementDate(time.toLocalDate().plusDays(2).toString());
+            trade.setTradeType("SPOT");
+            trade.setExecutionVenue("Venue" + (1 + random.nextInt(5)));
+            trade.setSourceSystem("SystemA");
+            trade.setTradeReference("RefT" + random.nextInt(1000));
+            trade.setTradeComment(i % 3 == 0 ? null : "Sample trade");
+            trade.setTradeVersion("1");
+            trade.setTradeChannel("API");
+            trade.setTradeStrategy("Strategy1");
+            trade.setTradeDesk("Desk1");
+            trade.setTradeOrigin("Internal");
+            trade.setTradeLevel("Level1");
+            trade.setTradeSide("Buy");
+            trade.setTradeCondition("Normal");
+            trade.setTradeCategory("Category1");
+            trade.setTradeSubType("SubTypeA");
+            trade.setTradeBookType("BookTypeA");
+            trade.setQuoteId("Q" + (10000 + random.nextInt(90000)));
+            trades.add(trade);
+        }
+        return trades;
+    }
+}